@@ -5,15 +5,24 @@ import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import cwms.radar.api.enums.UnitSystem;
 import cwms.radar.api.errors.RadarError;
-import cwms.radar.data.dao.BasinDao;
+import cwms.radar.api.graph.basinconnectivity.BasinConnectivityIndex;
+import cwms.radar.api.graph.basinconnectivity.nodes.BasinConnectivityNode;
+import cwms.radar.api.graph.basinconnectivity.nodes.EmptyStreamNode;
+import cwms.radar.data.dao.AdaptiveRecentValueFinder;
+import cwms.radar.data.dao.BasinGraphCache;
+import cwms.radar.data.dao.ReferenceDataCache;
+import cwms.radar.data.dao.TimeSeriesDaoImpl;
+import cwms.radar.data.dto.RecentValue;
 import cwms.radar.data.dto.basinconnectivity.Basin;
+import cwms.radar.data.dto.basinconnectivity.BasinNodeVisit;
 import cwms.radar.formatters.ContentType;
 import cwms.radar.formatters.Formats;
-import cwms.radar.formatters.json.NamedPgJsonFormatter;
+import cwms.radar.security.CwmsAuthorizer;
 import io.javalin.apibuilder.CrudHandler;
 import io.javalin.core.util.Header;
 import io.javalin.http.Context;
 import io.javalin.http.HttpCode;
+import io.javalin.plugin.openapi.annotations.HttpMethod;
 import io.javalin.plugin.openapi.annotations.OpenApi;
 import io.javalin.plugin.openapi.annotations.OpenApiContent;
 import io.javalin.plugin.openapi.annotations.OpenApiParam;
@@ -26,7 +35,15 @@ import static com.codahale.metrics.MetricRegistry.name;
 import static cwms.radar.data.dao.JooqDao.getDslContext;
 
 import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.function.BiFunction;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 public class BasinController implements CrudHandler
@@ -40,6 +57,9 @@ public class BasinController implements CrudHandler
     private final Meter getOneRequest;
     private final Timer getOneRequestTime;
     private final Histogram requestResultSize;
+    private final Meter traverseRequests;
+    private final Timer traverseRequestsTime;
+    private final AdaptiveRecentValueFinder recentValueFinder;
 
     public BasinController(MetricRegistry metrics)
     {
@@ -50,6 +70,9 @@ public class BasinController implements CrudHandler
         getOneRequest = metrics.meter(name(className,"getOne","count"));
         getOneRequestTime = metrics.timer(name(className, "getOne", "time"));
         requestResultSize = metrics.histogram((name(className,"results","size")));
+        traverseRequests = metrics.meter(name(className,"traverse","count"));
+        traverseRequestsTime = metrics.timer(name(className, "traverse", "time"));
+        recentValueFinder = new AdaptiveRecentValueFinder(metrics);
     }
     @OpenApi(
             queryParams = {
@@ -59,7 +82,8 @@ public class BasinController implements CrudHandler
             responses = {
                     @OpenApiResponse(status="200",
                             content = {
-                                    @OpenApiContent(from = Basin.class, type = Formats.NAMED_PGJSON)
+                                    @OpenApiContent(from = Basin.class, type = Formats.NAMED_PGJSON),
+                                    @OpenApiContent(from = Basin.class, type = Formats.PGJSON)
                             }),
                     @OpenApiResponse(status="404", description = "The provided combination of parameters did not find a basin."),
                     @OpenApiResponse(status="501", description = "Requested format is not implemented")
@@ -78,15 +102,21 @@ public class BasinController implements CrudHandler
             String office = ctx.queryParam("office");
             String formatHeader = ctx.header(Header.ACCEPT) != null ? ctx.header(Header.ACCEPT) : Formats.NAMED_PGJSON;
             ContentType contentType = Formats.parseHeader(formatHeader);
-            ctx.contentType(contentType.toString());
-            BasinDao basinDao = new BasinDao(dsl);
-            List<Basin> basins = basinDao.getAllBasins(units, office);
-            if(contentType.getType().equals(Formats.NAMED_PGJSON))
+            if(!BasinGraphCache.FORMATS.contains(contentType.getType()))
+            {
+                ctx.status(HttpCode.NOT_IMPLEMENTED).json(new RadarError("Unsupported format for basins"));
+                return;
+            }
+            // built and rendered once per office, see BasinGraphCache
+            BasinGraphCache.BasinGraphs graphs = BasinGraphCache.getInstance().getOrLoad(dsl, office, units);
+            ReferenceDataCache.Rendered rendered = graphs.getRenderedAll(contentType.getType()).get();
+            if(ConditionalGet.isNotModified(ctx, rendered))
             {
-                NamedPgJsonFormatter basinPgJsonFormatter = new NamedPgJsonFormatter();
-                String result = basinPgJsonFormatter.format(basins);
-                ctx.result(result);
+                return;
             }
+            ctx.contentType(contentType.toString());
+            ctx.result(rendered.getBody());
+            requestResultSize.update(rendered.getBody().length);
         }
         catch (SQLException ex)
         {
@@ -96,13 +126,14 @@ public class BasinController implements CrudHandler
 
     @OpenApi(
             queryParams = {
-                    @OpenApiParam(name="office", required=false, description="Specifies the owning office of the basin whose data is to be included in the response. If this field is not specified, matching basin information from all offices shall be returned."),
+                    @OpenApiParam(name="office", required=false, description="Specifies the owning office of the basin whose data is to be included in the response. If this field is not specified, the session's office is used."),
                     @OpenApiParam(name="unit", required=false, description="Specifies the unit or unit system of the response. Valid values for the unit field are:\r\n 1. EN.   Specifies English unit system. Basin values will be in the default English units for their parameters. (This is default if no value is entered)\r\n2. SI.   Specifies the SI unit system. Basin values will be in the default SI units for their parameters."),
             },
             responses = {
                     @OpenApiResponse(status="200",
                             content = {
-                                    @OpenApiContent(from = Basin.class, type = Formats.NAMED_PGJSON)
+                                    @OpenApiContent(from = Basin.class, type = Formats.NAMED_PGJSON),
+                                    @OpenApiContent(from = Basin.class, type = Formats.PGJSON)
                             }),
                     @OpenApiResponse(status="404", description = "The provided combination of parameters did not find a basin."),
                     @OpenApiResponse(status="501", description = "Requested format is not implemented")
@@ -118,22 +149,28 @@ public class BasinController implements CrudHandler
             DSLContext dsl = getDslContext(ctx))
         {
             String units = ctx.queryParamAsClass("unit",String.class).getOrDefault( UnitSystem.EN.value());
-            String office = ctx.queryParam("office");
+            String office = officeOf(ctx);
             String formatHeader = ctx.header(Header.ACCEPT) != null ? ctx.header(Header.ACCEPT) : Formats.NAMED_PGJSON;
             ContentType contentType = Formats.parseHeader(formatHeader);
-            ctx.contentType(contentType.toString());
-            BasinDao basinDao = new BasinDao(dsl);
-            Basin basin = basinDao.getBasin(basinId, units, office);
-            if(contentType.getType().equals(Formats.NAMED_PGJSON))
+            if(!BasinGraphCache.FORMATS.contains(contentType.getType()))
             {
-                NamedPgJsonFormatter basinPgJsonFormatter = new NamedPgJsonFormatter();
-                String result = basinPgJsonFormatter.format(basin);
-                ctx.result(result);
+                ctx.status(HttpCode.NOT_IMPLEMENTED).json(new RadarError("Unsupported format for basins"));
+                return;
             }
-            else
+            BasinGraphCache.BasinGraphs graphs = BasinGraphCache.getInstance().getOrLoad(dsl, office, basinId, units);
+            Optional<ReferenceDataCache.Rendered> rendered = graphs.getRendered(basinId, contentType.getType());
+            if(!rendered.isPresent())
             {
-                ctx.status(HttpStatus.NOT_FOUND_404).json(new RadarError("Unsupported format for basins"));
+                ctx.status(HttpStatus.NOT_FOUND_404).json(new RadarError("Unable to find basin " + basinId));
+                return;
             }
+            if(ConditionalGet.isNotModified(ctx, rendered.get()))
+            {
+                return;
+            }
+            ctx.contentType(contentType.toString());
+            ctx.result(rendered.get().getBody());
+            requestResultSize.update(rendered.get().getBody().length);
         }
         catch (SQLException ex)
         {
@@ -141,6 +178,235 @@ public class BasinController implements CrudHandler
             LOGGER.log(Level.SEVERE, errorMsg, ex);
         }
     }
+    @OpenApi(
+            pathParams = {
+                    @OpenApiParam(name="basin-id", required=true, description="The basin to walk."),
+                    @OpenApiParam(name="node-id", required=true, description="The location, or empty stream node, to start from."),
+            },
+            queryParams = {
+                    @OpenApiParam(name="office", required=false, description="Specifies the owning office of the basin. If this field is not specified, the session's office is used."),
+                    @OpenApiParam(name="unit", required=false, description="Specifies the unit system the basin is read in, EN (the default) or SI."),
+                    @OpenApiParam(name="timeseries", required=false, description="The time series, less its location, whose latest value is returned with each location, for example Stage.Inst.15Minutes.0.Ccp-Rev. If this field is not specified no values are returned."),
+                    @OpenApiParam(name="include-empty", required=false, type=Boolean.class, description="Whether the stream junctions and ends that are not locations are returned. The default is false."),
+            },
+            responses = {
+                    @OpenApiResponse(status="200", description = "The nodes upstream of the node, starting with the node itself and nearest first.",
+                            content = {
+                                    @OpenApiContent(from = BasinNodeVisit.class, isArray = true, type = Formats.JSONV2)
+                            }),
+                    @OpenApiResponse(status="404", description = "The basin, or the node in it, was not found."),
+            },
+            path = "/basins/{basin-id}/upstream/{node-id}",
+            method = HttpMethod.GET,
+            description = "Returns every node whose water reaches a node of a basin, in the order the tributaries contribute",
+            tags = {TAG}
+    )
+    public void getUpstream(@NotNull Context ctx)
+    {
+        traverse(ctx, BasinConnectivityIndex::upstream);
+    }
+
+    @OpenApi(
+            pathParams = {
+                    @OpenApiParam(name="basin-id", required=true, description="The basin to walk."),
+                    @OpenApiParam(name="node-id", required=true, description="The location, or empty stream node, to start from."),
+            },
+            queryParams = {
+                    @OpenApiParam(name="office", required=false, description="Specifies the owning office of the basin. If this field is not specified, the session's office is used."),
+                    @OpenApiParam(name="unit", required=false, description="Specifies the unit system the basin is read in, EN (the default) or SI."),
+                    @OpenApiParam(name="timeseries", required=false, description="The time series, less its location, whose latest value is returned with each location, for example Stage.Inst.15Minutes.0.Ccp-Rev. If this field is not specified no values are returned."),
+                    @OpenApiParam(name="include-empty", required=false, type=Boolean.class, description="Whether the stream junctions and ends that are not locations are returned. The default is false."),
+            },
+            responses = {
+                    @OpenApiResponse(status="200", description = "The path from the node to the basin outlet, in flow order.",
+                            content = {
+                                    @OpenApiContent(from = BasinNodeVisit.class, isArray = true, type = Formats.JSONV2)
+                            }),
+                    @OpenApiResponse(status="404", description = "The basin, or the node in it, was not found."),
+            },
+            path = "/basins/{basin-id}/downstream/{node-id}",
+            method = HttpMethod.GET,
+            description = "Returns the path from a node of a basin down to the basin's outlet",
+            tags = {TAG}
+    )
+    public void getDownstream(@NotNull Context ctx)
+    {
+        traverse(ctx, BasinConnectivityIndex::downstream);
+    }
+
+    @OpenApi(
+            pathParams = {
+                    @OpenApiParam(name="basin-id", required=true, description="The basin to walk."),
+                    @OpenApiParam(name="node-id", required=true, description="The location, or empty stream node, to start from."),
+            },
+            queryParams = {
+                    @OpenApiParam(name="hops", required=false, type=Integer.class, description="How many stream edges away, up or down stream, a node may be. The default is 1."),
+                    @OpenApiParam(name="office", required=false, description="Specifies the owning office of the basin. If this field is not specified, the session's office is used."),
+                    @OpenApiParam(name="unit", required=false, description="Specifies the unit system the basin is read in, EN (the default) or SI."),
+                    @OpenApiParam(name="timeseries", required=false, description="The time series, less its location, whose latest value is returned with each location, for example Stage.Inst.15Minutes.0.Ccp-Rev. If this field is not specified no values are returned."),
+                    @OpenApiParam(name="include-empty", required=false, type=Boolean.class, description="Whether the stream junctions and ends that are not locations are returned. The default is false."),
+            },
+            responses = {
+                    @OpenApiResponse(status="200", description = "The nodes within hops of the node, nearest first.",
+                            content = {
+                                    @OpenApiContent(from = BasinNodeVisit.class, isArray = true, type = Formats.JSONV2)
+                            }),
+                    @OpenApiResponse(status="400", description = "hops is negative."),
+                    @OpenApiResponse(status="404", description = "The basin, or the node in it, was not found."),
+            },
+            path = "/basins/{basin-id}/neighborhood/{node-id}",
+            method = HttpMethod.GET,
+            description = "Returns the nodes of a basin within a number of stream edges of a node",
+            tags = {TAG}
+    )
+    public void getNeighborhood(@NotNull Context ctx)
+    {
+        int hops = ctx.queryParamAsClass("hops", Integer.class).getOrDefault(1);
+        if(hops < 0)
+        {
+            ctx.status(HttpCode.BAD_REQUEST).json(new RadarError("hops must not be negative"));
+            return;
+        }
+        traverse(ctx, (index, node) -> index.neighborhood(node, hops));
+    }
+
+    private void traverse(Context ctx, BiFunction<BasinConnectivityIndex, Integer, List<BasinConnectivityIndex.Visit>> walk)
+    {
+        traverseRequests.mark();
+        String basinId = ctx.pathParam("basin-id");
+        String nodeId = ctx.pathParam("node-id");
+        try(final Timer.Context timeContext = traverseRequestsTime.time();
+            DSLContext dsl = getDslContext(ctx))
+        {
+            String units = ctx.queryParamAsClass("unit",String.class).getOrDefault(UnitSystem.EN.value());
+            String office = officeOf(ctx);
+            String timeseries = ctx.queryParam("timeseries");
+            boolean includeEmpty = ctx.queryParamAsClass("include-empty", Boolean.class).getOrDefault(false);
+
+            // walked over the index built with the cached graph, see BasinGraphCache
+            BasinGraphCache.BasinGraphs graphs = BasinGraphCache.getInstance().getOrLoad(dsl, office, basinId, units);
+            Optional<BasinConnectivityIndex> index = graphs.getIndex(basinId);
+            if(!index.isPresent())
+            {
+                ctx.status(HttpStatus.NOT_FOUND_404).json(new RadarError("Unable to find basin " + basinId));
+                return;
+            }
+            OptionalInt start = index.get().indexOf(nodeId);
+            if(!start.isPresent())
+            {
+                ctx.status(HttpStatus.NOT_FOUND_404).json(new RadarError("Unable to find " + nodeId + " in basin " + basinId));
+                return;
+            }
+
+            List<BasinConnectivityIndex.Visit> visits = new ArrayList<>();
+            for(BasinConnectivityIndex.Visit visit : walk.apply(index.get(), start.getAsInt()))
+            {
+                if(includeEmpty || !(visit.getNode() instanceof EmptyStreamNode))
+                {
+                    visits.add(visit);
+                }
+            }
+            Map<String, RecentValue> latestValues = findLatestValues(dsl, office, visits, timeseries);
+
+            List<BasinNodeVisit> results = new ArrayList<>(visits.size());
+            for(BasinConnectivityIndex.Visit visit : visits)
+            {
+                BasinConnectivityNode node = visit.getNode();
+                results.add(new BasinNodeVisit(node.getId(), node.getStreamId(), node.getStation(), node.getBank(),
+                        node.getLabel(), visit.getHops(), latestValues.get(node.getId().toUpperCase())));
+            }
+            String body = Formats.format(new ContentType(Formats.JSONV2), results, BasinNodeVisit.class);
+            ctx.contentType(Formats.JSONV2);
+            ctx.result(body);
+            requestResultSize.update(body.length());
+        }
+        catch (SQLException ex)
+        {
+            RadarError re = new RadarError("Unable to walk basin " + basinId);
+            LOGGER.log(Level.SEVERE, re.toString(), ex);
+            ctx.status(HttpCode.INTERNAL_SERVER_ERROR).json(re);
+        }
+    }
+
+    /**
+     * The office asked for, or the session's office, so one basin is answered from the graphs
+     * cached for its office rather than by reading every basin.
+     */
+    private static String officeOf(Context ctx)
+    {
+        String office = ctx.queryParam("office");
+        return office != null ? office : ctx.attribute("office_id");
+    }
+
+    /**
+     * The latest value of each location's timeseries, by upper case location, all in one lookup.
+     */
+    private Map<String, RecentValue> findLatestValues(DSLContext dsl, String office, List<BasinConnectivityIndex.Visit> visits, String timeseries)
+    {
+        if(timeseries == null || timeseries.isEmpty())
+        {
+            return Collections.emptyMap();
+        }
+        // the time series asked for, upper case, to the location it belongs to
+        Map<String, String> locations = new HashMap<>();
+        List<String> tsIds = new ArrayList<>();
+        for(BasinConnectivityIndex.Visit visit : visits)
+        {
+            if(!(visit.getNode() instanceof EmptyStreamNode))
+            {
+                String tsId = visit.getNode().getId() + "." + timeseries;
+                locations.put(tsId.toUpperCase(), visit.getNode().getId().toUpperCase());
+                tsIds.add(tsId);
+            }
+        }
+        Map<String, RecentValue> retval = new HashMap<>();
+        if(tsIds.isEmpty())
+        {
+            return retval;
+        }
+        TimeSeriesDaoImpl dao = new TimeSeriesDaoImpl(dsl);
+        for(RecentValue value : recentValueFinder.findMostRecents(tsIds, Instant.now(),
+                TimeSeriesController.getRecentFutureLimit(), dao::findMostRecentsInRange))
+        {
+            String location = locations.get(value.getId().toUpperCase());
+            if(location != null && (office == null || office.equalsIgnoreCase(value.getDqu().getId().getOfficeId())))
+            {
+                retval.put(location, value);
+            }
+        }
+        return retval;
+    }
+
+    @OpenApi(
+            queryParams = {
+                    @OpenApiParam(name="office", required=false, description="Reload only the basins of this office. If this field is not specified, the basins of every office held are reloaded."),
+            },
+            responses = {
+                    @OpenApiResponse(status="200", description = "The basins were reloaded, the body is the number of offices and unit systems reloaded."),
+            },
+            path = "/basins/refresh",
+            method = HttpMethod.POST,
+            description = "Reloads the cached basin connectivity graphs from the database, for after the basins have been edited",
+            tags = {TAG}
+    )
+    public void refresh(@NotNull Context ctx)
+    {
+        ((CwmsAuthorizer)ctx.appAttribute("Authorizer")).can_perform(ctx);
+
+        try(DSLContext dsl = getDslContext(ctx))
+        {
+            String office = ctx.queryParam("office");
+            int reloaded = BasinGraphCache.getInstance().reload(dsl, office);
+            ctx.status(HttpCode.OK).json(reloaded);
+        }
+        catch (SQLException ex)
+        {
+            RadarError re = new RadarError("Unable to reload the basins");
+            LOGGER.log(Level.SEVERE, re.toString(), ex);
+            ctx.status(HttpCode.INTERNAL_SERVER_ERROR).json(re);
+        }
+    }
+
     @OpenApi(ignore = true)
     @Override
     public void update(@NotNull Context ctx, @NotNull String s)
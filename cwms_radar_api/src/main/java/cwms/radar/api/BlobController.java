@@ -1,8 +1,12 @@
 package cwms.radar.api;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Collections;
-import java.util.List;
 import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
@@ -30,6 +34,7 @@ import io.javalin.plugin.openapi.annotations.OpenApiParam;
 import io.javalin.plugin.openapi.annotations.OpenApiResponse;
 import org.eclipse.jetty.http.HttpStatus;
 import org.jooq.DSLContext;
+import org.jooq.exception.DataAccessException;
 
 import static com.codahale.metrics.MetricRegistry.name;
 
@@ -38,8 +43,12 @@ import static com.codahale.metrics.MetricRegistry.name;
  *
  */
 public class BlobController implements CrudHandler {
+    private static final Logger logger = Logger.getLogger(BlobController.class.getName());
 
     private static final int defaultPageSize = 20;
+    private static final int maxPageSize = BlobDao.MAX_PAGE_SIZE;
+    // how much of a blob is read from the database and written to the client at a time
+    private static final int CHUNK_SIZE = 64 * 1024;
     private final MetricRegistry metrics;
     private final Meter getAllRequests;
     private final Timer getAllRequestsTime;
@@ -74,7 +83,7 @@ public class BlobController implements CrudHandler {
                 @OpenApiParam(name="pageSize",
                             required=false,
                             type=Integer.class,
-                            description = "How many entries per page returned. Default " + defaultPageSize + "."
+                            description = "How many entries per page returned. Default " + defaultPageSize + ", at most " + maxPageSize + "."
                 ),
                 @OpenApiParam(name="like",
                     required = false,
@@ -112,10 +121,10 @@ public class BlobController implements CrudHandler {
             }
 
 
-            int pageSize = ctx.queryParamAsClass("pageSize",Integer.class)
+            int pageSize = Math.min(maxPageSize, ctx.queryParamAsClass("pageSize",Integer.class)
 								.getOrDefault(
 									ctx.queryParamAsClass("pagesize",Integer.class).getOrDefault(defaultPageSize)
-								);
+								));
 
             String like = ctx.queryParamAsClass("like",String.class).getOrDefault(".*");
 
@@ -124,14 +133,21 @@ public class BlobController implements CrudHandler {
             ContentType contentType = Formats.parseHeaderAndQueryParm(formatHeader, formatParm);
 
             BlobDao dao = new BlobDao(dsl);
-            List<Blob> blobList = dao.getAll(officeOpt, like);
-
-            Blobs blobs = new Blobs.Builder(cursor, pageSize, 0).addAll(blobList).build();
-            String result = Formats.format(contentType,blobs);
+            Blobs blobs;
+            try
+            {
+                blobs = dao.getBlobs(cursor, pageSize, officeOpt, like);
+            }
+            catch(IllegalArgumentException ex)
+            {
+                ctx.json(new RadarError(ex.getMessage())).status(HttpCode.BAD_REQUEST);
+                return;
+            }
+            byte[] result = Formats.formatBytes(contentType,blobs);
 
             ctx.result(result);
             ctx.contentType(contentType.toString());
-            requestResultSize.update(result.length());
+            requestResultSize.update(result.length);
         }
     }
 
@@ -139,6 +155,17 @@ public class BlobController implements CrudHandler {
             queryParams = {
             @OpenApiParam(name = "office", description = "Specifies the owning office."),
     },
+        headers = {
+            @OpenApiParam(name = "Range", description = "A single byte range, for example bytes=0-1023, to return only part of the blob."),
+            @OpenApiParam(name = "If-Range", description = "The ETag of the blob the Range was worked out for, the whole blob is returned if it has changed since."),
+        },
+        responses = {
+            @OpenApiResponse(status = "200", description = "The blob, as its media type."),
+            @OpenApiResponse(status = "206", description = "The range of the blob asked for, as its media type."),
+            @OpenApiResponse(status = "304", description = "The blob has not changed since the ETag in If-None-Match."),
+            @OpenApiResponse(status = "404", description = "There is no such blob."),
+            @OpenApiResponse(status = "416", description = "The range is past the end of the blob."),
+        },
         tags = {"Blob"}
     )
     @Override
@@ -151,21 +178,59 @@ public class BlobController implements CrudHandler {
             BlobDao dao = new BlobDao(dsl);
             String officeQP = ctx.queryParam("office");
             Optional<String> office = Optional.ofNullable(officeQP);
-            Optional<Blob> optAc = dao.getByUniqueName(blobId,  office);
+            // streamed from the LOB while the connection is open, never held whole
+            boolean found = dao.streamByUniqueName(blobId, office, (blob, content) -> writeBlob(ctx, blob, content));
 
-            if( optAc.isPresent() ){
-                Blob blob = optAc.get();
-
-                ctx.contentType(blob.getMediaTypeId());
-                byte[] value = blob.getValue();
-                ctx.result(value);
-
-                requestResultSize.update(value.length);
-            } else {
+            if(!found){
                 ctx.status(HttpStatus.NOT_FOUND_404).json(new RadarError("Unable to find blob based on given parameters"));
             }
+        } catch(DataAccessException ex) {
+            if(!ctx.res.isCommitted()) {
+                throw ex;
+            }
+            // part of the blob has been sent, all that can be done is to stop
+            logger.log(Level.FINE, "Blob " + blobId + " was not sent in full", ex);
+        }
+    }
+
+    private void writeBlob(Context ctx, Blob blob, BlobDao.BlobContent content) throws java.sql.SQLException, IOException {
+        String etag = ConditionalGet.versionEtag(blob.getOffice() + "/" + blob.getId() + "/" + content.getVersion());
+        if(ConditionalGet.isNotModifiedVersion(ctx, etag)) {
+            return;
+        }
+        long length = content.length();
+        ctx.header(Header.ACCEPT_RANGES, "bytes");
+        ctx.contentType(blob.getMediaTypeId());
+
+        String ifRange = ctx.header(Header.IF_RANGE);
+        ByteRange range = ifRange == null || ifRange.equals(etag) ? ByteRange.parse(ctx.header(Header.RANGE), length) : null;
+        long start = 0;
+        long count = length;
+        if(range != null) {
+            ctx.header(Header.CONTENT_RANGE, range.getContentRange());
+            if(!range.isSatisfiable()) {
+                ctx.status(HttpCode.RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            ctx.status(HttpCode.PARTIAL_CONTENT);
+            start = range.getStart();
+            count = range.getCount();
+        }
+        ctx.header(Header.CONTENT_LENGTH, String.valueOf(count));
+        requestResultSize.update(count);
+        if(count == 0) {
+            return;
+        }
 
+        byte[] buffer = new byte[CHUNK_SIZE];
+        OutputStream out = ctx.res.getOutputStream();
+        try(InputStream in = content.getStream(start, count)) {
+            int read;
+            while((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
         }
+        out.flush();
     }
 
 
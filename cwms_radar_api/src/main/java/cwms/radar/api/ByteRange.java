@@ -0,0 +1,85 @@
+package cwms.radar.api;
+
+/**
+ * The single byte range of a Range header, resolved against the length of the content.
+ *
+ * Only one range is served, a header asking for several is ignored and the whole content sent,
+ * which RFC 7233 allows.
+ */
+final class ByteRange {
+    private static final String UNIT = "bytes=";
+
+    private final long start;
+    private final long end;
+    private final long length;
+
+    private ByteRange(long start, long end, long length) {
+        this.start = start;
+        this.end = end;
+        this.length = length;
+    }
+
+    /**
+     * @param range the Range header, may be null
+     * @param length the length of the content
+     * @return the range asked for, null if the whole content should be sent
+     */
+    static ByteRange parse(String range, long length) {
+        if (range == null || !range.startsWith(UNIT) || range.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = range.substring(UNIT.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // the last n bytes
+                long suffix = Long.parseLong(last);
+                if (suffix < 0) {
+                    return null;
+                }
+                return new ByteRange(Math.max(0, length - suffix), length - 1, length);
+            }
+            long start = Long.parseLong(first);
+            if (last.isEmpty()) {
+                return start < 0 ? null : new ByteRange(start, length - 1, length);
+            }
+            long end = Long.parseLong(last);
+            if (start < 0 || end < start) {
+                return null;
+            }
+            return new ByteRange(start, Math.min(end, length - 1), length);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @return false if no byte of the range is in the content, the response is then a 416
+     */
+    boolean isSatisfiable() {
+        return start < length && start <= end;
+    }
+
+    long getStart() {
+        return start;
+    }
+
+    long getCount() {
+        return end - start + 1;
+    }
+
+    /**
+     * @return the Content-Range of a 206, or of a 416 if the range isn't satisfiable
+     */
+    String getContentRange() {
+        if (!isSatisfiable()) {
+            return "bytes */" + length;
+        }
+        return "bytes " + start + "-" + end + "/" + length;
+    }
+}
@@ -1,7 +1,12 @@
 package cwms.radar.api;
 
+import java.io.IOException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.function.Predicate;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
@@ -9,6 +14,9 @@ import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import cwms.radar.api.enums.UnitSystem;
 import cwms.radar.api.errors.RadarError;
+import cwms.radar.data.dao.CatalogSnapshot;
+import cwms.radar.data.dao.CatalogSnapshotCache;
+import cwms.radar.data.dao.ChangeFingerprintDao;
 import cwms.radar.data.dao.JooqDao;
 import cwms.radar.data.dao.LocationsDao;
 import cwms.radar.data.dao.LocationsDaoImpl;
@@ -16,8 +24,14 @@ import cwms.radar.data.dao.TimeSeriesDao;
 import cwms.radar.data.dao.TimeSeriesDaoImpl;
 import cwms.radar.data.dto.Catalog;
 import cwms.radar.data.dto.Office;
+import cwms.radar.data.dto.catalog.CatalogEntry;
+import cwms.radar.data.dto.catalog.LocationCatalogEntry;
+import cwms.radar.data.dto.catalog.TimeseriesCatalogEntry;
 import cwms.radar.formatters.ContentType;
+import cwms.radar.formatters.CountingOutputStream;
+import cwms.radar.formatters.Fields;
 import cwms.radar.formatters.Formats;
+import cwms.radar.formatters.json.NdJsonWriter;
 import io.javalin.apibuilder.CrudHandler;
 import io.javalin.http.Context;
 import io.javalin.http.HttpCode;
@@ -72,12 +86,12 @@ public class CatalogController implements CrudHandler{
         queryParams = {
             @OpenApiParam(name="cursor",
                           required = false,
-                          description = "This end point can return a lot of data, this identifies where in the request you are."
+                          description = "This end point can return a lot of data, this identifies where in the request you are. Pass the same filters with every page."
             ),
             @OpenApiParam(name="pageSize",
                           required= false,
                           type=Integer.class,
-                          description = "How many entires per page returned. Default 500."
+                          description = "How many entires per page returned. Default 500. Ignored for application/x-ndjson, which streams every entry in one response."
             ),
             @OpenApiParam(name="unitSystem",
                           required = false,
@@ -87,6 +101,23 @@ public class CatalogController implements CrudHandler{
             @OpenApiParam(name="office",
                           required = false,
                           description = "3-4 letter office name representing the district you want to isolate data to."
+            ),
+            @OpenApiParam(name="like",
+                          required = false,
+                          description = "Only entries whose name starts with this pattern, where * matches any run of characters, e.g. Keys or *Stage. Case sensitive."
+            ),
+            @OpenApiParam(name="unit",
+                          required = false,
+                          description = "Only time series stored in this unit. Ignored for locations."
+            ),
+            @OpenApiParam(name="live",
+                          required = false,
+                          type = Boolean.class,
+                          description = "Read the catalog from the database rather than the copy the server refreshes every few minutes. Default false."
+            ),
+            @OpenApiParam(name="fields",
+                          required = false,
+                          description = "Comma separated properties of each entry to return, e.g. units, or kind,latitude,longitude for locations. The office and name are always read. Default all of them."
             )
         },
         pathParams = {
@@ -99,7 +130,9 @@ public class CatalogController implements CrudHandler{
                                        description = "A list of elements the data set you've selected.",
                                        content = {
                                            @OpenApiContent(from = Catalog.class, type=Formats.JSONV2),
-                                           @OpenApiContent(from = Catalog.class, type=Formats.XML)
+                                           @OpenApiContent(from = Catalog.class, type=Formats.XML),
+                                           @OpenApiContent(type=Formats.ARROW_STREAM),
+                                           @OpenApiContent(type=Formats.NDJSON)
                                        }
                       )
                     },
@@ -109,8 +142,7 @@ public class CatalogController implements CrudHandler{
     public void getOne(Context ctx, String dataSet) {
         getOneRequest.mark();
         try (
-            final Timer.Context timeContext = getOneRequestTime.time();
-            DSLContext dsl = JooqDao.getDslContext(ctx)
+            final Timer.Context timeContext = getOneRequestTime.time()
         ) {
 
             String valDataSet = ((PolicyFactory) ctx.appAttribute("PolicyFactory")).sanitize(dataSet);
@@ -125,18 +157,78 @@ public class CatalogController implements CrudHandler{
                                             .check( ofc -> Office.validOfficeCanNull(ofc), "Invalid office provided" )
                                             .get()
                                         );
+            String like = ctx.queryParamAsClass("like",String.class).allowNullable().get();
+            String unit = ctx.queryParamAsClass("unit",String.class).allowNullable().get();
+            boolean live = ctx.queryParamAsClass("live",Boolean.class).getOrDefault(false);
+            Set<String> fields;
+            try {
+                fields = Fields.parse(ctx.queryParam("fields"), entryType(valDataSet));
+            } catch (IllegalArgumentException ex) {
+                ctx.json(new RadarError(ex.getMessage())).status(HttpCode.BAD_REQUEST);
+                return;
+            }
             String acceptHeader = ctx.header("Accept");
             ContentType contentType = Formats.parseHeaderAndQueryParm(acceptHeader, null);
             Catalog cat = null;
-            if( "timeseries".equalsIgnoreCase(valDataSet)){
-                TimeSeriesDao tsDao = new TimeSeriesDaoImpl(dsl);
-                cat = tsDao.getTimeSeriesCatalog(cursor, pageSize, office );
-            } else if ("locations".equalsIgnoreCase(valDataSet)){
-                LocationsDao dao = new LocationsDaoImpl(dsl);
-                cat = dao.getLocationCatalog(cursor, pageSize, unitSystem, office );
+            // looked up once, so the ETag and the page come from the same snapshot even if a refresh replaces it
+            Optional<CatalogSnapshot<TimeseriesCatalogEntry>> tsSnapshot = Optional.empty();
+            Optional<CatalogSnapshot<LocationCatalogEntry>> locSnapshot = Optional.empty();
+            if( !live && !Formats.NDJSON.equals(contentType.getType()) ){
+                if( "timeseries".equalsIgnoreCase(valDataSet) ){
+                    tsSnapshot = CatalogSnapshotCache.getInstance().getTimeSeries();
+                } else if( "locations".equalsIgnoreCase(valDataSet) ){
+                    locSnapshot = CatalogSnapshotCache.getInstance().getLocations(unitSystem);
+                }
+            }
+            CatalogSnapshot<?> snapshot = tsSnapshot.isPresent() ? tsSnapshot.get() : locSnapshot.orElse(null);
+            if( snapshot != null ){
+                // answered from memory, without a database connection
+                if(ConditionalGet.isNotModified(ctx, snapshot::getFingerprint)){
+                    return;
+                }
+                if( tsSnapshot.isPresent() ){
+                    cat = tsSnapshot.get().getPage(cursor, pageSize, office, like, unitFilter(unit));
+                } else {
+                    cat = locSnapshot.get().getPage(cursor, pageSize, office, like, null);
+                }
+            } else {
+                try( DSLContext dsl = JooqDao.getDslContext(ctx) ){
+                    if( "timeseries".equalsIgnoreCase(valDataSet)){
+                        if(ConditionalGet.isNotModified(ctx, () -> new ChangeFingerprintDao(dsl).getTableFingerprint(ChangeFingerprintDao.TIMESERIES_CATALOG_TABLES))){
+                            return;
+                        }
+                        TimeSeriesDao tsDao = new TimeSeriesDaoImpl(dsl);
+                        if( Formats.NDJSON.equals(contentType.getType()) ){
+                            ctx.contentType(contentType.toString());
+                            try( Stream<TimeseriesCatalogEntry> entries = tsDao.streamTimeSeriesCatalog(office, like, unit) ){
+                                new NdJsonWriter().write(entries, ctx.res.getOutputStream());
+                            }
+                            return;
+                        }
+                        cat = tsDao.getTimeSeriesCatalog(cursor, pageSize, office, like, unit, fields );
+                    } else if ("locations".equalsIgnoreCase(valDataSet)){
+                        if(ConditionalGet.isNotModified(ctx, () -> new ChangeFingerprintDao(dsl).getTableFingerprint(ChangeFingerprintDao.LOCATION_TABLES))){
+                            return;
+                        }
+                        LocationsDao dao = new LocationsDaoImpl(dsl);
+                        if( Formats.NDJSON.equals(contentType.getType()) ){
+                            ctx.contentType(contentType.toString());
+                            try( Stream<LocationCatalogEntry> entries = dao.streamLocationCatalog(unitSystem, office, like) ){
+                                new NdJsonWriter().write(entries, ctx.res.getOutputStream());
+                            }
+                            return;
+                        }
+                        cat = dao.getLocationCatalog(cursor, pageSize, unitSystem, office, like, fields );
+                    }
+                }
             }
-            if( cat != null ){
-                String data = Formats.format(contentType, cat);
+            if( cat != null && Formats.isStreaming(contentType, Catalog.class)){
+                ctx.contentType(contentType.toString());
+                CountingOutputStream out = new CountingOutputStream(ctx.res.getOutputStream());
+                Formats.format(contentType, cat, out);
+                requestResultSize.update(out.getCount());
+            } else if( cat != null ){
+                String data = Formats.format(contentType, cat, fields);
                 ctx.result(data).contentType(contentType.toString());
                 requestResultSize.update(data.length());
             } else {
@@ -145,7 +237,22 @@ public class CatalogController implements CrudHandler{
                 logger.info(() -> re.toString() + "with url:" + ctx.fullUrl());
                 ctx.json(re).status(HttpCode.NOT_FOUND);
             }
+        } catch (IOException ex) {
+            RadarError re = new RadarError("Failed to send catalog");
+            logger.log(Level.SEVERE, re.toString(), ex);
+            ctx.status(HttpCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private static Class<? extends CatalogEntry> entryType(String dataSet) {
+        return "timeseries".equalsIgnoreCase(dataSet) ? TimeseriesCatalogEntry.class : LocationCatalogEntry.class;
+    }
+
+    private static Predicate<TimeseriesCatalogEntry> unitFilter(String unit) {
+        if( unit == null || unit.isEmpty() ){
+            return null;
         }
+        return entry -> unit.equals(entry.getUnits());
     }
 
     @OpenApi(tags = {"Catalog"},ignore = true)
@@ -1,7 +1,14 @@
 package cwms.radar.api;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 import javax.servlet.http.HttpServletResponse;
 
 import com.codahale.metrics.Histogram;
@@ -17,6 +24,7 @@ import cwms.radar.data.dto.Clobs;
 import cwms.radar.data.dto.CwmsDTOPaginated;
 import cwms.radar.formatters.ContentType;
 import cwms.radar.formatters.Formats;
+import cwms.radar.formatters.json.NdJsonWriter;
 import io.javalin.apibuilder.CrudHandler;
 import io.javalin.core.util.Header;
 import io.javalin.http.Context;
@@ -38,6 +46,9 @@ import static com.codahale.metrics.MetricRegistry.name;
 public class ClobController implements CrudHandler {
     private static final Logger logger = Logger.getLogger(ClobController.class.getName());
     private static final int defaultPageSize = 20;
+    private static final int maxPageSize = 500;
+    // how much of a clob value is read from the database and written to the client at a time
+    private static final int CHUNK_SIZE = 32 * 1024;
     private final MetricRegistry metrics;
     private final Meter getAllRequests;
     private final Timer getAllRequestsTime;
@@ -72,7 +83,7 @@ public class ClobController implements CrudHandler {
                 @OpenApiParam(name="pageSize",
                             required=false,
                             type=Integer.class,
-                            description = "How many entries per page returned. Default " + defaultPageSize + "."
+                            description = "How many entries per page returned. Default " + defaultPageSize + ", at most " + maxPageSize + "."
                 ),
                 @OpenApiParam(name="includeValues",
                     required = false,
@@ -89,7 +100,8 @@ public class ClobController implements CrudHandler {
                                        description = "A list of clobs.",
                                        content = {
                                            @OpenApiContent( type = Formats.JSONV2, from = Clobs.class ),
-                                           @OpenApiContent( type = Formats.XMLV2, from = Clobs.class )
+                                           @OpenApiContent( type = Formats.XMLV2, from = Clobs.class ),
+                                           @OpenApiContent( type = Formats.NDJSON, from = Clob.class )
                                        }
                       )
                     },
@@ -112,10 +124,10 @@ public class ClobController implements CrudHandler {
                     .status(HttpCode.BAD_REQUEST);
                 return;
             }
-            int pageSize = ctx.queryParamAsClass("pageSize",Integer.class)
+            int pageSize = Math.min(maxPageSize, ctx.queryParamAsClass("pageSize",Integer.class)
 								.getOrDefault(
 									ctx.queryParamAsClass("pagesize",Integer.class).getOrDefault(defaultPageSize)
-								);
+								));
 
             boolean includeValues = ctx.queryParamAsClass("includeValues",Boolean.class).getOrDefault(false);
             String like = ctx.queryParamAsClass("like",String.class).getOrDefault(".*");
@@ -125,13 +137,24 @@ public class ClobController implements CrudHandler {
             ContentType contentType = Formats.parseHeaderAndQueryParm(formatHeader, formatParm);
 
             ClobDao dao = new ClobDao(dsl);
+            if( Formats.NDJSON.equals(contentType.getType()) ){
+                ctx.contentType(contentType.toString());
+                try( Stream<Clob> clobs = dao.streamClobs(officeOpt, includeValues, like) ){
+                    new NdJsonWriter().write(clobs, ctx.res.getOutputStream());
+                }
+                return;
+            }
             Clobs clobs = dao.getClobs(cursor, pageSize, officeOpt, includeValues, like);
-            String result = Formats.format(contentType,clobs);
+            byte[] result = Formats.formatBytes(contentType,clobs);
 
             ctx.result(result);
             ctx.contentType(contentType.toString());
-            requestResultSize.update(result.length());
+            requestResultSize.update(result.length);
 
+        } catch (IOException ex) {
+            RadarError re = new RadarError("Failed to send clobs");
+            logger.log(Level.SEVERE, re.toString(), ex);
+            ctx.status(HttpCode.INTERNAL_SERVER_ERROR);
         }
     }
 
@@ -145,6 +168,7 @@ public class ClobController implements CrudHandler {
                                        description = "Returns requested clob.",
                                        content = {
                                            @OpenApiContent(type = Formats.JSON, from = Clob.class ),
+                                           @OpenApiContent(type = Formats.PLAIN, from = String.class ),
                                        }
                       )
                     },
@@ -159,30 +183,70 @@ public class ClobController implements CrudHandler {
         ) {
             ClobDao dao = new ClobDao(dsl);
             Optional<String> office = Optional.ofNullable(ctx.queryParam("office"));
+
+            if( isPlainText(ctx.header(Header.ACCEPT)) ){
+                // just the value, streamed from the CLOB rather than read into a String first
+                boolean found = dao.streamClobValue(clobId, office, value -> writeValue(ctx, value));
+                if( !found ){
+                    ctx.status(HttpStatus.NOT_FOUND_404).json(new RadarError("Unable to find clob based on given parameters"));
+                }
+                return;
+            }
+
             Optional<Clob> optAc = dao.getByUniqueName(clobId,  office);
 
             if( optAc.isPresent() ){
                 String formatHeader = ctx.header(Header.ACCEPT);
                 ContentType contentType = Formats.parseHeaderAndQueryParm(formatHeader, "");
 
-                String result = Formats.format(contentType, optAc.get());
+                byte[] result = Formats.formatBytes(contentType, optAc.get());
 
                 ctx.contentType(contentType.toString());
                 ctx.result(result);
 
-                requestResultSize.update(result.length());
+                requestResultSize.update(result.length);
             } else {
                 ctx.status(HttpStatus.NOT_FOUND_404).json(new RadarError("Unable to find clob based on given parameters"));
             }
 
 
 
+        } catch (IOException ex) {
+            RadarError re = new RadarError("Failed to send clob");
+            logger.log(Level.SEVERE, re.toString(), ex);
+            ctx.status(HttpCode.INTERNAL_SERVER_ERROR);
         }
     }
 
 
 
 
+    private static boolean isPlainText(String acceptHeader) {
+        if( acceptHeader == null ){
+            return false;
+        }
+        for( String type : acceptHeader.split(",") ){
+            if( Formats.PLAIN.equals(new ContentType(type).getType()) ){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeValue(Context ctx, Reader value) throws IOException {
+        ctx.contentType(Formats.PLAIN + ";charset=utf-8");
+        Writer out = new OutputStreamWriter(ctx.res.getOutputStream(), StandardCharsets.UTF_8);
+        char[] buffer = new char[CHUNK_SIZE];
+        long written = 0;
+        int read;
+        while( (read = value.read(buffer)) != -1 ){
+            out.write(buffer, 0, read);
+            written += read;
+        }
+        out.flush();
+        requestResultSize.update(written);
+    }
+
     @OpenApi(ignore = true)
     @Override
     public void create(Context ctx) {
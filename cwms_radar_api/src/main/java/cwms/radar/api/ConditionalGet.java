@@ -0,0 +1,147 @@
+package cwms.radar.api;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import cwms.radar.data.dao.ChangeFingerprint;
+import cwms.radar.data.dao.ReferenceDataCache;
+import cwms.radar.helpers.DigestHelper;
+import io.javalin.core.util.Header;
+import io.javalin.http.Context;
+import io.javalin.http.HttpCode;
+import org.jooq.exception.DataAccessException;
+
+/**
+ * Answers conditional GETs (If-None-Match and If-Modified-Since) so a client polling for data
+ * that hasn't changed gets a 304 instead of the whole body again.
+ *
+ * The ETag is weak: it is derived from a fingerprint of the data, the request's query string and
+ * Accept header, not from the bytes of the body.  Two responses with the same ETag hold the same
+ * data but may, for instance, differ in a defaulted begin and end.
+ */
+public final class ConditionalGet {
+    private static final Logger logger = Logger.getLogger(ConditionalGet.class.getName());
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * Sets the validators for a response and checks them against the request.  Call it before
+     * reading the data; if it returns true the response is a 304 and there is nothing left to do.
+     *
+     * @param fingerprint reads the fingerprint of the data, may return null if there isn't one
+     * @return true if the client's copy is current
+     */
+    public static boolean isNotModified(Context ctx, Supplier<ChangeFingerprint> fingerprint) {
+        ChangeFingerprint current;
+        try {
+            current = fingerprint.get();
+        } catch (DataAccessException ex) {
+            // A fingerprint is an optimization, carry on without one.
+            logger.log(Level.FINE, "Unable to fingerprint " + ctx.path(), ex);
+            return false;
+        }
+        if (current == null) {
+            return false;
+        }
+        return isNotModified(ctx, etag(ctx, current.getTag()), current.getLastModified());
+    }
+
+    /**
+     * Sets an ETag from the body of a response that is already built and checks it against the
+     * request.  For small responses that have nothing cheaper to fingerprint.
+     *
+     * @return true if the client's copy is current and the body should not be sent
+     */
+    public static boolean isNotModified(Context ctx, String body) {
+        return isNotModified(ctx, "\"" + DigestHelper.shortHash(body) + "\"", null);
+    }
+
+    /**
+     * Like isNotModified(ctx, body) for a cached body whose ETag was worked out when it was cached.
+     */
+    public static boolean isNotModified(Context ctx, ReferenceDataCache.Rendered rendered) {
+        return isNotModified(ctx, rendered.getEtag(), null);
+    }
+
+    /**
+     * A strong ETag for one version of a response that is streamed, and so can't be hashed, from
+     * something that changes whenever its content does, a row's change number for instance.
+     */
+    static String versionEtag(String version) {
+        return "\"" + DigestHelper.shortHash(version) + "\"";
+    }
+
+    /**
+     * Like isNotModified(ctx, body) with an ETag from versionEtag.
+     */
+    static boolean isNotModifiedVersion(Context ctx, String etag) {
+        return isNotModified(ctx, etag, null);
+    }
+
+    private static boolean isNotModified(Context ctx, String etag, Timestamp lastModified) {
+        ctx.header(Header.ETAG, etag);
+        ctx.header(Header.VARY, Header.ACCEPT);
+        if (lastModified != null) {
+            ctx.header(Header.LAST_MODIFIED, DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                    lastModified.toInstant().atOffset(ZoneOffset.UTC)));
+        }
+
+        boolean notModified;
+        String ifNoneMatch = ctx.header(Header.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            // If-Modified-Since is ignored when If-None-Match is sent
+            notModified = matches(ifNoneMatch, etag);
+        } else {
+            notModified = isNotModifiedSince(ctx.header(Header.IF_MODIFIED_SINCE), lastModified);
+        }
+
+        if (notModified) {
+            ctx.status(HttpCode.NOT_MODIFIED);
+        }
+        return notModified;
+    }
+
+    static String etag(Context ctx, String tag) {
+        String variant = ctx.path() + "?" + ctx.queryString() + "|" + ctx.header(Header.ACCEPT) + "|" + tag;
+        return "W/\"" + DigestHelper.shortHash(variant) + "\"";
+    }
+
+    /**
+     * Weak comparison of an If-None-Match header against an ETag.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if ("*".equals(trimmed) || opaque.equals(stripWeak(trimmed))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isNotModifiedSince(String ifModifiedSince, Timestamp lastModified) {
+        if (ifModifiedSince == null || lastModified == null) {
+            return false;
+        }
+        try {
+            Instant since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            // HTTP dates only have whole seconds
+            return lastModified.getTime() / 1000 <= since.getEpochSecond();
+        } catch (DateTimeParseException ex) {
+            return false;
+        }
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
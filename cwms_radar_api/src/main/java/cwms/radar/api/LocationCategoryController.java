@@ -9,6 +9,7 @@ import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
+import cwms.radar.data.dao.ChangeFingerprintDao;
 import cwms.radar.data.dao.LocationCategoryDao;
 import cwms.radar.data.dto.LocationCategory;
 import cwms.radar.formatters.ContentType;
@@ -70,6 +71,10 @@ public class LocationCategoryController implements CrudHandler
 			DSLContext dsl = getDslContext(ctx))
 		{
 			LocationCategoryDao dao = new LocationCategoryDao(dsl);
+			if(ConditionalGet.isNotModified(ctx, () -> new ChangeFingerprintDao(dsl).getTableFingerprint(ChangeFingerprintDao.LOCATION_GROUP_TABLES)))
+			{
+				return;
+			}
 			String office = ctx.queryParam("office");
 
 			List<LocationCategory> cats = dao.getLocationCategories(office);
@@ -123,6 +128,10 @@ public class LocationCategoryController implements CrudHandler
 			DSLContext dsl = getDslContext(ctx))
 		{
 			LocationCategoryDao dao = new LocationCategoryDao(dsl);
+			if(ConditionalGet.isNotModified(ctx, () -> new ChangeFingerprintDao(dsl).getTableFingerprint(ChangeFingerprintDao.LOCATION_GROUP_TABLES)))
+			{
+				return;
+			}
 			String office = ctx.queryParam("office");
 
 			Optional<LocationCategory> grp = dao.getLocationCategory(office, categoryId);
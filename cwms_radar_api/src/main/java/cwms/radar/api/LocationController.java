@@ -1,10 +1,16 @@
 package cwms.radar.api;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -27,12 +33,22 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import cwms.radar.api.enums.Nation;
 import cwms.radar.api.enums.UnitSystem;
 import cwms.radar.api.errors.RadarError;
+import cwms.radar.data.dao.ChangeFingerprintDao;
+import cwms.radar.data.dao.JooqDao;
 import cwms.radar.data.dao.LocationsDao;
+import cwms.radar.data.dao.LocationCache;
+import cwms.radar.data.dao.LocationSearchIndex;
+import cwms.radar.data.dao.LocationSpatialIndex;
 import cwms.radar.data.dao.LocationsDaoImpl;
 import cwms.radar.data.dto.Location;
+import cwms.radar.data.dto.LocationPoint;
+import cwms.radar.data.dto.LocationSearchResult;
 import cwms.radar.formatters.ContentType;
+import cwms.radar.formatters.Fields;
 import cwms.radar.formatters.Formats;
 import cwms.radar.formatters.FormattingException;
+import cwms.radar.formatters.json.GeoJsonWriter;
+import cwms.radar.formatters.json.JsonV2Binary;
 import io.javalin.apibuilder.CrudHandler;
 import io.javalin.core.util.Header;
 import io.javalin.http.Context;
@@ -44,7 +60,6 @@ import org.jooq.DSLContext;
 import cwms.radar.security.CwmsAuthorizer;
 
 import static com.codahale.metrics.MetricRegistry.name;
-import static cwms.radar.data.dao.JooqDao.getDslContext;
 
 
 /**
@@ -53,12 +68,23 @@ import static cwms.radar.data.dao.JooqDao.getDslContext;
  */
 public class LocationController implements CrudHandler {
     public static final Logger logger = Logger.getLogger(LocationController.class.getName());
+    public static final int DEFAULT_SEARCH_LIMIT = 10;
+    public static final int MAX_SEARCH_LIMIT = 100;
+    // the properties of a bbox or near feature, named like the AV_LOC columns of the other features
+    private static final String[] NEARBY_PROPERTIES = {"DB_OFFICE_ID", "LOCATION_ID", "DISTANCE_KM"};
+    // shared by every request, a mapper is costly to build and safe to share once set up
+    private static final ObjectMapper XML_MAPPER = new XmlMapper().registerModule(new JavaTimeModule());
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+    // the projecting copy of each format's mapper, made the first time fields are asked for in it
+    private static final Map<String, ObjectMapper> PROJECTING_MAPPERS = new ConcurrentHashMap<>();
     private final MetricRegistry metrics;
     private final Meter getAllRequests;
     private final Timer getAllRequestsTime;
     private final Meter getOneRequest;
     private final Timer getOneRequestTime;
     private final Histogram requestResultSize;
+    private final Meter searchRequests;
+    private final Timer searchRequestsTime;
     private final Meter createRequest;
     private final Timer createRequestTime;
     private final Meter deleteRequest;
@@ -80,15 +106,28 @@ public class LocationController implements CrudHandler {
         updateRequest = this.metrics.meter(name(className,"update","count"));
         updateRequestTime = this.metrics.timer(name(className,"update","time"));
         requestResultSize = this.metrics.histogram((name(className,"results","size")));
+        searchRequests = this.metrics.meter(name(className,"search","count"));
+        searchRequestsTime = this.metrics.timer(name(className,"search","time"));
+
+        LocationCache cache = LocationCache.getInstance();
+        this.metrics.gauge(name(className,"cache","hits"), () -> cache::getHitCount);
+        this.metrics.gauge(name(className,"cache","misses"), () -> cache::getMissCount);
+        this.metrics.gauge(name(className,"cache","hitRatio"), () -> cache::getHitRatio);
+        this.metrics.gauge(name(className,"cache","size"), () -> cache::size);
     }
 
     @OpenApi(
         queryParams = {
-            @OpenApiParam( name="names", description = "Specifies the name(s) of the location(s) whose data is to be included in the response"),
+            @OpenApiParam( name="names", description = "Specifies the name(s) of the location(s) whose data is to be included in the response, separated by |. With office, a json version 2 response is a list of those locations in the order named."),
             @OpenApiParam(name="office", description="Specifies the owning office of the location level(s) whose data is to be included in the response. If this field is not specified, matching location level information from all offices shall be returned."),
             @OpenApiParam(name="unit",   description="Specifies the unit or unit system of the response. Valid values for the unit field are:\r\n 1. EN.   Specifies English unit system.  Location level values will be in the default English units for their parameters.\r\n2. SI.   Specifies the SI unit system.  Location level values will be in the default SI units for their parameters.\r\n3. Other. Any unit returned in the response to the units URI request that is appropriate for the requested parameters."),
             @OpenApiParam(name="datum",  description="Specifies the elevation datum of the response. This field affects only elevation location levels. Valid values for this field are:\r\n1. NAVD88.  The elevation values will in the specified or default units above the NAVD-88 datum.\r\n2. NGVD29.  The elevation values will be in the specified or default units above the NGVD-29 datum."),
-            @OpenApiParam(name="format", description="Specifies the encoding format of the response. Valid values for the format field for this URI are:\r\n1.    tab\r\n2.    csv\r\n3.    xml\r\n4.  wml2 (only if name field is specified)\r\n5.    json (default)\n" + "6.    geojson")
+            @OpenApiParam(name="format", description="Specifies the encoding format of the response. Valid values for the format field for this URI are:\r\n1.    tab\r\n2.    csv\r\n3.    xml\r\n4.  wml2 (only if name field is specified)\r\n5.    json (default)\n" + "6.    geojson"),
+            @OpenApiParam(name="bbox", description="Only return the locations inside this box, given as min-longitude,min-latitude,max-longitude,max-latitude in decimal degrees. A box crossing the antimeridian has a min-longitude greater than its max-longitude. Requires office and a geojson or json version 2 response. Geojson features from bbox or near carry only the office, the location id and, for near, the distance in kilometers."),
+            @OpenApiParam(name="near", description="Only return the locations around this point, given as longitude,latitude in decimal degrees. Requires office, radius and/or k, and a geojson or json version 2 response."),
+            @OpenApiParam(name="radius", type = Double.class, description="With near, the distance from the point in kilometers that locations have to be within."),
+            @OpenApiParam(name="k", type = Integer.class, description="With near, return only this many of the closest locations, nearest first."),
+            @OpenApiParam(name="fields", description="Comma separated properties of each location to return, e.g. name,latitude,longitude. Only for a json version 2 list of names. Default all of them.")
         },
         responses = {
             @OpenApiResponse( status="200",
@@ -98,7 +137,8 @@ public class LocationController implements CrudHandler {
                             @OpenApiContent(type = Formats.CSV ),
                             @OpenApiContent(type = Formats.XML ),
                             @OpenApiContent(type = Formats.WML2),
-                            @OpenApiContent(type = Formats.GEOJSON )
+                            @OpenApiContent(type = Formats.GEOJSON ),
+                            @OpenApiContent(from = Location.class, isArray = true, type = Formats.JSONV2 )
                     })
         },
         description = "Returns CWMS Location Data",
@@ -111,6 +151,11 @@ public class LocationController implements CrudHandler {
         try(final Timer.Context timeContext = getAllRequestsTime.time();
             DSLContext dsl = getDslContext(ctx))
         {
+            if(ConditionalGet.isNotModified(ctx, () -> new ChangeFingerprintDao(dsl).getTableFingerprint(ChangeFingerprintDao.LOCATION_TABLES)))
+            {
+                return;
+            }
+
             LocationsDao locationsDao = getLocationsDao(dsl);
 
             String names = ctx.queryParam("names");
@@ -123,15 +168,49 @@ public class LocationController implements CrudHandler {
             ContentType contentType = Formats.parseHeaderAndQueryParm(formatHeader, formatParm);
             ctx.contentType(contentType.toString());
 
+            List<LocationPoint> nearby = findNearby(ctx, locationsDao, office);
+
             final String results;
-            if(contentType.getType().equals(Formats.GEOJSON))
+            if(nearby != null)
+            {
+                if(contentType.getType().equals(Formats.GEOJSON))
+                {
+                    writeGeoJson(ctx, writer -> {
+                        // straight from the index, in its order, so near stays nearest first
+                        for(LocationPoint point : nearby)
+                        {
+                            writer.writePoint(point.getName(), point.getLongitude(), point.getLatitude(), "avLoc",
+                                    NEARBY_PROPERTIES, new Object[]{point.getOfficeId(), point.getName(), point.getDistance()});
+                        }
+                    });
+                }
+                else if(Formats.JSONV2.equals(contentType.toString()))
+                {
+                    results = Formats.format(contentType, nearby, LocationPoint.class);
+                    ctx.result(results);
+                    requestResultSize.update(results.length());
+                }
+                else
+                {
+                    throw new IllegalArgumentException("bbox and near are only available as geojson or json version 2");
+                }
+            }
+            else if(Formats.JSONV2.equals(contentType.toString()) && names != null && !names.isEmpty()
+                    && office != null && !office.isEmpty())
+            {
+                String unitSystem = units != null ? units : UnitSystem.EN.value();
+                // one query for the whole list instead of a request per location
+                Set<String> fields = Fields.parse(ctx.queryParam("fields"), Location.class);
+                List<Location> locations = locationsDao.getLocations(Arrays.asList(names.split("\\|")), unitSystem, office);
+                results = Formats.format(contentType, locations, Location.class, fields);
+                ctx.result(results);
+                requestResultSize.update(results.length());
+            }
+            else if(contentType.getType().equals(Formats.GEOJSON))
             {
                 logger.fine("units:" + units);
-                FeatureCollection collection = locationsDao.buildFeatureCollection(names, units, office);
-                ctx.json(collection);
-                /*ObjectMapper mapper = JavalinJackson.getObjectMapper();
-                results = mapper.writeValueAsString(collection);*/
-                requestResultSize.update(ctx.res.getBufferSize());
+                // written feature by feature as the rows arrive rather than building a FeatureCollection
+                writeGeoJson(ctx, writer -> locationsDao.writeFeatureCollection(names, units, office, writer));
             }
             else
             {
@@ -144,6 +223,12 @@ public class LocationController implements CrudHandler {
             ctx.status(HttpServletResponse.SC_OK);
 
         }
+        catch(IllegalArgumentException ex)
+        {
+            RadarError re = new RadarError("Invalid arguments supplied");
+            logger.log(Level.SEVERE, re.toString(), ex);
+            ctx.status(HttpServletResponse.SC_BAD_REQUEST).json(re);
+        }
         catch( Exception ex)
         {
             RadarError re = new RadarError("failed to process request");
@@ -152,6 +237,185 @@ public class LocationController implements CrudHandler {
         }
     }
 
+    @OpenApi(
+        queryParams = {
+            @OpenApiParam(name="office", required = true, description="Specifies the owning office of the locations to search."),
+            @OpenApiParam(name="q", required = true, description="Words or the start of words from the name, public name, long name, nearest city or an alias of the location. Close misspellings are matched below exact ones."),
+            @OpenApiParam(name="limit", type = Integer.class, description="The most matches to return, best first. Defaults to " + DEFAULT_SEARCH_LIMIT + ", at most " + MAX_SEARCH_LIMIT + ".")
+        },
+        responses = {
+            @OpenApiResponse( status="200",
+                    content = {
+                            @OpenApiContent(from = LocationSearchResult.class, isArray = true, type = Formats.JSONV2 )
+                    }),
+            @OpenApiResponse(status = "400", description = "office or q is missing, or limit is out of range")
+        },
+        path = "/search/locations",
+        description = "Searches CWMS Locations by name, ranked for type-ahead",
+        tags = {"Locations"},
+        method = HttpMethod.GET
+    )
+    public void search(Context ctx)
+    {
+        searchRequests.mark();
+        try(final Timer.Context timeContext = searchRequestsTime.time())
+        {
+            String office = ctx.queryParam("office");
+            String query = ctx.queryParam("q");
+            int limit = ctx.queryParamAsClass("limit", Integer.class).getOrDefault(DEFAULT_SEARCH_LIMIT);
+            if(office == null || office.isEmpty() || query == null || query.trim().isEmpty())
+            {
+                throw new IllegalArgumentException("office and q are required");
+            }
+            if(limit <= 0 || limit > MAX_SEARCH_LIMIT)
+            {
+                throw new IllegalArgumentException("limit has to be between 1 and " + MAX_SEARCH_LIMIT);
+            }
+
+            LocationSearchIndex index = LocationSearchIndex.getInstance();
+            if(!index.isLoaded(office))
+            {
+                try(DSLContext dsl = getDslContext(ctx))
+                {
+                    LocationsDao locationsDao = getLocationsDao(dsl);
+                    index.loadIfAbsent(office, o -> locationsDao.streamLocationCatalog(UnitSystem.SI.getValue(), Optional.of(o), null));
+                }
+            }
+
+            List<LocationSearchResult> results = index.search(office, query, limit);
+            String body = Formats.format(new ContentType(Formats.JSONV2), results, LocationSearchResult.class);
+            ctx.contentType(Formats.JSONV2);
+            ctx.result(body);
+            requestResultSize.update(body.length());
+            ctx.status(HttpServletResponse.SC_OK);
+        }
+        catch(IllegalArgumentException ex)
+        {
+            RadarError re = new RadarError("Invalid arguments supplied");
+            logger.log(Level.SEVERE, re.toString(), ex);
+            ctx.status(HttpServletResponse.SC_BAD_REQUEST).json(re);
+        }
+    }
+
+    /**
+     * Writes the features of a GeoJSON response.
+     */
+    @FunctionalInterface
+    private interface Features
+    {
+        void writeTo(GeoJsonWriter writer) throws IOException;
+    }
+
+    /**
+     * Streams a FeatureCollection to the response.  If writing the features fails the collection is
+     * left unterminated, so a client can't take the features sent so far for all of them.
+     */
+    private void writeGeoJson(Context ctx, Features features) throws IOException
+    {
+        GeoJsonWriter writer = new GeoJsonWriter(ctx.res.getOutputStream());
+        try
+        {
+            features.writeTo(writer);
+        }
+        catch(IOException | RuntimeException ex)
+        {
+            writer.abort();
+            throw ex;
+        }
+        finally
+        {
+            writer.close();
+        }
+        requestResultSize.update(writer.getBytesWritten());
+    }
+
+    /**
+     * Answers the bbox and near parameters from the spatial index, or returns null when neither was given.
+     */
+    private List<LocationPoint> findNearby(Context ctx, LocationsDao locationsDao, String office)
+    {
+        String bbox = ctx.queryParam("bbox");
+        String near = ctx.queryParam("near");
+        if(bbox == null && near == null)
+        {
+            return null;
+        }
+        if(bbox != null && near != null)
+        {
+            throw new IllegalArgumentException("bbox and near can't be used together");
+        }
+        if(office == null || office.isEmpty())
+        {
+            throw new IllegalArgumentException("office is required with bbox or near");
+        }
+
+        LocationSpatialIndex index = LocationSpatialIndex.getInstance();
+        index.loadIfAbsent(office, locationsDao::getLocationPoints);
+        if(bbox != null)
+        {
+            double[] box = parseCoordinates("bbox", bbox, 4);
+            return index.withinBox(office, box[1], box[0], box[3], box[2]);
+        }
+
+        double[] point = parseCoordinates("near", near, 2);
+        // parsed here rather than validated by Javalin, so a bad number is a 400 like the others
+        Double radius = parseNumber("radius", ctx.queryParam("radius"), Double::valueOf);
+        Integer k = parseNumber("k", ctx.queryParam("k"), Integer::valueOf);
+        if(radius == null && k == null)
+        {
+            throw new IllegalArgumentException("near requires radius, k, or both");
+        }
+        if((radius != null && !(radius > 0)) || (k != null && k <= 0))
+        {
+            throw new IllegalArgumentException("radius and k have to be greater than zero");
+        }
+        if(k == null)
+        {
+            return index.withinRadius(office, point[1], point[0], radius);
+        }
+        return index.nearest(office, point[1], point[0], k, radius != null ? radius : Double.MAX_VALUE);
+    }
+
+    /**
+     * @return null if the parameter wasn't given
+     */
+    private static <T> T parseNumber(String parameter, String value, Function<String, T> parse)
+    {
+        if(value == null || value.isEmpty())
+        {
+            return null;
+        }
+        try
+        {
+            return parse.apply(value.trim());
+        }
+        catch(NumberFormatException ex)
+        {
+            throw new IllegalArgumentException(parameter + " is not a number: " + value, ex);
+        }
+    }
+
+    private static double[] parseCoordinates(String parameter, String value, int count)
+    {
+        String[] parts = value.split(",");
+        if(parts.length != count)
+        {
+            throw new IllegalArgumentException(parameter + " needs " + count + " comma separated numbers");
+        }
+        double[] retval = new double[count];
+        for(int i = 0; i < count; i++)
+        {
+            retval[i] = Double.parseDouble(parts[i].trim());
+            // even positions are longitudes, odd are latitudes
+            double limit = i % 2 == 0 ? 180.0 : 90.0;
+            if(Double.isNaN(retval[i]) || Math.abs(retval[i]) > limit)
+            {
+                throw new IllegalArgumentException(parameter + " has a coordinate out of range: " + parts[i]);
+            }
+        }
+        return retval;
+    }
+
     private String getFormatFromContent(ContentType contentType)
     {
         String format = "json";
@@ -178,7 +442,8 @@ public class LocationController implements CrudHandler {
     @OpenApi(
             queryParams = {
                     @OpenApiParam(name="office", required = true, description="Specifies the owning office of the location level(s) whose data is to be included in the response. If this field is not specified, matching location level information from all offices shall be returned."),
-                    @OpenApiParam(name="unit",   description="Specifies the unit or unit system of the response. Valid values for the unit field are:\r\n 1. EN.   Specifies English unit system.  Location values will be in the default English units for their parameters.\r\n2. SI.   Specifies the SI unit system.  Location values will be in the default SI units for their parameters.\r\n3. Other. Any unit returned in the response to the units URI request that is appropriate for the requested parameters.")
+                    @OpenApiParam(name="unit",   description="Specifies the unit or unit system of the response. Valid values for the unit field are:\r\n 1. EN.   Specifies English unit system.  Location values will be in the default English units for their parameters.\r\n2. SI.   Specifies the SI unit system.  Location values will be in the default SI units for their parameters.\r\n3. Other. Any unit returned in the response to the units URI request that is appropriate for the requested parameters."),
+                    @OpenApiParam(name="fields", description="Comma separated properties of the location to return, e.g. name,latitude,longitude. Default all of them.")
             },
             responses = {
                     @OpenApiResponse( status="200",
@@ -196,16 +461,37 @@ public class LocationController implements CrudHandler {
         try(final Timer.Context timeContext = getAllRequestsTime.time();
             DSLContext dsl = getDslContext(ctx))
         {
+            if(ConditionalGet.isNotModified(ctx, () -> new ChangeFingerprintDao(dsl).getTableFingerprint(ChangeFingerprintDao.LOCATION_TABLES)))
+            {
+                return;
+            }
+
             String units = ctx.queryParamAsClass("unit",String.class).getOrDefault( UnitSystem.EN.value());
             String office = ctx.queryParam("office");
+            Set<String> fields = Fields.parse(ctx.queryParam("fields"), Location.class);
             String formatHeader = ctx.header(Header.ACCEPT) != null ? ctx.header(Header.ACCEPT) : Formats.JSONV2;
             ContentType contentType = Formats.parseHeader(formatHeader);
             ctx.contentType(contentType.toString());
             LocationsDao locationDao = getLocationsDao(dsl);
             Location location = locationDao.getLocation(name, units, office);
             ObjectMapper om = getObjectMapperForFormat(contentType.getType());
-            String serializedLocation = om.writeValueAsString(location);
-            ctx.result(serializedLocation);
+            // bytes rather than a String so the binary formats come through intact
+            if(fields.isEmpty())
+            {
+                ctx.result(om.writeValueAsBytes(location));
+            }
+            else
+            {
+                // the location is cached whole, so the fields are only left out of the body
+                ObjectMapper projecting = PROJECTING_MAPPERS.computeIfAbsent(contentType.getType(),
+                        type -> Fields.projecting(getObjectMapperForFormat(type)));
+                ctx.result(Fields.writer(projecting, fields).writeValueAsBytes(location));
+            }
+        }
+        catch(IllegalArgumentException ex)
+        {
+            RadarError re = new RadarError(ex.getMessage());
+            ctx.status(HttpServletResponse.SC_BAD_REQUEST).json(re);
         }
         catch (IOException ex)
         {
@@ -223,7 +509,9 @@ public class LocationController implements CrudHandler {
             requestBody = @OpenApiRequestBody(
                 content = {
                           @OpenApiContent(from = Location.class, type = Formats.JSON ),
-                          @OpenApiContent(from = Location.class, type = Formats.XML )
+                          @OpenApiContent(from = Location.class, type = Formats.XML ),
+                          @OpenApiContent(from = Location.class, type = Formats.SMILE ),
+                          @OpenApiContent(from = Location.class, type = Formats.CBOR )
                 },
                 required = true),
         description = "Create new CWMS Location",
@@ -249,7 +537,7 @@ public class LocationController implements CrudHandler {
             {
                 throw new FormattingException("Format header could not be parsed");
             }
-            Location locationFromBody = deserializeLocation(ctx.body(), contentType.getType(), office);
+            Location locationFromBody = deserializeLocation(ctx.bodyAsBytes(), contentType.getType(), office);
             locationsDao.storeLocation(locationFromBody);
             ctx.status(HttpServletResponse.SC_ACCEPTED).json("Created Location");
         }
@@ -268,7 +556,9 @@ public class LocationController implements CrudHandler {
             requestBody = @OpenApiRequestBody(
                     content = {
                           @OpenApiContent(from = Location.class, type = Formats.JSON ),
-                          @OpenApiContent(from = Location.class, type = Formats.XML )
+                          @OpenApiContent(from = Location.class, type = Formats.XML ),
+                          @OpenApiContent(from = Location.class, type = Formats.SMILE ),
+                          @OpenApiContent(from = Location.class, type = Formats.CBOR )
                     },
                     required = true),
             description = "Update CWMS Location",
@@ -295,10 +585,10 @@ public class LocationController implements CrudHandler {
             {
                 throw new FormattingException("Format header could not be parsed");
             }
-            Location locationFromBody = deserializeLocation(ctx.body(), contentType.getType(), office);
+            Location locationFromBody = deserializeLocation(ctx.bodyAsBytes(), contentType.getType(), office);
             //getLocation will throw an error if location does not exist
             Location existingLocation = locationsDao.getLocation(locationId, UnitSystem.EN.getValue(), office);
-            existingLocation = updatedClearedFields(ctx.body(), contentType.getType(), existingLocation);
+            existingLocation = updatedClearedFields(ctx.bodyAsBytes(), contentType.getType(), existingLocation);
             //only store (update) if location does exist
             Location updatedLocation = getUpdatedLocation(existingLocation, locationFromBody);
             if(!updatedLocation.getName().equalsIgnoreCase(existingLocation.getName())) //if name changed then delete location with old name
@@ -353,13 +643,18 @@ public class LocationController implements CrudHandler {
         }
     }
 
-    public static LocationsDao getLocationsDao(DSLContext dsl)
+    protected DSLContext getDslContext(Context ctx)
+    {
+        return JooqDao.getDslContext(ctx);
+    }
+
+    protected LocationsDao getLocationsDao(DSLContext dsl)
     {
         return new LocationsDaoImpl(dsl);
     }
 
 
-    private Location updatedClearedFields(String body, String format, Location existingLocation) throws IOException
+    private Location updatedClearedFields(byte[] body, String format, Location existingLocation) throws IOException
     {
         ObjectMapper om = getObjectMapperForFormat(format);
         JsonNode root = om.readTree(body);
@@ -387,6 +682,11 @@ public class LocationController implements CrudHandler {
     }
 
     public static Location deserializeLocation(String body, String format, String office) throws IOException
+    {
+        return deserializeLocation(body.getBytes(StandardCharsets.UTF_8), format, office);
+    }
+
+    public static Location deserializeLocation(byte[] body, String format, String office) throws IOException
     {
         ObjectMapper om = getObjectMapperForFormat(format);
         Location retVal;
@@ -406,21 +706,20 @@ public class LocationController implements CrudHandler {
 
     private static ObjectMapper getObjectMapperForFormat(String format)
     {
-        ObjectMapper om;
         if((Formats.XML).equals(format) || (Formats.XMLV2).equals(format))
         {
-            om = new XmlMapper();
+            return XML_MAPPER;
         }
         else if(Formats.JSON.equals(format) || (Formats.JSONV2).equals(format))
         {
-            om = new ObjectMapper();
+            return JSON_MAPPER;
         }
-        else
+        ObjectMapper binary = JsonV2Binary.getObjectMapperForFormat(format);
+        if(binary == null)
         {
             throw new FormattingException("Format is not currently supported for Locations");
         }
-        om.registerModule(new JavaTimeModule());
-        return om;
+        return binary;
     }
 
     private Location getUpdatedLocation(Location existingLocation, Location updatedLocation)
@@ -1,9 +1,12 @@
 package cwms.radar.api;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 import javax.servlet.http.HttpServletResponse;
 
 import com.codahale.metrics.Histogram;
@@ -14,11 +17,14 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import cwms.radar.api.errors.RadarError;
+import cwms.radar.data.dao.ChangeFingerprintDao;
 import cwms.radar.data.dao.LocationGroupDao;
 import cwms.radar.data.dto.LocationGroup;
 import cwms.radar.formatters.ContentType;
+import cwms.radar.formatters.Fields;
 import cwms.radar.formatters.Formats;
 import cwms.radar.formatters.csv.CsvV1LocationGroup;
+import cwms.radar.formatters.json.NdJsonWriter;
 import io.javalin.apibuilder.CrudHandler;
 import io.javalin.core.util.Header;
 import io.javalin.http.Context;
@@ -57,12 +63,14 @@ public class LocationGroupController implements CrudHandler
 
 	@OpenApi(queryParams = {
 			@OpenApiParam(name = "office", description = "Specifies the owning office of the location group(s) whose data is to be included in the response. If this field is not specified, matching location groups information from all offices shall be returned."),
+			@OpenApiParam(name = "fields", description = "Comma separated properties of each group to return, e.g. id,description. The ids, offices and attribute are always returned. Default all of them."),
 			},
 			responses = {
 			@OpenApiResponse(status = "200",
 					content = {
 							@OpenApiContent(isArray = true, from = LocationGroup.class, type = Formats.JSON),
-							@OpenApiContent(isArray = true, from = CsvV1LocationGroup.class, type = Formats.CSV )
+							@OpenApiContent(isArray = true, from = CsvV1LocationGroup.class, type = Formats.CSV ),
+							@OpenApiContent(from = LocationGroup.class, type = Formats.NDJSON)
 					}
 
 			)},
@@ -76,16 +84,40 @@ public class LocationGroupController implements CrudHandler
 		)
 		{
 			LocationGroupDao cdm = new LocationGroupDao(dsl);
+			if(ConditionalGet.isNotModified(ctx, () -> new ChangeFingerprintDao(dsl).getTableFingerprint(ChangeFingerprintDao.LOCATION_GROUP_TABLES)))
+			{
+				return;
+			}
 
 			String office = ctx.queryParam("office");
+			Set<String> fields;
+			try
+			{
+				fields = Fields.parse(ctx.queryParam("fields"), LocationGroup.class);
+			}
+			catch(IllegalArgumentException ex)
+			{
+				ctx.json(new RadarError(ex.getMessage())).status(HttpServletResponse.SC_BAD_REQUEST);
+				return;
+			}
+			String formatHeader = ctx.header(Header.ACCEPT);
+			ContentType contentType = Formats.parseHeaderAndQueryParm(formatHeader, "");
 
-			List<LocationGroup> grps = cdm.getLocationGroups(office);
+			if(Formats.NDJSON.equals(contentType.getType()))
+			{
+				ctx.contentType(contentType.toString());
+				try(Stream<LocationGroup> grps = cdm.streamLocationGroups(office))
+				{
+					new NdJsonWriter().write(grps, ctx.res.getOutputStream());
+				}
+				return;
+			}
+
+			List<LocationGroup> grps = cdm.getLocationGroups(office, fields);
 
 			if( !grps.isEmpty() ){
-				String formatHeader = ctx.header(Header.ACCEPT);
-				ContentType contentType = Formats.parseHeaderAndQueryParm(formatHeader, "");
 
-				String result = Formats.format(contentType, grps, LocationGroup.class);
+				String result = Formats.format(contentType, grps, LocationGroup.class, fields);
 
 				ctx.result(result);
 				ctx.contentType(contentType.toString());
@@ -104,6 +136,12 @@ public class LocationGroupController implements CrudHandler
 			}
 
 		}
+		catch(IOException ex)
+		{
+			RadarError re = new RadarError("Failed to send location groups");
+			logger.log(Level.SEVERE, re.toString(), ex);
+			ctx.status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+		}
 
 	}
 
@@ -114,6 +152,7 @@ public class LocationGroupController implements CrudHandler
 			queryParams = {
 			@OpenApiParam(name = "office", required = true, description = "Specifies the owning office of the location group whose data is to be included in the response."),
 					@OpenApiParam(name = "category-id", required = true, description = "Specifies the category containing the location group whose data is to be included in the response."),
+					@OpenApiParam(name = "fields", description = "Comma separated properties of the group to return. Ignored for GeoJSON. Default all of them."),
 			},
 			responses = {@OpenApiResponse(status = "200",
 					content = {
@@ -133,8 +172,22 @@ public class LocationGroupController implements CrudHandler
 		)
 		{
 			LocationGroupDao cdm = new LocationGroupDao(dsl);
+			if(ConditionalGet.isNotModified(ctx, () -> new ChangeFingerprintDao(dsl).getTableFingerprint(ChangeFingerprintDao.LOCATION_GROUP_TABLES)))
+			{
+				return;
+			}
 			String office = ctx.queryParam("office");
 			String categoryId = ctx.queryParam("category-id");
+			Set<String> fields;
+			try
+			{
+				fields = Fields.parse(ctx.queryParam("fields"), LocationGroup.class);
+			}
+			catch(IllegalArgumentException ex)
+			{
+				ctx.json(new RadarError(ex.getMessage())).status(HttpServletResponse.SC_BAD_REQUEST);
+				return;
+			}
 
 			String formatHeader = ctx.header(Header.ACCEPT);
 			ContentType contentType = Formats.parseHeaderAndQueryParm(formatHeader, "");
@@ -149,7 +202,7 @@ public class LocationGroupController implements CrudHandler
 			{
 				Optional<LocationGroup> grp = cdm.getLocationGroup(office, categoryId, groupId);
 				if( grp.isPresent() ) {
-					result = Formats.format(contentType, grp.get());
+					result = Formats.format(contentType, grp.get(), fields);
 				} else {
 					RadarError re = new RadarError("Unable to find location group based on parameters given");
 					logger.info( () -> {
@@ -13,6 +13,7 @@ import com.codahale.metrics.Timer;
 
 import cwms.radar.api.errors.RadarError;
 import cwms.radar.data.dao.OfficeDao;
+import cwms.radar.data.dao.ReferenceDataCache;
 import cwms.radar.data.dto.Office;
 import cwms.radar.formatters.ContentType;
 import cwms.radar.formatters.Formats;
@@ -80,19 +81,32 @@ public class OfficeController implements CrudHandler {
         getAllRequests.mark();
 
         try (
-                final Timer.Context timeContext  = getAllRequestsTime.time();
-                DSLContext dsl = getDslContext(ctx))
+                final Timer.Context timeContext  = getAllRequestsTime.time())
         {
-                OfficeDao dao = new OfficeDao(dsl);
-                List<Office> offices = dao.getOffices();
                 String formatParm = ctx.queryParamAsClass("format",String.class).getOrDefault("");
                 String formatHeader = ctx.header(Header.ACCEPT);
                 ContentType contentType = Formats.parseHeaderAndQueryParm(formatHeader, formatParm);
 
-                String result = Formats.format(contentType,offices,Office.class);
+                // answered without a database connection once the offices are cached
+                Optional<ReferenceDataCache.Rendered> cached = ReferenceDataCache.getInstance()
+                        .getRenderedOffices(contentType.toString(), offices -> Formats.formatBytes(contentType, offices, Office.class));
+                byte[] result;
+                if(cached.isPresent())
+                {
+                    result = cached.get().getBody();
+                }
+                else
+                {
+                    try(DSLContext dsl = getDslContext(ctx))
+                    {
+                        OfficeDao dao = new OfficeDao(dsl);
+                        List<Office> offices = dao.getOffices();
+                        result = Formats.formatBytes(contentType,offices,Office.class);
+                    }
+                }
 
                 ctx.result(result).contentType(contentType.toString());
-                requestResultSize.update(result.length());
+                requestResultSize.update(result.length);
 
         }
     }
@@ -122,19 +136,30 @@ public class OfficeController implements CrudHandler {
     public void getOne(Context ctx, String officeId) {
         getOneRequest.mark();
         try(
-            final Timer.Context timeContext = getOneRequestTime.time();
-            DSLContext dsl = getDslContext(ctx))
+            final Timer.Context timeContext = getOneRequestTime.time())
         {
-            OfficeDao dao = new OfficeDao(dsl);
-            Optional<Office> office = dao.getOfficeById(officeId);
+            ReferenceDataCache cache = ReferenceDataCache.getInstance();
+            Optional<Office> office;
+            if(cache.isLoaded())
+            {
+                office = cache.getOffice(officeId);
+            }
+            else
+            {
+                try(DSLContext dsl = getDslContext(ctx))
+                {
+                    OfficeDao dao = new OfficeDao(dsl);
+                    office = dao.getOfficeById(officeId);
+                }
+            }
             if( office.isPresent() ){
                 String formatParm = ctx.queryParamAsClass("format",String.class).getOrDefault("");
                 String formatHeader = ctx.header(Header.ACCEPT);
                 ContentType contentType = Formats.parseHeaderAndQueryParm(formatHeader, formatParm);
-                String result = Formats.format(contentType,office.get());
+                byte[] result = Formats.formatBytes(contentType,office.get());
                 ctx.result(result).contentType(contentType.toString());
 
-                requestResultSize.update(result.length());
+                requestResultSize.update(result.length);
             }
             else {
                 RadarError re = new RadarError("Not Found", new HashMap<String,String>(){
@@ -1,6 +1,7 @@
 package cwms.radar.api;
 
 import java.sql.SQLException;
+import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -13,6 +14,7 @@ import static com.codahale.metrics.MetricRegistry.*;
 import com.codahale.metrics.Timer;
 
 import cwms.radar.data.CwmsDataManager;
+import cwms.radar.data.dao.ReferenceDataCache;
 import cwms.radar.api.errors.RadarError;
 import cwms.radar.formatters.Formats;
 import io.javalin.apibuilder.CrudHandler;
@@ -67,7 +69,6 @@ public class ParametersController implements CrudHandler {
         getAllRequests.mark();
         try (
             final Timer.Context time_context = getAllRequestsTime.time();
-            CwmsDataManager cdm = new CwmsDataManager(ctx);
         ) {
             String format = ctx.queryParamAsClass("format",String.class).getOrDefault("json");
 
@@ -81,10 +82,27 @@ public class ParametersController implements CrudHandler {
                 default: ctx.status(HttpServletResponse.SC_NOT_IMPLEMENTED).json(RadarError.notImplemented()); return;
             }
 
-            String results = cdm.getParameters(format);
-            ctx.status(HttpServletResponse.SC_OK);
-            ctx.result(results);
-            requestResultSize.update(results.length());
+            Optional<ReferenceDataCache.Rendered> cached = ReferenceDataCache.getInstance().getCatalog(ReferenceDataCache.Catalog.PARAMETERS, format);
+            if(cached.isPresent()) {
+                // answered without a database connection
+                if(ConditionalGet.isNotModified(ctx, cached.get())) {
+                    return;
+                }
+                ctx.status(HttpServletResponse.SC_OK);
+                ctx.result(cached.get().getBody());
+                requestResultSize.update(cached.get().getBody().length);
+                return;
+            }
+
+            try(CwmsDataManager cdm = new CwmsDataManager(ctx)) {
+                String results = cdm.getParameters(format);
+                if(ConditionalGet.isNotModified(ctx, results)) {
+                    return;
+                }
+                ctx.status(HttpServletResponse.SC_OK);
+                ctx.result(results);
+                requestResultSize.update(results.length());
+            }
         } catch (SQLException ex) {
             RadarError re = new RadarError("Failed to process request");
             logger.log(Level.SEVERE, re.toString(), ex);
@@ -1,6 +1,9 @@
 package cwms.radar.api;
 
+import java.io.IOException;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 import javax.servlet.http.HttpServletResponse;
 
 import com.codahale.metrics.Histogram;
@@ -14,6 +17,7 @@ import cwms.radar.data.dto.Pool;
 import cwms.radar.data.dto.Pools;
 import cwms.radar.formatters.ContentType;
 import cwms.radar.formatters.Formats;
+import cwms.radar.formatters.json.NdJsonWriter;
 import io.javalin.apibuilder.CrudHandler;
 import io.javalin.core.util.Header;
 import io.javalin.http.Context;
@@ -69,7 +73,8 @@ public class PoolController implements CrudHandler
 			),
 	}, responses = {
 			@OpenApiResponse(status = "200", content = {
-					@OpenApiContent(type = Formats.JSONV2, from = Pools.class)}),
+					@OpenApiContent(type = Formats.JSONV2, from = Pools.class),
+					@OpenApiContent(type = Formats.NDJSON, from = Pool.class)}),
 			@OpenApiResponse(status = "404", description = "Based on the combination of inputs provided the pools were not found."),
 			@OpenApiResponse(status = "501", description = "request format is not implemented")
 	},
@@ -104,18 +109,34 @@ public class PoolController implements CrudHandler
 									ctx.queryParamAsClass("pagesize",Integer.class).getOrDefault(defaultPageSize)
 								);
 
-			Pools pools = dao.retrievePools(cursor, pageSize, projectIdMask, nameMask, bottomMask, topMask, isExplicit, isImplicit, office);
-
 			String formatHeader = ctx.header(Header.ACCEPT);
 			ContentType contentType = Formats.parseHeaderAndQueryParm(formatHeader, "");
 
-			String result = Formats.format(contentType,pools);
+			if(Formats.NDJSON.equals(contentType.getType()))
+			{
+				ctx.contentType(contentType.toString());
+				try(Stream<Pool> pools = dao.streamPools(projectIdMask, nameMask, bottomMask, topMask, isExplicit, isImplicit, office))
+				{
+					new NdJsonWriter().write(pools, ctx.res.getOutputStream());
+				}
+				return;
+			}
+
+			Pools pools = dao.retrievePools(cursor, pageSize, projectIdMask, nameMask, bottomMask, topMask, isExplicit, isImplicit, office);
+
+			byte[] result = Formats.formatBytes(contentType,pools);
 
 			ctx.result(result).contentType(contentType.toString());
-			requestResultSize.update(result.length());
+			requestResultSize.update(result.length);
 
 			ctx.status(HttpServletResponse.SC_OK);
 		}
+		catch(IOException ex)
+		{
+			RadarError re = new RadarError("Failed to send pools");
+			logger.log(Level.SEVERE, re.toString(), ex);
+			ctx.status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+		}
 
 	}
 
@@ -181,10 +202,10 @@ public class PoolController implements CrudHandler
 				ContentType contentType = Formats.parseHeaderAndQueryParm(formatHeader, "");
 				ctx.contentType(contentType.toString());
 
-				String result = Formats.format(contentType, pool);
+				byte[] result = Formats.formatBytes(contentType, pool);
 
 				ctx.result(result);
-				requestResultSize.update(result.length());
+				requestResultSize.update(result.length);
 
 				ctx.status(HttpServletResponse.SC_OK);
 			}
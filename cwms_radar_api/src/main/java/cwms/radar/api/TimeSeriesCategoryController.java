@@ -11,6 +11,7 @@ import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 
 import cwms.radar.api.errors.RadarError;
+import cwms.radar.data.dao.ChangeFingerprintDao;
 import cwms.radar.data.dao.TimeSeriesCategoryDao;
 import cwms.radar.data.dto.TimeSeriesCategory;
 import cwms.radar.formatters.ContentType;
@@ -69,6 +70,10 @@ public class TimeSeriesCategoryController implements CrudHandler
 			DSLContext dsl = getDslContext(ctx))
 		{
 			TimeSeriesCategoryDao dao = new TimeSeriesCategoryDao(dsl);
+			if(ConditionalGet.isNotModified(ctx, () -> new ChangeFingerprintDao(dsl).getTableFingerprint(ChangeFingerprintDao.TIMESERIES_GROUP_TABLES)))
+			{
+				return;
+			}
 			String office = ctx.queryParam("office");
 
 			List<TimeSeriesCategory> cats = dao.getTimeSeriesCategories(office);
@@ -113,6 +118,10 @@ public class TimeSeriesCategoryController implements CrudHandler
 			DSLContext dsl = getDslContext(ctx))
 		{
 			TimeSeriesCategoryDao dao = new TimeSeriesCategoryDao(dsl);
+			if(ConditionalGet.isNotModified(ctx, () -> new ChangeFingerprintDao(dsl).getTableFingerprint(ChangeFingerprintDao.TIMESERIES_GROUP_TABLES)))
+			{
+				return;
+			}
 			String office = ctx.queryParam("office");
 
 			String formatHeader = ctx.header(Header.ACCEPT);
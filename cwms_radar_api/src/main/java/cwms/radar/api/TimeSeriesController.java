@@ -6,6 +6,7 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -37,19 +38,25 @@ import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import cwms.radar.api.enums.UnitSystem;
 import cwms.radar.api.errors.RadarError;
+import cwms.radar.api.sse.RecentValueSubscriptions;
+import cwms.radar.data.dao.AdaptiveRecentValueFinder;
 import cwms.radar.data.dao.JooqDao;
+import cwms.radar.data.dao.RecentValueBatcher;
 import cwms.radar.data.dao.TimeSeriesDao;
 import cwms.radar.data.dao.TimeSeriesDaoImpl;
 import cwms.radar.data.dto.RecentValue;
 import cwms.radar.data.dto.TimeSeries;
 import cwms.radar.data.dto.Tsv;
 import cwms.radar.formatters.ContentType;
+import cwms.radar.formatters.CountingOutputStream;
 import cwms.radar.formatters.Formats;
 import cwms.radar.formatters.FormattingException;
 import cwms.radar.formatters.json.JsonV1;
+import cwms.radar.formatters.json.JsonV2Binary;
 import io.javalin.apibuilder.CrudHandler;
 import io.javalin.core.util.Header;
 import io.javalin.http.Context;
+import io.javalin.http.sse.SseClient;
 import io.javalin.plugin.openapi.annotations.HttpMethod;
 import io.javalin.plugin.openapi.annotations.OpenApi;
 import io.javalin.plugin.openapi.annotations.OpenApiContent;
@@ -72,6 +79,7 @@ public class TimeSeriesController implements CrudHandler {
     private final Timer getOneRequestTime;
     private final Meter getRecentRequests;
     private final Timer getRecentRequestsTime;
+    private final Meter streamSubscriptions;
     private final Meter createRequests;
     private final Timer createRequestsTime;
     private final Meter updateRequests;
@@ -80,6 +88,7 @@ public class TimeSeriesController implements CrudHandler {
     private final Timer deleteRequestsTime;
 
     private final Histogram requestResultSize;
+    private final AdaptiveRecentValueFinder recentValueFinder;
     private final int defaultPageSize = 500;
 
 
@@ -93,12 +102,14 @@ public class TimeSeriesController implements CrudHandler {
         requestResultSize = this.metrics.histogram((name(className,"results","size")));
         getRecentRequests = this.metrics.meter(name(className,"getRecent","count"));
         getRecentRequestsTime = this.metrics.timer(name(className,"getRecent","time"));
+        streamSubscriptions = this.metrics.meter(name(className,"streamRecent","count"));
         createRequests = this.metrics.meter(name(className,"create","count"));
         createRequestsTime = this.metrics.timer(name(className,"create","time"));
         updateRequests = this.metrics.meter(name(className,"update","count"));
         updateRequestsTime = this.metrics.timer(name(className,"update","time"));
         deleteRequests = this.metrics.meter(name(className,"delete","count"));
         deleteRequestsTime = this.metrics.timer(name(className,"delete","time"));
+        recentValueFinder = new AdaptiveRecentValueFinder(this.metrics);
     }
 
     @OpenApi(
@@ -106,7 +117,9 @@ public class TimeSeriesController implements CrudHandler {
             requestBody = @OpenApiRequestBody(
                     content = {
                             @OpenApiContent(from = TimeSeries.class, type = Formats.JSON),
-                            @OpenApiContent(from = TimeSeries.class, type = Formats.XML )
+                            @OpenApiContent(from = TimeSeries.class, type = Formats.XML ),
+                            @OpenApiContent(from = TimeSeries.class, type = Formats.SMILE ),
+                            @OpenApiContent(from = TimeSeries.class, type = Formats.CBOR )
                     },
                     required = true
             ),
@@ -188,7 +201,7 @@ public class TimeSeriesController implements CrudHandler {
             @OpenApiParam(name="begin", required=false, description="Specifies the start of the time window for data to be included in the response. If this field is not specified, any required time window begins 24 hours prior to the specified or default end time. The format for this field is ISO 8601 extended, with optional offset and timezone, i.e., 'YYYY-MM-dd'T'hh:mm:ss[Z'['VV']']', e.g., '2021-06-10T13:00:00-0700[PST8PDT]'."),
             @OpenApiParam(name="end", required=false, description="Specifies the end of the time window for data to be included in the response. If this field is not specified, any required time window ends at the current time. The format for this field is ISO 8601 extended, with optional timezone, i.e., 'YYYY-MM-dd'T'hh:mm:ss[Z'['VV']']', e.g., '2021-06-10T13:00:00-0700[PST8PDT]'."),
             @OpenApiParam(name="timezone", required=false, description="Specifies the time zone of the values of the begin and end fields (unless otherwise specified), as well as the time zone of any times in the response. If this field is not specified, the default time zone of UTC shall be used.\r\nIgnored if begin was specified with offset and timezone."),
-            @OpenApiParam(name="format", required=false, description="Specifies the encoding format of the response. Valid values for the format field for this URI are:\r\n1.    tab\r\n2.    csv\r\n3.    xml\r\n4.  wml2 (only if name field is specified)\r\n5.    json (default)"),
+            @OpenApiParam(name="format", required=false, description="Specifies the encoding format of the response. Valid values for the format field for this URI are:\r\n1.    tab\r\n2.    csv\r\n3.    xml\r\n4.  wml2 (only if name field is specified)\r\n5.    json (default)\r\n6.    arrow (Apache Arrow IPC stream of the version 2 data)"),
             @OpenApiParam(name="page",
                           required = false,
                           description = "This end point can return a lot of data, this identifies where in the request you are. This is an opaque value, and can be obtained from the 'next-page' value in the response."
@@ -197,13 +210,18 @@ public class TimeSeriesController implements CrudHandler {
                           required=false,
                           type=Integer.class,
                           description = "How many entries per page returned. Default " + defaultPageSize + "."
+            ),
+            @OpenApiParam(name="since",
+                          required = false,
+                          description = "Only return values in the time window that were entered or updated after this point. Either the 'next-since' value of a previous response, or an ISO 8601 date-time with offset. Values entered shortly before that point may be returned again; deleted values are not reported. Only available for version 2 formats."
             )
         },
         responses = { @OpenApiResponse(status="200",
                                        description = "A list of elements of the data set you've selected.",
                                        content = {
                                            @OpenApiContent(from = TimeSeries.class, type=Formats.JSONV2),
-                                           @OpenApiContent(from = TimeSeries.class, type=Formats.XML)
+                                           @OpenApiContent(from = TimeSeries.class, type=Formats.XML),
+                                           @OpenApiContent(type=Formats.ARROW_STREAM)
                                        }
                       ),
                       @OpenApiResponse(status="400", description = "Invalid parameter combination"),
@@ -240,15 +258,26 @@ public class TimeSeriesController implements CrudHandler {
 									ctx.queryParamAsClass("pagesize",Integer.class).getOrDefault(defaultPageSize)
 								);
 
+            String since = ctx.queryParam("since");
+
+            if(ConditionalGet.isNotModified(ctx, () -> dao.getTimeseriesFingerprint(names, office, begin, end, timezone))) {
+                return;
+            }
+
             String acceptHeader = ctx.header(Header.ACCEPT);
             ContentType contentType = Formats.parseHeaderAndQueryParm(acceptHeader, format);
 
             String results;
             String version = contentType.getParameters().get("version");
-            if(version != null && version.equals("2")) {
-                TimeSeries ts = dao.getTimeseries(cursor, pageSize, names, office, unit, datum, begin, end, timezone);
+            boolean streaming = Formats.isStreaming(contentType, TimeSeries.class);
+            if(streaming || (version != null && version.equals("2"))) {
+                TimeSeries ts;
+                if(since != null && !since.isEmpty()) {
+                    ts = dao.getTimeseriesChanges(cursor, pageSize, names, office, unit, begin, end, timezone, TimeSeries.decodeSince(since));
+                } else {
+                    ts = dao.getTimeseries(cursor, pageSize, names, office, unit, datum, begin, end, timezone);
+                }
 
-                results = Formats.format(contentType, ts);
                 ctx.status(HttpServletResponse.SC_OK);
 
                 // Send back the link to the next page in the response header
@@ -263,9 +292,21 @@ public class TimeSeriesController implements CrudHandler {
                 }
 
                 ctx.header("Link", linkValue.toString());
-                ctx.result(results).contentType(contentType.toString());
+                ctx.contentType(contentType.toString());
+                if(streaming) {
+                    // binary formats are written straight to the client
+                    CountingOutputStream out = new CountingOutputStream(ctx.res.getOutputStream());
+                    Formats.format(contentType, ts, out);
+                    requestResultSize.update(out.getCount());
+                    return;
+                }
+                results = Formats.format(contentType, ts);
+                ctx.result(results);
             }
             else {
+                if(since != null && !since.isEmpty()) {
+                    throw new IllegalArgumentException("since is only supported by version 2 formats");
+                }
                 if (format == null || format.isEmpty()){
                     format = "json";
                 }
@@ -279,6 +320,10 @@ public class TimeSeriesController implements CrudHandler {
             logger.log(Level.SEVERE, re.toString(), ex);
             ctx.status(HttpServletResponse.SC_BAD_REQUEST);
             ctx.json(re);
+        } catch (IOException ex) {
+            RadarError re = new RadarError("Failed to send time series");
+            logger.log(Level.SEVERE, re.toString(), ex);
+            ctx.status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
         }
     }
 
@@ -301,7 +346,9 @@ public class TimeSeriesController implements CrudHandler {
             requestBody = @OpenApiRequestBody(
                     content = {
                         @OpenApiContent(from = TimeSeries.class, type = Formats.JSON),
-                        @OpenApiContent(from = TimeSeries.class, type=Formats.XML)
+                        @OpenApiContent(from = TimeSeries.class, type=Formats.XML),
+                        @OpenApiContent(from = TimeSeries.class, type=Formats.SMILE),
+                        @OpenApiContent(from = TimeSeries.class, type=Formats.CBOR)
                     },
                     required = true
             ),
@@ -336,7 +383,13 @@ public class TimeSeriesController implements CrudHandler {
 
     private TimeSeries deserializeTimeSeries(Context ctx) throws IOException
     {
-        return deserializeTimeSeries(ctx.body(), getContentType(ctx));
+        ContentType contentType = getContentType(ctx);
+        ObjectMapper binary = JsonV2Binary.getObjectMapperForFormat(contentType.getType());
+        if(binary != null)
+        {
+            return binary.readValue(ctx.bodyAsBytes(), TimeSeries.class);
+        }
+        return deserializeTimeSeries(ctx.body(), contentType);
     }
 
     private TimeSeries deserializeTimeSeries(String body, ContentType contentType) throws IOException
@@ -422,6 +475,10 @@ public class TimeSeriesController implements CrudHandler {
             if(format != null && !format.isEmpty())
                 result.append(String.format("&format=%s", format));
 
+            String since = ctx.queryParam("since");
+            if(since != null && !since.isEmpty())
+                result.append(String.format("&since=%s", URLEncoder.encode(since, StandardCharsets.UTF_8.toString())));
+
             if(cursor != null && !cursor.isEmpty())
                 result.append(String.format("&page=%s", URLEncoder.encode(cursor, StandardCharsets.UTF_8.toString())));
         } catch (UnsupportedEncodingException ex) {
@@ -461,16 +518,7 @@ public class TimeSeriesController implements CrudHandler {
             String groupId = ctx.pathParamAsClass("group-id", String.class).allowNullable().get();
             String tsIdsParam = ctx.queryParamAsClass("ts-ids", String.class).allowNullable().get();
 
-            GregorianCalendar gregorianCalendar = new GregorianCalendar();
-            gregorianCalendar.set(Calendar.HOUR, 0);
-            gregorianCalendar.set(Calendar.MINUTE, 0);
-            gregorianCalendar.set(Calendar.SECOND, 0);
-            gregorianCalendar.set(Calendar.MILLISECOND, 0);
-
-            gregorianCalendar.add(Calendar.HOUR, 24 * 14);
-            Timestamp futureLimit = Timestamp.from(gregorianCalendar.toInstant());
-            gregorianCalendar.add(Calendar.HOUR, 24 * -28);
-            Timestamp pastLimit = Timestamp.from(gregorianCalendar.toInstant());
+            Timestamp futureLimit = getRecentFutureLimit();
 
             boolean hasTsGroupInfo = categoryId != null && !categoryId.isEmpty() && groupId != null && !groupId.isEmpty();
             List<String> tsIds = getTsIds(tsIdsParam);
@@ -491,13 +539,30 @@ public class TimeSeriesController implements CrudHandler {
                 ctx.status(HttpServletResponse.SC_BAD_REQUEST);
                 ctx.json(re);
                 return;
-            } else if( hasTsGroupInfo){
-                // just group provided
-                latestValues = dao.findRecentsInRange(office, categoryId, groupId, pastLimit, futureLimit);
-            } else if(hasTsIds){
-                latestValues = dao.findMostRecentsInRange(tsIds, pastLimit, futureLimit);
             }
 
+            AdaptiveRecentValueFinder.RangeQuery query;
+            RecentValueBatcher batcher = ctx.appAttribute("RecentValueBatcher");
+            if(batcher != null) {
+                // Small id lists from many clients get folded into one set-based query.
+                String sessionOffice = ctx.attribute("office_id");
+                query = (ids, past, future) -> batcher.findMostRecentsInRange(sessionOffice, ids, past, future);
+            } else {
+                query = dao::findMostRecentsInRange;
+            }
+
+            if( hasTsGroupInfo){
+                // just group provided, resolve it to its members and search for those.
+                tsIds = dao.findTsGroupMemberIds(office, categoryId, groupId);
+                if(office != null) {
+                    AdaptiveRecentValueFinder.RangeQuery idQuery = query;
+                    query = (ids, past, future) -> idQuery.find(ids, past, future).stream()
+                            .filter(rv -> office.equals(rv.getDqu().getId().getOfficeId()))
+                            .collect(Collectors.toList());
+                }
+            }
+            latestValues = recentValueFinder.findMostRecents(tsIds, Instant.now(), futureLimit, query);
+
             String formatHeader = ctx.header(Header.ACCEPT);
             ContentType contentType = Formats.parseHeaderAndQueryParm(formatHeader, "json");
 
@@ -510,6 +575,77 @@ public class TimeSeriesController implements CrudHandler {
         }
     }
 
+    /**
+     * Sends new recent values to the client as Server-Sent Events, for either the ts-ids or the
+     * timeseries group given the same way as getRecent.  The current values are sent first.
+     */
+    public void streamRecent(SseClient client)
+    {
+        Context ctx = client.ctx;
+        RecentValueSubscriptions subscriptions = ctx.appAttribute("RecentValueSubscriptions");
+        if(subscriptions == null) {
+            rejectStream(client, RadarError.notImplemented());
+            return;
+        }
+
+        try(DSLContext dsl = getDslContext(ctx))
+        {
+            TimeSeriesDao dao = getTimeSeriesDao(dsl);
+
+            String office = ctx.queryParam("office");
+            String categoryId = ctx.queryParam("category-id");
+            String groupId = ctx.pathParam("group-id");
+            List<String> tsIds = getTsIds(ctx.queryParam("ts-ids"));
+
+            boolean hasTsGroupInfo = categoryId != null && !categoryId.isEmpty() && groupId != null && !groupId.isEmpty();
+            boolean hasTsIds = tsIds != null && !tsIds.isEmpty();
+            if(hasTsGroupInfo == hasTsIds) {
+                rejectStream(client, new RadarError("Invalid arguments supplied, provide either Timeseries Group info or Timeseries IDs."));
+                return;
+            }
+
+            String officeFilter = null;
+            if(hasTsGroupInfo) {
+                tsIds = dao.findTsGroupMemberIds(office, categoryId, groupId);
+                officeFilter = office;
+            }
+
+            RecentValueSubscriptions.Subscription subscription = subscriptions.subscribe(client, tsIds, officeFilter);
+            if(subscription == null) {
+                rejectStream(client, new RadarError("Too many subscribers, try again later."));
+                return;
+            }
+            streamSubscriptions.mark();
+
+            // Subscribed first so nothing that changes while the current values are read is missed.
+            List<RecentValue> current = recentValueFinder.findMostRecents(tsIds, Instant.now(), getRecentFutureLimit(),
+                    dao::findMostRecentsInRange);
+            subscription.offer(current);
+        }
+    }
+
+    private static void rejectStream(SseClient client, RadarError error)
+    {
+        logger.log(Level.INFO, () -> error + " for request " + client.ctx.fullUrl());
+        client.sendEvent(RecentValueSubscriptions.ERROR_EVENT, error);
+        client.ctx.req.getAsyncContext().complete();
+    }
+
+    /**
+     * Values at or after midnight two weeks out are not considered recent.
+     */
+    static Timestamp getRecentFutureLimit()
+    {
+        GregorianCalendar gregorianCalendar = new GregorianCalendar();
+        gregorianCalendar.set(Calendar.HOUR, 0);
+        gregorianCalendar.set(Calendar.MINUTE, 0);
+        gregorianCalendar.set(Calendar.SECOND, 0);
+        gregorianCalendar.set(Calendar.MILLISECOND, 0);
+
+        gregorianCalendar.add(Calendar.HOUR, 24 * 14);
+        return Timestamp.from(gregorianCalendar.toInstant());
+    }
+
     public static List<String> getTsIds(String tsIdsParam)
     {
         List<String> retval = null;
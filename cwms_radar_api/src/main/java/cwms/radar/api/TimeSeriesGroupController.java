@@ -1,7 +1,10 @@
 package cwms.radar.api;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 import javax.servlet.http.HttpServletResponse;
 
 import com.codahale.metrics.Histogram;
@@ -10,10 +13,12 @@ import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 
 import cwms.radar.api.errors.RadarError;
+import cwms.radar.data.dao.ChangeFingerprintDao;
 import cwms.radar.data.dao.TimeSeriesGroupDao;
 import cwms.radar.data.dto.TimeSeriesGroup;
 import cwms.radar.formatters.ContentType;
 import cwms.radar.formatters.Formats;
+import cwms.radar.formatters.json.NdJsonWriter;
 import io.javalin.apibuilder.CrudHandler;
 import io.javalin.core.util.Header;
 import io.javalin.http.Context;
@@ -55,7 +60,8 @@ public class TimeSeriesGroupController implements CrudHandler
 			},
 			responses = {
 			@OpenApiResponse(status = "200",
-					content = {@OpenApiContent(isArray = true, from = TimeSeriesGroup.class, type = Formats.JSON)
+					content = {@OpenApiContent(isArray = true, from = TimeSeriesGroup.class, type = Formats.JSON),
+							@OpenApiContent(from = TimeSeriesGroup.class, type = Formats.NDJSON)
 							//							@OpenApiContent(isArray = true, from = TabV1TimeseriesGroup.class, type = Formats.TAB ),
 							//							@OpenApiContent(isArray = true, from = CsvV1TimeseriesGroup.class, type = Formats.CSV )
 					}
@@ -71,8 +77,25 @@ public class TimeSeriesGroupController implements CrudHandler
 			DSLContext dsl = getDslContext(ctx))
 		{
 			TimeSeriesGroupDao dao = new TimeSeriesGroupDao(dsl);
+			if(ConditionalGet.isNotModified(ctx, () -> new ChangeFingerprintDao(dsl).getTableFingerprint(ChangeFingerprintDao.TIMESERIES_GROUP_TABLES)))
+			{
+				return;
+			}
 			String office = ctx.queryParam("office");
 
+			// The other formats are always sent as json, ndjson has to be asked for.
+			String acceptHeader = ctx.header(Header.ACCEPT);
+			ContentType requested = acceptHeader != null ? Formats.parseHeader(acceptHeader) : null;
+			if(requested != null && Formats.NDJSON.equals(requested.getType()))
+			{
+				ctx.contentType(requested.toString());
+				try(Stream<TimeSeriesGroup> grps = dao.streamTimeSeriesGroups(office))
+				{
+					new NdJsonWriter().write(grps, ctx.res.getOutputStream());
+				}
+				return;
+			}
+
 			List<TimeSeriesGroup> grps = dao.getTimeSeriesGroups(office);
 			if( grps.isEmpty() ){
 				RadarError re = new RadarError("No data found for The provided office");
@@ -90,6 +113,12 @@ public class TimeSeriesGroupController implements CrudHandler
 				ctx.status(HttpServletResponse.SC_OK);
 			}
 		}
+		catch(IOException ex)
+		{
+			RadarError re = new RadarError("Failed to send timeseries groups");
+			logger.log(Level.SEVERE, re.toString(), ex);
+			ctx.status(HttpCode.INTERNAL_SERVER_ERROR);
+		}
 
 	}
 
@@ -116,6 +145,10 @@ public class TimeSeriesGroupController implements CrudHandler
 			DSLContext dsl = getDslContext(ctx))
 		{
 			TimeSeriesGroupDao dao = new TimeSeriesGroupDao(dsl);
+			if(ConditionalGet.isNotModified(ctx, () -> new ChangeFingerprintDao(dsl).getTableFingerprint(ChangeFingerprintDao.TIMESERIES_GROUP_TABLES)))
+			{
+				return;
+			}
 			String office = ctx.queryParam("office");
 			String categoryId = ctx.queryParam("category-id");
 
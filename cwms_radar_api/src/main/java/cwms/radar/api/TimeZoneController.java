@@ -1,6 +1,7 @@
 package cwms.radar.api;
 
 import java.sql.SQLException;
+import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -13,6 +14,7 @@ import static com.codahale.metrics.MetricRegistry.*;
 import com.codahale.metrics.Timer;
 
 import cwms.radar.data.CwmsDataManager;
+import cwms.radar.data.dao.ReferenceDataCache;
 import cwms.radar.api.errors.RadarError;
 import cwms.radar.formatters.Formats;
 import io.javalin.apibuilder.CrudHandler;
@@ -67,7 +69,6 @@ public class TimeZoneController implements CrudHandler {
         getAllRequests.mark();
         try (
             final Timer.Context time_context = getAllRequestsTime.time();
-            CwmsDataManager cdm = new CwmsDataManager(ctx);
         ) {
             String format = ctx.queryParamAsClass("format",String.class).getOrDefault("json");
 
@@ -84,11 +85,28 @@ public class TimeZoneController implements CrudHandler {
                 }
             }
 
-            String results = cdm.getTimeZones(format);
-            requestResultSize.update(results.length());
-            ctx.status(HttpServletResponse.SC_OK);
-            ctx.result(results);
-            requestResultSize.update(results.length());
+            Optional<ReferenceDataCache.Rendered> cached = ReferenceDataCache.getInstance().getCatalog(ReferenceDataCache.Catalog.TIME_ZONES, format);
+            if(cached.isPresent()) {
+                // answered without a database connection
+                if(ConditionalGet.isNotModified(ctx, cached.get())) {
+                    return;
+                }
+                ctx.status(HttpServletResponse.SC_OK);
+                ctx.result(cached.get().getBody());
+                requestResultSize.update(cached.get().getBody().length);
+                return;
+            }
+
+            try(CwmsDataManager cdm = new CwmsDataManager(ctx)) {
+                String results = cdm.getTimeZones(format);
+                if(ConditionalGet.isNotModified(ctx, results)) {
+                    return;
+                }
+                requestResultSize.update(results.length());
+                ctx.status(HttpServletResponse.SC_OK);
+                ctx.result(results);
+                requestResultSize.update(results.length());
+            }
         } catch (SQLException ex) {
             logger.log(Level.SEVERE, null, ex);
             ctx.status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
@@ -1,6 +1,7 @@
 package cwms.radar.api;
 
 import java.sql.SQLException;
+import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -14,6 +15,7 @@ import com.codahale.metrics.Timer;
 
 import cwms.radar.api.errors.RadarError;
 import cwms.radar.data.CwmsDataManager;
+import cwms.radar.data.dao.ReferenceDataCache;
 import cwms.radar.formatters.Formats;
 import io.javalin.apibuilder.CrudHandler;
 import io.javalin.http.Context;
@@ -67,7 +69,6 @@ public class UnitsController implements CrudHandler {
         getAllRequests.mark();
         try (
             final Timer.Context time_context = getAllRequestsTime.time();
-            CwmsDataManager cdm = new CwmsDataManager(ctx);
         ) {
             String format = ctx.queryParamAsClass("format",String.class).getOrDefault("json");
 
@@ -81,10 +82,27 @@ public class UnitsController implements CrudHandler {
                 default: throw new UnsupportedOperationException("Format " +  format + " is not implemented for this end point");
             }
 
-            String results = cdm.getUnits(format);
-            ctx.status(HttpServletResponse.SC_OK);
-            ctx.result(results);
-            requestResultSize.update(results.length());
+            Optional<ReferenceDataCache.Rendered> cached = ReferenceDataCache.getInstance().getCatalog(ReferenceDataCache.Catalog.UNITS, format);
+            if(cached.isPresent()) {
+                // answered without a database connection
+                if(ConditionalGet.isNotModified(ctx, cached.get())) {
+                    return;
+                }
+                ctx.status(HttpServletResponse.SC_OK);
+                ctx.result(cached.get().getBody());
+                requestResultSize.update(cached.get().getBody().length);
+                return;
+            }
+
+            try(CwmsDataManager cdm = new CwmsDataManager(ctx)) {
+                String results = cdm.getUnits(format);
+                if(ConditionalGet.isNotModified(ctx, results)) {
+                    return;
+                }
+                ctx.status(HttpServletResponse.SC_OK);
+                ctx.result(results);
+                requestResultSize.update(results.length());
+            }
         } catch (SQLException ex) {
             logger.log(Level.SEVERE, null, ex);
             ctx.status(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
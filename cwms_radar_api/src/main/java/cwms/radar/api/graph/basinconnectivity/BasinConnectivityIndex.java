@@ -0,0 +1,223 @@
+package cwms.radar.api.graph.basinconnectivity;
+
+import cwms.radar.api.graph.Edge;
+import cwms.radar.api.graph.Node;
+import cwms.radar.api.graph.basinconnectivity.edges.StreamEdge;
+import cwms.radar.api.graph.basinconnectivity.nodes.BasinConnectivityNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+/**
+ * The stream edges of a BasinConnectivityGraph as int indexed adjacency arrays, for walking a
+ * basin up or down stream without going through the node and edge objects.
+ *
+ * Edges run with the flow, so a node's downstream neighbours are the targets of its edges and its
+ * upstream neighbours their sources.  Reach edges are left out, they span stream edges that are
+ * already here and would only shorten the hop counts.  Immutable once built.
+ */
+public final class BasinConnectivityIndex
+{
+    private final BasinConnectivityNode[] nodes;
+    private final Map<String, Integer> byId = new HashMap<>();
+    // the downstream neighbours of node i are downTargets[downOffsets[i]] to downTargets[downOffsets[i + 1] - 1]
+    private final int[] downOffsets;
+    private final int[] downTargets;
+    private final int[] upOffsets;
+    private final int[] upTargets;
+
+    public BasinConnectivityIndex(BasinConnectivityGraph graph)
+    {
+        List<Node> graphNodes = graph.getNodes();
+        BasinConnectivityNode[] unique = new BasinConnectivityNode[graphNodes.size()];
+        Map<BasinConnectivityNode, Integer> indexes = new HashMap<>();
+        int count = 0;
+        for(Node node : graphNodes)
+        {
+            BasinConnectivityNode basinNode = (BasinConnectivityNode) node;
+            if(indexes.putIfAbsent(basinNode, count) == null)
+            {
+                unique[count] = basinNode;
+                byId.putIfAbsent(basinNode.getId().toUpperCase(), count);
+                count++;
+            }
+        }
+        nodes = Arrays.copyOf(unique, count);
+
+        List<int[]> edges = new ArrayList<>();
+        for(Edge edge : graph.getEdges())
+        {
+            if(!(edge instanceof StreamEdge))
+            {
+                continue;
+            }
+            StreamEdge streamEdge = (StreamEdge) edge;
+            Integer source = streamEdge.getSource() == null ? null : indexes.get(streamEdge.getSource());
+            Integer target = streamEdge.getTarget() == null ? null : indexes.get(streamEdge.getTarget());
+            // a tributary whose confluence station has no node on its receiving stream ends nowhere
+            if(source != null && target != null)
+            {
+                edges.add(new int[]{source, target});
+            }
+        }
+
+        downOffsets = new int[count + 1];
+        upOffsets = new int[count + 1];
+        for(int[] edge : edges)
+        {
+            downOffsets[edge[0] + 1]++;
+            upOffsets[edge[1] + 1]++;
+        }
+        for(int i = 0; i < count; i++)
+        {
+            downOffsets[i + 1] += downOffsets[i];
+            upOffsets[i + 1] += upOffsets[i];
+        }
+        downTargets = new int[edges.size()];
+        upTargets = new int[edges.size()];
+        int[] downNext = Arrays.copyOf(downOffsets, count);
+        int[] upNext = Arrays.copyOf(upOffsets, count);
+        for(int[] edge : edges)
+        {
+            downTargets[downNext[edge[0]]++] = edge[1];
+            upTargets[upNext[edge[1]]++] = edge[0];
+        }
+    }
+
+    public int size()
+    {
+        return nodes.length;
+    }
+
+    /**
+     * @param nodeId a location name, or the id of an empty stream node, compared ignoring case
+     */
+    public OptionalInt indexOf(String nodeId)
+    {
+        Integer retval = nodeId == null ? null : byId.get(nodeId.toUpperCase());
+        return retval == null ? OptionalInt.empty() : OptionalInt.of(retval);
+    }
+
+    public BasinConnectivityNode getNode(int index)
+    {
+        return nodes[index];
+    }
+
+    /**
+     * Every node whose water reaches the node, nearest first.  The node itself is the first visit,
+     * at hop 0, so the order is the order tributaries contribute in.
+     */
+    public List<Visit> upstream(int node)
+    {
+        return breadthFirst(node, Integer.MAX_VALUE, upOffsets, upTargets, null, null);
+    }
+
+    /**
+     * The nodes from the node to the basin's outlet, in flow order and starting with the node.  Where
+     * a stream diverts, the path stays on the stream it is on.
+     */
+    public List<Visit> downstream(int node)
+    {
+        List<Visit> retval = new ArrayList<>();
+        boolean[] visited = new boolean[nodes.length];
+        int current = node;
+        while(current >= 0 && !visited[current])
+        {
+            visited[current] = true;
+            retval.add(new Visit(nodes[current], retval.size()));
+            int next = -1;
+            for(int i = downOffsets[current]; i < downOffsets[current + 1]; i++)
+            {
+                int target = downTargets[i];
+                if(next < 0 || nodes[target].getStreamId().equalsIgnoreCase(nodes[current].getStreamId()))
+                {
+                    next = target;
+                }
+            }
+            current = next;
+        }
+        return Collections.unmodifiableList(retval);
+    }
+
+    /**
+     * The nodes within hops edges of the node, either way along the streams, nearest first.
+     */
+    public List<Visit> neighborhood(int node, int hops)
+    {
+        return breadthFirst(node, hops, upOffsets, upTargets, downOffsets, downTargets);
+    }
+
+    private List<Visit> breadthFirst(int node, int maxHops, int[] offsets, int[] targets, int[] otherOffsets, int[] otherTargets)
+    {
+        int[] hops = new int[nodes.length];
+        Arrays.fill(hops, -1);
+        int[] queue = new int[nodes.length];
+        int head = 0;
+        int tail = 0;
+        hops[node] = 0;
+        queue[tail++] = node;
+        while(head < tail)
+        {
+            int current = queue[head++];
+            if(hops[current] == maxHops)
+            {
+                continue;
+            }
+            tail = enqueue(current, offsets, targets, hops, queue, tail);
+            if(otherOffsets != null)
+            {
+                tail = enqueue(current, otherOffsets, otherTargets, hops, queue, tail);
+            }
+        }
+        List<Visit> retval = new ArrayList<>(tail);
+        for(int i = 0; i < tail; i++)
+        {
+            retval.add(new Visit(nodes[queue[i]], hops[queue[i]]));
+        }
+        return Collections.unmodifiableList(retval);
+    }
+
+    private static int enqueue(int current, int[] offsets, int[] targets, int[] hops, int[] queue, int tail)
+    {
+        for(int i = offsets[current]; i < offsets[current + 1]; i++)
+        {
+            int neighbour = targets[i];
+            if(hops[neighbour] < 0)
+            {
+                hops[neighbour] = hops[current] + 1;
+                queue[tail++] = neighbour;
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * A node reached by a traversal and how many edges away from where it started.
+     */
+    public static final class Visit
+    {
+        private final BasinConnectivityNode node;
+        private final int hops;
+
+        Visit(BasinConnectivityNode node, int hops)
+        {
+            this.node = node;
+            this.hops = hops;
+        }
+
+        public BasinConnectivityNode getNode()
+        {
+            return node;
+        }
+
+        public int getHops()
+        {
+            return hops;
+        }
+    }
+}
@@ -0,0 +1,485 @@
+package cwms.radar.api.sse;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import cwms.radar.data.dao.LatestValueStore;
+import cwms.radar.data.dto.RecentValue;
+import cwms.radar.formatters.ContentType;
+import cwms.radar.formatters.Formats;
+import io.javalin.http.sse.SseClient;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Pushes new recent values to Server-Sent Event subscribers.
+ *
+ * Changes come from the LatestValueStore, so the poller's single change query per interval feeds
+ * every subscriber.  Without a running LatestValuePoller the store only sees this process's own
+ * writes, so the servers only create subscriptions when the poller is polling.
+ *
+ * Each subscriber has a bounded buffer that is drained by a shared pool of sender threads;
+ * everything waiting in the buffer goes out as one event.  A subscriber that can't keep up has its
+ * buffer dropped and is sent an overflow event telling it to re-read /timeseries/recent.  A send
+ * blocks while the client's socket is full, so a subscriber that overflows again before that event
+ * is sent, or whose send takes longer than RADAR_SSE_SEND_TIMEOUT_SECONDS, is disconnected rather
+ * than left holding a sender thread.  Idle subscribers get a heartbeat so proxies keep the
+ * connection open and dead connections are noticed.
+ */
+public class RecentValueSubscriptions implements LatestValueStore.Listener, AutoCloseable
+{
+    private static final Logger logger = Logger.getLogger(RecentValueSubscriptions.class.getName());
+
+    public static final String BUFFER_SIZE_PROPERTY = "RADAR_SSE_BUFFER_SIZE";
+    public static final String HEARTBEAT_PROPERTY = "RADAR_SSE_HEARTBEAT_SECONDS";
+    public static final String SENDER_THREADS_PROPERTY = "RADAR_SSE_SENDER_THREADS";
+    public static final String MAX_SUBSCRIBERS_PROPERTY = "RADAR_SSE_MAX_SUBSCRIBERS";
+    public static final String SEND_TIMEOUT_PROPERTY = "RADAR_SSE_SEND_TIMEOUT_SECONDS";
+    public static final int DEFAULT_BUFFER_SIZE = 64;
+    public static final long DEFAULT_HEARTBEAT_SECONDS = 20;
+    public static final int DEFAULT_SENDER_THREADS = 4;
+    public static final int DEFAULT_MAX_SUBSCRIBERS = 1000;
+    public static final long DEFAULT_SEND_TIMEOUT_SECONDS = 30;
+
+    public static final String VALUES_EVENT = "values";
+    public static final String HEARTBEAT_EVENT = "heartbeat";
+    public static final String OVERFLOW_EVENT = "overflow";
+    public static final String ERROR_EVENT = "error";
+
+    private static final ContentType VALUES_TYPE = new ContentType(Formats.JSON);
+
+    /**
+     * Where a subscriber's events are written.
+     */
+    public interface EventSink
+    {
+        void send(String event, String data);
+        void close();
+    }
+
+    private final LatestValueStore store;
+    private final int bufferSize;
+    private final long heartbeatMillis;
+    private final int maxSubscribers;
+    private final long sendTimeoutMillis;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<Subscription>> byTsId = new ConcurrentHashMap<>();
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeats;
+    private final Meter events;
+    private final Meter overflows;
+    private final Meter disconnects;
+
+    public RecentValueSubscriptions(MetricRegistry metrics)
+    {
+        this(LatestValueStore.getInstance(), metrics,
+                Integer.parseInt(System.getProperty(BUFFER_SIZE_PROPERTY, String.valueOf(DEFAULT_BUFFER_SIZE))),
+                Long.parseLong(System.getProperty(HEARTBEAT_PROPERTY, String.valueOf(DEFAULT_HEARTBEAT_SECONDS))) * 1000,
+                Integer.parseInt(System.getProperty(SENDER_THREADS_PROPERTY, String.valueOf(DEFAULT_SENDER_THREADS))),
+                Integer.parseInt(System.getProperty(MAX_SUBSCRIBERS_PROPERTY, String.valueOf(DEFAULT_MAX_SUBSCRIBERS))),
+                Long.parseLong(System.getProperty(SEND_TIMEOUT_PROPERTY, String.valueOf(DEFAULT_SEND_TIMEOUT_SECONDS))) * 1000);
+    }
+
+    public RecentValueSubscriptions(LatestValueStore store, MetricRegistry metrics, int bufferSize,
+                                    long heartbeatMillis, int senderThreads, int maxSubscribers, long sendTimeoutMillis)
+    {
+        this.store = store;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.heartbeatMillis = heartbeatMillis;
+        this.maxSubscribers = maxSubscribers;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+
+        String className = this.getClass().getName();
+        events = metrics.meter(name(className, "events"));
+        overflows = metrics.meter(name(className, "overflows"));
+        disconnects = metrics.meter(name(className, "disconnects"));
+        metrics.gauge(name(className, "subscribers"), () -> subscriptions::size);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(Math.max(1, senderThreads), r -> {
+            Thread t = new Thread(r, "radar-sse-sender-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "radar-sse-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        if(heartbeatMillis > 0)
+        {
+            heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        }
+        if(sendTimeoutMillis > 0)
+        {
+            long checkMillis = Math.max(1, sendTimeoutMillis / 2);
+            heartbeats.scheduleWithFixedDelay(this::disconnectStalled, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+        }
+
+        store.addListener(this);
+    }
+
+    /**
+     * Subscribes an SSE client.  The subscription ends when the client goes away.
+     *
+     * @return the subscription, or null if there are already too many subscribers
+     */
+    public Subscription subscribe(SseClient client, Collection<String> tsIds, String office)
+    {
+        Subscription subscription = subscribe(new EventSink()
+        {
+            @Override
+            public void send(String event, String data)
+            {
+                client.sendEvent(event, data);
+            }
+
+            @Override
+            public void close()
+            {
+                client.ctx.req.getAsyncContext().complete();
+            }
+        }, tsIds, office);
+
+        if(subscription != null)
+        {
+            client.onClose(subscription::close);
+        }
+        return subscription;
+    }
+
+    /**
+     * @param tsIds  the series to send values for
+     * @param office if not null only values owned by this office are sent
+     * @return the subscription, or null if there are already too many subscribers
+     */
+    public Subscription subscribe(EventSink sink, Collection<String> tsIds, String office)
+    {
+        if(subscriptions.size() >= maxSubscribers)
+        {
+            return null;
+        }
+
+        Subscription subscription = new Subscription(sink, tsIds, office);
+        subscriptions.add(subscription);
+        for(String tsId : subscription.tsIds)
+        {
+            byTsId.computeIfAbsent(tsId, k -> ConcurrentHashMap.newKeySet()).add(subscription);
+        }
+        return subscription;
+    }
+
+    @Override
+    public void latestChanged(Set<String> tsIds, List<RecentValue> values)
+    {
+        for(String tsId : tsIds)
+        {
+            Set<Subscription> subscribers = byTsId.get(tsId);
+            if(subscribers == null || subscribers.isEmpty())
+            {
+                continue;
+            }
+
+            List<RecentValue> named = new ArrayList<>();
+            for(RecentValue value : values)
+            {
+                named.add(new RecentValue(tsId, value.getDqu()));
+            }
+            for(Subscription subscription : subscribers)
+            {
+                subscription.offer(named);
+            }
+        }
+    }
+
+    public int size()
+    {
+        return subscriptions.size();
+    }
+
+    private void heartbeat()
+    {
+        long now = System.currentTimeMillis();
+        for(Subscription subscription : subscriptions)
+        {
+            if(now - subscription.lastSentMillis >= heartbeatMillis)
+            {
+                subscription.heartbeatDue = true;
+                subscription.schedule();
+            }
+        }
+    }
+
+    /**
+     * Disconnects the subscribers whose send has been blocked for longer than the send timeout, so
+     * the sender thread it holds is given back.
+     */
+    void disconnectStalled()
+    {
+        long now = System.currentTimeMillis();
+        for(Subscription subscription : subscriptions)
+        {
+            long since = subscription.sendingSinceMillis;
+            if(since > 0 && now - since >= sendTimeoutMillis)
+            {
+                logger.fine(() -> "Disconnecting subscriber whose send has been blocked since " + Instant.ofEpochMilli(since));
+                subscription.disconnect();
+            }
+        }
+    }
+
+    private void remove(Subscription subscription)
+    {
+        subscriptions.remove(subscription);
+        for(String tsId : subscription.tsIds)
+        {
+            Set<Subscription> subscribers = byTsId.get(tsId);
+            if(subscribers != null)
+            {
+                subscribers.remove(subscription);
+                if(subscribers.isEmpty())
+                {
+                    byTsId.remove(tsId, subscribers);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        store.removeListener(this);
+        heartbeats.shutdownNow();
+        senders.shutdownNow();
+        for(Subscription subscription : new ArrayList<>(subscriptions))
+        {
+            subscription.close();
+            subscription.closeSink();
+        }
+    }
+
+    /**
+     * One connected subscriber.
+     */
+    public class Subscription
+    {
+        private final EventSink sink;
+        private final Set<String> tsIds;
+        private final String office;
+        private final BlockingQueue<List<RecentValue>> buffer;
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private volatile boolean closed = false;
+        private volatile boolean overflowed = false;
+        private volatile boolean heartbeatDue = false;
+        private volatile long lastSentMillis = System.currentTimeMillis();
+        // when the send in progress started, 0 when not sending
+        private volatile long sendingSinceMillis = 0;
+
+        Subscription(EventSink sink, Collection<String> tsIds, String office)
+        {
+            this.sink = sink;
+            this.tsIds = Collections.unmodifiableSet(new LinkedHashSet<>(tsIds));
+            this.office = office;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        /**
+         * Queues values to be sent, never blocks.
+         */
+        public void offer(List<RecentValue> values)
+        {
+            if(closed)
+            {
+                return;
+            }
+
+            List<RecentValue> mine = values;
+            if(office != null)
+            {
+                mine = new ArrayList<>();
+                for(RecentValue value : values)
+                {
+                    if(office.equalsIgnoreCase(value.getDqu().getId().getOfficeId()))
+                    {
+                        mine.add(value);
+                    }
+                }
+            }
+            if(mine.isEmpty())
+            {
+                return;
+            }
+
+            if(!buffer.offer(mine))
+            {
+                if(overflowed)
+                {
+                    // It hasn't even been sent the last overflow, it isn't reading at all.
+                    logger.fine("Disconnecting subscriber that overflowed twice");
+                    disconnect();
+                    return;
+                }
+                // The client isn't keeping up.  Rather than grow without bound, drop what it hasn't
+                // read and tell it to start over.
+                buffer.clear();
+                overflowed = true;
+                overflows.mark();
+            }
+            schedule();
+        }
+
+        public void close()
+        {
+            if(!closed)
+            {
+                closed = true;
+                buffer.clear();
+                remove(this);
+            }
+        }
+
+        public boolean isClosed()
+        {
+            return closed;
+        }
+
+        /**
+         * Ends the subscription and the client's connection, which also fails a send blocked on it.
+         */
+        void disconnect()
+        {
+            if(!closed)
+            {
+                close();
+                disconnects.mark();
+                closeSink();
+            }
+        }
+
+        private void closeSink()
+        {
+            try
+            {
+                sink.close();
+            }
+            catch(RuntimeException ex)
+            {
+                logger.log(Level.FINE, "Unable to close subscriber", ex);
+            }
+        }
+
+        void schedule()
+        {
+            if(!closed && scheduled.compareAndSet(false, true))
+            {
+                try
+                {
+                    senders.execute(this::drain);
+                }
+                catch(RuntimeException ex)
+                {
+                    // shutting down
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void drain()
+        {
+            try
+            {
+                if(overflowed)
+                {
+                    overflowed = false;
+                    send(OVERFLOW_EVENT, "{\"message\":\"Values were dropped, re-read the recent values.\"}");
+                }
+
+                List<RecentValue> pending = new ArrayList<>();
+                List<RecentValue> next;
+                while((next = buffer.poll()) != null)
+                {
+                    pending.addAll(next);
+                }
+                if(!pending.isEmpty())
+                {
+                    send(VALUES_EVENT, Formats.format(VALUES_TYPE, latestOnly(pending), RecentValue.class));
+                    events.mark();
+                }
+                else if(heartbeatDue)
+                {
+                    send(HEARTBEAT_EVENT, "\"" + Instant.now().toString() + "\"");
+                }
+                heartbeatDue = false;
+            }
+            catch(RuntimeException ex)
+            {
+                logger.log(Level.FINE, "Dropping subscriber that could not be sent to", ex);
+                close();
+            }
+            finally
+            {
+                scheduled.set(false);
+                if(!buffer.isEmpty() || overflowed)
+                {
+                    schedule();
+                }
+            }
+        }
+
+        private void send(String event, String data)
+        {
+            if(!closed)
+            {
+                sendingSinceMillis = System.currentTimeMillis();
+                try
+                {
+                    sink.send(event, data);
+                }
+                finally
+                {
+                    sendingSinceMillis = 0;
+                }
+                lastSentMillis = System.currentTimeMillis();
+            }
+        }
+    }
+
+    /**
+     * Collapses queued values to the newest one per series and unit.
+     */
+    static List<RecentValue> latestOnly(List<RecentValue> values)
+    {
+        Map<String, RecentValue> newest = new LinkedHashMap<>();
+        for(RecentValue value : values)
+        {
+            String key = value.getId() + "|" + value.getDqu().getId().getUnitId();
+            RecentValue current = newest.get(key);
+            if(current == null
+                    || !value.getDqu().getId().getDateTime().before(current.getDqu().getId().getDateTime()))
+            {
+                newest.put(key, value);
+            }
+        }
+        return new ArrayList<>(newest.values());
+    }
+}
@@ -0,0 +1,87 @@
+package cwms.radar.data;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+
+/**
+ * A Connection that isn't taken from the pool until something uses it.
+ *
+ * Every request is handed a connection, but the ones answered from memory never touch it.
+ * Closing a connection that was never opened does nothing.
+ */
+public final class LazyConnection implements InvocationHandler
+{
+	private final DataSource dataSource;
+	private Connection connection = null;
+	private boolean closed = false;
+
+	private LazyConnection(DataSource dataSource)
+	{
+		this.dataSource = dataSource;
+	}
+
+	public static Connection of(DataSource dataSource)
+	{
+		return (Connection) Proxy.newProxyInstance(LazyConnection.class.getClassLoader(),
+				new Class<?>[]{Connection.class}, new LazyConnection(dataSource));
+	}
+
+	/**
+	 * Whether the connection was ever taken from the pool.
+	 */
+	public static boolean isOpened(Connection connection)
+	{
+		if(Proxy.isProxyClass(connection.getClass()) && Proxy.getInvocationHandler(connection) instanceof LazyConnection)
+		{
+			return ((LazyConnection) Proxy.getInvocationHandler(connection)).connection != null;
+		}
+		return true;
+	}
+
+	@Override
+	public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+	{
+		switch(method.getName())
+		{
+			case "close":
+				closed = true;
+				if(connection != null)
+				{
+					connection.close();
+				}
+				return null;
+			case "isClosed":
+				return connection != null ? connection.isClosed() : closed;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "LazyConnection[" + (connection != null ? connection : "not opened") + "]";
+			default:
+				break;
+		}
+
+		if(connection == null)
+		{
+			if(closed)
+			{
+				throw new SQLException("Connection is closed");
+			}
+			connection = dataSource.getConnection();
+		}
+		try
+		{
+			return method.invoke(connection, args);
+		}
+		catch(InvocationTargetException ex)
+		{
+			throw ex.getCause();
+		}
+	}
+}
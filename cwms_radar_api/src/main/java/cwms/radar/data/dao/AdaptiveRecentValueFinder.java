@@ -0,0 +1,161 @@
+package cwms.radar.data.dao;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import cwms.radar.data.dto.RecentValue;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Finds the most recent value of each series by searching a short window first and only
+ * widening the search, exponentially, for the series that had nothing in it.
+ *
+ * Each wider step only scans the part of the window not already searched, so a series
+ * with fresh data costs a scan of the first window only.
+ */
+public class AdaptiveRecentValueFinder
+{
+	public static final String INITIAL_WINDOW_PROPERTY = "RADAR_RECENT_INITIAL_WINDOW_HOURS";
+	public static final String MAX_LOOKBACK_PROPERTY = "RADAR_RECENT_MAX_LOOKBACK_DAYS";
+	public static final long DEFAULT_INITIAL_WINDOW_HOURS = 6;
+	public static final long DEFAULT_MAX_LOOKBACK_DAYS = 14;
+	public static final int GROWTH_FACTOR = 4;
+
+	/**
+	 * Same contract as TimeSeriesDao.findMostRecentsInRange.
+	 */
+	@FunctionalInterface
+	public interface RangeQuery
+	{
+		List<RecentValue> find(List<String> tsIds, Timestamp pastLimit, Timestamp futureLimit);
+	}
+
+	private final List<Duration> windows;
+	private final List<Meter> lookups = new ArrayList<>();
+	private final List<Meter> hits = new ArrayList<>();
+
+	public AdaptiveRecentValueFinder(MetricRegistry metrics)
+	{
+		this(metrics,
+				Duration.ofHours(Long.parseLong(System.getProperty(INITIAL_WINDOW_PROPERTY, String.valueOf(DEFAULT_INITIAL_WINDOW_HOURS)))),
+				Duration.ofDays(Long.parseLong(System.getProperty(MAX_LOOKBACK_PROPERTY, String.valueOf(DEFAULT_MAX_LOOKBACK_DAYS)))));
+	}
+
+	public AdaptiveRecentValueFinder(MetricRegistry metrics, Duration initialWindow, Duration maxLookback)
+	{
+		windows = buildWindows(initialWindow, maxLookback);
+
+		String className = this.getClass().getName();
+		for(Duration window : windows)
+		{
+			Meter stepLookups = metrics.meter(name(className, "window", window.toString(), "lookups"));
+			Meter stepHits = metrics.meter(name(className, "window", window.toString(), "hits"));
+			metrics.gauge(name(className, "window", window.toString(), "hit-rate"), () -> new RatioGauge()
+			{
+				@Override
+				protected Ratio getRatio()
+				{
+					return Ratio.of(stepHits.getCount(), stepLookups.getCount());
+				}
+			});
+			lookups.add(stepLookups);
+			hits.add(stepHits);
+		}
+	}
+
+	static List<Duration> buildWindows(Duration initialWindow, Duration maxLookback)
+	{
+		if(initialWindow.isNegative() || initialWindow.isZero() || initialWindow.compareTo(maxLookback) > 0)
+		{
+			return Collections.singletonList(maxLookback);
+		}
+
+		List<Duration> retval = new ArrayList<>();
+		Duration window = initialWindow;
+		while(window.compareTo(maxLookback) < 0)
+		{
+			retval.add(window);
+			window = window.multipliedBy(GROWTH_FACTOR);
+		}
+		retval.add(maxLookback);
+		return retval;
+	}
+
+	public List<Duration> getWindows()
+	{
+		return Collections.unmodifiableList(windows);
+	}
+
+	/**
+	 * @param tsIds       the series to look up
+	 * @param now         the point the windows are measured back from; truncated to the minute so that
+	 *                    concurrent requests produce identical windows
+	 * @param futureLimit values at or after this time are ignored
+	 * @param query       runs one step
+	 * @return the most recent values, grouped by series in the order the ids were requested
+	 */
+	public List<RecentValue> findMostRecents(List<String> tsIds, Instant now, Timestamp futureLimit, RangeQuery query)
+	{
+		if(tsIds == null || tsIds.isEmpty())
+		{
+			return new ArrayList<>();
+		}
+
+		Instant anchor = now.truncatedTo(ChronoUnit.MINUTES);
+		Set<String> missing = new LinkedHashSet<>(tsIds);
+		Map<String, List<RecentValue>> found = new LinkedHashMap<>();
+
+		Timestamp upper = futureLimit;
+		for(int step = 0; step < windows.size() && !missing.isEmpty(); step++)
+		{
+			Timestamp lower = Timestamp.from(anchor.minus(windows.get(step)));
+			if(!lower.before(upper))
+			{
+				// the future limit is already behind this window
+				continue;
+			}
+
+			lookups.get(step).mark(missing.size());
+			List<RecentValue> values = query.find(new ArrayList<>(missing), lower, upper);
+			int stepHits = 0;
+			for(RecentValue value : values)
+			{
+				if(missing.remove(value.getId()))
+				{
+					stepHits++;
+				}
+				// the same point is returned once per unit it can be expressed in
+				found.computeIfAbsent(value.getId(), k -> new ArrayList<>()).add(value);
+			}
+			hits.get(step).mark(stepHits);
+
+			// Queries exclude the lower bound and the upper bound, nudge the next upper bound so
+			// nothing sitting exactly on the boundary is skipped.
+			upper = new Timestamp(lower.getTime() + 1);
+		}
+
+		List<RecentValue> retval = new ArrayList<>();
+		for(String tsId : tsIds)
+		{
+			List<RecentValue> values = found.remove(tsId);
+			if(values != null)
+			{
+				retval.addAll(values);
+			}
+		}
+		return retval;
+	}
+}
@@ -0,0 +1,80 @@
+package cwms.radar.data.dao;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Groups consecutive rows that share a key, for queries that are ordered by that key.
+ * Each group is handed to the finisher as soon as the key changes so only one group is
+ * held at a time, and groups come out in the order of the query.
+ *
+ * @param <R> row type
+ * @param <K> key type
+ * @param <T> type built from each group
+ */
+final class AdjacentGroupIterator<R, K, T> implements Iterator<T>
+{
+	private final Iterator<R> rows;
+	private final Function<R, K> key;
+	private final Function<List<R>, T> finisher;
+	private R pending;
+
+	AdjacentGroupIterator(Iterator<R> rows, Function<R, K> key, Function<List<R>, T> finisher)
+	{
+		this.rows = rows;
+		this.key = key;
+		this.finisher = finisher;
+		this.pending = rows.hasNext() ? rows.next() : null;
+	}
+
+	/**
+	 * Groups a stream of rows.  Closing the returned stream closes the source.
+	 */
+	static <R, K, T> Stream<T> group(Stream<R> rows, Function<R, K> key, Function<List<R>, T> finisher)
+	{
+		Iterator<T> it = new AdjacentGroupIterator<>(rows.iterator(), key, finisher);
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED), false)
+				.onClose(rows::close);
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		return pending != null;
+	}
+
+	@Override
+	public T next()
+	{
+		if(pending == null)
+		{
+			throw new NoSuchElementException();
+		}
+		List<R> group = new ArrayList<>();
+		K groupKey = key.apply(pending);
+		group.add(pending);
+		pending = null;
+		while(rows.hasNext())
+		{
+			R row = rows.next();
+			if(Objects.equals(groupKey, key.apply(row)))
+			{
+				group.add(row);
+			}
+			else
+			{
+				pending = row;
+				break;
+			}
+		}
+		return finisher.apply(group);
+	}
+}
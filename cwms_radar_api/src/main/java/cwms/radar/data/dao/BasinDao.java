@@ -24,12 +24,16 @@ public class BasinDao extends JooqDao<Basin>
         List<Basin> retval = new ArrayList<>();
         CwmsDbBasinJooq basinJooq = new CwmsDbBasinJooq();
         String areaUnitIn = UnitSystem.EN.value().equals(unitSystem) ? Unit.SQUARE_MILES.getValue() : Unit.SQUARE_KILOMETERS.getValue();
+        // one read of the office's streams for every basin rather than a tree of calls per basin
+        StreamNetwork network = new StreamDao(dsl).getStreamNetwork(unitSystem, officeId);
         try
         {
             dsl.connection(c ->
             {
-                ResultSet rs = basinJooq.catBasins(c, null, null, null, areaUnitIn, officeId);
-                retval.addAll(buildBasinsFromResultSet(rs, unitSystem));
+                try(ResultSet rs = basinJooq.catBasins(c, null, null, null, areaUnitIn, officeId))
+                {
+                    retval.addAll(buildBasinsFromResultSet(rs, network));
+                }
             });
         }
         catch(Exception ex)
@@ -50,22 +54,21 @@ public class BasinDao extends JooqDao<Basin>
         Double[] pContributingDrainageArea = new Double[1];
         String areaUnitIn = UnitSystem.EN.value().equals(unitSystem) ? Unit.SQUARE_MILES.getValue() : Unit.SQUARE_KILOMETERS.getValue();
         dsl.connection(c -> basinJooq.retrieveBasin(c, pParentBasinId, pSortOrder, pPrimaryStreamId, pTotalDrainageArea, pContributingDrainageArea, basinId, areaUnitIn, officeId));
-        Basin retval = new Basin.Builder(basinId, officeId)
+        Basin.Builder retval = new Basin.Builder(basinId, officeId)
                 .withBasinArea(pTotalDrainageArea[0])
                 .withContributingArea(pContributingDrainageArea[0])
                 .withParentBasinId(pParentBasinId[0])
-                .withSortOrder(pSortOrder[0])
-                .build();
+                .withSortOrder(pSortOrder[0]);
         if(pPrimaryStreamId[0] != null)
         {
             StreamDao streamDao = new StreamDao(dsl);
             Stream primaryStream = streamDao.getStream(pPrimaryStreamId[0], unitSystem, officeId);
-            retval = new Basin.Builder(retval).withPrimaryStream(primaryStream).build();
+            retval.withPrimaryStream(primaryStream);
         }
-        return retval;
+        return retval.build();
     }
 
-    private List<Basin> buildBasinsFromResultSet(ResultSet rs, String unitSystem) throws SQLException
+    private static List<Basin> buildBasinsFromResultSet(ResultSet rs, StreamNetwork network) throws SQLException
     {
         List<Basin> retval = new ArrayList<>();
         while(rs.next())
@@ -77,19 +80,16 @@ public class BasinDao extends JooqDao<Basin>
             String primaryStreamId = rs.getString("PRIMARY_STREAM_ID");
             Double basinArea = rs.getDouble("TOTAL_DRAINAGE_AREA");
             Double contributingArea = rs.getDouble("CONTRIBUTING_DRAINAGE_AREA");
-            Basin basin = new Basin.Builder(basinId, officeId)
+            Basin.Builder basin = new Basin.Builder(basinId, officeId)
                     .withBasinArea(basinArea)
                     .withContributingArea(contributingArea)
                     .withParentBasinId(parentBasinId)
-                    .withSortOrder(sortOrder)
-                    .build();
+                    .withSortOrder(sortOrder);
             if(primaryStreamId != null)
             {
-                StreamDao streamDao = new StreamDao(dsl);
-                Stream primaryStream = streamDao.getStream(primaryStreamId, unitSystem, officeId);
-                basin = new Basin.Builder(basin).withPrimaryStream(primaryStream).build();
+                basin.withPrimaryStream(network.getStream(primaryStreamId, officeId).orElse(null));
             }
-            retval.add(basin);
+            retval.add(basin.build());
         }
 
         return retval;
@@ -0,0 +1,359 @@
+package cwms.radar.data.dao;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import cwms.radar.api.enums.UnitSystem;
+import cwms.radar.api.graph.basinconnectivity.BasinConnectivityGraph;
+import cwms.radar.api.graph.basinconnectivity.BasinConnectivityIndex;
+import cwms.radar.data.dto.basinconnectivity.Basin;
+import cwms.radar.formatters.Formats;
+import cwms.radar.formatters.FormattingException;
+import cwms.radar.formatters.json.NamedPgJsonFormatter;
+import cwms.radar.formatters.json.PgJsonFormatter;
+import org.jooq.DSLContext;
+
+/**
+ * Process-wide copy of the basin connectivity graphs, per office and unit system.
+ *
+ * Each basin's graph is built once when its office is loaded, rendered then as PG-JSON and
+ * Named-PG-JSON, along with the list of every basin, and indexed for traversal, so the basin end
+ * points are answered with no database work.  An office is loaded the first time it is asked for, a
+ * BasinGraphRefresher reloads the ones held on a schedule and the admin call reloads them at
+ * once.  Basin topology changes rarely, a reload only replaces what it read in full.
+ */
+public class BasinGraphCache
+{
+	private static final BasinGraphCache INSTANCE = new BasinGraphCache();
+
+	// the formats rendered up front, the same as the basin end points accept
+	public static final List<String> FORMATS = Collections.unmodifiableList(Arrays.asList(Formats.NAMED_PGJSON, Formats.PGJSON));
+
+	/**
+	 * Reads the basins of an office.
+	 */
+	@FunctionalInterface
+	interface Reader
+	{
+		List<Basin> read(DSLContext dsl, String officeId, String unitSystem) throws SQLException;
+	}
+
+	/**
+	 * Reads one basin.
+	 */
+	@FunctionalInterface
+	interface BasinReader
+	{
+		Basin read(DSLContext dsl, String basinId, String officeId, String unitSystem) throws SQLException;
+	}
+
+	private final Map<Key, BasinGraphs> graphs = new ConcurrentHashMap<>();
+	private final Reader reader;
+	private final BasinReader basinReader;
+
+	public static BasinGraphCache getInstance()
+	{
+		return INSTANCE;
+	}
+
+	BasinGraphCache()
+	{
+		this((dsl, officeId, unitSystem) -> new BasinDao(dsl).getAllBasins(unitSystem, officeId),
+				(dsl, basinId, officeId, unitSystem) -> new BasinDao(dsl).getBasin(basinId, unitSystem, officeId));
+	}
+
+	BasinGraphCache(Reader reader, BasinReader basinReader)
+	{
+		this.reader = reader;
+		this.basinReader = basinReader;
+	}
+
+	/**
+	 * @param officeId the office as requested, null for the session's office
+	 */
+	public Optional<BasinGraphs> get(String officeId, String unitSystem)
+	{
+		return Optional.ofNullable(graphs.get(new Key(officeId, unitSystem)));
+	}
+
+	/**
+	 * The cached graphs, or the graphs read now through dsl and cached if there are none.
+	 *
+	 * Only offices that exist are kept, so the ids clients send can't grow the cache.  Without an
+	 * office, or for one the reference data doesn't know, every basin the session can see is read
+	 * and not kept.  An office with no basins is only kept once the reference data says it exists.
+	 */
+	public BasinGraphs getOrLoad(DSLContext dsl, String officeId, String unitSystem) throws SQLException
+	{
+		ReferenceDataCache offices = ReferenceDataCache.getInstance();
+		if(!isCacheable(officeId))
+		{
+			return read(dsl, officeId, unitSystem);
+		}
+
+		Key key = new Key(officeId.trim(), unitSystem);
+		BasinGraphs retval = graphs.get(key);
+		if(retval == null)
+		{
+			// not under a lock, two requests that miss together both read, the last one is kept
+			retval = read(dsl, key.getOfficeId(), key.getUnitSystem());
+			if(!retval.isEmpty() || offices.getOffice(key.getOfficeId()).isPresent())
+			{
+				graphs.put(key, retval);
+			}
+		}
+		return retval;
+	}
+
+	/**
+	 * The graphs to answer for one basin: those of its office, as getOrLoad has them, or, when the
+	 * office can't be cached, just that basin read now and not kept, rather than every basin.
+	 */
+	public BasinGraphs getOrLoad(DSLContext dsl, String officeId, String basinId, String unitSystem) throws SQLException
+	{
+		if(!isCacheable(officeId))
+		{
+			String units = Key.unitSystem(unitSystem);
+			return new BasinGraphs(Collections.singletonList(basinReader.read(dsl, basinId, officeId, units)));
+		}
+		return getOrLoad(dsl, officeId, unitSystem);
+	}
+
+	private static boolean isCacheable(String officeId)
+	{
+		return officeId != null && !officeId.trim().isEmpty()
+				&& !ReferenceDataCache.getInstance().isUnknownOffice(officeId.trim());
+	}
+
+	/**
+	 * Reads the basins of an office through dsl, builds and renders their graphs and replaces
+	 * what was cached for it.
+	 */
+	public BasinGraphs load(DSLContext dsl, String officeId, String unitSystem) throws SQLException
+	{
+		Key key = new Key(officeId, unitSystem);
+		BasinGraphs retval = read(dsl, key.getOfficeId(), key.getUnitSystem());
+		graphs.put(key, retval);
+		return retval;
+	}
+
+	private BasinGraphs read(DSLContext dsl, String officeId, String unitSystem) throws SQLException
+	{
+		return new BasinGraphs(reader.read(dsl, officeId, Key.unitSystem(unitSystem)));
+	}
+
+	/**
+	 * The offices and unit systems held, for a refresh.
+	 *
+	 * @param officeId only this office, null for every office
+	 */
+	public Set<Key> keys(String officeId)
+	{
+		Set<Key> retval = new HashSet<>();
+		for(Key key : graphs.keySet())
+		{
+			if(officeId == null || officeId.equalsIgnoreCase(key.getOfficeId()))
+			{
+				retval.add(key);
+			}
+		}
+		return Collections.unmodifiableSet(retval);
+	}
+
+	/**
+	 * Reloads what is held for an office, or every office, now.  Offices already reloaded keep
+	 * their new graphs if a later one fails.
+	 *
+	 * @param officeId the office to reload, null for all of them
+	 * @return how many offices and unit systems were reloaded
+	 */
+	public int reload(DSLContext dsl, String officeId) throws SQLException
+	{
+		int retval = 0;
+		for(Key key : keys(officeId))
+		{
+			load(dsl, key.getOfficeId(), key.getUnitSystem());
+			retval++;
+		}
+		return retval;
+	}
+
+	public int size()
+	{
+		return graphs.size();
+	}
+
+	public void clear()
+	{
+		graphs.clear();
+	}
+
+	/**
+	 * An office, upper case, and a unit system, EN or SI.
+	 */
+	public static final class Key
+	{
+		private final String officeId;
+		private final String unitSystem;
+
+		Key(String officeId, String unitSystem)
+		{
+			this.officeId = officeId == null ? null : officeId.toUpperCase();
+			this.unitSystem = unitSystem(unitSystem);
+		}
+
+		// anything but EN is read as SI
+		static String unitSystem(String unitSystem)
+		{
+			return UnitSystem.EN.value().equalsIgnoreCase(unitSystem) ? UnitSystem.EN.value() : UnitSystem.SI.value();
+		}
+
+		public String getOfficeId()
+		{
+			return officeId;
+		}
+
+		public String getUnitSystem()
+		{
+			return unitSystem;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if(this == o)
+			{
+				return true;
+			}
+			if(!(o instanceof Key))
+			{
+				return false;
+			}
+			Key other = (Key) o;
+			return Objects.equals(officeId, other.officeId) && Objects.equals(unitSystem, other.unitSystem);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(officeId, unitSystem);
+		}
+
+		@Override
+		public String toString()
+		{
+			return officeId + "/" + unitSystem;
+		}
+	}
+
+	/**
+	 * The basins of one office with their graphs and renderings, immutable once built.
+	 */
+	public static final class BasinGraphs
+	{
+		private final Map<String, Basin> basins = new LinkedHashMap<>();
+		private final Map<String, BasinConnectivityGraph> graphs = new LinkedHashMap<>();
+		private final Map<String, BasinConnectivityIndex> indexes = new LinkedHashMap<>();
+		private final Map<String, Map<String, ReferenceDataCache.Rendered>> rendered = new LinkedHashMap<>();
+		private final Map<String, ReferenceDataCache.Rendered> renderedAll = new LinkedHashMap<>();
+
+		BasinGraphs(List<Basin> basins)
+		{
+			PgJsonFormatter pgJson = new PgJsonFormatter();
+			NamedPgJsonFormatter namedPgJson = new NamedPgJsonFormatter();
+			Map<String, ByteArrayOutputStream> all = new LinkedHashMap<>();
+			for(String format : FORMATS)
+			{
+				all.put(format, new ByteArrayOutputStream());
+			}
+			try
+			{
+				for(Basin basin : basins)
+				{
+					String id = basin.getBasinName().toUpperCase();
+					BasinConnectivityGraph graph = new BasinConnectivityGraph.Builder(basin).build();
+					Map<String, ReferenceDataCache.Rendered> formats = new LinkedHashMap<>();
+					formats.put(Formats.NAMED_PGJSON, render(namedPgJson.formatNamedGraph(basin.getBasinName(), graph), all.get(Formats.NAMED_PGJSON)));
+					formats.put(Formats.PGJSON, render(pgJson.formatGraph(graph), all.get(Formats.PGJSON)));
+					this.basins.put(id, basin);
+					this.graphs.put(id, graph);
+					this.indexes.put(id, new BasinConnectivityIndex(graph));
+					this.rendered.put(id, formats);
+				}
+			}
+			catch(JsonProcessingException ex)
+			{
+				throw new FormattingException(ex.getMessage(), ex);
+			}
+			// a list of basins is their graphs one after another, as the formatters write it
+			for(Map.Entry<String, ByteArrayOutputStream> format : all.entrySet())
+			{
+				renderedAll.put(format.getKey(), new ReferenceDataCache.Rendered(format.getValue().toByteArray()));
+			}
+		}
+
+		private static ReferenceDataCache.Rendered render(String body, ByteArrayOutputStream all)
+		{
+			byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+			all.write(bytes, 0, bytes.length);
+			return new ReferenceDataCache.Rendered(bytes);
+		}
+
+		public List<Basin> getBasins()
+		{
+			return Collections.unmodifiableList(new ArrayList<>(basins.values()));
+		}
+
+		public boolean isEmpty()
+		{
+			return basins.isEmpty();
+		}
+
+		public Optional<Basin> getBasin(String basinId)
+		{
+			return Optional.ofNullable(basins.get(basinId.toUpperCase()));
+		}
+
+		public Optional<BasinConnectivityGraph> getGraph(String basinId)
+		{
+			return Optional.ofNullable(graphs.get(basinId.toUpperCase()));
+		}
+
+		/**
+		 * @return the adjacency index of a basin's graph, for traversing it
+		 */
+		public Optional<BasinConnectivityIndex> getIndex(String basinId)
+		{
+			return Optional.ofNullable(indexes.get(basinId.toUpperCase()));
+		}
+
+		/**
+		 * @return one basin rendered as contentType, empty if there is no such basin or format
+		 */
+		public Optional<ReferenceDataCache.Rendered> getRendered(String basinId, String contentType)
+		{
+			return Optional.ofNullable(rendered.getOrDefault(basinId.toUpperCase(), Collections.emptyMap()).get(contentType));
+		}
+
+		/**
+		 * @return every basin rendered as contentType, empty if the format isn't rendered
+		 */
+		public Optional<ReferenceDataCache.Rendered> getRenderedAll(String contentType)
+		{
+			return Optional.ofNullable(renderedAll.get(contentType));
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package cwms.radar.data.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.jooq.DSLContext;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Reloads the offices held in the BasinGraphCache every RADAR_BASIN_GRAPH_REFRESH_MINUTES.
+ *
+ * The cache fills as offices are asked for, so there is nothing to load when the server starts.
+ * A reload that fails leaves the graphs it would have replaced in place.
+ */
+public class BasinGraphRefresher extends ScheduledRefresher
+{
+	private static final Logger logger = Logger.getLogger(BasinGraphRefresher.class.getName());
+
+	public static final String REFRESH_INTERVAL_PROPERTY = "RADAR_BASIN_GRAPH_REFRESH_MINUTES";
+	public static final long DEFAULT_REFRESH_INTERVAL_MINUTES = 360;
+
+	private final BasinGraphCache cache;
+
+	public BasinGraphRefresher(DataSource dataSource, MetricRegistry metrics)
+	{
+		this(dataSource, BasinGraphCache.getInstance(), metrics,
+				minutesProperty(REFRESH_INTERVAL_PROPERTY, DEFAULT_REFRESH_INTERVAL_MINUTES));
+	}
+
+	public BasinGraphRefresher(DataSource dataSource, BasinGraphCache cache, MetricRegistry metrics, Duration refreshInterval)
+	{
+		super(dataSource, metrics, "radar-basin-graph-refresher", "refresh the basin graphs");
+		this.cache = cache;
+
+		metrics.gauge(name(this.getClass().getName(), "offices", "size"), () -> cache::size);
+
+		if(!schedule(refreshInterval, refreshInterval))
+		{
+			logger.info("Basin graphs are not refreshed on a schedule, they are reloaded through the admin call.");
+		}
+	}
+
+	@Override
+	protected void refresh(Connection connection)
+	{
+		DSLContext dsl = JooqDao.getDslContext(connection);
+		// each office on its own, one that fails keeps its previous graphs
+		for(BasinGraphCache.Key key : cache.keys(null))
+		{
+			try(Timer.Context ignored = loads.time())
+			{
+				BasinGraphCache.BasinGraphs graphs = cache.load(dsl, key.getOfficeId(), key.getUnitSystem());
+				logger.fine(() -> "Reloaded " + graphs.getBasins().size() + " basins for " + key);
+			}
+			catch(SQLException | RuntimeException ex)
+			{
+				failures.mark();
+				logger.log(Level.WARNING, "Unable to reload the basins for " + key, ex);
+			}
+		}
+	}
+}
@@ -1,15 +1,26 @@
 package cwms.radar.data.dao;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import cwms.radar.data.dto.Blob;
+import cwms.radar.data.dto.Blobs;
+import cwms.radar.data.dto.CwmsDTOPaginated;
 import org.jooq.DSLContext;
 import org.jooq.Record;
 import org.jooq.ResultQuery;
 
 public class BlobDao extends JooqDao<Blob>
 {
+	// the most blobs a page holds, whatever the request or cursor asks for
+	public static final int MAX_PAGE_SIZE = 500;
+
 	public BlobDao(DSLContext dsl)
 	{
 		super(dsl);
@@ -44,6 +55,120 @@ public class BlobDao extends JooqDao<Blob>
 		return Optional.ofNullable(retval);
 	}
 
+	/**
+	 * Finds a blob and passes it to consumer with its content, which is read from the database as
+	 * the consumer reads it rather than all at once.
+	 *
+	 * @return false if there is no such blob, consumer isn't called then
+	 */
+	public boolean streamByUniqueName(String id, Optional<String> limitToOffice, BlobConsumer consumer)
+	{
+		String queryStr = "SELECT AT_BLOB.ID, AT_BLOB.DESCRIPTION, CWMS_MEDIA_TYPE.MEDIA_TYPE_ID, CWMS_OFFICE.OFFICE_ID, AT_BLOB.ORA_ROWSCN, AT_BLOB.VALUE \n"
+				+ "FROM CWMS_20.AT_BLOB \n"
+				+ "join CWMS_20.CWMS_MEDIA_TYPE on AT_BLOB.MEDIA_TYPE_CODE = CWMS_MEDIA_TYPE.MEDIA_TYPE_CODE \n"
+				+ "join CWMS_20.CWMS_OFFICE on AT_BLOB.OFFICE_CODE=CWMS_OFFICE.OFFICE_CODE \n"
+				+ "WHERE ID = ?";
+		if(limitToOffice.isPresent())
+		{
+			queryStr = queryStr + " and CWMS_OFFICE.OFFICE_ID = ?";
+		}
+		String sql = queryStr;
+
+		return dsl.connectionResult(c -> {
+			try(PreparedStatement stmt = c.prepareStatement(sql))
+			{
+				stmt.setString(1, id);
+				if(limitToOffice.isPresent())
+				{
+					stmt.setString(2, limitToOffice.get());
+				}
+				try(ResultSet rs = stmt.executeQuery())
+				{
+					if(!rs.next())
+					{
+						return false;
+					}
+					Blob blob = new Blob(rs.getString("OFFICE_ID"), rs.getString("ID"), rs.getString("DESCRIPTION"),
+							rs.getString("MEDIA_TYPE_ID"), null);
+					java.sql.Blob value = rs.getBlob("VALUE");
+					try
+					{
+						consumer.accept(blob, new LobContent(value, rs.getString("ORA_ROWSCN")));
+					}
+					finally
+					{
+						if(value != null)
+						{
+							value.free();
+						}
+					}
+					return true;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Receives a blob found by streamByUniqueName, its content can only be read during the call.
+	 */
+	@FunctionalInterface
+	public interface BlobConsumer
+	{
+		void accept(Blob blob, BlobContent content) throws SQLException, IOException;
+	}
+
+	/**
+	 * The content of a blob, read from the LOB locator in pieces.
+	 */
+	public interface BlobContent
+	{
+		/**
+		 * @return the length of the content in bytes, without reading it
+		 */
+		long length() throws SQLException;
+
+		/**
+		 * @param offset where to start, 0 for the first byte
+		 * @param length how many bytes to read
+		 */
+		InputStream getStream(long offset, long length) throws SQLException;
+
+		/**
+		 * @return changes whenever the content does
+		 */
+		String getVersion();
+	}
+
+	private static final class LobContent implements BlobContent
+	{
+		private final java.sql.Blob value;
+		private final String version;
+
+		LobContent(java.sql.Blob value, String version)
+		{
+			this.value = value;
+			this.version = version;
+		}
+
+		@Override
+		public long length() throws SQLException
+		{
+			return value == null ? 0 : value.length();
+		}
+
+		@Override
+		public InputStream getStream(long offset, long length) throws SQLException
+		{
+			// LOB positions start at 1
+			return value.getBinaryStream(offset + 1, length);
+		}
+
+		@Override
+		public String getVersion()
+		{
+			return version;
+		}
+	}
 
 	@Override
 	public List<Blob> getAll(Optional<String> limitToOffice)
@@ -73,6 +198,99 @@ public class BlobDao extends JooqDao<Blob>
 		});
 	}
 
+	/**
+	 * A page of the blobs whose ids match like, without their values.
+	 *
+	 * Pages are found by their last office and id rather than by an offset, so any page costs the
+	 * same as the first.  The total is counted for the first page only, and not at all if it is the
+	 * only page, and then carried in the cursor.
+	 *
+	 * @param cursor the nextPage of the previous page, null or empty for the first
+	 * @throws IllegalArgumentException if the cursor isn't one made by this method
+	 */
+	public Blobs getBlobs(String cursor, int pageSize, Optional<String> limitToOffice, String like)
+	{
+		String afterId = null;
+		String afterOffice = null;
+		Integer total = null;
+		String[] parts = CwmsDTOPaginated.decodeCursor(cursor);
+		if(parts.length > 2)
+		{
+			// office/id of the last blob, total, page size
+			String key = parts[0];
+			int slash = key.indexOf('/');
+			if(slash < 0)
+			{
+				throw new IllegalArgumentException("cursor is not a page of blobs");
+			}
+			afterOffice = key.substring(0, slash);
+			afterId = key.substring(slash + 1);
+			total = Integer.valueOf(parts[1]);
+			pageSize = Integer.parseInt(parts[2]);
+		}
+		else if(parts.length > 0)
+		{
+			throw new IllegalArgumentException("cursor is not a page of blobs");
+		}
+		if(pageSize < 1)
+		{
+			throw new IllegalArgumentException("page size has to be at least 1");
+		}
+		pageSize = Math.min(pageSize, MAX_PAGE_SIZE);
+
+		String whereStr = " where REGEXP_LIKE (AT_BLOB.ID, ?)";
+		List<Object> binds = new ArrayList<>();
+		binds.add(like);
+		if(limitToOffice.isPresent())
+		{
+			whereStr = whereStr + " and CWMS_OFFICE.OFFICE_ID = ?";
+			binds.add(limitToOffice.get());
+		}
+		String fromStr = " FROM CWMS_20.AT_BLOB \n"
+				+ "join CWMS_20.CWMS_MEDIA_TYPE on AT_BLOB.MEDIA_TYPE_CODE = CWMS_MEDIA_TYPE.MEDIA_TYPE_CODE \n"
+				+ "join CWMS_20.CWMS_OFFICE on AT_BLOB.OFFICE_CODE=CWMS_OFFICE.OFFICE_CODE \n";
+
+		String pageStr = whereStr;
+		List<Object> pageBinds = new ArrayList<>(binds);
+		if(afterId != null)
+		{
+			pageStr = pageStr + " and (UPPER(AT_BLOB.ID) > ? or (UPPER(AT_BLOB.ID) = ? and CWMS_OFFICE.OFFICE_ID > ?))";
+			pageBinds.add(afterId);
+			pageBinds.add(afterId);
+			pageBinds.add(afterOffice);
+		}
+		pageBinds.add(pageSize);
+		String queryStr = "SELECT * FROM (SELECT AT_BLOB.ID, AT_BLOB.DESCRIPTION, CWMS_MEDIA_TYPE.MEDIA_TYPE_ID, CWMS_OFFICE.OFFICE_ID\n"
+				+ fromStr
+				+ pageStr
+				+ " order by UPPER(AT_BLOB.ID), CWMS_OFFICE.OFFICE_ID) where ROWNUM <= ?";
+
+		List<Blob> blobs = dsl.resultQuery(queryStr, pageBinds.toArray()).fetch(r -> {
+			String rId = r.get("ID", String.class);
+			String rOffice = r.get("OFFICE_ID", String.class);
+			String rDesc = r.get("DESCRIPTION", String.class);
+			String rMedia = r.get("MEDIA_TYPE_ID", String.class);
+
+			return new Blob(rOffice, rId, rDesc, rMedia, null);
+		});
+
+		if(total == null)
+		{
+			if(blobs.size() < pageSize)
+			{
+				// the first page is the only one, it is the count
+				total = blobs.size();
+			}
+			else
+			{
+				total = dsl.resultQuery("SELECT count(*)" + fromStr + whereStr, binds.toArray())
+						.fetchOne(0, Integer.class);
+			}
+		}
+
+		return new Blobs.Builder(cursor, pageSize, total).addAll(blobs).build();
+	}
+
 	public List<Blob> getAll(Optional<String> limitToOffice, String like)
 	{
 		String queryStr = "SELECT AT_BLOB.ID, AT_BLOB.DESCRIPTION, CWMS_MEDIA_TYPE.MEDIA_TYPE_ID, CWMS_OFFICE.OFFICE_ID\n"
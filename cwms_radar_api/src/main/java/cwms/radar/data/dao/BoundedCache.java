@@ -0,0 +1,152 @@
+package cwms.radar.data.dao;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * A least recently used cache with a size limit and a maximum age.
+ *
+ * Values are loaded outside the lock, so a slow load doesn't hold up other readers, and two
+ * readers missing the same key at once may both load it.  A load that started before an
+ * invalidation is returned to its caller but not kept, so a write can't be undone by a read
+ * that was already in flight.
+ */
+public class BoundedCache<K, V>
+{
+	/**
+	 * Reads a value that isn't cached.
+	 */
+	@FunctionalInterface
+	public interface Loader<K, V, E extends Exception>
+	{
+		V load(K key) throws E;
+	}
+
+	private final int maxSize;
+	private final long maxAgeMillis;
+	private final LongSupplier clock;
+	private final Map<K, Entry<V>> entries;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private long generation = 0;
+
+	public BoundedCache(int maxSize, long maxAgeMillis)
+	{
+		this(maxSize, maxAgeMillis, System::currentTimeMillis);
+	}
+
+	BoundedCache(int maxSize, long maxAgeMillis, LongSupplier clock)
+	{
+		this.maxSize = maxSize;
+		this.maxAgeMillis = maxAgeMillis;
+		this.clock = clock;
+		this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, BoundedCache.Entry<V>> eldest)
+			{
+				return size() > BoundedCache.this.maxSize;
+			}
+		};
+	}
+
+	/**
+	 * The cached value for key, or the loader's if there isn't one or it has aged out.  Null
+	 * values aren't cached.
+	 */
+	public <E extends Exception> V get(K key, Loader<K, V, E> loader) throws E
+	{
+		long loadGeneration;
+		synchronized(this)
+		{
+			Entry<V> entry = entries.get(key);
+			if(entry != null && clock.getAsLong() - entry.loadedAt < maxAgeMillis)
+			{
+				hits.incrementAndGet();
+				return entry.value;
+			}
+			misses.incrementAndGet();
+			loadGeneration = generation;
+		}
+
+		long loadedAt = clock.getAsLong();
+		V value = loader.load(key);
+		if(value != null && maxSize > 0)
+		{
+			synchronized(this)
+			{
+				if(generation == loadGeneration)
+				{
+					entries.put(key, new Entry<>(value, loadedAt));
+				}
+			}
+		}
+		return value;
+	}
+
+	public synchronized void invalidate(K key)
+	{
+		generation++;
+		entries.remove(key);
+	}
+
+	public synchronized void invalidateIf(Predicate<K> test)
+	{
+		generation++;
+		Iterator<K> keys = entries.keySet().iterator();
+		while(keys.hasNext())
+		{
+			if(test.test(keys.next()))
+			{
+				keys.remove();
+			}
+		}
+	}
+
+	public synchronized void clear()
+	{
+		generation++;
+		entries.clear();
+	}
+
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+
+	public long getHitCount()
+	{
+		return hits.get();
+	}
+
+	public long getMissCount()
+	{
+		return misses.get();
+	}
+
+	/**
+	 * Hits over all lookups since the cache was made, 0 before the first lookup.
+	 */
+	public double getHitRatio()
+	{
+		long h = hits.get();
+		long total = h + misses.get();
+		return total == 0 ? 0.0 : (double) h / total;
+	}
+
+	private static final class Entry<V>
+	{
+		private final V value;
+		private final long loadedAt;
+
+		Entry(V value, long loadedAt)
+		{
+			this.value = value;
+			this.loadedAt = loadedAt;
+		}
+	}
+}
@@ -0,0 +1,258 @@
+package cwms.radar.data.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import cwms.radar.data.dto.Catalog;
+import cwms.radar.data.dto.catalog.CatalogEntry;
+
+/**
+ * An immutable copy of one catalog, split by office and sorted by id within each office.
+ *
+ * Pages are found by binary search on the (office, id) key in a cursor, and a like pattern's
+ * leading literal narrows the search to a range of ids, so any page costs the same as the first.
+ * The cursors are the same as the database catalog's, a client can move between the two.
+ */
+public final class CatalogSnapshot<E extends CatalogEntry>
+{
+	private final NavigableMap<String, Partition<E>> offices;
+	private final ChangeFingerprint fingerprint;
+	private final int size;
+
+	/**
+	 * @param entries the catalog, in any order
+	 * @param idOf the id an entry is sorted and paged by
+	 * @param fingerprint the fingerprint of the tables when they were read, may be null
+	 */
+	public CatalogSnapshot(Iterator<E> entries, Function<E, String> idOf, ChangeFingerprint fingerprint)
+	{
+		Map<String, List<E>> byOffice = new TreeMap<>();
+		int count = 0;
+		while(entries.hasNext())
+		{
+			E entry = entries.next();
+			byOffice.computeIfAbsent(entry.getOffice(), o -> new ArrayList<>()).add(entry);
+			count++;
+		}
+		NavigableMap<String, Partition<E>> partitions = new TreeMap<>();
+		for(Map.Entry<String, List<E>> office : byOffice.entrySet())
+		{
+			partitions.put(office.getKey(), new Partition<>(office.getValue(), idOf));
+		}
+		this.offices = Collections.unmodifiableNavigableMap(partitions);
+		this.fingerprint = fingerprint;
+		this.size = count;
+	}
+
+	public ChangeFingerprint getFingerprint()
+	{
+		return fingerprint;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * A page of the catalog, filtered the way the database catalog filters it.
+	 *
+	 * @param cursor the nextPage of the previous page, null or empty for the first
+	 * @param office only this office, compared upper case
+	 * @param like ids starting with this pattern, * matching any run of characters
+	 * @param filter any further test on the entries, null for none
+	 */
+	public Catalog getPage(String cursor, int pageSize, Optional<String> office, String like, Predicate<? super E> filter)
+	{
+		Matcher matcher = new Matcher(like);
+		Iterable<Partition<E>> partitions = partitions(office);
+		String[] key = Catalog.decodeKey(cursor);
+
+		int total;
+		if(key == null)
+		{
+			total = 0;
+			for(Partition<E> partition : partitions)
+			{
+				total += partition.count(matcher, filter);
+			}
+		}
+		else
+		{
+			// counted once for the first page and carried in the cursor
+			total = Catalog.decodeTotal(cursor);
+		}
+
+		List<E> page = new ArrayList<>(Math.min(pageSize, size));
+		for(Partition<E> partition : partitions)
+		{
+			if(key != null && partition.office.compareTo(key[0]) < 0)
+			{
+				continue;
+			}
+			String after = key != null && partition.office.equals(key[0]) ? key[1] : null;
+			partition.collect(after, matcher, filter, page, pageSize);
+			if(page.size() == pageSize)
+			{
+				break;
+			}
+		}
+		return new Catalog(cursor, total, pageSize, page);
+	}
+
+	private Iterable<Partition<E>> partitions(Optional<String> office)
+	{
+		if(!office.isPresent())
+		{
+			return offices.values();
+		}
+		Partition<E> partition = offices.get(office.get().toUpperCase());
+		return partition != null ? Collections.singletonList(partition) : Collections.emptyList();
+	}
+
+	/**
+	 * The entries of one office, sorted by id.
+	 */
+	private static final class Partition<E extends CatalogEntry>
+	{
+		private final String office;
+		private final String[] ids;
+		private final List<E> entries;
+
+		Partition(List<E> entries, Function<E, String> idOf)
+		{
+			entries.sort(Comparator.comparing(idOf));
+			this.office = entries.get(0).getOffice();
+			this.ids = new String[entries.size()];
+			for(int i = 0; i < ids.length; i++)
+			{
+				ids[i] = idOf.apply(entries.get(i));
+			}
+			this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+		}
+
+		int count(Matcher matcher, Predicate<? super E> filter)
+		{
+			int from = lowerBound(matcher.prefix);
+			int to = endOfPrefix(matcher.prefix);
+			if(matcher.isPrefixOnly() && filter == null)
+			{
+				return to - from;
+			}
+			int count = 0;
+			for(int i = from; i < to; i++)
+			{
+				if(accepts(i, matcher, filter))
+				{
+					count++;
+				}
+			}
+			return count;
+		}
+
+		void collect(String after, Matcher matcher, Predicate<? super E> filter, List<E> page, int pageSize)
+		{
+			int from = lowerBound(matcher.prefix);
+			if(after != null)
+			{
+				from = Math.max(from, upperBound(after));
+			}
+			int to = endOfPrefix(matcher.prefix);
+			for(int i = from; i < to && page.size() < pageSize; i++)
+			{
+				if(accepts(i, matcher, filter))
+				{
+					page.add(entries.get(i));
+				}
+			}
+		}
+
+		private boolean accepts(int i, Matcher matcher, Predicate<? super E> filter)
+		{
+			return matcher.matches(ids[i]) && (filter == null || filter.test(entries.get(i)));
+		}
+
+		// first index whose id is >= id
+		private int lowerBound(String id)
+		{
+			int i = Arrays.binarySearch(ids, id);
+			return i >= 0 ? i : -i - 1;
+		}
+
+		// first index whose id is > id
+		private int upperBound(String id)
+		{
+			int i = Arrays.binarySearch(ids, id);
+			return i >= 0 ? i + 1 : -i - 1;
+		}
+
+		// first index past the ids starting with prefix
+		private int endOfPrefix(String prefix)
+		{
+			if(prefix.isEmpty())
+			{
+				return ids.length;
+			}
+			return lowerBound(prefix + Character.MAX_VALUE);
+		}
+	}
+
+	/**
+	 * A like pattern split into its leading literal, found by binary search, and the rest.
+	 */
+	private static final class Matcher
+	{
+		private final String prefix;
+		private final Pattern rest;
+
+		Matcher(String like)
+		{
+			if(like == null)
+			{
+				like = "";
+			}
+			int star = like.indexOf('*');
+			if(star < 0)
+			{
+				prefix = like;
+				rest = null;
+			}
+			else
+			{
+				prefix = like.substring(0, star);
+				StringBuilder regex = new StringBuilder();
+				for(String part : like.split("\\*", -1))
+				{
+					if(regex.length() > 0)
+					{
+						regex.append(".*");
+					}
+					regex.append(Pattern.quote(part));
+				}
+				rest = Pattern.compile(regex.toString(), Pattern.DOTALL);
+			}
+		}
+
+		boolean isPrefixOnly()
+		{
+			return rest == null;
+		}
+
+		boolean matches(String id)
+		{
+			// ids outside the prefix range are never tested
+			return rest == null || rest.matcher(id).lookingAt();
+		}
+	}
+}
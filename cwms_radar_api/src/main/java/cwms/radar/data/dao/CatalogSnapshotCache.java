@@ -0,0 +1,59 @@
+package cwms.radar.data.dao;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import cwms.radar.data.dto.catalog.LocationCatalogEntry;
+import cwms.radar.data.dto.catalog.TimeseriesCatalogEntry;
+
+/**
+ * The current CatalogSnapshot of the time series and location catalogs, the locations once per
+ * unit system.  Each is replaced whole by the CatalogSnapshotRefresher, so a reader paging through
+ * one snapshot never sees half of a refresh.
+ */
+public class CatalogSnapshotCache
+{
+	private static final CatalogSnapshotCache INSTANCE = new CatalogSnapshotCache();
+
+	private volatile CatalogSnapshot<TimeseriesCatalogEntry> timeSeries = null;
+	private volatile Map<String, CatalogSnapshot<LocationCatalogEntry>> locations = Collections.emptyMap();
+
+	public static CatalogSnapshotCache getInstance()
+	{
+		return INSTANCE;
+	}
+
+	CatalogSnapshotCache()
+	{
+	}
+
+	public Optional<CatalogSnapshot<TimeseriesCatalogEntry>> getTimeSeries()
+	{
+		return Optional.ofNullable(timeSeries);
+	}
+
+	public Optional<CatalogSnapshot<LocationCatalogEntry>> getLocations(String unitSystem)
+	{
+		return Optional.ofNullable(locations.get(unitSystem));
+	}
+
+	public void setTimeSeries(CatalogSnapshot<TimeseriesCatalogEntry> snapshot)
+	{
+		timeSeries = snapshot;
+	}
+
+	public synchronized void setLocations(String unitSystem, CatalogSnapshot<LocationCatalogEntry> snapshot)
+	{
+		Map<String, CatalogSnapshot<LocationCatalogEntry>> updated = new HashMap<>(locations);
+		updated.put(unitSystem, snapshot);
+		locations = Collections.unmodifiableMap(updated);
+	}
+
+	public synchronized void clear()
+	{
+		timeSeries = null;
+		locations = Collections.emptyMap();
+	}
+}
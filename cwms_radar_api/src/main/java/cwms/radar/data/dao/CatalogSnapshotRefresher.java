@@ -0,0 +1,187 @@
+package cwms.radar.data.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import cwms.radar.api.enums.UnitSystem;
+import cwms.radar.data.dto.catalog.LocationAlias;
+import cwms.radar.data.dto.catalog.LocationCatalogEntry;
+import cwms.radar.data.dto.catalog.TimeseriesCatalogEntry;
+import org.jooq.DSLContext;
+import org.jooq.exception.DataAccessException;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Loads the CatalogSnapshotCache when the server starts and again every
+ * RADAR_CATALOG_SNAPSHOT_REFRESH_MINUTES.
+ *
+ * A catalog is only read again when the fingerprint of its tables has changed.  The strings that
+ * repeat from entry to entry, offices, units, kinds and so on, are shared so a snapshot of every
+ * office stays small.  A refresh that fails leaves the previous snapshot in place.
+ */
+public class CatalogSnapshotRefresher extends ScheduledRefresher
+{
+	private static final Logger logger = Logger.getLogger(CatalogSnapshotRefresher.class.getName());
+
+	public static final String REFRESH_INTERVAL_PROPERTY = "RADAR_CATALOG_SNAPSHOT_REFRESH_MINUTES";
+	public static final long DEFAULT_REFRESH_INTERVAL_MINUTES = 10;
+
+	private final CatalogSnapshotCache cache;
+
+	public CatalogSnapshotRefresher(DataSource dataSource, MetricRegistry metrics)
+	{
+		this(dataSource, CatalogSnapshotCache.getInstance(), metrics,
+				minutesProperty(REFRESH_INTERVAL_PROPERTY, DEFAULT_REFRESH_INTERVAL_MINUTES));
+	}
+
+	public CatalogSnapshotRefresher(DataSource dataSource, CatalogSnapshotCache cache, MetricRegistry metrics, Duration refreshInterval)
+	{
+		super(dataSource, metrics, "radar-catalog-snapshot-refresher", "refresh the catalog snapshots");
+		this.cache = cache;
+
+		String className = this.getClass().getName();
+		metrics.gauge(name(className, "timeseries", "size"),
+				() -> () -> cache.getTimeSeries().map(CatalogSnapshot::size).orElse(0));
+		metrics.gauge(name(className, "locations", "size"),
+				() -> () -> cache.getLocations(UnitSystem.SI.getValue()).map(CatalogSnapshot::size).orElse(0));
+
+		if(!schedule(Duration.ZERO, refreshInterval))
+		{
+			logger.info("Catalog snapshots are disabled, every catalog page will be read from the database.");
+		}
+	}
+
+	@Override
+	protected void refresh(Connection connection) throws SQLException
+	{
+		try(Timer.Context ignored = loads.time())
+		{
+			DSLContext dsl = JooqDao.getDslContext(connection);
+			ChangeFingerprintDao fingerprints = new ChangeFingerprintDao(dsl);
+			Interner interner = new Interner();
+
+			ChangeFingerprint tsFingerprint = fingerprint(fingerprints, ChangeFingerprintDao.TIMESERIES_CATALOG_TABLES);
+			if(isStale(cache.getTimeSeries(), tsFingerprint))
+			{
+				TimeSeriesDaoImpl dao = new TimeSeriesDaoImpl(dsl);
+				try(Stream<TimeseriesCatalogEntry> entries = dao.streamTimeSeriesCatalog(Optional.empty(), null, null))
+				{
+					CatalogSnapshot<TimeseriesCatalogEntry> snapshot = new CatalogSnapshot<>(
+							entries.map(interner::intern).iterator(), TimeseriesCatalogEntry::getFullName, tsFingerprint);
+					cache.setTimeSeries(snapshot);
+					logger.fine(() -> "Loaded " + snapshot.size() + " time series into the catalog snapshot");
+				}
+			}
+
+			ChangeFingerprint locFingerprint = fingerprint(fingerprints, ChangeFingerprintDao.LOCATION_TABLES);
+			LocationsDaoImpl dao = new LocationsDaoImpl(dsl);
+			for(UnitSystem unitSystem : UnitSystem.values())
+			{
+				if(!isStale(cache.getLocations(unitSystem.getValue()), locFingerprint))
+				{
+					continue;
+				}
+				try(Stream<LocationCatalogEntry> entries = dao.streamLocationCatalog(unitSystem.getValue(), Optional.empty(), null))
+				{
+					CatalogSnapshot<LocationCatalogEntry> snapshot = new CatalogSnapshot<>(
+							entries.map(interner::intern).iterator(), LocationCatalogEntry::getName, locFingerprint);
+					cache.setLocations(unitSystem.getValue(), snapshot);
+					logger.fine(() -> "Loaded " + snapshot.size() + " " + unitSystem + " locations into the catalog snapshot");
+				}
+			}
+		}
+	}
+
+	// Without a fingerprint every refresh reloads.
+	private static ChangeFingerprint fingerprint(ChangeFingerprintDao dao, List<String> tables)
+	{
+		try
+		{
+			return dao.getTableFingerprint(tables);
+		}
+		catch(DataAccessException ex)
+		{
+			logger.log(Level.FINE, "Unable to fingerprint " + tables, ex);
+			return null;
+		}
+	}
+
+	private static boolean isStale(Optional<? extends CatalogSnapshot<?>> current, ChangeFingerprint fingerprint)
+	{
+		return !current.isPresent()
+				|| fingerprint == null
+				|| current.get().getFingerprint() == null
+				|| !fingerprint.getTag().equals(current.get().getFingerprint().getTag());
+	}
+
+	/**
+	 * Shares one copy of each repeated string for the length of a refresh.  Unlike String.intern
+	 * the copies go away with the snapshots that use them.
+	 */
+	static final class Interner
+	{
+		private final Map<String, String> strings = new HashMap<>();
+
+		String intern(String value)
+		{
+			if(value == null)
+			{
+				return null;
+			}
+			String existing = strings.putIfAbsent(value, value);
+			return existing != null ? existing : value;
+		}
+
+		TimeseriesCatalogEntry intern(TimeseriesCatalogEntry entry)
+		{
+			return new TimeseriesCatalogEntry(intern(entry.getOffice()), entry.getFullName(), intern(entry.getUnits()));
+		}
+
+		LocationCatalogEntry intern(LocationCatalogEntry entry)
+		{
+			List<LocationAlias> aliases = new ArrayList<>(entry.getAliases().size());
+			for(LocationAlias alias : entry.getAliases())
+			{
+				aliases.add(new LocationAlias(intern(alias.getName()), alias.getValue()));
+			}
+			return new LocationCatalogEntry(
+					intern(entry.getOffice()),
+					entry.getName(),
+					intern(entry.getNearestCity()),
+					entry.getPublicName(),
+					entry.getLongName(),
+					entry.getDescription(),
+					intern(entry.getKind()),
+					intern(entry.getType()),
+					intern(entry.getTimeZone()),
+					entry.getLatitude(),
+					entry.getLongitude(),
+					entry.getPublishedLatitude(),
+					entry.getPublishedLongitude(),
+					intern(entry.getHorizontalDatum()),
+					entry.getElevation(),
+					intern(entry.getUnit()),
+					intern(entry.getVerticalDatum()),
+					intern(entry.getNation()),
+					intern(entry.getState()),
+					intern(entry.getCounty()),
+					intern(entry.getBoundingOffice()),
+					entry.getMapLabel(),
+					entry.isActive(),
+					aliases);
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package cwms.radar.data.dao;
+
+import java.sql.Timestamp;
+
+/**
+ * A cheap summary of the data behind a response.  If the fingerprint hasn't changed neither has
+ * the data, so a client's copy of the response is still good.
+ */
+public final class ChangeFingerprint
+{
+	private final String tag;
+	private final Timestamp lastModified;
+
+	/**
+	 * @param tag          changes whenever the data changes
+	 * @param lastModified when the data last changed, null if that isn't known
+	 */
+	public ChangeFingerprint(String tag, Timestamp lastModified)
+	{
+		this.tag = tag;
+		this.lastModified = lastModified;
+	}
+
+	public String getTag()
+	{
+		return tag;
+	}
+
+	public Timestamp getLastModified()
+	{
+		return lastModified;
+	}
+
+	@Override
+	public String toString()
+	{
+		return tag + (lastModified != null ? "@" + lastModified.getTime() : "");
+	}
+}
@@ -0,0 +1,102 @@
+package cwms.radar.data.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Schema;
+import org.jooq.impl.DSL;
+import org.jooq.impl.TableImpl;
+import usace.cwms.db.jooq.codegen.tables.AV_OFFICE;
+
+/**
+ * Fingerprints whole tables so unchanged catalogs, locations and groups can be answered with a
+ * 304 without running the query behind them.
+ *
+ * A table's fingerprint is its row count and the highest ORA_ROWSCN of its rows.  Row SCNs are
+ * tracked per block, so a change to any row in a block moves the fingerprint of every row in it.
+ * That only costs an unneeded 200; a change is never missed.
+ *
+ * Polling clients ask for the same fingerprint over and over, so a fingerprint is kept for
+ * RADAR_FINGERPRINT_CACHE_SECONDS rather than read for every request.  A change can take that
+ * long to show.
+ */
+public class ChangeFingerprintDao extends JooqDao<ChangeFingerprint>
+{
+	public static final List<String> LOCATION_TABLES = Collections.unmodifiableList(
+			Arrays.asList("AT_BASE_LOCATION", "AT_PHYSICAL_LOCATION", "AT_LOC_GROUP_ASSIGNMENT"));
+	public static final List<String> LOCATION_GROUP_TABLES = Collections.unmodifiableList(
+			Arrays.asList("AT_LOC_CATEGORY", "AT_LOC_GROUP", "AT_LOC_GROUP_ASSIGNMENT"));
+	public static final List<String> TIMESERIES_GROUP_TABLES = Collections.unmodifiableList(
+			Arrays.asList("AT_TS_CATEGORY", "AT_TS_GROUP", "AT_TS_GROUP_ASSIGNMENT"));
+	public static final List<String> TIMESERIES_CATALOG_TABLES = Collections.unmodifiableList(
+			Arrays.asList("AT_CWMS_TS_SPEC", "AT_BASE_LOCATION", "AT_PHYSICAL_LOCATION"));
+
+	public static final String CACHE_SECONDS_PROPERTY = "RADAR_FINGERPRINT_CACHE_SECONDS";
+	public static final long DEFAULT_CACHE_SECONDS = 5;
+
+	private static final Pattern TABLE_NAME = Pattern.compile("[A-Z][A-Z0-9_]*");
+	// The tables live with the generated views, so a schema mapped in the jOOQ settings applies to them too.
+	private static final Schema CWMS_SCHEMA = AV_OFFICE.AV_OFFICE.getSchema();
+	private static final BoundedCache<List<String>, ChangeFingerprint> CACHE = new BoundedCache<>(1000,
+			Long.parseLong(System.getProperty(CACHE_SECONDS_PROPERTY, String.valueOf(DEFAULT_CACHE_SECONDS))) * 1000);
+
+	public ChangeFingerprintDao(DSLContext dsl)
+	{
+		super(dsl);
+	}
+
+	/**
+	 * The fingerprint cached for key, or the loader's if there isn't one or it has aged out.
+	 *
+	 * @param key everything the fingerprint depends on
+	 */
+	public static <E extends Exception> ChangeFingerprint cached(List<String> key,
+			BoundedCache.Loader<List<String>, ChangeFingerprint, E> loader) throws E
+	{
+		return CACHE.get(key, loader);
+	}
+
+	/**
+	 * @param tables names of tables in the CWMS schema
+	 */
+	public ChangeFingerprint getTableFingerprint(Collection<String> tables)
+	{
+		List<String> key = new ArrayList<>();
+		key.add("tables");
+		key.addAll(tables);
+		return cached(key, k -> readTableFingerprint(tables));
+	}
+
+	private ChangeFingerprint readTableFingerprint(Collection<String> tables)
+	{
+		List<Field<String>> fields = new ArrayList<>();
+		for(String table : tables)
+		{
+			if(!TABLE_NAME.matcher(table).matches())
+			{
+				throw new IllegalArgumentException("Invalid table name: " + table);
+			}
+			fields.add(DSL.field("(select count(*) || ':' || max(ora_rowscn) from {0})", String.class,
+					new TableImpl<Record>(DSL.name(table), CWMS_SCHEMA)));
+		}
+
+		Record fingerprints = dsl.select(fields).fetchOne();
+		StringBuilder tag = new StringBuilder();
+		for(int i = 0; i < fields.size(); i++)
+		{
+			if(i > 0)
+			{
+				tag.append('/');
+			}
+			tag.append(fingerprints.get(i, String.class));
+		}
+		return new ChangeFingerprint(tag.toString(), null);
+	}
+}
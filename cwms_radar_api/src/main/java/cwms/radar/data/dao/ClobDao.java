@@ -1,8 +1,14 @@
 package cwms.radar.data.dao;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 import cwms.radar.data.dto.Catalog;
 import cwms.radar.data.dto.Clob;
@@ -23,6 +29,7 @@ import org.jooq.SelectLimitPercentStep;
 import org.jooq.Table;
 import org.jooq.TableField;
 import org.jooq.conf.ParamType;
+import org.jooq.exception.DataAccessException;
 import org.jooq.impl.DSL;
 import org.jooq.impl.SQLDataType;
 
@@ -177,6 +184,35 @@ public class ClobDao extends JooqDao<Clob>
 		return builder.build();
 	}
 
+	/**
+	 * Every clob matching the filters, read lazily.  The stream has to be closed.
+	 */
+	public Stream<Clob> streamClobs(Optional<String> office, boolean includeValues, String like)
+	{
+		AV_CLOB v_clob = AV_CLOB.AV_CLOB;
+		AV_OFFICE v_office = AV_OFFICE.AV_OFFICE;
+
+		return dsl.select(
+					v_office.OFFICE_ID,
+					v_clob.ID,
+					v_clob.DESCRIPTION,
+					includeValues == true ? v_clob.VALUE : DSL.inline("").as(v_clob.VALUE)
+				)
+				.from(v_clob)
+				.join(v_office).on(v_clob.OFFICE_CODE.eq(v_office.OFFICE_CODE))
+				.where(v_clob.ID.likeRegex(like))
+				.and(v_office.OFFICE_ID.like(office.isPresent() ? office.get() : "%"))
+				.orderBy(v_clob.ID)
+				.fetchSize(STREAM_FETCH_SIZE)
+				.stream()
+				.map(row -> new Clob(
+					row.get(v_office.OFFICE_ID),
+					row.get(v_clob.ID),
+					row.get(v_clob.DESCRIPTION),
+					row.get(v_clob.VALUE)
+				));
+	}
+
 
 	public List<Clob> getClobsLike(String office, String idLike)
 	{
@@ -200,6 +236,57 @@ public class ClobDao extends JooqDao<Clob>
 				ac.join(ao).on(ac.OFFICE_CODE.eq(ao.OFFICE_CODE))).where(cond).fetch(mapper);
 	}
 
+	/**
+	 * Passes the value of a clob to consumer as a Reader over the CLOB, so it is read from the
+	 * database as the consumer reads it rather than held whole as a String.
+	 *
+	 * @return false if there is no such clob, consumer isn't called then
+	 */
+	public boolean streamClobValue(String id, Optional<String> limitToOffice, ClobValueConsumer consumer) throws IOException
+	{
+		AV_CLOB ac = AV_CLOB.AV_CLOB;
+		AV_OFFICE ao = AV_OFFICE.AV_OFFICE;
+
+		Condition cond = ac.ID.eq(id);
+		if(limitToOffice.isPresent())
+		{
+			String office = limitToOffice.get();
+			if(office != null && !office.isEmpty())
+			{
+				cond = cond.and(ao.OFFICE_ID.eq(office));
+			}
+		}
+
+		// the JDBC result set, so the CLOB isn't converted to a String
+		try(ResultSet rs = dsl.select(ac.VALUE).from(
+				ac.join(ao).on(ac.OFFICE_CODE.eq(ao.OFFICE_CODE))).where(cond).fetchResultSet())
+		{
+			if(!rs.next())
+			{
+				return false;
+			}
+			Reader value = rs.getCharacterStream(1);
+			try(Reader reader = value != null ? value : new StringReader(""))
+			{
+				consumer.accept(reader);
+			}
+			return true;
+		}
+		catch(SQLException ex)
+		{
+			throw new DataAccessException("Unable to read clob " + id, ex);
+		}
+	}
+
+	/**
+	 * Receives the value of a clob found by streamClobValue, it can only be read during the call.
+	 */
+	@FunctionalInterface
+	public interface ClobValueConsumer
+	{
+		void accept(Reader value) throws IOException;
+	}
+
 	public String getClobValue(String office, String id)
 	{
 		AV_CLOB ac = AV_CLOB.AV_CLOB;
@@ -2,11 +2,14 @@ package cwms.radar.data.dao;
 
 import java.math.BigDecimal;
 import java.sql.Connection;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import io.javalin.http.Context;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.Field;
 import org.jooq.SQLDialect;
 import org.jooq.impl.DSL;
 
@@ -14,6 +17,11 @@ import usace.cwms.db.jooq.codegen.packages.CWMS_ENV_PACKAGE;
 
 public abstract class JooqDao<T> extends Dao<T>
 {
+	// Rows per round trip for the lazily streamed queries.  The Oracle driver default is 10.
+	public static final int STREAM_FETCH_SIZE = 1000;
+	// Oracle will not accept more than 1000 expressions in an IN list.
+	public static final int IN_LIST_LIMIT = 1000;
+
 	protected JooqDao(DSLContext dsl)
 	{
 		super(dsl);
@@ -26,6 +34,15 @@ public abstract class JooqDao<T> extends Dao<T>
 		return getDslContext(database, officeId);
 	}
 
+	/**
+	 * For work done in the background rather than for a request, and so for no office in
+	 * particular.  The session office is left as the connection has it.
+	 */
+	public static DSLContext getDslContext(Connection database)
+	{
+		return DSL.using(database, SQLDialect.ORACLE11G);
+	}
+
 	public static DSLContext getDslContext(Connection database, String officeId)
 	{
 		DSLContext dsl =  DSL.using(database, SQLDialect.ORACLE11G);
@@ -45,6 +62,52 @@ public abstract class JooqDao<T> extends Dao<T>
 		throw new UnsupportedOperationException("Not supported yet.");
 	}
 
+	/**
+	 * Rows after the (office, id) key in (office, id) order, or every row for a null key.
+	 *
+	 * Spelled out rather than as a row value comparison, and on the bare columns, so Oracle can
+	 * range scan an index on (office, id) and a deep page costs the same as the first.
+	 */
+	static Condition keysetAfter(Field<String> office, Field<String> id, String[] key)
+	{
+		if(key == null)
+		{
+			return DSL.trueCondition();
+		}
+		return office.ge(key[0]).and(office.gt(key[0]).or(id.gt(key[1])));
+	}
+
+	/**
+	 * Ids matching the pattern from their start, where * matches any run of characters, so
+	 * "KEYS" is a prefix and "*Stage" a substring.  Case sensitive so the index can be used.
+	 */
+	static Condition likeFilter(Field<String> id, String like)
+	{
+		if(like == null || like.isEmpty())
+		{
+			return DSL.trueCondition();
+		}
+		String pattern = like.replace("\\", "\\\\")
+				.replace("%", "\\%")
+				.replace("_", "\\_")
+				.replace('*', '%');
+		return id.like(pattern + "%", '\\');
+	}
+
+	/**
+	 * The values in runs of at most IN_LIST_LIMIT, in their order, for a query that matches
+	 * them with an IN list and is run once per run.
+	 */
+	static <V> List<List<V>> inListChunks(List<V> values)
+	{
+		List<List<V>> chunks = new ArrayList<>();
+		for(int start = 0; start < values.size(); start += IN_LIST_LIMIT)
+		{
+			chunks.add(values.subList(start, Math.min(values.size(), start + IN_LIST_LIMIT)));
+		}
+		return chunks;
+	}
+
 	static Double toDouble(BigDecimal bigDecimal)
 	{
 		Double retval = null;
@@ -0,0 +1,140 @@
+package cwms.radar.data.dao;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import cwms.radar.data.dto.RecentValue;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Keeps the LatestValueStore current.
+ *
+ * The first run loads the latest value of every series with data inside the lookback window.
+ * Every run after that only reads the rows whose DATA_ENTRY_DATE is past the high-water mark
+ * of the previous run.  The whole table is reloaded periodically, and whenever it has been
+ * reset, to pick up deletes and renames made outside this process.
+ */
+public class LatestValuePoller extends ScheduledRefresher
+{
+	private static final Logger logger = Logger.getLogger(LatestValuePoller.class.getName());
+
+	public static final String POLL_INTERVAL_PROPERTY = "RADAR_LATEST_VALUE_POLL_SECONDS";
+	public static final String RELOAD_INTERVAL_PROPERTY = "RADAR_LATEST_VALUE_RELOAD_MINUTES";
+	public static final long DEFAULT_POLL_INTERVAL_SECONDS = 15;
+	public static final long DEFAULT_RELOAD_INTERVAL_MINUTES = 60;
+	// A row can commit with a data entry date slightly before the poll that should have seen it.
+	private static final long OVERLAP_MILLIS = 60_000;
+	// The store has to cover the widest window the adaptive search asks for, even right after a load.
+	private static final Duration HORIZON_MARGIN = Duration.ofHours(1);
+	private static final int MISSED_POLLS_BEFORE_STALE = 4;
+
+	private final LatestValueStore store;
+	private final Duration lookback;
+	private final long pollMillis;
+	private final long reloadMillis;
+	private final Timer polls;
+	private final Meter changes;
+
+	private Timestamp highWaterMark = null;
+	private long lastLoadMillis = 0;
+
+	public LatestValuePoller(DataSource dataSource, MetricRegistry metrics)
+	{
+		this(dataSource, LatestValueStore.getInstance(), metrics,
+				Duration.ofSeconds(Long.parseLong(System.getProperty(POLL_INTERVAL_PROPERTY, String.valueOf(DEFAULT_POLL_INTERVAL_SECONDS)))),
+				minutesProperty(RELOAD_INTERVAL_PROPERTY, DEFAULT_RELOAD_INTERVAL_MINUTES),
+				Duration.ofDays(Long.parseLong(System.getProperty(AdaptiveRecentValueFinder.MAX_LOOKBACK_PROPERTY,
+						String.valueOf(AdaptiveRecentValueFinder.DEFAULT_MAX_LOOKBACK_DAYS)))));
+	}
+
+	public LatestValuePoller(DataSource dataSource, LatestValueStore store, MetricRegistry metrics,
+							 Duration pollInterval, Duration reloadInterval, Duration lookback)
+	{
+		super(dataSource, metrics, "radar-latest-value-poller", "refresh latest values");
+		this.store = store;
+		this.lookback = lookback.plus(HORIZON_MARGIN);
+		this.pollMillis = pollInterval.toMillis();
+		this.reloadMillis = reloadInterval.toMillis();
+
+		String className = this.getClass().getName();
+		polls = metrics.timer(name(className, "poll"));
+		changes = metrics.meter(name(className, "changes"));
+		metrics.gauge(name(className, "series"), () -> store::size);
+
+		if(!schedule(Duration.ZERO, pollInterval))
+		{
+			logger.info("Latest value polling is disabled, recent values will always be read from the database.");
+		}
+	}
+
+	/**
+	 * @return true if the store is kept current from the database, changes pushed to
+	 * subscribers depend on it
+	 */
+	public boolean isPolling()
+	{
+		return pollMillis > 0;
+	}
+
+	@Override
+	protected void refresh(Connection connection)
+	{
+		long started = System.currentTimeMillis();
+		TimeSeriesDaoImpl dao = new TimeSeriesDaoImpl(JooqDao.getDslContext(connection));
+
+		if(!store.isPrimed() || started - lastLoadMillis >= reloadMillis)
+		{
+			load(dao, started);
+		}
+		else
+		{
+			applyChanges(dao);
+		}
+		store.refreshed(started);
+	}
+
+	private void load(TimeSeriesDaoImpl dao, long started)
+	{
+		try(Timer.Context ignored = loads.time())
+		{
+			Timestamp horizon = new Timestamp(started - lookback.toMillis());
+			// Taken before the load so nothing entered while loading is missed.
+			Timestamp mark = dao.findMaxDataEntryDate(horizon);
+			List<RecentValue> latest = dao.findAllMostRecents(horizon);
+
+			store.prime(latest, horizon, pollMillis * MISSED_POLLS_BEFORE_STALE);
+			highWaterMark = mark != null ? mark : horizon;
+			lastLoadMillis = started;
+			logger.fine(() -> "Loaded latest values of " + store.size() + " series");
+		}
+	}
+
+	private void applyChanges(TimeSeriesDaoImpl dao)
+	{
+		try(Timer.Context ignored = polls.time())
+		{
+			Timestamp enteredAfter = new Timestamp(highWaterMark.getTime() - OVERLAP_MILLIS);
+			List<RecentValue> changed = dao.findEnteredSince(enteredAfter, store.getHorizon());
+			store.apply(changed);
+			changes.mark(changed.size());
+
+			for(RecentValue value : changed)
+			{
+				Date entered = value.getDqu().getDataEntryDate();
+				if(entered != null && entered.getTime() > highWaterMark.getTime())
+				{
+					highWaterMark = new Timestamp(entered.getTime());
+				}
+			}
+		}
+	}
+}
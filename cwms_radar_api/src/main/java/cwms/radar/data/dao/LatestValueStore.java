@@ -0,0 +1,419 @@
+package cwms.radar.data.dao;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import cwms.radar.data.dto.RecentValue;
+import cwms.radar.data.dto.TsvDqu;
+import cwms.radar.data.dto.TsvDquId;
+
+/**
+ * Process-wide table of the latest value of every timeseries, keyed by ts_code.
+ *
+ * The table is filled by a LatestValuePoller and kept current by the timeseries write path.
+ * It only answers for a window once it has been primed, is still being refreshed, and the
+ * window starts after the horizon the table was primed with.  Anything else is reported as
+ * uncovered and must be read from the database.
+ */
+public class LatestValueStore
+{
+	private static final LatestValueStore INSTANCE = new LatestValueStore();
+
+	/**
+	 * Told about every series whose latest value moved forward or was revised.  Called while the
+	 * table is locked, so it has to hand the values off rather than do any work with them.
+	 */
+	@FunctionalInterface
+	public interface Listener
+	{
+		void latestChanged(Set<String> tsIds, List<RecentValue> values);
+	}
+
+	private final Map<Long, Entry> byCode = new ConcurrentHashMap<>();
+	// every name a series is known by, including aliases
+	private final Map<String, Set<Long>> codesById = new ConcurrentHashMap<>();
+	// ts-ids written through this process that the poller has not caught up with yet, with the write time
+	private final Map<String, Long> dirtyIds = new ConcurrentHashMap<>();
+
+	private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+	private volatile Timestamp horizon = null;
+	private volatile long lastRefreshMillis = 0;
+	private volatile long maxStalenessMillis = 0;
+
+	public static LatestValueStore getInstance()
+	{
+		return INSTANCE;
+	}
+
+	LatestValueStore()
+	{
+	}
+
+	/**
+	 * Replaces the contents of the table.
+	 *
+	 * @param latest       the most recent rows of every series with data after the horizon
+	 * @param horizon      the table knows of every value after this time
+	 * @param maxStaleness how long, in milliseconds, the table may go without a refresh before it stops answering
+	 */
+	public synchronized void prime(Collection<RecentValue> latest, Timestamp horizon, long maxStaleness)
+	{
+		// Stop answering while the table is rebuilt, this also keeps listeners from hearing about
+		// everything that was just reloaded.
+		boolean reload = isPrimed();
+		Map<Long, Entry> previous = new HashMap<>(byCode);
+		this.horizon = null;
+		byCode.clear();
+		codesById.clear();
+		apply(latest);
+		this.horizon = horizon;
+		if(reload)
+		{
+			// pass on anything the incremental polls missed
+			for(Entry entry : byCode.values())
+			{
+				Entry before = previous.get(entry.tsCode);
+				if(before == null || entry.dateTime > before.dateTime)
+				{
+					notifyListeners(entry);
+				}
+			}
+		}
+		this.maxStalenessMillis = maxStaleness;
+		this.lastRefreshMillis = System.currentTimeMillis();
+	}
+
+	/**
+	 * Empties the table.  Nothing is answered from it until it is primed again.
+	 */
+	public synchronized void reset()
+	{
+		horizon = null;
+		byCode.clear();
+		codesById.clear();
+		dirtyIds.clear();
+	}
+
+	public void addListener(Listener listener)
+	{
+		listeners.add(listener);
+	}
+
+	public void removeListener(Listener listener)
+	{
+		listeners.remove(listener);
+	}
+
+	public boolean isPrimed()
+	{
+		return horizon != null;
+	}
+
+	public Timestamp getHorizon()
+	{
+		return horizon;
+	}
+
+	/**
+	 * Merges newly entered rows into the table.  Rows older than what is already held are ignored.
+	 */
+	public synchronized void apply(Collection<RecentValue> rows)
+	{
+		Map<Long, List<RecentValue>> newestByCode = new LinkedHashMap<>();
+		for(RecentValue row : rows)
+		{
+			TsvDquId id = row.getDqu().getId();
+			List<RecentValue> newest = newestByCode.get(id.getTsCode());
+			long newestTime = newest == null ? Long.MIN_VALUE : time(newest.get(0));
+			if(time(row) > newestTime)
+			{
+				newest = new ArrayList<>();
+				newestByCode.put(id.getTsCode(), newest);
+				newest.add(row);
+			}
+			else if(time(row) == newestTime)
+			{
+				newest.add(row);
+			}
+		}
+
+		for(Map.Entry<Long, List<RecentValue>> e : newestByCode.entrySet())
+		{
+			Entry incoming = Entry.of(e.getValue());
+			Entry current = byCode.get(e.getKey());
+			if(current == null || incoming.dateTime > current.dateTime)
+			{
+				put(incoming);
+				notifyListeners(incoming);
+			}
+			else if(incoming.dateTime == current.dateTime)
+			{
+				// A revision of the latest value, keep rows for units not in the update.
+				Entry merged = current.merge(incoming);
+				put(merged);
+				notifyListeners(merged);
+			}
+		}
+	}
+
+	/**
+	 * Records that a refresh that started at refreshStart has completed.  Writes made through this
+	 * process before then have been seen by the refresh.
+	 */
+	public void refreshed(long refreshStart)
+	{
+		dirtyIds.entrySet().removeIf(e -> e.getValue() < refreshStart);
+		lastRefreshMillis = Math.max(lastRefreshMillis, refreshStart);
+	}
+
+	/**
+	 * Called by the write path once values have been stored, with the stored value that has the
+	 * latest date-time.
+	 */
+	public synchronized void recordWrite(String officeId, String tsId, String unitId, Timestamp dateTime,
+										 Double value, int qualityCode)
+	{
+		if(!isPrimed())
+		{
+			return;
+		}
+
+		Entry current = findEntry(officeId, tsId);
+		if(current != null && current.rows.size() == 1 && unitId != null
+				&& unitId.equals(current.rows.get(0).getDqu().getId().getUnitId()))
+		{
+			if(dateTime.getTime() >= current.dateTime)
+			{
+				TsvDqu dqu = current.rows.get(0).getDqu();
+				TsvDquId id = new TsvDquId(dqu.getId().getOfficeId(), dqu.getId().getTsCode(), unitId, dateTime);
+				TsvDqu updated = new TsvDqu(id, dqu.getCwmsTsId(), dqu.getVersionDate(),
+						new Timestamp(System.currentTimeMillis()), value, (long) qualityCode, dqu.getStartDate(),
+						dqu.getEndDate());
+				Entry entry = current.withRows(Collections.singletonList(new RecentValue(tsId, updated)));
+				byCode.put(current.tsCode, entry);
+				notifyListeners(entry);
+			}
+			return;
+		}
+
+		// Either the series is new to the table or its value is held in units the write can't be
+		// converted to here.  Readers go to the database until the poller has picked up the write.
+		dirtyIds.put(tsId, System.currentTimeMillis());
+	}
+
+	/**
+	 * Called by the write path once a series has been deleted.
+	 */
+	public synchronized void recordDelete(String officeId, String tsId)
+	{
+		Entry current = findEntry(officeId, tsId);
+		if(current != null)
+		{
+			byCode.remove(current.tsCode);
+			for(String name : current.names)
+			{
+				Set<Long> codes = codesById.get(name);
+				if(codes != null)
+				{
+					codes.remove(current.tsCode);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Answers as much of a findMostRecentsInRange request as the table can.
+	 */
+	public Lookup lookup(Collection<String> tsIds, Timestamp pastLimit, Timestamp futureLimit)
+	{
+		Lookup retval = new Lookup();
+		if(!isCovering(pastLimit))
+		{
+			retval.uncoveredIds.addAll(tsIds);
+			return retval;
+		}
+
+		for(String tsId : tsIds)
+		{
+			if(dirtyIds.containsKey(tsId))
+			{
+				retval.uncoveredIds.add(tsId);
+				continue;
+			}
+
+			List<RecentValue> values = new ArrayList<>();
+			boolean covered = true;
+			for(Long code : codesById.getOrDefault(tsId, Collections.emptySet()))
+			{
+				Entry entry = byCode.get(code);
+				if(entry == null)
+				{
+					continue;
+				}
+				if(entry.dateTime >= futureLimit.getTime())
+				{
+					// The latest value is past the window; the latest one inside it isn't known here.
+					covered = false;
+					break;
+				}
+				if(entry.dateTime > pastLimit.getTime())
+				{
+					for(RecentValue row : entry.rows)
+					{
+						// report it under the name it was asked for, which may be an alias
+						values.add(new RecentValue(tsId, row.getDqu()));
+					}
+				}
+			}
+
+			if(covered)
+			{
+				retval.values.addAll(values);
+			}
+			else
+			{
+				retval.uncoveredIds.add(tsId);
+			}
+		}
+		return retval;
+	}
+
+	public boolean isCovering(Timestamp pastLimit)
+	{
+		Timestamp primedHorizon = horizon;
+		return primedHorizon != null
+				&& pastLimit != null
+				&& !pastLimit.before(primedHorizon)
+				&& System.currentTimeMillis() - lastRefreshMillis <= maxStalenessMillis;
+	}
+
+	public int size()
+	{
+		return byCode.size();
+	}
+
+	private Entry findEntry(String officeId, String tsId)
+	{
+		for(Long code : codesById.getOrDefault(tsId, Collections.emptySet()))
+		{
+			Entry entry = byCode.get(code);
+			if(entry != null && entry.officeId.equalsIgnoreCase(officeId))
+			{
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	private void put(Entry entry)
+	{
+		byCode.put(entry.tsCode, entry);
+		for(String name : entry.names)
+		{
+			codesById.computeIfAbsent(name, k -> ConcurrentHashMap.newKeySet()).add(entry.tsCode);
+			dirtyIds.remove(name);
+		}
+	}
+
+	private void notifyListeners(Entry entry)
+	{
+		if(!isPrimed())
+		{
+			// still loading, nothing here is news
+			return;
+		}
+		for(Listener listener : listeners)
+		{
+			listener.latestChanged(entry.names, entry.rows);
+		}
+	}
+
+	private static long time(RecentValue row)
+	{
+		return row.getDqu().getId().getDateTime().getTime();
+	}
+
+	/**
+	 * The part of a request answered from the table, and the ids that must be read from the database.
+	 */
+	public static class Lookup
+	{
+		private final List<RecentValue> values = new ArrayList<>();
+		private final List<String> uncoveredIds = new ArrayList<>();
+
+		public List<RecentValue> getValues()
+		{
+			return values;
+		}
+
+		public List<String> getUncoveredIds()
+		{
+			return uncoveredIds;
+		}
+	}
+
+	private static class Entry
+	{
+		private final Long tsCode;
+		private final String officeId;
+		private final long dateTime;
+		private final Set<String> names;
+		// one row per unit the value is available in
+		private final List<RecentValue> rows;
+
+		Entry(Long tsCode, String officeId, long dateTime, Set<String> names, Collection<RecentValue> rows)
+		{
+			this.tsCode = tsCode;
+			this.officeId = officeId;
+			this.dateTime = dateTime;
+			this.names = Collections.unmodifiableSet(names);
+			this.rows = Collections.unmodifiableList(new ArrayList<>(rows));
+		}
+
+		static Entry of(List<RecentValue> rows)
+		{
+			Set<String> names = new HashSet<>();
+			Map<String, RecentValue> byUnit = new LinkedHashMap<>();
+			for(RecentValue row : rows)
+			{
+				// alias rows repeat the same point under another name
+				names.add(row.getId());
+				byUnit.putIfAbsent(row.getDqu().getId().getUnitId(), row);
+			}
+			TsvDquId id = rows.get(0).getDqu().getId();
+			return new Entry(id.getTsCode(), id.getOfficeId(), time(rows.get(0)), names, byUnit.values());
+		}
+
+		Entry withRows(List<RecentValue> newRows)
+		{
+			return new Entry(tsCode, officeId, time(newRows.get(0)), names, newRows);
+		}
+
+		Entry merge(Entry update)
+		{
+			Set<String> mergedNames = new HashSet<>(names);
+			mergedNames.addAll(update.names);
+			Map<String, RecentValue> byUnit = new LinkedHashMap<>();
+			for(RecentValue row : rows)
+			{
+				byUnit.put(row.getDqu().getId().getUnitId(), row);
+			}
+			for(RecentValue row : update.rows)
+			{
+				byUnit.put(row.getDqu().getId().getUnitId(), row);
+			}
+			return new Entry(tsCode, officeId, dateTime, mergedNames, byUnit.values());
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package cwms.radar.data.dao;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import cwms.radar.data.dto.Location;
+
+/**
+ * Process-wide cache of Location metadata by office, location and unit system.
+ *
+ * Locations written through LocationsDaoImpl are invalidated as they are written.  Entries also
+ * age out after RADAR_LOCATION_CACHE_MAX_AGE_MINUTES so changes made outside this process are
+ * picked up.  A size of 0 turns the cache off.
+ */
+public class LocationCache
+{
+	public static final String SIZE_PROPERTY = "RADAR_LOCATION_CACHE_SIZE";
+	public static final String MAX_AGE_PROPERTY = "RADAR_LOCATION_CACHE_MAX_AGE_MINUTES";
+	public static final int DEFAULT_SIZE = 10_000;
+	public static final long DEFAULT_MAX_AGE_MINUTES = 15;
+
+	private static final LocationCache INSTANCE = new LocationCache(
+			Integer.parseInt(System.getProperty(SIZE_PROPERTY, String.valueOf(DEFAULT_SIZE))),
+			TimeUnit.MINUTES.toMillis(Long.parseLong(System.getProperty(MAX_AGE_PROPERTY, String.valueOf(DEFAULT_MAX_AGE_MINUTES)))));
+
+	private final BoundedCache<Key, Location> cache;
+
+	public static LocationCache getInstance()
+	{
+		return INSTANCE;
+	}
+
+	LocationCache(int maxSize, long maxAgeMillis)
+	{
+		cache = new BoundedCache<>(maxSize, maxAgeMillis);
+	}
+
+	public Location get(String officeId, String locationName, String unitSystem,
+						BoundedCache.Loader<Key, Location, IOException> loader) throws IOException
+	{
+		return cache.get(new Key(officeId, locationName, unitSystem), loader);
+	}
+
+	/**
+	 * Drops the location in every unit system.
+	 */
+	public void invalidate(String officeId, String locationName)
+	{
+		Key match = new Key(officeId, locationName, null);
+		cache.invalidateIf(key -> key.office.equals(match.office) && key.name.equals(match.name));
+	}
+
+	public void clear()
+	{
+		cache.clear();
+	}
+
+	public int size()
+	{
+		return cache.size();
+	}
+
+	public long getHitCount()
+	{
+		return cache.getHitCount();
+	}
+
+	public long getMissCount()
+	{
+		return cache.getMissCount();
+	}
+
+	public double getHitRatio()
+	{
+		return cache.getHitRatio();
+	}
+
+	/**
+	 * Office and location ids are matched without regard to case, as the database does.
+	 */
+	public static final class Key
+	{
+		private final String office;
+		private final String name;
+		private final String unitSystem;
+
+		Key(String office, String name, String unitSystem)
+		{
+			this.office = office == null ? "" : office.toUpperCase(Locale.ROOT);
+			this.name = name == null ? "" : name.toUpperCase(Locale.ROOT);
+			this.unitSystem = unitSystem;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if(this == o)
+			{
+				return true;
+			}
+			if(!(o instanceof Key))
+			{
+				return false;
+			}
+			Key key = (Key) o;
+			return office.equals(key.office) && name.equals(key.name) && Objects.equals(unitSystem, key.unitSystem);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(office, name, unitSystem);
+		}
+	}
+}
@@ -1,7 +1,9 @@
 package cwms.radar.data.dao;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -9,10 +11,12 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import cwms.radar.data.dto.AssignedLocation;
 import cwms.radar.data.dto.LocationCategory;
 import cwms.radar.data.dto.LocationGroup;
+import cwms.radar.formatters.Fields;
 import kotlin.Pair;
 import org.geojson.Feature;
 import org.geojson.FeatureCollection;
@@ -135,28 +139,85 @@ public class LocationGroupDao extends JooqDao<LocationGroup>
 
 	public List<LocationGroup> getLocationGroups(String officeId)
 	{
-		List<LocationGroup> retval;
+		return getLocationGroups(officeId, Collections.emptySet());
+	}
+
+	/**
+	 * @param fields the LocationGroup properties to read, empty for all of them.  The ids, offices
+	 *               and attribute are always read, they identify a group and order the list.
+	 */
+	public List<LocationGroup> getLocationGroups(String officeId, Set<String> fields)
+	{
 		AV_LOC_CAT_GRP table = AV_LOC_CAT_GRP.AV_LOC_CAT_GRP;
 
-		org.jooq.TableField [] columns = new TableField[]{
-				table.CAT_DB_OFFICE_ID, table.LOC_CATEGORY_ID, table.LOC_CATEGORY_DESC, table.GRP_DB_OFFICE_ID,
-				table.LOC_GROUP_ID, table.LOC_GROUP_DESC, table.SHARED_LOC_ALIAS_ID, table.SHARED_REF_LOCATION_ID,
-				table.LOC_GROUP_ATTRIBUTE
-		};
+		List<Field<?>> columns = new ArrayList<>(Arrays.asList(
+				table.CAT_DB_OFFICE_ID, table.LOC_CATEGORY_ID, table.GRP_DB_OFFICE_ID,
+				table.LOC_GROUP_ID, table.LOC_GROUP_ATTRIBUTE));
+		boolean withCategory = Fields.wants(fields, "location-category");
+		boolean withDescription = Fields.wants(fields, "description");
+		boolean withAlias = Fields.wants(fields, "shared-loc-alias-id");
+		boolean withRefLocation = Fields.wants(fields, "shared-ref-location-id");
+		if(withCategory)
+		{
+			columns.add(table.LOC_CATEGORY_DESC);
+		}
+		if(withDescription)
+		{
+			columns.add(table.LOC_GROUP_DESC);
+		}
+		if(withAlias)
+		{
+			columns.add(table.SHARED_LOC_ALIAS_ID);
+		}
+		if(withRefLocation)
+		{
+			columns.add(table.SHARED_REF_LOCATION_ID);
+		}
 
 		SelectJoinStep<Record> step = dsl.selectDistinct(columns).from(table);
 
-		SelectOrderByStep select = step;
+		SelectOrderByStep<Record> select = step;
 
 		if(officeId != null && !officeId.isEmpty()){
 			select = step.where(
 					table.GRP_DB_OFFICE_ID.eq(officeId));
 		}
 
-		retval = select.orderBy(table.LOC_GROUP_ATTRIBUTE)
-				.fetch().into(LocationGroup.class);
+		return select.orderBy(table.LOC_GROUP_ATTRIBUTE)
+				.fetch(r -> new LocationGroup(
+						r.get(table.CAT_DB_OFFICE_ID),
+						r.get(table.LOC_CATEGORY_ID),
+						withCategory ? r.get(table.LOC_CATEGORY_DESC) : null,
+						r.get(table.GRP_DB_OFFICE_ID),
+						r.get(table.LOC_GROUP_ID),
+						withDescription ? r.get(table.LOC_GROUP_DESC) : null,
+						withAlias ? r.get(table.SHARED_LOC_ALIAS_ID) : null,
+						withRefLocation ? r.get(table.SHARED_REF_LOCATION_ID) : null,
+						r.get(table.LOC_GROUP_ATTRIBUTE)));
+	}
+
+	/**
+	 * The same groups as getLocationGroups, read lazily.  The stream has to be closed.
+	 */
+	public Stream<LocationGroup> streamLocationGroups(String officeId)
+	{
+		AV_LOC_CAT_GRP table = AV_LOC_CAT_GRP.AV_LOC_CAT_GRP;
+
+		SelectJoinStep<Record> step = dsl.selectDistinct(table.CAT_DB_OFFICE_ID, table.LOC_CATEGORY_ID,
+				table.LOC_CATEGORY_DESC, table.GRP_DB_OFFICE_ID, table.LOC_GROUP_ID, table.LOC_GROUP_DESC,
+				table.SHARED_LOC_ALIAS_ID, table.SHARED_REF_LOCATION_ID, table.LOC_GROUP_ATTRIBUTE).from(table);
+
+		SelectOrderByStep<Record> select = step;
+
+		if(officeId != null && !officeId.isEmpty()){
+			select = step.where(
+					table.GRP_DB_OFFICE_ID.eq(officeId));
+		}
 
-		return retval;
+		return select.orderBy(table.LOC_GROUP_ATTRIBUTE)
+				.fetchSize(STREAM_FETCH_SIZE)
+				.stream()
+				.map(r -> r.into(LocationGroup.class));
 	}
 
 	public Feature buildFeatureFromAvLocRecordWithLocGroup(Record avLocRecord){
@@ -0,0 +1,90 @@
+package cwms.radar.data.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import cwms.radar.api.enums.UnitSystem;
+import cwms.radar.data.dto.LocationPoint;
+import cwms.radar.data.dto.catalog.LocationCatalogEntry;
+import org.jooq.DSLContext;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Periodically reloads every office in the LocationSpatialIndex and LocationSearchIndex.
+ *
+ * Locations stored through this process are patched in as they are written, the reload picks up
+ * the ones changed by anything else.  Offices are only loaded here once a query has asked for them.
+ */
+public class LocationIndexRefresher extends ScheduledRefresher
+{
+	private static final Logger logger = Logger.getLogger(LocationIndexRefresher.class.getName());
+
+	public static final String REFRESH_INTERVAL_PROPERTY = "RADAR_LOCATION_INDEX_REFRESH_MINUTES";
+	public static final long DEFAULT_REFRESH_INTERVAL_MINUTES = 30;
+
+	private final LocationSpatialIndex spatialIndex;
+	private final LocationSearchIndex searchIndex;
+
+	public LocationIndexRefresher(DataSource dataSource, MetricRegistry metrics)
+	{
+		this(dataSource, LocationSpatialIndex.getInstance(), LocationSearchIndex.getInstance(), metrics,
+				minutesProperty(REFRESH_INTERVAL_PROPERTY, DEFAULT_REFRESH_INTERVAL_MINUTES));
+	}
+
+	public LocationIndexRefresher(DataSource dataSource, LocationSpatialIndex spatialIndex, LocationSearchIndex searchIndex,
+								  MetricRegistry metrics, Duration refreshInterval)
+	{
+		super(dataSource, metrics, "radar-location-index-refresher", "refresh the location indexes");
+		this.spatialIndex = spatialIndex;
+		this.searchIndex = searchIndex;
+
+		String className = this.getClass().getName();
+		metrics.gauge(name(className, "spatial", "offices"), () -> () -> spatialIndex.getLoadedOffices().size());
+		metrics.gauge(name(className, "search", "offices"), () -> () -> searchIndex.getLoadedOffices().size());
+
+		if(!schedule(refreshInterval, refreshInterval))
+		{
+			logger.info("Location index refresh is disabled, only changes made through this server will be seen.");
+		}
+	}
+
+	@Override
+	protected void refresh(Connection connection) throws SQLException
+	{
+		List<String> spatialOffices = new ArrayList<>(spatialIndex.getLoadedOffices());
+		List<String> searchOffices = new ArrayList<>(searchIndex.getLoadedOffices());
+		if(spatialOffices.isEmpty() && searchOffices.isEmpty())
+		{
+			return;
+		}
+		try(Timer.Context ignored = loads.time())
+		{
+			DSLContext dsl = JooqDao.getDslContext(connection);
+			LocationsDaoImpl dao = new LocationsDaoImpl(dsl);
+			for(String office : spatialOffices)
+			{
+				List<LocationPoint> points = dao.getLocationPoints(office);
+				spatialIndex.load(office, points);
+				logger.fine(() -> "Reloaded " + points.size() + " location coordinates of " + office);
+			}
+			for(String office : searchOffices)
+			{
+				try(Stream<LocationCatalogEntry> entries = dao.streamLocationCatalog(UnitSystem.SI.getValue(), Optional.of(office), null))
+				{
+					searchIndex.load(office, entries);
+				}
+				logger.fine(() -> "Reloaded location names of " + office);
+			}
+		}
+	}
+}
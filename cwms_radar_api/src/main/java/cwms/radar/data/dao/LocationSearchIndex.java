@@ -0,0 +1,697 @@
+package cwms.radar.data.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import cwms.radar.data.dto.LocationSearchResult;
+import cwms.radar.data.dto.catalog.LocationAlias;
+import cwms.radar.data.dto.catalog.LocationCatalogEntry;
+
+/**
+ * Process-wide inverted index over location names, for type-ahead search.
+ *
+ * Every word of a location's id, public name, long name, nearest city and aliases is indexed by
+ * its trigrams and by its one and two character prefixes.  A query word of three or more
+ * characters finds the locations holding all of its trigrams, a shorter one the locations with a
+ * word starting with it.  When that doesn't fill the limit, locations sharing most of the query's
+ * trigrams are added below them, which catches misspellings.
+ *
+ * An office is loaded the first time it is searched, reloaded by the LocationIndexRefresher, and
+ * patched by the location write path.
+ */
+public class LocationSearchIndex
+{
+	private static final LocationSearchIndex INSTANCE = new LocationSearchIndex();
+
+	private static final int GRAM = 3;
+	private static final double FUZZY_THRESHOLD = 0.5;
+	// Below any real match, above nothing.
+	private static final double FUZZY_WEIGHT = 0.4;
+
+	/**
+	 * The searched fields, best first.
+	 */
+	enum Field
+	{
+		NAME(1.0),
+		PUBLIC_NAME(0.9),
+		ALIAS(0.8),
+		LONG_NAME(0.6),
+		NEAREST_CITY(0.5);
+
+		private final double weight;
+
+		Field(double weight)
+		{
+			this.weight = weight;
+		}
+	}
+
+	private final Map<String, OfficeIndex> byOffice = new ConcurrentHashMap<>();
+
+	public static LocationSearchIndex getInstance()
+	{
+		return INSTANCE;
+	}
+
+	LocationSearchIndex()
+	{
+	}
+
+	public boolean isLoaded(String officeId)
+	{
+		return byOffice.containsKey(key(officeId));
+	}
+
+	public Set<String> getLoadedOffices()
+	{
+		return Collections.unmodifiableSet(byOffice.keySet());
+	}
+
+	/**
+	 * Replaces everything known about an office.
+	 */
+	public void load(String officeId, Stream<LocationCatalogEntry> entries)
+	{
+		byOffice.put(key(officeId), index(entries));
+	}
+
+	/**
+	 * Loads an office the first time it's asked for, passing the loader the upper case id.  An
+	 * office that isn't known, or has no locations, isn't kept so ids that aren't offices don't
+	 * fill the index; its searches find nothing either way.
+	 */
+	public void loadIfAbsent(String officeId, Function<String, Stream<LocationCatalogEntry>> loader)
+	{
+		String office = key(officeId);
+		if(office.isEmpty() || isLoaded(office) || ReferenceDataCache.getInstance().isUnknownOffice(office))
+		{
+			return;
+		}
+		try(Stream<LocationCatalogEntry> entries = loader.apply(office))
+		{
+			OfficeIndex index = index(entries);
+			if(!index.byName.isEmpty())
+			{
+				byOffice.put(office, index);
+			}
+		}
+	}
+
+	private static OfficeIndex index(Stream<LocationCatalogEntry> entries)
+	{
+		OfficeIndex index = new OfficeIndex();
+		entries.forEach(e -> index.add(new Document(e.getOffice(), e.getName(), e.getPublicName(), e.getLongName(),
+				e.getNearestCity(), aliasValues(e.getAliases()))));
+		return index;
+	}
+
+	/**
+	 * Adds or updates a location of a loaded office.  Aliases aren't part of a location write, so
+	 * the ones already indexed for the location are kept.
+	 */
+	public void put(String officeId, String name, String publicName, String longName, String nearestCity)
+	{
+		put(officeId, name, name, publicName, longName, nearestCity);
+	}
+
+	/**
+	 * Like put, for a location that had a different name before.
+	 */
+	public void put(String officeId, String oldName, String name, String publicName, String longName, String nearestCity)
+	{
+		OfficeIndex index = byOffice.get(key(officeId));
+		if(index != null)
+		{
+			index.replace(oldName, document -> new Document(officeId, name, publicName, longName, nearestCity,
+					document != null ? document.aliases : Collections.emptyList()));
+		}
+	}
+
+	public void remove(String officeId, String name)
+	{
+		OfficeIndex index = byOffice.get(key(officeId));
+		if(index != null)
+		{
+			index.replace(name, document -> null);
+		}
+	}
+
+	/**
+	 * The best matches for a query, best first, at most limit of them.
+	 */
+	public List<LocationSearchResult> search(String officeId, String query, int limit)
+	{
+		OfficeIndex index = byOffice.get(key(officeId));
+		List<String> words = words(query);
+		if(index == null || words.isEmpty() || limit <= 0)
+		{
+			return Collections.emptyList();
+		}
+		return index.search(words, limit);
+	}
+
+	static List<String> words(String text)
+	{
+		List<String> retval = new ArrayList<>();
+		if(text != null)
+		{
+			for(String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+			{
+				if(!word.isEmpty())
+				{
+					retval.add(word);
+				}
+			}
+		}
+		return retval;
+	}
+
+	static List<String> grams(String word)
+	{
+		List<String> retval = new ArrayList<>();
+		for(int i = 0; i + GRAM <= word.length(); i++)
+		{
+			retval.add(word.substring(i, i + GRAM));
+		}
+		return retval;
+	}
+
+	private static List<String> aliasValues(List<LocationAlias> aliases)
+	{
+		List<String> retval = new ArrayList<>();
+		if(aliases != null)
+		{
+			for(LocationAlias alias : aliases)
+			{
+				if(alias.getValue() != null)
+				{
+					retval.add(alias.getValue());
+				}
+			}
+		}
+		return retval;
+	}
+
+	private static String key(String value)
+	{
+		return value == null ? "" : value.toUpperCase(Locale.ROOT);
+	}
+
+	/**
+	 * A location's searchable text, split into words once.
+	 */
+	private static final class Document
+	{
+		private final String officeId;
+		private final String name;
+		private final String publicName;
+		private final String longName;
+		private final String nearestCity;
+		private final List<String> aliases;
+		private final List<Text> texts = new ArrayList<>();
+
+		Document(String officeId, String name, String publicName, String longName, String nearestCity, List<String> aliases)
+		{
+			this.officeId = officeId;
+			this.name = name;
+			this.publicName = publicName;
+			this.longName = longName;
+			this.nearestCity = nearestCity;
+			this.aliases = aliases;
+			addText(Field.NAME, name);
+			addText(Field.PUBLIC_NAME, publicName);
+			addText(Field.LONG_NAME, longName);
+			addText(Field.NEAREST_CITY, nearestCity);
+			for(String alias : aliases)
+			{
+				addText(Field.ALIAS, alias);
+			}
+		}
+
+		private void addText(Field field, String value)
+		{
+			if(value != null && !value.isEmpty())
+			{
+				texts.add(new Text(field, value, words(value)));
+			}
+		}
+
+		Set<String> keys()
+		{
+			Set<String> retval = new HashSet<>();
+			for(Text text : texts)
+			{
+				for(String word : text.words)
+				{
+					retval.add(word.substring(0, 1));
+					if(word.length() > 1)
+					{
+						retval.add(word.substring(0, 2));
+					}
+					retval.addAll(grams(word));
+				}
+			}
+			return retval;
+		}
+
+		/**
+		 * What a query of just this one or two character prefix scores for this document, the same
+		 * as score() gives it, so the ranked prefix postings are in result order.
+		 */
+		double prefixScore(String prefix)
+		{
+			double retval = 0;
+			for(Text text : texts)
+			{
+				retval = Math.max(retval, quality(text, prefix) * text.field.weight);
+			}
+			return retval;
+		}
+
+		LocationSearchResult toResult(String matched, double score)
+		{
+			return new LocationSearchResult(officeId, name, publicName, longName, nearestCity, matched, score);
+		}
+	}
+
+	/**
+	 * How well a query word matches a text: 1 if it is a word of it, 0.8 if it starts one, 0.5 if
+	 * it is inside one, otherwise 0.
+	 */
+	private static double quality(Text text, String word)
+	{
+		double quality = 0;
+		for(String candidate : text.words)
+		{
+			if(candidate.equals(word))
+			{
+				return 1.0;
+			}
+			else if(candidate.startsWith(word))
+			{
+				quality = 0.8;
+			}
+			else if(quality < 0.5 && candidate.contains(word))
+			{
+				quality = 0.5;
+			}
+		}
+		return quality;
+	}
+
+	private static final class Text
+	{
+		private final Field field;
+		private final String value;
+		private final List<String> words;
+
+		Text(Field field, String value, List<String> words)
+		{
+			this.field = field;
+			this.value = value;
+			this.words = words;
+		}
+	}
+
+	/**
+	 * The postings of one office.  Prefix and trigram keys share one map, a trigram is never a prefix key.
+	 * The prefix postings are also kept in rank order, so a one or two character query, the
+	 * first keystrokes of a type-ahead, only reads as many documents as it returns.
+	 */
+	private static final class OfficeIndex
+	{
+		private final ReadWriteLock lock = new ReentrantReadWriteLock();
+		private final Map<String, Document> byName = new HashMap<>();
+		private final Map<String, Set<Document>> postings = new HashMap<>();
+		private final Map<String, NavigableSet<Match>> rankedPrefixes = new HashMap<>();
+
+		void add(Document document)
+		{
+			Document previous = byName.put(key(document.name), document);
+			if(previous != null)
+			{
+				unpost(previous);
+			}
+			for(String k : document.keys())
+			{
+				postings.computeIfAbsent(k, x -> new HashSet<>()).add(document);
+				if(k.length() < GRAM)
+				{
+					rankedPrefixes.computeIfAbsent(k, x -> new TreeSet<>(TopMatches.RANK))
+							.add(new Match(document, document.prefixScore(k), null));
+				}
+			}
+		}
+
+		void replace(String name, Function<Document, Document> replacement)
+		{
+			lock.writeLock().lock();
+			try
+			{
+				Document previous = byName.remove(key(name));
+				if(previous != null)
+				{
+					unpost(previous);
+				}
+				Document document = replacement.apply(previous);
+				if(document != null)
+				{
+					add(document);
+				}
+			}
+			finally
+			{
+				lock.writeLock().unlock();
+			}
+		}
+
+		private void unpost(Document document)
+		{
+			for(String k : document.keys())
+			{
+				Set<Document> posting = postings.get(k);
+				if(posting != null && posting.remove(document) && posting.isEmpty())
+				{
+					postings.remove(k);
+				}
+				NavigableSet<Match> ranked = k.length() < GRAM ? rankedPrefixes.get(k) : null;
+				if(ranked != null && ranked.remove(new Match(document, document.prefixScore(k), null)) && ranked.isEmpty())
+				{
+					rankedPrefixes.remove(k);
+				}
+			}
+		}
+
+		List<LocationSearchResult> search(List<String> words, int limit)
+		{
+			lock.readLock().lock();
+			try
+			{
+				TopMatches top = new TopMatches(limit);
+				if(words.size() == 1 && words.get(0).length() < GRAM)
+				{
+					for(Match ranked : rankedPrefixes.getOrDefault(words.get(0), Collections.emptyNavigableSet()))
+					{
+						if(top.size() == limit)
+						{
+							break;
+						}
+						score(ranked.document, words, top);
+					}
+					return top.results();
+				}
+
+				forEachCandidate(words, document -> score(document, words, top));
+				if(top.size() < limit)
+				{
+					// every strict match is still in the heap, the fuzzy ones go below them
+					fuzzy(words, top.documents(), top);
+				}
+				return top.results();
+			}
+			finally
+			{
+				lock.readLock().unlock();
+			}
+		}
+
+		/**
+		 * Walks the documents holding every key of every query word.  The smallest posting is
+		 * walked and the others only probed, so nothing is copied.
+		 */
+		private void forEachCandidate(List<String> words, Consumer<Document> action)
+		{
+			List<Set<Document>> lists = new ArrayList<>();
+			for(String word : words)
+			{
+				Collection<String> keys = word.length() < GRAM ? Collections.singletonList(word) : grams(word);
+				for(String k : keys)
+				{
+					Set<Document> posting = postings.get(k);
+					if(posting == null)
+					{
+						return;
+					}
+					lists.add(posting);
+				}
+			}
+			lists.sort(Comparator.comparingInt(Set::size));
+			for(Document document : lists.get(0))
+			{
+				boolean inAll = true;
+				for(int i = 1; i < lists.size() && inAll; i++)
+				{
+					inAll = lists.get(i).contains(document);
+				}
+				if(inAll)
+				{
+					action.accept(document);
+				}
+			}
+		}
+
+		/**
+		 * Every query word has to start or appear in a word of the document.  The score is the
+		 * average over the query words of the best field weight times how well the word matched.
+		 */
+		private static void score(Document document, List<String> words, TopMatches top)
+		{
+			double total = 0;
+			Text best = null;
+			double bestScore = -1;
+			for(String word : words)
+			{
+				double wordBest = 0;
+				for(Text text : document.texts)
+				{
+					double score = quality(text, word) * text.field.weight;
+					if(score > wordBest)
+					{
+						wordBest = score;
+					}
+					if(score > bestScore)
+					{
+						bestScore = score;
+						best = text;
+					}
+				}
+				if(wordBest == 0)
+				{
+					return;
+				}
+				total += wordBest;
+			}
+			top.offer(document, total / words.size(), best.value);
+		}
+
+		/**
+		 * Documents where every query word shares at least FUZZY_THRESHOLD of its trigrams with
+		 * the document, or for a short word, starts a word of it.
+		 */
+		private void fuzzy(List<String> words, Set<Document> exclude, TopMatches top)
+		{
+			Map<Document, Double> overlaps = null;
+			List<String> allGrams = new ArrayList<>();
+			for(String word : words)
+			{
+				Map<Document, Double> wordOverlaps = new HashMap<>();
+				if(word.length() < GRAM)
+				{
+					for(Document document : postings.getOrDefault(word, Collections.emptySet()))
+					{
+						wordOverlaps.put(document, 1.0);
+					}
+				}
+				else
+				{
+					Set<String> grams = new HashSet<>(grams(word));
+					allGrams.addAll(grams);
+					Map<Document, Integer> hits = new HashMap<>();
+					for(String gram : grams)
+					{
+						for(Document document : postings.getOrDefault(gram, Collections.emptySet()))
+						{
+							hits.merge(document, 1, Integer::sum);
+						}
+					}
+					for(Map.Entry<Document, Integer> hit : hits.entrySet())
+					{
+						double overlap = (double) hit.getValue() / grams.size();
+						if(overlap >= FUZZY_THRESHOLD)
+						{
+							wordOverlaps.put(hit.getKey(), overlap);
+						}
+					}
+				}
+
+				if(overlaps == null)
+				{
+					overlaps = wordOverlaps;
+				}
+				else
+				{
+					Map<Document, Double> both = new HashMap<>();
+					for(Map.Entry<Document, Double> overlap : overlaps.entrySet())
+					{
+						Double wordOverlap = wordOverlaps.get(overlap.getKey());
+						if(wordOverlap != null)
+						{
+							both.put(overlap.getKey(), overlap.getValue() + wordOverlap);
+						}
+					}
+					overlaps = both;
+				}
+				if(overlaps.isEmpty())
+				{
+					return;
+				}
+			}
+
+			for(Map.Entry<Document, Double> overlap : overlaps.entrySet())
+			{
+				if(!exclude.contains(overlap.getKey()))
+				{
+					// the matched text is only worked out for the documents that are kept
+					top.offer(overlap.getKey(), overlap.getValue() / words.size() * FUZZY_WEIGHT, null);
+				}
+			}
+			top.fillMatched(document -> closest(document, allGrams));
+		}
+
+		private static String closest(Document document, List<String> grams)
+		{
+			String retval = document.name;
+			int most = -1;
+			for(Text text : document.texts)
+			{
+				Set<String> textGrams = new HashSet<>();
+				for(String word : text.words)
+				{
+					textGrams.addAll(grams(word));
+				}
+				int shared = 0;
+				for(String gram : grams)
+				{
+					if(textGrams.contains(gram))
+					{
+						shared++;
+					}
+				}
+				if(shared > most)
+				{
+					most = shared;
+					retval = text.value;
+				}
+			}
+			return retval;
+		}
+	}
+
+	/**
+	 * The best limit matches seen so far, kept in a heap with the worst on top so the rest of the
+	 * candidates are never sorted.
+	 */
+	private static final class TopMatches
+	{
+		// best first: highest score, then the shortest name, then by name, which is unique in an office
+		private static final Comparator<Match> RANK = Comparator.comparingDouble((Match m) -> m.score).reversed()
+				.thenComparingInt(m -> m.document.name.length())
+				.thenComparing(m -> m.document.name);
+
+		private final int limit;
+		private final PriorityQueue<Match> heap;
+
+		TopMatches(int limit)
+		{
+			this.limit = limit;
+			this.heap = new PriorityQueue<>(limit + 1, RANK.reversed());
+		}
+
+		void offer(Document document, double score, String matched)
+		{
+			if(heap.size() < limit)
+			{
+				heap.add(new Match(document, score, matched));
+			}
+			else if(score >= heap.peek().score)
+			{
+				Match match = new Match(document, score, matched);
+				if(RANK.compare(match, heap.peek()) < 0)
+				{
+					heap.poll();
+					heap.add(match);
+				}
+			}
+		}
+
+		int size()
+		{
+			return heap.size();
+		}
+
+		Set<Document> documents()
+		{
+			Set<Document> retval = new HashSet<>();
+			for(Match match : heap)
+			{
+				retval.add(match.document);
+			}
+			return retval;
+		}
+
+		void fillMatched(Function<Document, String> matcher)
+		{
+			for(Match match : heap)
+			{
+				if(match.matched == null)
+				{
+					match.matched = matcher.apply(match.document);
+				}
+			}
+		}
+
+		List<LocationSearchResult> results()
+		{
+			List<Match> matches = new ArrayList<>(heap);
+			matches.sort(RANK);
+			List<LocationSearchResult> retval = new ArrayList<>(matches.size());
+			for(Match match : matches)
+			{
+				retval.add(match.document.toResult(match.matched, match.score));
+			}
+			return retval;
+		}
+	}
+
+	private static final class Match
+	{
+		private final Document document;
+		private final double score;
+		private String matched;
+
+		Match(Document document, double score, String matched)
+		{
+			this.document = document;
+			this.score = score;
+			this.matched = matched;
+		}
+	}
+}
@@ -0,0 +1,307 @@
+package cwms.radar.data.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import cwms.radar.data.dto.LocationPoint;
+
+/**
+ * Process-wide index of location coordinates by office, for bounding box, radius and
+ * nearest-location queries.
+ *
+ * Each office is a fixed grid of CELL_DEGREES cells.  An office is loaded the first time it is
+ * asked for, reloaded by the LocationIndexRefresher, and patched by the location write path.
+ * The grid of an office is never changed in place, a write builds a new one and swaps it in, so
+ * queries don't lock.
+ */
+public class LocationSpatialIndex
+{
+	private static final LocationSpatialIndex INSTANCE = new LocationSpatialIndex();
+
+	public static final double CELL_DEGREES = 0.5;
+	private static final double EARTH_RADIUS_KM = 6371.0088;
+	private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180.0;
+	private static final double MAX_DISTANCE_KM = Math.PI * EARTH_RADIUS_KM;
+	private static final int LON_CELLS = (int) Math.ceil(360.0 / CELL_DEGREES);
+
+	private final Map<String, Grid> byOffice = new ConcurrentHashMap<>();
+
+	public static LocationSpatialIndex getInstance()
+	{
+		return INSTANCE;
+	}
+
+	LocationSpatialIndex()
+	{
+	}
+
+	public boolean isLoaded(String officeId)
+	{
+		return byOffice.containsKey(key(officeId));
+	}
+
+	public Set<String> getLoadedOffices()
+	{
+		return Collections.unmodifiableSet(byOffice.keySet());
+	}
+
+	public int size(String officeId)
+	{
+		Grid grid = byOffice.get(key(officeId));
+		return grid == null ? 0 : grid.byName.size();
+	}
+
+	/**
+	 * Replaces everything known about an office.
+	 */
+	public synchronized void load(String officeId, Collection<LocationPoint> points)
+	{
+		byOffice.put(key(officeId), new Grid(points));
+	}
+
+	/**
+	 * Loads an office the first time it's asked for, passing the loader the upper case id.  An
+	 * office that isn't known, or has no locations with coordinates, isn't kept so ids that
+	 * aren't offices don't fill the index; its queries find nothing either way.
+	 */
+	public void loadIfAbsent(String officeId, Function<String, Collection<LocationPoint>> loader)
+	{
+		String office = key(officeId);
+		if(office.isEmpty() || isLoaded(office) || ReferenceDataCache.getInstance().isUnknownOffice(office))
+		{
+			return;
+		}
+		Collection<LocationPoint> points = loader.apply(office);
+		if(!points.isEmpty())
+		{
+			load(office, points);
+		}
+	}
+
+	/**
+	 * Adds or moves a location.  Offices that haven't been loaded are left for the load to pick up.
+	 * A location without coordinates is removed.
+	 */
+	public synchronized void put(String officeId, String name, Double latitude, Double longitude)
+	{
+		Grid grid = byOffice.get(key(officeId));
+		if(grid == null)
+		{
+			return;
+		}
+		Map<String, LocationPoint> points = new LinkedHashMap<>(grid.byName);
+		points.remove(name.toUpperCase());
+		if(latitude != null && longitude != null)
+		{
+			LocationPoint point = new LocationPoint(officeId, name, latitude, longitude);
+			points.put(name.toUpperCase(), point);
+		}
+		byOffice.put(key(officeId), new Grid(points.values()));
+	}
+
+	public synchronized void remove(String officeId, String name)
+	{
+		Grid grid = byOffice.get(key(officeId));
+		if(grid != null && grid.byName.containsKey(name.toUpperCase()))
+		{
+			Map<String, LocationPoint> points = new LinkedHashMap<>(grid.byName);
+			points.remove(name.toUpperCase());
+			byOffice.put(key(officeId), new Grid(points.values()));
+		}
+	}
+
+	/**
+	 * Locations inside a box.  A box that crosses the antimeridian has west greater than east.
+	 */
+	public List<LocationPoint> withinBox(String officeId, double south, double west, double north, double east)
+	{
+		Grid grid = byOffice.get(key(officeId));
+		if(grid == null)
+		{
+			return Collections.emptyList();
+		}
+		List<LocationPoint> retval = new ArrayList<>();
+		if(west > east)
+		{
+			grid.collect(south, west, north, 180.0, retval);
+			grid.collect(south, -180.0, north, east, retval);
+		}
+		else
+		{
+			grid.collect(south, west, north, east, retval);
+		}
+		return retval;
+	}
+
+	/**
+	 * Locations within radiusKm of a point, nearest first, with their distance filled in.
+	 */
+	public List<LocationPoint> withinRadius(String officeId, double latitude, double longitude, double radiusKm)
+	{
+		Grid grid = byOffice.get(key(officeId));
+		if(grid == null)
+		{
+			return Collections.emptyList();
+		}
+		List<LocationPoint> candidates = new ArrayList<>();
+		double latDelta = radiusKm / KM_PER_DEGREE;
+		double south = Math.max(-90.0, latitude - latDelta);
+		double north = Math.min(90.0, latitude + latDelta);
+		double cos = Math.min(Math.cos(Math.toRadians(south)), Math.cos(Math.toRadians(north)));
+		double lonDelta = cos <= 0 ? 180.0 : radiusKm / (KM_PER_DEGREE * cos);
+		if(lonDelta >= 180.0 || north >= 90.0 || south <= -90.0)
+		{
+			grid.collect(south, -180.0, north, 180.0, candidates);
+		}
+		else
+		{
+			double west = wrap(longitude - lonDelta);
+			double east = wrap(longitude + lonDelta);
+			if(west > east)
+			{
+				grid.collect(south, west, north, 180.0, candidates);
+				grid.collect(south, -180.0, north, east, candidates);
+			}
+			else
+			{
+				grid.collect(south, west, north, east, candidates);
+			}
+		}
+
+		List<LocationPoint> retval = new ArrayList<>();
+		for(LocationPoint point : candidates)
+		{
+			double distance = distanceKm(latitude, longitude, point.getLatitude(), point.getLongitude());
+			if(distance <= radiusKm)
+			{
+				retval.add(point.withDistance(distance));
+			}
+		}
+		retval.sort(Comparator.comparingDouble(LocationPoint::getDistance));
+		return retval;
+	}
+
+	/**
+	 * The k locations nearest a point, nearest first, optionally no further than maxRadiusKm.
+	 */
+	public List<LocationPoint> nearest(String officeId, double latitude, double longitude, int k, double maxRadiusKm)
+	{
+		double limit = Math.min(maxRadiusKm, MAX_DISTANCE_KM);
+		// Widen the search until it holds k locations, anything closer than the kth is inside it.
+		double radius = Math.min(CELL_DEGREES * KM_PER_DEGREE, limit);
+		List<LocationPoint> found = withinRadius(officeId, latitude, longitude, radius);
+		while(found.size() < k && radius < limit && found.size() < size(officeId))
+		{
+			radius = Math.min(radius * 2, limit);
+			found = withinRadius(officeId, latitude, longitude, radius);
+		}
+		return found.size() > k ? new ArrayList<>(found.subList(0, k)) : found;
+	}
+
+	/**
+	 * Great circle distance in kilometers.
+	 */
+	public static double distanceKm(double lat1, double lon1, double lat2, double lon2)
+	{
+		double dLat = Math.toRadians(lat2 - lat1);
+		double dLon = Math.toRadians(lon2 - lon1);
+		double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+				+ Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+		return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+	}
+
+	private static double wrap(double longitude)
+	{
+		if(longitude > 180.0)
+		{
+			return longitude - 360.0;
+		}
+		if(longitude < -180.0)
+		{
+			return longitude + 360.0;
+		}
+		return longitude;
+	}
+
+	private static String key(String officeId)
+	{
+		return officeId == null ? "" : officeId.toUpperCase();
+	}
+
+	private static int latCell(double latitude)
+	{
+		return (int) Math.floor((Math.max(-90.0, Math.min(90.0, latitude)) + 90.0) / CELL_DEGREES);
+	}
+
+	private static int lonCell(double longitude)
+	{
+		return Math.min(LON_CELLS - 1, (int) Math.floor((wrap(longitude) + 180.0) / CELL_DEGREES));
+	}
+
+	private static final class Grid
+	{
+		private final Map<String, LocationPoint> byName = new LinkedHashMap<>();
+		private final Map<Long, List<LocationPoint>> cells = new HashMap<>();
+
+		Grid(Collection<LocationPoint> points)
+		{
+			for(LocationPoint point : points)
+			{
+				byName.put(point.getName().toUpperCase(), point);
+				long cell = (long) latCell(point.getLatitude()) * LON_CELLS + lonCell(point.getLongitude());
+				cells.computeIfAbsent(cell, c -> new ArrayList<>()).add(point);
+			}
+		}
+
+		void collect(double south, double west, double north, double east, List<LocationPoint> into)
+		{
+			int fromLat = latCell(south);
+			int toLat = latCell(north);
+			int fromLon = lonCell(west);
+			int toLon = lonCell(east);
+			long covered = (long) (toLat - fromLat + 1) * (toLon - fromLon + 1);
+			if(covered > cells.size())
+			{
+				// a big box over a sparse grid, cheaper to look at every occupied cell
+				for(List<LocationPoint> cell : cells.values())
+				{
+					addInside(cell, south, west, north, east, into);
+				}
+				return;
+			}
+			for(int lat = fromLat; lat <= toLat; lat++)
+			{
+				for(int lon = fromLon; lon <= toLon; lon++)
+				{
+					List<LocationPoint> cell = cells.get((long) lat * LON_CELLS + lon);
+					if(cell != null)
+					{
+						addInside(cell, south, west, north, east, into);
+					}
+				}
+			}
+		}
+
+		private static void addInside(List<LocationPoint> cell, double south, double west, double north, double east,
+									  List<LocationPoint> into)
+		{
+			for(LocationPoint point : cell)
+			{
+				if(point.getLatitude() >= south && point.getLatitude() <= north
+						&& point.getLongitude() >= west && point.getLongitude() <= east)
+				{
+					into.add(point);
+				}
+			}
+		}
+	}
+}
@@ -2,18 +2,31 @@ package cwms.radar.data.dao;
 
 import cwms.radar.data.dto.Catalog;
 import cwms.radar.data.dto.Location;
+import cwms.radar.data.dto.LocationPoint;
+import cwms.radar.data.dto.catalog.LocationCatalogEntry;
+import cwms.radar.formatters.json.GeoJsonWriter;
 import org.geojson.FeatureCollection;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface LocationsDao
 {
     String getLocations(String names,String format, String units, String datum, String officeId);
     Location getLocation(String locationName, String unitSystem, String officeId) throws IOException;
+    List<Location> getLocations(List<String> locationNames, String unitSystem, String officeId);
     void deleteLocation(String locationName, String officeId) throws IOException;
     void storeLocation(Location location) throws IOException;
     void renameLocation(String oldLocationName, Location renamedLocation) throws IOException;
+    List<LocationPoint> getLocationPoints(String officeId);
     FeatureCollection buildFeatureCollection(String names, String units, String officeId);
-    Catalog getLocationCatalog(String cursor, int pageSize, String unitSystem, Optional<String> office);
+    void writeFeatureCollection(String names, String units, String officeId, GeoJsonWriter writer) throws IOException;
+    /**
+     * @param fields the catalog entry properties to read, empty for all of them
+     */
+    Catalog getLocationCatalog(String cursor, int pageSize, String unitSystem, Optional<String> office, String like, Set<String> fields);
+    Stream<LocationCatalogEntry> streamLocationCatalog(String unitSystem, Optional<String> office, String like);
 }
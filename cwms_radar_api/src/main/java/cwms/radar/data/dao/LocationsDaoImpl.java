@@ -7,23 +7,31 @@ import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import cwms.radar.api.enums.Nation;
 import cwms.radar.api.enums.Unit;
 import cwms.radar.api.enums.UnitSystem;
 import cwms.radar.data.dto.Catalog;
 import cwms.radar.data.dto.Location;
+import cwms.radar.data.dto.LocationPoint;
 import cwms.radar.data.dto.catalog.CatalogEntry;
 import cwms.radar.data.dto.catalog.LocationAlias;
 import cwms.radar.data.dto.catalog.LocationCatalogEntry;
+import cwms.radar.formatters.Fields;
+import cwms.radar.formatters.json.GeoJsonWriter;
 
 import org.geojson.Feature;
 import org.geojson.FeatureCollection;
 import org.geojson.Point;
+import org.jooq.Condition;
+import org.jooq.Cursor;
 import org.jooq.DSLContext;
+import org.jooq.Field;
 import org.jooq.Record;
 import org.jooq.Record1;
 import org.jooq.SelectConditionStep;
+import org.jooq.SelectFieldOrAsterisk;
 import org.jooq.SelectJoinStep;
 import org.jooq.Table;
 
@@ -41,6 +49,38 @@ public class LocationsDaoImpl extends JooqDao<Location> implements LocationsDao
 {
     private static final Logger logger = Logger.getLogger(LocationsDaoImpl.class.getName());
 
+    // The AV_LOC column behind each catalog entry property that fields= can leave out.
+    private static final Map<String, Field<?>> CATALOG_COLUMNS;
+    static {
+        Map<String, Field<?>> columns = new LinkedHashMap<>();
+        columns.put("nearest-city", AV_LOC.NEAREST_CITY);
+        columns.put("public-name", AV_LOC.PUBLIC_NAME);
+        columns.put("long-name", AV_LOC.LONG_NAME);
+        columns.put("description", AV_LOC.DESCRIPTION);
+        columns.put("kind", AV_LOC.LOCATION_KIND_ID);
+        columns.put("type", AV_LOC.LOCATION_TYPE);
+        columns.put("time-zone", AV_LOC.TIME_ZONE_NAME);
+        columns.put("latitude", AV_LOC.LATITUDE);
+        columns.put("longitude", AV_LOC.LONGITUDE);
+        columns.put("published-latitude", AV_LOC.PUBLISHED_LATITUDE);
+        columns.put("published-longitude", AV_LOC.PUBLISHED_LONGITUDE);
+        columns.put("horizontal-datum", AV_LOC.HORIZONTAL_DATUM);
+        columns.put("elevation", AV_LOC.ELEVATION);
+        columns.put("unit", AV_LOC.UNIT_ID);
+        columns.put("vertical-datum", AV_LOC.VERTICAL_DATUM);
+        columns.put("nation", AV_LOC.NATION_ID);
+        columns.put("state", AV_LOC.STATE_INITIAL);
+        columns.put("county", AV_LOC.COUNTY_NAME);
+        columns.put("bounding-office", AV_LOC.BOUNDING_OFFICE_ID);
+        columns.put("map-label", AV_LOC.MAP_LABEL);
+        columns.put("active", AV_LOC.ACTIVE_FLAG);
+        CATALOG_COLUMNS = Collections.unmodifiableMap(columns);
+    }
+
+    // A location's group assignments, the office too as offices can name locations alike.
+    private static final Condition ASSIGNMENTS_OF_LOCATION = AV_LOC_GRP_ASSGN.LOCATION_ID.eq(AV_LOC.LOCATION_ID)
+            .and(AV_LOC_GRP_ASSGN.DB_OFFICE_ID.eq(AV_LOC.DB_OFFICE_ID));
+
     public LocationsDaoImpl(DSLContext dsl) {
         super(dsl);
     }
@@ -55,6 +95,12 @@ public class LocationsDaoImpl extends JooqDao<Location> implements LocationsDao
 
     @Override
     public Location getLocation(String locationName, String unitSystem, String officeId) throws IOException
+    {
+        return LocationCache.getInstance().get(officeId, locationName, unitSystem,
+                key -> retrieveLocation(locationName, unitSystem, officeId));
+    }
+
+    private Location retrieveLocation(String locationName, String unitSystem, String officeId) throws IOException
     {
         String[] locationId = new String[]{locationName};
         String elevationUnitId = (unitSystem.equals(UnitSystem.EN.getValue())) ? "ft" : "m";
@@ -122,6 +168,102 @@ public class LocationsDaoImpl extends JooqDao<Location> implements LocationsDao
         return locationRef.get();
     }
 
+    @Override
+    public List<Location> getLocations(List<String> locationNames, String unitSystem, String officeId)
+    {
+        if(!UnitSystem.EN.getValue().equals(unitSystem)){
+            unitSystem = UnitSystem.SI.getValue();
+        }
+        // ids are compared as stored, like the other location queries, so the index on them is used
+        List<String> requested = new ArrayList<>(new LinkedHashSet<>(locationNames));
+        Map<String, Location> found = new HashMap<>();
+        for(List<String> chunk : inListChunks(requested)){
+            Stream<Record> rows = dsl.select(
+                            AV_LOC.asterisk(),
+                            AV_LOC_GRP_ASSGN.asterisk()
+                    )
+                    .from(AV_LOC)
+                    .leftJoin(AV_LOC_GRP_ASSGN).on(ASSIGNMENTS_OF_LOCATION)
+                    .where(AV_LOC.DB_OFFICE_ID.eq(officeId))
+                    .and(AV_LOC.UNIT_SYSTEM.eq(unitSystem))
+                    .and(AV_LOC.LOCATION_ID.in(chunk))
+                    .orderBy(AV_LOC.LOCATION_ID)
+                    .fetchSize(STREAM_FETCH_SIZE)
+                    .stream();
+            try(Stream<Location> locations = groupLocations(rows)){
+                locations.forEach(location -> found.put(location.getName(), location));
+            }
+        }
+
+        // in the order asked for, leaving out the ones that don't exist
+        return requested.stream().map(found::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * One location per run of rows for it, with its aliases taken from the group assignment rows.
+     * The rows must be ordered by location.
+     */
+    private static Stream<Location> groupLocations(Stream<Record> rows)
+    {
+        return AdjacentGroupIterator.group(rows,
+                row -> row.get(AV_LOC.LOCATION_ID),
+                group -> {
+                    List<LocationAlias> aliases = new ArrayList<>();
+                    for( Record row : group ){
+                        if( row.get(AV_LOC_GRP_ASSGN.ALIAS_ID) != null ){
+                            usace.cwms.db.jooq.codegen.tables.records.AV_LOC_ALIAS a = row.into(AV_LOC_ALIAS);
+                            aliases.add(new LocationAlias(a.getCATEGORY_ID()+"-"+a.getGROUP_ID(),a.getALIAS_ID()));
+                        }
+                    }
+                    return new Location.Builder(buildLocation(group.get(0).into(AV_LOC)))
+                            .withAliases(aliases)
+                            .build();
+                });
+    }
+
+    private static Location buildLocation(usace.cwms.db.jooq.codegen.tables.records.AV_LOC loc)
+    {
+        String timezone = loc.getTIME_ZONE_NAME();
+        Location.Builder builder = new Location.Builder(loc.getLOCATION_ID(), loc.getLOCATION_KIND_ID(),
+                timezone != null ? ZoneId.of(timezone) : null,
+                loc.getLATITUDE() != null ? loc.getLATITUDE().doubleValue() : 0.0,
+                loc.getLONGITUDE() != null ? loc.getLONGITUDE().doubleValue() : 0.0,
+                loc.getHORIZONTAL_DATUM(), loc.getDB_OFFICE_ID())
+                .withLocationType(loc.getLOCATION_TYPE())
+                .withElevation(loc.getELEVATION())
+                .withVerticalDatum(loc.getVERTICAL_DATUM())
+                .withPublicName(loc.getPUBLIC_NAME())
+                .withLongName(loc.getLONG_NAME())
+                .withDescription(loc.getDESCRIPTION())
+                .withCountyName(loc.getCOUNTY_NAME())
+                .withStateInitial(loc.getSTATE_INITIAL())
+                .withActive("T".equalsIgnoreCase(loc.getACTIVE_FLAG()))
+                .withMapLabel(loc.getMAP_LABEL())
+                .withBoundingOfficeId(loc.getBOUNDING_OFFICE_ID())
+                .withNearestCity(loc.getNEAREST_CITY())
+                .withNation(nationFor(loc.getNATION_ID()));
+        if(loc.getPUBLISHED_LATITUDE() != null){
+            builder = builder.withPublishedLatitude(loc.getPUBLISHED_LATITUDE().doubleValue());
+        }
+        if(loc.getPUBLISHED_LONGITUDE() != null){
+            builder = builder.withPublishedLongitude(loc.getPUBLISHED_LONGITUDE().doubleValue());
+        }
+        return builder.build();
+    }
+
+    private static Nation nationFor(String nationId)
+    {
+        Nation retval = Nation.NationForName(nationId);
+        if(retval == null){
+            for(Nation nation : Nation.values()){
+                if(nation.getCode().equalsIgnoreCase(nationId)){
+                    retval = nation;
+                }
+            }
+        }
+        return retval;
+    }
+
     @Override
     public void deleteLocation(String locationName, String officeId) throws IOException
     {
@@ -132,6 +274,9 @@ public class LocationsDaoImpl extends JooqDao<Location> implements LocationsDao
                 CwmsDbLoc locJooq = CwmsDbServiceLookup.buildCwmsDb(CwmsDbLoc.class, c);
                 locJooq.delete(c, officeId, locationName);
             });
+            LocationCache.getInstance().invalidate(officeId, locationName);
+            LocationSpatialIndex.getInstance().remove(officeId, locationName);
+            LocationSearchIndex.getInstance().remove(officeId, locationName);
         }
         catch(DataAccessException ex)
         {
@@ -156,6 +301,10 @@ public class LocationsDaoImpl extends JooqDao<Location> implements LocationsDao
                         location.getPublishedLongitude(), location.getBoundingOfficeId(), location.getNation().getName(), location.getNearestCity(), true);
 
             });
+            LocationCache.getInstance().invalidate(location.getOfficeId(), location.getName());
+            indexLocation(location);
+            LocationSearchIndex.getInstance().put(location.getOfficeId(), location.getName(), location.getPublicName(),
+                    location.getLongName(), location.getNearestCity());
         }
         catch(DataAccessException ex)
         {
@@ -216,6 +365,14 @@ public class LocationsDaoImpl extends JooqDao<Location> implements LocationsDao
                         renamedLocation.getVerticalDatum(), renamedLocation.getHorizontalDatum(), renamedLocation.getPublicName(),
                         renamedLocation.getLongName(), renamedLocation.getDescription(), renamedLocation.active(),  true);
             });
+            // Every timeseries at the location has a new id, start over rather than chase them.
+            LatestValueStore.getInstance().reset();
+            LocationCache.getInstance().invalidate(renamedLocation.getOfficeId(), oldLocationName);
+            LocationCache.getInstance().invalidate(renamedLocation.getOfficeId(), renamedLocation.getName());
+            LocationSpatialIndex.getInstance().remove(renamedLocation.getOfficeId(), oldLocationName);
+            indexLocation(renamedLocation);
+            LocationSearchIndex.getInstance().put(renamedLocation.getOfficeId(), oldLocationName, renamedLocation.getName(),
+                    renamedLocation.getPublicName(), renamedLocation.getLongName(), renamedLocation.getNearestCity());
         }
         catch(DataAccessException ex)
         {
@@ -223,14 +380,106 @@ public class LocationsDaoImpl extends JooqDao<Location> implements LocationsDao
         }
     }
 
+    @Override
+    public List<LocationPoint> getLocationPoints(String officeId)
+    {
+        // Coordinates are degrees in either unit system, SI just keeps one row per location.
+        return dsl.select(AV_LOC.DB_OFFICE_ID, AV_LOC.LOCATION_ID, AV_LOC.LATITUDE, AV_LOC.LONGITUDE,
+                        AV_LOC.PUBLISHED_LATITUDE, AV_LOC.PUBLISHED_LONGITUDE)
+                .from(AV_LOC)
+                .where(AV_LOC.DB_OFFICE_ID.eq(officeId))
+                .and(AV_LOC.UNIT_SYSTEM.eq("SI"))
+                .fetchSize(STREAM_FETCH_SIZE)
+                .fetch()
+                .stream()
+                .map(r -> {
+                    Double latitude = r.getValue(AV_LOC.LATITUDE, Double.class);
+                    Double longitude = r.getValue(AV_LOC.LONGITUDE, Double.class);
+                    if(!hasCoordinates(latitude, longitude)){
+                        latitude = r.getValue(AV_LOC.PUBLISHED_LATITUDE, Double.class);
+                        longitude = r.getValue(AV_LOC.PUBLISHED_LONGITUDE, Double.class);
+                    }
+                    return hasCoordinates(latitude, longitude)
+                            ? new LocationPoint(r.get(AV_LOC.DB_OFFICE_ID), r.get(AV_LOC.LOCATION_ID), latitude, longitude)
+                            : null;
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private static void indexLocation(Location location)
+    {
+        Double latitude = location.getLatitude();
+        Double longitude = location.getLongitude();
+        if(!hasCoordinates(latitude, longitude)){
+            latitude = location.getPublishedLatitude();
+            longitude = location.getPublishedLongitude();
+        }
+        if(hasCoordinates(latitude, longitude)){
+            LocationSpatialIndex.getInstance().put(location.getOfficeId(), location.getName(), latitude, longitude);
+        } else {
+            LocationSpatialIndex.getInstance().remove(location.getOfficeId(), location.getName());
+        }
+    }
+
+    private static boolean hasCoordinates(Double latitude, Double longitude)
+    {
+        // unset coordinates are often stored as 0,0 rather than null
+        return latitude != null && longitude != null && !(latitude == 0.0 && longitude == 0.0);
+    }
+
     @Override
     public FeatureCollection buildFeatureCollection(String names, String units, String officeId)
+    {
+        SelectConditionStep<Record> selectQuery = featureQuery(names, units, officeId);
+
+        List<Feature> features = selectQuery.stream()
+                .map(LocationsDaoImpl::buildFeatureFromAvLocRecord)
+                .collect(Collectors.toList());
+        FeatureCollection collection = new FeatureCollection();
+        collection.setFeatures(features);
+
+        return collection;
+    }
+
+    @Override
+    public void writeFeatureCollection(String names, String units, String officeId, GeoJsonWriter writer) throws IOException
+    {
+        Field<?>[] fields = AV_LOC.fields();
+        // same properties as buildFeatureFromAvLocRecord, null means the column isn't a property
+        String[] propertyNames = new String[fields.length];
+        for(int i = 0; i < fields.length; i++){
+            if(!fields[i].equals(AV_LOC.LATITUDE) && !fields[i].equals(AV_LOC.LONGITUDE) && !fields[i].equals(AV_LOC.PUBLIC_NAME)){
+                propertyNames[i] = fields[i].getName();
+            }
+        }
+        int publicName = indexOf(fields, AV_LOC.PUBLIC_NAME);
+        int locationId = indexOf(fields, AV_LOC.LOCATION_ID);
+        int latitude = indexOf(fields, AV_LOC.LATITUDE);
+        int longitude = indexOf(fields, AV_LOC.LONGITUDE);
+
+        try(Cursor<Record> cursor = featureQuery(names, units, officeId).fetchSize(STREAM_FETCH_SIZE).fetchLazy()){
+            Object[] values = new Object[fields.length];
+            for(Record row : cursor){
+                for(int i = 0; i < fields.length; i++){
+                    values[i] = row.get(i);
+                }
+                String featureId = (String) values[publicName];
+                if(featureId == null || featureId.isEmpty()){
+                    featureId = (String) values[locationId];
+                }
+                writer.writePoint(featureId, coordinate(values[longitude]), coordinate(values[latitude]), "avLoc", propertyNames, values);
+            }
+        }
+    }
+
+    private SelectConditionStep<Record> featureQuery(String names, String units, String officeId)
     {
         if(!"EN".equals(units)){
             units = "SI";
         }
 
-        SelectConditionStep<Record> selectQuery = dsl.select(asterisk())
+        SelectConditionStep<Record> selectQuery = dsl.select(AV_LOC.fields())
                 .from(AV_LOC)
                 .where(AV_LOC.DB_OFFICE_ID.eq(officeId))
                 .and(AV_LOC.UNIT_SYSTEM.eq(units))
@@ -247,14 +496,22 @@ public class LocationsDaoImpl extends JooqDao<Location> implements LocationsDao
 
             selectQuery = selectQuery.and(AV_LOC.LOCATION_ID.in(identifiers));
         }
+        return selectQuery;
+    }
 
-        List<Feature> features = selectQuery.stream()
-                .map(LocationsDaoImpl::buildFeatureFromAvLocRecord)
-                .collect(Collectors.toList());
-        FeatureCollection collection = new FeatureCollection();
-        collection.setFeatures(features);
+    private static int indexOf(Field<?>[] fields, Field<?> field)
+    {
+        for(int i = 0; i < fields.length; i++){
+            if(fields[i].equals(field)){
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(field.getName() + " is not selected");
+    }
 
-        return collection;
+    private static double coordinate(Object value)
+    {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
     }
 
     public static Feature buildFeatureFromAvLocRecord( Record avLocRecord)
@@ -297,103 +554,135 @@ public class LocationsDaoImpl extends JooqDao<Location> implements LocationsDao
     }
 
     @Override
-    public Catalog getLocationCatalog(String cursor, int pageSize, String unitSystem, Optional<String> office) {
-        int total = 0;
-        String locCursor = "*";
-        if( cursor == null || cursor.isEmpty() ){
-            SelectJoinStep<Record1<Integer>> count = dsl.select(count(asterisk())).from(AV_LOC);
-            if( office.isPresent() ){
-                count.where(AV_LOC.DB_OFFICE_ID.upper().eq(office.get().toUpperCase()));
-            }
-            total = count.fetchOne().value1().intValue();
+    public Catalog getLocationCatalog(String cursor, int pageSize, String unitSystem, Optional<String> office, String like, Set<String> fields) {
+        Condition filter = catalogFilter(unitSystem, office, like);
+        String[] key = Catalog.decodeKey(cursor);
+        int total;
+        if( key == null ){
+            total = dsl.select(count(asterisk())).from(AV_LOC).where(filter).fetchOne().value1().intValue();
         } else {
-            logger.info("getting non-default page");
-            // get totally from page
-            String[] parts = Catalog.decodeCursor(cursor, "|||");
-
-            logger.info("decoded cursor: " + String.join("|||", parts));
-            for( String p: parts){
-                logger.info(p);
-            }
-
-            if(parts.length > 1) {
-                locCursor = parts[0].split("\\/")[1];
-                total = Integer.parseInt(parts[1]);
-            }
+            // counted once for the first page and carried in the cursor
+            total = Catalog.decodeTotal(cursor);
         }
 
-        SelectConditionStep<Record1<String>> tmp = dsl.select(AV_LOC.LOCATION_ID)
+        // the page is picked from AV_LOC alone, so the limit counts locations rather than alias rows
+        Table<?> forLimit = dsl.select(AV_LOC.DB_OFFICE_ID, AV_LOC.LOCATION_ID)
                                .from(AV_LOC)
-                               .where(AV_LOC.LOCATION_ID.greaterThan(locCursor))
-                               .and(AV_LOC.UNIT_SYSTEM.eq(unitSystem));
-        if( office.isPresent()){
-            tmp = tmp.and(AV_LOC.DB_OFFICE_ID.upper().eq(office.get().toUpperCase()));
+                               .where(filter)
+                               .and(keysetAfter(AV_LOC.DB_OFFICE_ID, AV_LOC.LOCATION_ID, key))
+                               .orderBy(AV_LOC.DB_OFFICE_ID, AV_LOC.LOCATION_ID)
+                               .limit(pageSize)
+                               .asTable();
+        SelectJoinStep<Record> from = dsl.select(catalogColumns(fields))
+                                .from(AV_LOC)
+                                .innerJoin(forLimit).on(forLimit.field(AV_LOC.DB_OFFICE_ID).eq(AV_LOC.DB_OFFICE_ID))
+                                                    .and(forLimit.field(AV_LOC.LOCATION_ID).eq(AV_LOC.LOCATION_ID));
+        if( Fields.wants(fields, "aliases") ){
+            from = from.leftJoin(AV_LOC_GRP_ASSGN).on(ASSIGNMENTS_OF_LOCATION);
+        }
+        SelectConditionStep<Record> query = from.where(AV_LOC.UNIT_SYSTEM.eq(unitSystem));
+        query.orderBy(AV_LOC.DB_OFFICE_ID, AV_LOC.LOCATION_ID);
+        List<? extends CatalogEntry> entries;
+        try( Stream<Record> rows = query.stream() ){
+            entries = groupCatalogEntries(rows).collect(Collectors.toList());
         }
-        Table<?> forLimit = tmp.orderBy(AV_LOC.BASE_LOCATION_ID).limit(pageSize).asTable();
+
+        Catalog cat = new Catalog(cursor,total,pageSize,entries);
+        return cat;
+    }
+
+    @Override
+    public Stream<LocationCatalogEntry> streamLocationCatalog(String unitSystem, Optional<String> office, String like) {
         SelectConditionStep<Record> query = dsl.select(
                                     AV_LOC.asterisk(),
                                     AV_LOC_GRP_ASSGN.asterisk()
                                 )
                                 .from(AV_LOC)
-                                .innerJoin(forLimit).on(forLimit.field(AV_LOC.LOCATION_ID).eq(AV_LOC.LOCATION_ID))
-                                .leftJoin(AV_LOC_GRP_ASSGN).on(AV_LOC_GRP_ASSGN.LOCATION_ID.eq(AV_LOC.LOCATION_ID))
-                                .where(AV_LOC.UNIT_SYSTEM.eq(unitSystem))
-                                .and(AV_LOC.LOCATION_ID.upper().greaterThan(locCursor));
+                                .leftJoin(AV_LOC_GRP_ASSGN).on(ASSIGNMENTS_OF_LOCATION)
+                                .where(catalogFilter(unitSystem, office, like));
+        Stream<Record> rows = query.orderBy(AV_LOC.DB_OFFICE_ID, AV_LOC.LOCATION_ID)
+                                   .fetchSize(STREAM_FETCH_SIZE)
+                                   .stream();
+        return groupCatalogEntries(rows);
+    }
 
-        if( office.isPresent() ){
-            query.and(AV_LOC.DB_OFFICE_ID.upper().eq(office.get().toUpperCase()));
-        }
-        query.orderBy(AV_LOC.LOCATION_ID);
-        HashMap<usace.cwms.db.jooq.codegen.tables.records.AV_LOC, ArrayList<usace.cwms.db.jooq.codegen.tables.records.AV_LOC_ALIAS>> theMap = new HashMap<>();
-        //Result<?> result = query.fetch();
-        query.fetch().forEach( row -> {
-            usace.cwms.db.jooq.codegen.tables.records.AV_LOC loc = row.into(AV_LOC);
-            if( !theMap.containsKey(loc)){
-                theMap.put(loc, new ArrayList<>() );
-            }
-            usace.cwms.db.jooq.codegen.tables.records.AV_LOC_ALIAS alias = row.into(AV_LOC_ALIAS);
-            usace.cwms.db.jooq.codegen.tables.records.AV_LOC_GRP_ASSGN group = row.into(AV_LOC_GRP_ASSGN);
-            if( group.getALIAS_ID() != null ){
-                theMap.get(loc).add(alias);
+    /**
+     * One entry per run of rows for a location, in the order the rows come, with its aliases
+     * taken from the group assignment rows.  The rows must be ordered by office and location.
+     */
+    private static Stream<LocationCatalogEntry> groupCatalogEntries(Stream<Record> rows) {
+        return AdjacentGroupIterator.group(rows,
+                row -> row.get(AV_LOC.DB_OFFICE_ID) + "/" + row.get(AV_LOC.LOCATION_ID),
+                group -> {
+                    usace.cwms.db.jooq.codegen.tables.records.AV_LOC loc = group.get(0).into(AV_LOC);
+                    List<usace.cwms.db.jooq.codegen.tables.records.AV_LOC_ALIAS> aliases = new ArrayList<>();
+                    for( Record row : group ){
+                        // the group assignment isn't joined when the aliases weren't asked for
+                        if( row.field(AV_LOC_GRP_ASSGN.ALIAS_ID) != null && row.get(AV_LOC_GRP_ASSGN.ALIAS_ID) != null ){
+                            aliases.add(row.into(AV_LOC_ALIAS));
+                        }
+                    }
+                    return buildCatalogEntry(loc, aliases);
+                });
+    }
+
+    /**
+     * The office and id, which every page needs, and the columns behind the fields asked for.
+     */
+    private static List<SelectFieldOrAsterisk> catalogColumns(Set<String> fields) {
+        List<SelectFieldOrAsterisk> columns = new ArrayList<>();
+        columns.add(AV_LOC.DB_OFFICE_ID);
+        columns.add(AV_LOC.LOCATION_ID);
+        for( Map.Entry<String, Field<?>> column : CATALOG_COLUMNS.entrySet() ){
+            if( Fields.wants(fields, column.getKey()) ){
+                columns.add(column.getValue());
             }
-        });
-
-        List<? extends CatalogEntry> entries =
-        theMap.entrySet().stream().map( e -> {
-            LocationCatalogEntry ce = new LocationCatalogEntry(
-                e.getKey().getDB_OFFICE_ID(),
-                e.getKey().getLOCATION_ID(),
-                e.getKey().getNEAREST_CITY(),
-                e.getKey().getPUBLIC_NAME(),
-                e.getKey().getLONG_NAME(),
-                e.getKey().getDESCRIPTION(),
-                e.getKey().getLOCATION_KIND_ID(),
-                e.getKey().getLOCATION_TYPE(),
-                e.getKey().getTIME_ZONE_NAME(),
-                e.getKey().getLATITUDE() != null ? e.getKey().getLATITUDE().doubleValue() : null,
-                e.getKey().getLONGITUDE() != null ? e.getKey().getLONGITUDE().doubleValue() : null,
-                e.getKey().getPUBLISHED_LATITUDE() != null ? e.getKey().getPUBLISHED_LATITUDE().doubleValue() : null,
-                e.getKey().getPUBLISHED_LONGITUDE() != null ? e.getKey().getPUBLISHED_LONGITUDE().doubleValue() : null,
-                e.getKey().getHORIZONTAL_DATUM(),
-                e.getKey().getELEVATION(),
-                e.getKey().getUNIT_ID(),
-                e.getKey().getVERTICAL_DATUM(),
-                e.getKey().getNATION_ID(),
-                e.getKey().getSTATE_INITIAL(),
-                e.getKey().getCOUNTY_NAME(),
-                e.getKey().getBOUNDING_OFFICE_ID(),
-                e.getKey().getMAP_LABEL(),
-                e.getKey().getACTIVE_FLAG().equalsIgnoreCase("T") ? true : false,
-                e.getValue().stream().map( a -> {
-                    return new LocationAlias(a.getCATEGORY_ID()+"-"+a.getGROUP_ID(),a.getALIAS_ID());
-                }).collect(Collectors.toList())
-            );
-
-            return ce;
-        }).collect(Collectors.toList());
+        }
+        if( Fields.wants(fields, "aliases") ){
+            columns.add(AV_LOC_GRP_ASSGN.asterisk());
+        }
+        return columns;
+    }
 
-        Catalog cat = new Catalog(cursor,total,pageSize,entries);
-        return cat;
+    // Office ids are stored upper case, so the columns are compared as they are.
+    private static Condition catalogFilter(String unitSystem, Optional<String> office, String like) {
+        Condition filter = AV_LOC.UNIT_SYSTEM.eq(unitSystem).and(likeFilter(AV_LOC.LOCATION_ID, like));
+        if( office.isPresent() ){
+            filter = filter.and(AV_LOC.DB_OFFICE_ID.eq(office.get().toUpperCase()));
+        }
+        return filter;
+    }
+
+    private static LocationCatalogEntry buildCatalogEntry(usace.cwms.db.jooq.codegen.tables.records.AV_LOC loc,
+                                                          List<usace.cwms.db.jooq.codegen.tables.records.AV_LOC_ALIAS> aliases) {
+        return new LocationCatalogEntry(
+            loc.getDB_OFFICE_ID(),
+            loc.getLOCATION_ID(),
+            loc.getNEAREST_CITY(),
+            loc.getPUBLIC_NAME(),
+            loc.getLONG_NAME(),
+            loc.getDESCRIPTION(),
+            loc.getLOCATION_KIND_ID(),
+            loc.getLOCATION_TYPE(),
+            loc.getTIME_ZONE_NAME(),
+            loc.getLATITUDE() != null ? loc.getLATITUDE().doubleValue() : null,
+            loc.getLONGITUDE() != null ? loc.getLONGITUDE().doubleValue() : null,
+            loc.getPUBLISHED_LATITUDE() != null ? loc.getPUBLISHED_LATITUDE().doubleValue() : null,
+            loc.getPUBLISHED_LONGITUDE() != null ? loc.getPUBLISHED_LONGITUDE().doubleValue() : null,
+            loc.getHORIZONTAL_DATUM(),
+            loc.getELEVATION(),
+            loc.getUNIT_ID(),
+            loc.getVERTICAL_DATUM(),
+            loc.getNATION_ID(),
+            loc.getSTATE_INITIAL(),
+            loc.getCOUNTY_NAME(),
+            loc.getBOUNDING_OFFICE_ID(),
+            loc.getMAP_LABEL(),
+            "T".equalsIgnoreCase(loc.getACTIVE_FLAG()),
+            aliases.stream().map( a -> {
+                return new LocationAlias(a.getCATEGORY_ID()+"-"+a.getGROUP_ID(),a.getALIAS_ID());
+            }).collect(Collectors.toList())
+        );
     }
 
 
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import cwms.radar.data.dto.Pool;
 import cwms.radar.data.dto.Pools;
@@ -227,4 +228,24 @@ public class PoolDao extends JooqDao<PoolType>
 		return builder.build();
 	}
 
+	/**
+	 * Every pool matching the masks, read lazily.  The stream has to be closed.
+	 */
+	public Stream<Pool> streamPools(String projectIdMask, String poolNameMask,
+									String bottomLevelMask, String topLevelMask, boolean includeExplicit,
+									boolean includeImplicit, String officeIdMask)
+	{
+		AV_POOL view = AV_POOL.AV_POOL;
+
+		List<String> types = getTypes(includeExplicit, includeImplicit);
+		Condition condition = getCondition(projectIdMask, poolNameMask, bottomLevelMask, topLevelMask, officeIdMask, types);
+
+		return dsl.select(DSL.asterisk()).from(view)
+				.where(condition)
+				.orderBy(view.DEFINITION_TYPE,
+						view.OFFICE_ID.upper(), view.PROJECT_ID.upper(), view.ATTRIBUTE, view.POOL_NAME.upper())
+				.fetchSize(STREAM_FETCH_SIZE)
+				.stream().map(r -> toPool(r, true));
+	}
+
 }
@@ -0,0 +1,380 @@
+package cwms.radar.data.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import cwms.radar.data.dto.RecentValue;
+import org.jooq.DSLContext;
+import org.jooq.exception.DataAccessException;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Collects the single-series "most recent value" lookups made by many concurrent requests and
+ * answers them with one set-based query per batch.
+ *
+ * A batch is dispatched once it has waited maxWaitMillis or once it holds maxBatchSize ids,
+ * whichever comes first.  Only lookups for the same office and time window share a batch.  A
+ * batch never holds more than maxBatchSize ids: one that a lookup would overflow is dispatched
+ * first, and a lookup of more ids than that is split across batches.
+ */
+public class RecentValueBatcher implements AutoCloseable
+{
+	private static final Logger logger = Logger.getLogger(RecentValueBatcher.class.getName());
+
+	public static final String MAX_WAIT_PROPERTY = "RADAR_RECENT_BATCH_WAIT_MS";
+	public static final String MAX_SIZE_PROPERTY = "RADAR_RECENT_BATCH_SIZE";
+	public static final long DEFAULT_MAX_WAIT_MILLIS = 5;
+	// Oracle will not accept more than 1000 expressions in an IN list.
+	public static final int DEFAULT_MAX_BATCH_SIZE = 500;
+	public static final int MAX_BATCH_SIZE_LIMIT = JooqDao.IN_LIST_LIMIT;
+	private static final long RESULT_TIMEOUT_SECONDS = 60;
+
+	/**
+	 * Performs the actual lookup of a whole batch.
+	 */
+	@FunctionalInterface
+	public interface Loader
+	{
+		List<RecentValue> load(String officeId, List<String> tsIds, Timestamp pastLimit, Timestamp futureLimit);
+	}
+
+	private final Loader loader;
+	private final long maxWaitMillis;
+	private final int maxBatchSize;
+	private final ScheduledExecutorService executor;
+	private final Map<BatchKey, Batch> pending = new HashMap<>();
+	private final Histogram batchSizes;
+	private final Histogram batchRequests;
+
+	public RecentValueBatcher(DataSource dataSource, MetricRegistry metrics)
+	{
+		this(dataSource, metrics,
+				Long.parseLong(System.getProperty(MAX_WAIT_PROPERTY, String.valueOf(DEFAULT_MAX_WAIT_MILLIS))),
+				Integer.parseInt(System.getProperty(MAX_SIZE_PROPERTY, String.valueOf(DEFAULT_MAX_BATCH_SIZE))));
+	}
+
+	public RecentValueBatcher(DataSource dataSource, MetricRegistry metrics, long maxWaitMillis, int maxBatchSize)
+	{
+		this(buildLoader(dataSource), metrics, maxWaitMillis, maxBatchSize);
+	}
+
+	public RecentValueBatcher(Loader loader, MetricRegistry metrics, long maxWaitMillis, int maxBatchSize)
+	{
+		Objects.requireNonNull(loader, "A loader is required to fetch batches");
+		this.loader = loader;
+		this.maxWaitMillis = Math.max(0, maxWaitMillis);
+		this.maxBatchSize = Math.max(1, Math.min(maxBatchSize, MAX_BATCH_SIZE_LIMIT));
+
+		String className = this.getClass().getName();
+		batchSizes = metrics.histogram(name(className, "batch", "ids"));
+		batchRequests = metrics.histogram(name(className, "batch", "requests"));
+
+		AtomicInteger threadCount = new AtomicInteger();
+		executor = Executors.newScheduledThreadPool(2, r -> {
+			Thread t = new Thread(r, "radar-recent-batcher-" + threadCount.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	private static Loader buildLoader(DataSource dataSource)
+	{
+		Objects.requireNonNull(dataSource, "A DataSource is required to fetch batches");
+		return (officeId, tsIds, pastLimit, futureLimit) -> {
+			try(Connection connection = dataSource.getConnection())
+			{
+				DSLContext dsl = JooqDao.getDslContext(connection, officeId);
+				return new TimeSeriesDaoImpl(dsl).findMostRecentsInRange(tsIds, pastLimit, futureLimit);
+			}
+			catch(SQLException ex)
+			{
+				throw new DataAccessException("Unable to fetch batch of recent values", ex);
+			}
+		};
+	}
+
+	/**
+	 * Queues a lookup.  The returned future completes with the values for only the ids requested here.
+	 */
+	public CompletableFuture<List<RecentValue>> submit(String officeId, List<String> tsIds, Timestamp pastLimit,
+													   Timestamp futureLimit)
+	{
+		CompletableFuture<List<RecentValue>> future = new CompletableFuture<>();
+		if(tsIds == null || tsIds.isEmpty())
+		{
+			future.complete(new ArrayList<>());
+			return future;
+		}
+
+		BatchKey key = new BatchKey(officeId, pastLimit, futureLimit);
+		List<String> distinct = new ArrayList<>(new LinkedHashSet<>(tsIds));
+		if(distinct.size() <= maxBatchSize)
+		{
+			enqueue(key, distinct, future);
+			return future;
+		}
+
+		List<CompletableFuture<List<RecentValue>>> parts = new ArrayList<>();
+		for(int start = 0; start < distinct.size(); start += maxBatchSize)
+		{
+			CompletableFuture<List<RecentValue>> part = new CompletableFuture<>();
+			enqueue(key, distinct.subList(start, Math.min(distinct.size(), start + maxBatchSize)), part);
+			parts.add(part);
+		}
+		CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, ex) -> {
+			if(ex != null)
+			{
+				future.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+				return;
+			}
+			List<RecentValue> values = new ArrayList<>();
+			parts.forEach(part -> values.addAll(part.join()));
+			future.complete(values);
+		});
+		return future;
+	}
+
+	// tsIds are distinct and no more than maxBatchSize of them.
+	private void enqueue(BatchKey key, List<String> tsIds, CompletableFuture<List<RecentValue>> future)
+	{
+		List<Batch> ready = new ArrayList<>();
+		synchronized(pending)
+		{
+			Batch batch = pending.get(key);
+			if(batch != null && batch.sizeWith(tsIds) > maxBatchSize)
+			{
+				// send what is pending rather than let these ids overflow it
+				pending.remove(key);
+				ready.add(batch);
+				batch = null;
+			}
+			if(batch == null)
+			{
+				batch = new Batch(key);
+				pending.put(key, batch);
+				final Batch scheduled = batch;
+				executor.schedule(() -> flush(scheduled), maxWaitMillis, TimeUnit.MILLISECONDS);
+			}
+			batch.add(tsIds, future);
+			if(batch.size() >= maxBatchSize)
+			{
+				pending.remove(key);
+				ready.add(batch);
+			}
+		}
+
+		for(Batch full : ready)
+		{
+			executor.execute(() -> run(full));
+		}
+	}
+
+	/**
+	 * Blocking convenience around submit, with the same contract as
+	 * TimeSeriesDao.findMostRecentsInRange.
+	 */
+	public List<RecentValue> findMostRecentsInRange(String officeId, List<String> tsIds, Timestamp pastLimit,
+													Timestamp futureLimit)
+	{
+		try
+		{
+			return submit(officeId, tsIds, pastLimit, futureLimit).get(RESULT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		}
+		catch(InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new DataAccessException("Interrupted waiting for recent values", ex);
+		}
+		catch(TimeoutException ex)
+		{
+			throw new DataAccessException("Timed out waiting for recent values", ex);
+		}
+		catch(ExecutionException ex)
+		{
+			Throwable cause = ex.getCause();
+			if(cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+			throw new DataAccessException("Unable to retrieve recent values", cause);
+		}
+	}
+
+	private void flush(Batch batch)
+	{
+		synchronized(pending)
+		{
+			// A batch that filled up has already been removed and dispatched.
+			if(pending.get(batch.key) != batch)
+			{
+				return;
+			}
+			pending.remove(batch.key);
+		}
+		run(batch);
+	}
+
+	private void run(Batch batch)
+	{
+		batchSizes.update(batch.size());
+		batchRequests.update(batch.waiters.size());
+
+		List<RecentValue> values;
+		try
+		{
+			values = loader.load(batch.key.officeId, new ArrayList<>(batch.ids), batch.key.pastLimit,
+					batch.key.futureLimit);
+		}
+		catch(RuntimeException ex)
+		{
+			logger.log(Level.WARNING, "Failed to load batch of " + batch.size() + " recent values", ex);
+			batch.waiters.forEach(w -> w.future.completeExceptionally(ex));
+			return;
+		}
+
+		Map<String, List<RecentValue>> byId = new HashMap<>();
+		for(RecentValue value : values)
+		{
+			byId.computeIfAbsent(value.getId(), k -> new ArrayList<>()).add(value);
+		}
+
+		for(Waiter waiter : batch.waiters)
+		{
+			List<RecentValue> mine = new ArrayList<>();
+			for(String tsId : waiter.tsIds)
+			{
+				List<RecentValue> found = byId.get(tsId);
+				if(found != null)
+				{
+					mine.addAll(found);
+				}
+			}
+			waiter.future.complete(mine);
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		executor.shutdown();
+		try
+		{
+			if(!executor.awaitTermination(RESULT_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+			{
+				executor.shutdownNow();
+			}
+		}
+		catch(InterruptedException ex)
+		{
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static class BatchKey
+	{
+		private final String officeId;
+		private final Timestamp pastLimit;
+		private final Timestamp futureLimit;
+
+		BatchKey(String officeId, Timestamp pastLimit, Timestamp futureLimit)
+		{
+			this.officeId = officeId;
+			this.pastLimit = pastLimit;
+			this.futureLimit = futureLimit;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if(this == o)
+			{
+				return true;
+			}
+			if(!(o instanceof BatchKey))
+			{
+				return false;
+			}
+			BatchKey other = (BatchKey) o;
+			return Objects.equals(officeId, other.officeId) && Objects.equals(pastLimit, other.pastLimit)
+					&& Objects.equals(futureLimit, other.futureLimit);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(officeId, pastLimit, futureLimit);
+		}
+	}
+
+	private static class Waiter
+	{
+		private final List<String> tsIds;
+		private final CompletableFuture<List<RecentValue>> future;
+
+		Waiter(List<String> tsIds, CompletableFuture<List<RecentValue>> future)
+		{
+			this.tsIds = tsIds;
+			this.future = future;
+		}
+	}
+
+	private static class Batch
+	{
+		private final BatchKey key;
+		private final Set<String> ids = new LinkedHashSet<>();
+		private final List<Waiter> waiters = new ArrayList<>();
+
+		Batch(BatchKey key)
+		{
+			this.key = key;
+		}
+
+		void add(List<String> tsIds, CompletableFuture<List<RecentValue>> future)
+		{
+			ids.addAll(tsIds);
+			waiters.add(new Waiter(new ArrayList<>(new LinkedHashSet<>(tsIds)), future));
+		}
+
+		int size()
+		{
+			return ids.size();
+		}
+
+		// The size once tsIds are added.
+		int sizeWith(List<String> tsIds)
+		{
+			int added = 0;
+			for(String tsId : tsIds)
+			{
+				if(!ids.contains(tsId))
+				{
+					added++;
+				}
+			}
+			return ids.size() + added;
+		}
+	}
+}
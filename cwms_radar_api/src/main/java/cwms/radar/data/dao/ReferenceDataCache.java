@@ -0,0 +1,170 @@
+package cwms.radar.data.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import cwms.radar.data.dto.Office;
+import cwms.radar.helpers.DigestHelper;
+
+/**
+ * Process-wide copy of the reference data every client reads when it starts: units,
+ * parameters, time zones and offices.
+ *
+ * The catalogs are kept as the bytes the database rendered for each format, the offices as DTOs
+ * with each content type rendered the first time it is asked for.  A ReferenceDataRefresher
+ * replaces everything at once, so a reader always sees one consistent snapshot.  Until the first
+ * load, or for a format the database couldn't render, callers read the database as before.
+ */
+public class ReferenceDataCache
+{
+	private static final ReferenceDataCache INSTANCE = new ReferenceDataCache();
+
+	/**
+	 * The catalogs read through CWMS_CAT_PACKAGE.
+	 */
+	public enum Catalog
+	{
+		UNITS,
+		PARAMETERS,
+		TIME_ZONES
+	}
+
+	private volatile Snapshot snapshot = null;
+
+	public static ReferenceDataCache getInstance()
+	{
+		return INSTANCE;
+	}
+
+	ReferenceDataCache()
+	{
+	}
+
+	public boolean isLoaded()
+	{
+		return snapshot != null;
+	}
+
+	public Optional<Rendered> getCatalog(Catalog catalog, String format)
+	{
+		Snapshot current = snapshot;
+		if(current == null)
+		{
+			return Optional.empty();
+		}
+		return Optional.ofNullable(current.catalogs.getOrDefault(catalog, Collections.emptyMap()).get(format));
+	}
+
+	/**
+	 * The offices, empty if they haven't been loaded.
+	 */
+	public Optional<List<Office>> getOffices()
+	{
+		Snapshot current = snapshot;
+		return current == null ? Optional.empty() : Optional.of(current.offices);
+	}
+
+	/**
+	 * The office, if the offices are loaded and it is one of them.  Check isLoaded to tell the two apart.
+	 */
+	public Optional<Office> getOffice(String officeId)
+	{
+		Snapshot current = snapshot;
+		return current == null ? Optional.empty() : Optional.ofNullable(current.officesById.get(officeId));
+	}
+
+	/**
+	 * True if the offices are loaded and officeId, in any case, isn't one of them.  For the caches
+	 * keyed by an office a client sends, so they don't keep entries for offices that don't exist.
+	 */
+	public boolean isUnknownOffice(String officeId)
+	{
+		Snapshot current = snapshot;
+		return current != null && (officeId == null || !current.officesById.containsKey(officeId.toUpperCase()));
+	}
+
+	/**
+	 * The offices rendered as contentType, rendering them the first time, or empty if the offices
+	 * haven't been loaded.
+	 */
+	public Optional<Rendered> getRenderedOffices(String contentType, Function<List<Office>, byte[]> renderer)
+	{
+		Snapshot current = snapshot;
+		if(current == null)
+		{
+			return Optional.empty();
+		}
+		return Optional.of(current.renderedOffices.computeIfAbsent(contentType, type -> new Rendered(renderer.apply(current.offices))));
+	}
+
+	/**
+	 * Replaces the cached data.
+	 */
+	public void update(Map<Catalog, Map<String, String>> catalogs, List<Office> offices)
+	{
+		snapshot = new Snapshot(catalogs, offices);
+	}
+
+	public void clear()
+	{
+		snapshot = null;
+	}
+
+	/**
+	 * A response body and its strong ETag, worked out once.
+	 */
+	public static final class Rendered
+	{
+		private final byte[] body;
+		private final String etag;
+
+		Rendered(byte[] body)
+		{
+			this.body = body;
+			this.etag = "\"" + DigestHelper.shortHash(body) + "\"";
+		}
+
+		public byte[] getBody()
+		{
+			return body;
+		}
+
+		public String getEtag()
+		{
+			return etag;
+		}
+	}
+
+	private static final class Snapshot
+	{
+		private final Map<Catalog, Map<String, Rendered>> catalogs = new EnumMap<>(Catalog.class);
+		private final List<Office> offices;
+		private final Map<String, Office> officesById = new LinkedHashMap<>();
+		private final Map<String, Rendered> renderedOffices = new ConcurrentHashMap<>();
+
+		Snapshot(Map<Catalog, Map<String, String>> catalogs, List<Office> offices)
+		{
+			for(Map.Entry<Catalog, Map<String, String>> catalog : catalogs.entrySet())
+			{
+				Map<String, Rendered> formats = new LinkedHashMap<>();
+				for(Map.Entry<String, String> format : catalog.getValue().entrySet())
+				{
+					formats.put(format.getKey(), new Rendered(format.getValue().getBytes(StandardCharsets.UTF_8)));
+				}
+				this.catalogs.put(catalog.getKey(), formats);
+			}
+			this.offices = Collections.unmodifiableList(offices);
+			for(Office office : offices)
+			{
+				officesById.put(office.getName(), office);
+			}
+		}
+	}
+}
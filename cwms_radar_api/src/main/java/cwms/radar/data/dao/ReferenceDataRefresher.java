@@ -0,0 +1,96 @@
+package cwms.radar.data.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import cwms.radar.data.CwmsDataManager;
+import cwms.radar.data.dto.Office;
+import org.jooq.exception.DataAccessException;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Loads the ReferenceDataCache when the server starts and again every
+ * RADAR_REFERENCE_DATA_REFRESH_MINUTES.  A refresh that fails leaves the previous data in place.
+ */
+public class ReferenceDataRefresher extends ScheduledRefresher
+{
+	private static final Logger logger = Logger.getLogger(ReferenceDataRefresher.class.getName());
+
+	public static final String REFRESH_INTERVAL_PROPERTY = "RADAR_REFERENCE_DATA_REFRESH_MINUTES";
+	public static final long DEFAULT_REFRESH_INTERVAL_MINUTES = 60;
+	// what the units, parameters and time zones end points accept
+	public static final List<String> FORMATS = Collections.unmodifiableList(Arrays.asList("json", "tab", "csv", "xml", "wml2"));
+
+	private final ReferenceDataCache cache;
+
+	public ReferenceDataRefresher(DataSource dataSource, MetricRegistry metrics)
+	{
+		this(dataSource, ReferenceDataCache.getInstance(), metrics,
+				minutesProperty(REFRESH_INTERVAL_PROPERTY, DEFAULT_REFRESH_INTERVAL_MINUTES));
+	}
+
+	public ReferenceDataRefresher(DataSource dataSource, ReferenceDataCache cache, MetricRegistry metrics, Duration refreshInterval)
+	{
+		super(dataSource, metrics, "radar-reference-data-refresher", "load reference data");
+		this.cache = cache;
+
+		if(!schedule(Duration.ZERO, refreshInterval))
+		{
+			logger.info("Reference data caching is disabled, units, parameters, time zones and offices will be read from the database.");
+		}
+	}
+
+	@Override
+	protected void refresh(Connection connection) throws SQLException
+	{
+		try(Timer.Context ignored = loads.time())
+		{
+			// not closed on its own, that would close the connection out from under the office query
+			CwmsDataManager cdm = new CwmsDataManager(connection, null);
+			Map<ReferenceDataCache.Catalog, Map<String, String>> catalogs = new EnumMap<>(ReferenceDataCache.Catalog.class);
+			catalogs.put(ReferenceDataCache.Catalog.UNITS, render(cdm::getUnits));
+			catalogs.put(ReferenceDataCache.Catalog.PARAMETERS, render(cdm::getParameters));
+			catalogs.put(ReferenceDataCache.Catalog.TIME_ZONES, render(cdm::getTimeZones));
+			List<Office> offices = new OfficeDao(JooqDao.getDslContext(connection)).getOffices();
+
+			cache.update(catalogs, offices);
+			logger.fine(() -> "Loaded reference data for " + offices.size() + " offices");
+		}
+	}
+
+	private static Map<String, String> render(Function<String, String> retrieve)
+	{
+		Map<String, String> retval = new LinkedHashMap<>();
+		for(String format : FORMATS)
+		{
+			try
+			{
+				String rendered = retrieve.apply(format);
+				if(rendered != null)
+				{
+					retval.put(format, rendered);
+				}
+			}
+			catch(DataAccessException ex)
+			{
+				// left for the database to answer, as it would without the cache
+				logger.log(Level.FINE, "Unable to render reference data as " + format, ex);
+			}
+		}
+		return retval;
+	}
+}
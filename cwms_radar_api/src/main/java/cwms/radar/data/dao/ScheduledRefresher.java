@@ -0,0 +1,132 @@
+package cwms.radar.data.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Keeps an in memory copy of some database data current from a daemon thread of its own.
+ *
+ * Each run gets a connection from the DataSource and passes it to refresh.  A run that fails is
+ * counted and logged and leaves whatever it would have replaced in place.
+ */
+public abstract class ScheduledRefresher implements AutoCloseable
+{
+	private final Logger logger = Logger.getLogger(getClass().getName());
+
+	private final DataSource dataSource;
+	private final String task;
+	private final ScheduledExecutorService executor;
+	protected final Timer loads;
+	protected final Meter failures;
+
+	/**
+	 * @param threadName what the thread runs are made on is called
+	 * @param task what a run does, for the messages, "refresh the catalog snapshots" for one
+	 */
+	protected ScheduledRefresher(DataSource dataSource, MetricRegistry metrics, String threadName, String task)
+	{
+		Objects.requireNonNull(dataSource, "A DataSource is required to " + task);
+		this.dataSource = dataSource;
+		this.task = task;
+
+		String className = this.getClass().getName();
+		loads = metrics.timer(name(className, "load"));
+		failures = metrics.meter(name(className, "failures"));
+
+		executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, threadName);
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Starts the runs.  Called last in the constructor of the subclass, so no run sees it half built.
+	 *
+	 * @param initialDelay zero to run right away
+	 * @param interval the time between the end of one run and the start of the next, zero or less
+	 *                 for no runs at all
+	 * @return false if there are no runs
+	 */
+	protected final boolean schedule(Duration initialDelay, Duration interval)
+	{
+		long intervalMillis = interval.toMillis();
+		if(intervalMillis <= 0)
+		{
+			return false;
+		}
+		executor.scheduleWithFixedDelay(this::refresh, initialDelay.toMillis(), intervalMillis, TimeUnit.MILLISECONDS);
+		return true;
+	}
+
+	/**
+	 * @return the minutes given by the system property, or the default
+	 */
+	protected static Duration minutesProperty(String property, long defaultMinutes)
+	{
+		return Duration.ofMinutes(Long.parseLong(System.getProperty(property, String.valueOf(defaultMinutes))));
+	}
+
+	void refresh()
+	{
+		try(Connection connection = dataSource.getConnection())
+		{
+			refresh(connection);
+		}
+		catch(SQLException | RuntimeException ex)
+		{
+			failures.mark();
+			logger.log(Level.WARNING, "Unable to " + task, ex);
+		}
+	}
+
+	/**
+	 * One run, the connection is closed afterwards.
+	 */
+	protected abstract void refresh(Connection connection) throws SQLException;
+
+	@Override
+	public void close()
+	{
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Starts the refreshers of the caches the end points read from.
+	 *
+	 * @return closed with closeAll when the server stops
+	 */
+	public static List<ScheduledRefresher> startCaches(DataSource dataSource, MetricRegistry metrics)
+	{
+		return Collections.unmodifiableList(Arrays.asList(
+				new LocationIndexRefresher(dataSource, metrics),
+				new ReferenceDataRefresher(dataSource, metrics),
+				new CatalogSnapshotRefresher(dataSource, metrics),
+				new BasinGraphRefresher(dataSource, metrics)));
+	}
+
+	public static void closeAll(List<? extends ScheduledRefresher> refreshers)
+	{
+		if(refreshers != null)
+		{
+			refreshers.forEach(ScheduledRefresher::close);
+		}
+	}
+}
@@ -42,29 +42,36 @@ public class StreamLocationDao extends JooqDao<StreamLocation>
         Set<StreamLocation> retVal = new HashSet<>();
         while(rs.next())
         {
-            String locationId = rs.getString("LOCATION_ID");
-            String officeId = rs.getString("OFFICE_ID");
-            String streamId = rs.getString("STREAM_ID");
-            Double station = toDouble(rs.getBigDecimal("STATION"));
-            Double publishedStation = toDouble(rs.getBigDecimal("PUBLISHED_STATION"));
-            Double navigationStation = toDouble(rs.getBigDecimal("NAVIGATION_STATION"));
-            Double lowestMeasurableStage = toDouble(rs.getBigDecimal("LOWEST_MEASURABLE_STAGE"));
-            Double totalDrainageArea = toDouble(rs.getBigDecimal("DRAINAGE_AREA"));
-            Double ungagedDrainageArea = toDouble(rs.getBigDecimal("UNGAGED_DRAINAGE_AREA"));
-            String bank = rs.getString("BANK");
-            StreamLocation loc = new StreamLocation.Builder(locationId, streamId, station, bank, officeId)
-                    .withPublishedStation(publishedStation)
-                    .withNavigationStation(navigationStation)
-                    .withLowestMeasurableStage(lowestMeasurableStage)
-                    .withTotalDrainageArea(totalDrainageArea)
-                    .withUngagedDrainageArea(ungagedDrainageArea)
-                    .build();
-            retVal.add(loc);
+            retVal.add(buildStreamLocation(rs));
         }
 
         return retVal;
     }
 
+    /**
+     * @return the stream location in the current row of a catStreamLocations result
+     */
+    static StreamLocation buildStreamLocation(ResultSet rs) throws SQLException
+    {
+        String locationId = rs.getString("LOCATION_ID");
+        String officeId = rs.getString("OFFICE_ID");
+        String streamId = rs.getString("STREAM_ID");
+        Double station = toDouble(rs.getBigDecimal("STATION"));
+        Double publishedStation = toDouble(rs.getBigDecimal("PUBLISHED_STATION"));
+        Double navigationStation = toDouble(rs.getBigDecimal("NAVIGATION_STATION"));
+        Double lowestMeasurableStage = toDouble(rs.getBigDecimal("LOWEST_MEASURABLE_STAGE"));
+        Double totalDrainageArea = toDouble(rs.getBigDecimal("DRAINAGE_AREA"));
+        Double ungagedDrainageArea = toDouble(rs.getBigDecimal("UNGAGED_DRAINAGE_AREA"));
+        String bank = rs.getString("BANK");
+        return new StreamLocation.Builder(locationId, streamId, station, bank, officeId)
+                .withPublishedStation(publishedStation)
+                .withNavigationStation(navigationStation)
+                .withLowestMeasurableStage(lowestMeasurableStage)
+                .withTotalDrainageArea(totalDrainageArea)
+                .withUngagedDrainageArea(ungagedDrainageArea)
+                .build();
+    }
+
     public Set<StreamLocation> getAllStreamLocations(String unitSystem, String officeId) throws SQLException
     {
         return getStreamLocations(null, unitSystem, officeId);
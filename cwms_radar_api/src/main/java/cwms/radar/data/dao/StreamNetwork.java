@@ -0,0 +1,115 @@
+package cwms.radar.data.dao;
+
+import cwms.radar.data.dto.basinconnectivity.Stream;
+import cwms.radar.data.dto.basinconnectivity.StreamLocation;
+import cwms.radar.data.dto.basinconnectivity.StreamReach;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Every stream of an office with its locations and reaches, read in a few set based queries and
+ * joined into Stream trees in memory.
+ *
+ * A stream's tributaries are the streams that flow into it.  Each tree is assembled once and then
+ * shared, so basins with the same primary stream, or a stream asked for twice, cost nothing more.
+ * Not thread safe, it is meant to be built and used by one request.
+ */
+public final class StreamNetwork
+{
+    private final Map<String, Stream> streams = new HashMap<>();
+    private final Map<String, List<String>> tributaries = new HashMap<>();
+    private final Map<String, List<StreamLocation>> locations = new HashMap<>();
+    private final Map<String, List<StreamReach>> reaches = new HashMap<>();
+    private final Map<String, Stream> assembled = new HashMap<>();
+
+    /**
+     * @param stream a stream without its locations, reaches or tributaries
+     */
+    void addStream(Stream stream)
+    {
+        String key = key(stream.getOfficeId(), stream.getStreamName());
+        streams.put(key, stream);
+        if(stream.getReceivingStreamId() != null)
+        {
+            tributaries.computeIfAbsent(key(stream.getOfficeId(), stream.getReceivingStreamId()), k -> new ArrayList<>())
+                    .add(stream.getStreamName());
+        }
+    }
+
+    void addStreamLocation(StreamLocation location)
+    {
+        locations.computeIfAbsent(key(location.getOfficeId(), location.getStreamName()), k -> new ArrayList<>())
+                .add(location);
+    }
+
+    void addStreamReach(StreamReach reach)
+    {
+        reaches.computeIfAbsent(key(reach.getOfficeId(), reach.getStreamName()), k -> new ArrayList<>())
+                .add(reach);
+    }
+
+    public int size()
+    {
+        return streams.size();
+    }
+
+    /**
+     * @return the stream with its locations, reaches and, recursively, its tributaries
+     */
+    public Optional<Stream> getStream(String streamId, String officeId)
+    {
+        if(officeId == null)
+        {
+            // the network was read for the session's office, whichever that was
+            return streams.values().stream()
+                    .filter(s -> s.getStreamName().equals(streamId))
+                    .findFirst()
+                    .map(s -> assemble(key(s.getOfficeId(), streamId), new HashSet<>()));
+        }
+        return Optional.ofNullable(assemble(key(officeId, streamId), new HashSet<>()));
+    }
+
+    // path holds the streams above this one, a stream that flows back into one of them is left out
+    private Stream assemble(String key, Set<String> path)
+    {
+        Stream retval = assembled.get(key);
+        if(retval != null)
+        {
+            return retval;
+        }
+        Stream stream = streams.get(key);
+        if(stream == null || !path.add(key))
+        {
+            return null;
+        }
+        List<Stream> streamTributaries = new ArrayList<>();
+        for(String tributaryId : tributaries.getOrDefault(key, Collections.emptyList()))
+        {
+            Stream tributary = assemble(key(stream.getOfficeId(), tributaryId), path);
+            if(tributary != null)
+            {
+                streamTributaries.add(tributary);
+            }
+        }
+        path.remove(key);
+        retval = new Stream.Builder(stream)
+                .withStreamLocations(locations.getOrDefault(key, Collections.emptyList()))
+                .withStreamReaches(reaches.getOrDefault(key, Collections.emptyList()))
+                .withTributaries(streamTributaries)
+                .build();
+        assembled.put(key, retval);
+        return retval;
+    }
+
+    private static String key(String officeId, String streamId)
+    {
+        return (officeId == null ? "" : officeId.toUpperCase()) + "/" + streamId;
+    }
+}
@@ -34,19 +34,9 @@ public class StreamReachDao extends JooqDao<StreamReach>
 
         while(rs.next())
         {
-            String reachId = rs.getString("REACH_LOCATION");
-            if (!reachId.isEmpty())
+            StreamReach streamReach = buildStreamReach(rs);
+            if (streamReach != null)
             {
-                String streamId = rs.getString("STREAM_LOCATION");
-                String officeId = rs.getString("OFFICE_ID");
-                String upstreamLocationId = rs.getString("UPSTREAM_LOCATION");
-                String downstreamLocationId = rs.getString("DOWNSTREAM_LOCATION");
-                String configuration = rs.getString("CONFIGURATION");
-                String comment = rs.getString("COMMENTS");
-                StreamReach streamReach = new StreamReach.Builder(reachId, streamId, upstreamLocationId, downstreamLocationId, officeId)
-                        .withComment(comment)
-                        .withConfiguration(configuration)
-                        .build();
                 retVal.add(streamReach);
             }
         }
@@ -54,4 +44,26 @@ public class StreamReachDao extends JooqDao<StreamReach>
         return retVal;
     }
 
+    /**
+     * @return the reach in the current row of a catStreamReaches result, null if the row has no reach
+     */
+    static StreamReach buildStreamReach(ResultSet rs) throws SQLException
+    {
+        String reachId = rs.getString("REACH_LOCATION");
+        if (reachId.isEmpty())
+        {
+            return null;
+        }
+        String streamId = rs.getString("STREAM_LOCATION");
+        String officeId = rs.getString("OFFICE_ID");
+        String upstreamLocationId = rs.getString("UPSTREAM_LOCATION");
+        String downstreamLocationId = rs.getString("DOWNSTREAM_LOCATION");
+        String configuration = rs.getString("CONFIGURATION");
+        String comment = rs.getString("COMMENTS");
+        return new StreamReach.Builder(reachId, streamId, upstreamLocationId, downstreamLocationId, officeId)
+                .withComment(comment)
+                .withConfiguration(configuration)
+                .build();
+    }
+
 }
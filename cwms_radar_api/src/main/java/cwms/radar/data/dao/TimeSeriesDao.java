@@ -3,15 +3,22 @@ package cwms.radar.data.dao;
 import java.sql.Timestamp;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import cwms.radar.data.dto.Catalog;
 import cwms.radar.data.dto.RecentValue;
 import cwms.radar.data.dto.TimeSeries;
+import cwms.radar.data.dto.catalog.TimeseriesCatalogEntry;
 
 public interface TimeSeriesDao
 {
 	Timestamp NON_VERSIONED = null;
-	Catalog getTimeSeriesCatalog(String cursor, int pageSize, Optional<String> office);
+	/**
+	 * @param fields the catalog entry properties to read, empty for all of them
+	 */
+	Catalog getTimeSeriesCatalog(String cursor, int pageSize, Optional<String> office, String like, String unit, Set<String> fields);
+	Stream<TimeseriesCatalogEntry> streamTimeSeriesCatalog(Optional<String> office, String like, String unit);
 
 	void create(TimeSeries timeSeries);
 	void store(TimeSeries timeSeries, Timestamp versionDate);
@@ -19,9 +26,12 @@ public interface TimeSeriesDao
 	void delete(String office, String tsId);
 
 	TimeSeries getTimeseries(String cursor, int pageSize, String names, String office, String unit, String datum, String begin, String end, String timezone);
+	TimeSeries getTimeseriesChanges(String cursor, int pageSize, String names, String office, String unit, String begin, String end, String timezone, Timestamp enteredAfter);
+	ChangeFingerprint getTimeseriesFingerprint(String names, String office, String begin, String end, String timezone);
 	String getTimeseries(String s, String names, String office, String unit, String datum, String begin, String end, String timezone);
 
 
 	List<RecentValue> findRecentsInRange(String office, String categoryId, String groupId, Timestamp pastLimit, Timestamp futureLimit);
 	List<RecentValue> findMostRecentsInRange(List<String> tsIds, Timestamp pastLimit, Timestamp futureLimit);
+	List<String> findTsGroupMemberIds(String office, String categoryId, String groupId);
 }
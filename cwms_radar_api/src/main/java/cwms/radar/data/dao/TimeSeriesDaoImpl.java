@@ -8,6 +8,7 @@ import java.sql.Timestamp;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
@@ -17,12 +18,15 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import cwms.radar.data.dto.Catalog;
 import cwms.radar.data.dto.CwmsDTOPaginated;
@@ -34,12 +38,14 @@ import cwms.radar.data.dto.TsvDquId;
 import cwms.radar.data.dto.TsvId;
 import cwms.radar.data.dto.catalog.CatalogEntry;
 import cwms.radar.data.dto.catalog.TimeseriesCatalogEntry;
+import cwms.radar.formatters.Fields;
 import org.jetbrains.annotations.NotNull;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.Record;
 import org.jooq.Record1;
+import org.jooq.Record2;
 import org.jooq.Record3;
 import org.jooq.Record5;
 import org.jooq.Result;
@@ -47,10 +53,13 @@ import org.jooq.SQL;
 import org.jooq.SelectConditionStep;
 import org.jooq.SelectHavingStep;
 import org.jooq.SelectJoinStep;
+import org.jooq.SelectLimitStep;
 import org.jooq.SelectSelectStep;
+import org.jooq.Table;
 import org.jooq.conf.ParamType;
 import org.jooq.exception.DataAccessException;
 import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
 
 import usace.cwms.db.dao.ifc.ts.CwmsDbTs;
 import usace.cwms.db.dao.util.services.CwmsDbServiceLookup;
@@ -64,6 +73,7 @@ import usace.cwms.db.jooq.codegen.tables.AV_TS_GRP_ASSGN;
 
 import static org.jooq.impl.DSL.asterisk;
 import static org.jooq.impl.DSL.count;
+import static org.jooq.impl.DSL.countDistinct;
 import static org.jooq.impl.DSL.field;
 import static org.jooq.impl.DSL.max;
 import static org.jooq.impl.DSL.partitionBy;
@@ -74,6 +84,8 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
 	private static final Logger logger = Logger.getLogger(TimeSeriesDaoImpl.class.getName());
 
 	public static final boolean OVERRIDE_PROTECTION = true;
+	// How far before a data entry high-water mark to look again for values that committed late.
+	public static final long CHANGES_OVERLAP_MILLIS = 60_000;
 
 	public TimeSeriesDaoImpl(DSLContext dsl)
 	{
@@ -111,7 +123,16 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
 	}
 
 	public TimeSeries getTimeseries(String page, int pageSize, String names, String office, String units, String datum, String begin, String end, String timezone) {
+		return retrieveTimeseries(page, pageSize, names, office, units, begin, end, timezone, null);
+	}
+
+	// Only the values in the window entered or updated after enteredAfter.
+	public TimeSeries getTimeseriesChanges(String page, int pageSize, String names, String office, String units, String begin, String end, String timezone, Timestamp enteredAfter) {
+		return retrieveTimeseries(page, pageSize, names, office, units, begin, end, timezone, enteredAfter);
+	}
 
+	// The begin and end of a request, defaulting to the last day.
+	private static ZonedDateTime[] parseWindow(String begin, String end, String timezone) {
 		if(begin == null)
 		{
 			begin = ZonedDateTime.now().minusDays(1).toLocalDateTime().toString();
@@ -132,12 +153,51 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
 		// If the end time doesn't have a timezone, but begin did, use begin's timezone as end's.
 		ZonedDateTime endTime = endParsed instanceof ZonedDateTime ? ZonedDateTime.from(endParsed) : LocalDateTime.from(endParsed).atZone(beginTime.getZone());
 
-		if(timezone == null) {
-			if(beginTime.getZone().equals(beginTime.getOffset()))
-				throw new IllegalArgumentException("Time cannot contain only an offset without the timezone.");
-			// If no timezone was found, get it from begin_time
-			zone = beginTime.getZone();
+		if(timezone == null && beginTime.getZone().equals(beginTime.getOffset())) {
+			throw new IllegalArgumentException("Time cannot contain only an offset without the timezone.");
 		}
+		return new ZonedDateTime[]{beginTime, endTime};
+	}
+
+	/**
+	 * The validators for a getTimeseries response: the latest data entry date and number of values in the window.
+	 * Kept briefly for an explicit office, without one the session's office decides what is read.
+	 */
+	public ChangeFingerprint getTimeseriesFingerprint(String names, String office, String begin, String end, String timezone) {
+		if(office == null) {
+			return readTimeseriesFingerprint(names, null, begin, end, timezone);
+		}
+		return ChangeFingerprintDao.cached(Arrays.asList("timeseries", names, office, begin, end, timezone),
+				key -> readTimeseriesFingerprint(names, office, begin, end, timezone));
+	}
+
+	private ChangeFingerprint readTimeseriesFingerprint(String names, String office, String begin, String end, String timezone) {
+		ZonedDateTime[] window = parseWindow(begin, end, timezone);
+		AV_TSV_DQU tsvView = AV_TSV_DQU.AV_TSV_DQU;
+		Timestamp beginTimestamp = Timestamp.from(window[0].toInstant());
+		Timestamp endTimestamp = Timestamp.from(window[1].toInstant());
+		Field<String> officeId = CWMS_UTIL_PACKAGE.call_GET_DB_OFFICE_ID(office != null ? DSL.val(office) : CWMS_UTIL_PACKAGE.call_USER_OFFICE_ID());
+
+		Record2<Timestamp, Integer> fingerprint = dsl.select(maxDataEntryDateUtc(tsvView), countDistinct(tsvView.DATE_TIME))
+				.from(tsvView)
+				.where(tsvView.CWMS_TS_ID.eq(CWMS_TS_PACKAGE.call_GET_TS_ID__2(DSL.val(names), officeId)))
+				.and(tsvView.OFFICE_ID.eq(officeId))
+				.and(tsvView.ALIASED_ITEM.isNull())
+				.and(tsvView.START_DATE.le(endTimestamp))
+				.and(tsvView.END_DATE.gt(beginTimestamp))
+				.and(tsvView.DATE_TIME.between(beginTimestamp, endTimestamp))
+				.fetchOne();
+
+		Timestamp lastEntered = fingerprint.value1();
+		String tag = (lastEntered != null ? lastEntered.getTime() : 0) + ":" + fingerprint.value2();
+		return new ChangeFingerprint(tag, lastEntered);
+	}
+
+	private TimeSeries retrieveTimeseries(String page, int pageSize, String names, String office, String units, String begin, String end, String timezone, Timestamp enteredAfter) {
+
+		ZonedDateTime[] window = parseWindow(begin, end, timezone);
+		ZonedDateTime beginTime = window[0];
+		ZonedDateTime endTime = window[1];
 
 		String cursor = null;
 		Timestamp tsCursor = null;
@@ -193,6 +253,37 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
 				officeId) + ")"
 		);
 
+		Table<?> valuesSource = DSL.table(retrieveTable);
+		Condition valuesCondition = DSL.trueCondition();
+		if(enteredAfter != null) {
+			// The retrieve function doesn't report when a value was entered, read the view instead.
+			// Deleted values can't be seen this way.
+			AV_TSV_DQU tsvView = AV_TSV_DQU.AV_TSV_DQU;
+			AV_TSV_DQU versions = AV_TSV_DQU.AV_TSV_DQU.as("VERSIONS");
+			Timestamp beginTimestamp = Timestamp.from(beginTime.toInstant());
+			Timestamp endTimestamp = Timestamp.from(endTime.toInstant());
+			valuesSource = tsvView;
+			valuesCondition = tsvView.CWMS_TS_ID.eq(tsId)
+					.and(tsvView.OFFICE_ID.eq(officeId))
+					.and(tsvView.UNIT_ID.eq(unit))
+					.and(tsvView.ALIASED_ITEM.isNull())
+					.and(tsvView.START_DATE.le(endTimestamp))
+					.and(tsvView.END_DATE.gt(beginTimestamp))
+					.and(tsvView.DATE_TIME.between(beginTimestamp, endTimestamp))
+					// A versioned series has a row for each version of a time, only the latest is its value,
+					// as the retrieve function returns.
+					.and(tsvView.VERSION_DATE.eq(dsl.select(max(versions.VERSION_DATE))
+							.from(versions)
+							.where(versions.TS_CODE.eq(tsvView.TS_CODE))
+							.and(versions.UNIT_ID.eq(tsvView.UNIT_ID))
+							.and(versions.DATE_TIME.eq(tsvView.DATE_TIME))
+							.and(versions.START_DATE.le(endTimestamp))
+							.and(versions.END_DATE.gt(beginTimestamp))
+							.asField()))
+					// Allow for rows that committed late with an earlier entry date, re-sending a few is harmless.
+					.and(enteredAfter(tsvView, new Timestamp(enteredAfter.getTime() - CHANGES_OVERLAP_MILLIS)));
+		}
+
 		SelectSelectStep<Record5<String,String,String,BigDecimal,Integer>> metadataQuery = dsl.select(
 				tsId.as("NAME"),
 				officeId.as("OFFICE_ID"),
@@ -200,7 +291,7 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
 				CWMS_TS_PACKAGE.call_GET_INTERVAL(tsId).as("INTERVAL"),
 				// If we don't know the total, fetch it from the database (only for first fetch).
 				// Total is only an estimate, as it can change if fetching current data, or the timeseries otherwise changes between queries.
-				total != null ? DSL.val(total).as("TOTAL") : DSL.selectCount().from(retrieveTable).asField("TOTAL")
+				total != null ? DSL.val(total).as("TOTAL") : DSL.selectCount().from(valuesSource).where(valuesCondition).asField("TOTAL")
 		);
 
 		logger.finest( () -> metadataQuery.getSQL(ParamType.INLINED));
@@ -218,19 +309,21 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
 		);
 
 		if(pageSize != 0) {
-			SelectConditionStep<Record3<Timestamp, Double, BigDecimal>> query = dsl.select(
+			SelectLimitStep<Record3<Timestamp, Double, BigDecimal>> query = dsl.select(
 					DSL.field("DATE_TIME", Timestamp.class).as("DATE_TIME"),
 					CWMS_ROUNDING_PACKAGE.call_ROUND_DD_F(DSL.field("VALUE", Double.class), DSL.inline("5567899996"), DSL.inline('T')).as("VALUE"),
 					CWMS_TS_PACKAGE.call_NORMALIZE_QUALITY(DSL.nvl(DSL.field("QUALITY_CODE", Integer.class), DSL.inline(5))).as("QUALITY_CODE")
 			)
-					.from(retrieveTable)
-					.where(DSL.field("DATE_TIME", Timestamp.class)
+					.from(valuesSource)
+					.where(valuesCondition)
+					.and(DSL.field("DATE_TIME", Timestamp.class)
 							.greaterOrEqual(CWMS_UTIL_PACKAGE.call_TO_TIMESTAMP__2(
 									DSL.nvl(DSL.val(tsCursor == null ? null : tsCursor.toInstant().toEpochMilli()),
 											DSL.val(beginTime.toInstant().toEpochMilli())))))
 					.and(DSL.field("DATE_TIME", Timestamp.class)
 							.lessOrEqual(CWMS_UTIL_PACKAGE.call_TO_TIMESTAMP__2(DSL.val(endTime.toInstant().toEpochMilli())))
-					);
+					)
+					.orderBy(DSL.field("DATE_TIME", Timestamp.class).asc());
 
 			if(pageSize > 0)
 				query.limit(DSL.val(pageSize + 1));
@@ -244,58 +337,87 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
 			)
 			);
 		}
+
+		if(enteredAfter != null) {
+			// The mark covers every page so the client can use it once it has read them all.
+			Timestamp highWaterMark = dsl.select(maxDataEntryDateUtc(AV_TSV_DQU.AV_TSV_DQU))
+					.from(valuesSource)
+					.where(valuesCondition)
+					.fetchOne(0, Timestamp.class);
+			timeseries.setNextSince(TimeSeries.encodeSince(highWaterMark != null && highWaterMark.after(enteredAfter) ? highWaterMark : enteredAfter));
+		}
 		return timeseries;
 	}
 
-	public Catalog getTimeSeriesCatalog(String page, int pageSize, Optional<String> office){
-		int total = 0;
-		String tsCursor = "*";
-		if( page == null || page.isEmpty() ){
-			SelectJoinStep<Record1<Integer>> count = dsl.select(count(asterisk())).from(AV_CWMS_TS_ID2);
-			if( office.isPresent() ){
-				count.where(AV_CWMS_TS_ID2.DB_OFFICE_ID.eq(office.get()));
-			}
-			total = count.fetchOne().value1();
-		} else {
-			logger.fine("getting non-default page");
-			// get totally from page
-			String[] parts = CwmsDTOPaginated.decodeCursor(page, "|||");
-
-			logger.fine("decoded cursor: " + String.join("|||", parts));
-			for( String p: parts){
-				logger.finest(p);
-			}
+	public Catalog getTimeSeriesCatalog(String page, int pageSize, Optional<String> office, String like, String unit, Set<String> fields)
+	{
+		Condition filter = catalogFilter(office, like, unit);
+		String[] key = Catalog.decodeKey(page);
+		int total;
+		if(key == null)
+		{
+			total = dsl.select(count(asterisk())).from(AV_CWMS_TS_ID2).where(filter).fetchOne().value1();
+		}
+		else
+		{
+			// counted once for the first page and carried in the cursor
+			total = Catalog.decodeTotal(page);
+		}
 
-			if(parts.length > 1) {
-				tsCursor = parts[0].split("/")[1];
-				total = Integer.parseInt(parts[1]);
-			}
+		// the office and id are needed for the cursor
+		List<Field<String>> columns = new ArrayList<>(Arrays.asList(AV_CWMS_TS_ID2.DB_OFFICE_ID, AV_CWMS_TS_ID2.CWMS_TS_ID));
+		boolean withUnits = Fields.wants(fields, "units");
+		if(withUnits)
+		{
+			columns.add(AV_CWMS_TS_ID2.UNIT_ID);
 		}
+		SelectJoinStep<Record> query = dsl.select(columns)
+				.from(AV_CWMS_TS_ID2);
 
-		SelectJoinStep<Record3<String, String, String>> query = dsl.select(
+		query.where(filter)
+				.and(keysetAfter(AV_CWMS_TS_ID2.DB_OFFICE_ID, AV_CWMS_TS_ID2.CWMS_TS_ID, key));
+		query.orderBy(AV_CWMS_TS_ID2.DB_OFFICE_ID, AV_CWMS_TS_ID2.CWMS_TS_ID).limit(pageSize);
+		logger.finest( () -> query.getSQL(ParamType.INLINED));
+		List<? extends CatalogEntry> entries = query.fetch().stream()
+				.map( e -> new TimeseriesCatalogEntry(e.get(AV_CWMS_TS_ID2.DB_OFFICE_ID),
+						e.get(AV_CWMS_TS_ID2.CWMS_TS_ID),
+						withUnits ? e.get(AV_CWMS_TS_ID2.UNIT_ID) : null )
+				)
+				.collect(Collectors.toList());
+		return new Catalog(page,total,pageSize,entries);
+	}
+
+	public Stream<TimeseriesCatalogEntry> streamTimeSeriesCatalog(Optional<String> office, String like, String unit)
+	{
+		return dsl.select(
 				AV_CWMS_TS_ID2.DB_OFFICE_ID,
 				AV_CWMS_TS_ID2.CWMS_TS_ID,
 				AV_CWMS_TS_ID2.UNIT_ID
 		)
-				.from(AV_CWMS_TS_ID2);
-
-		if( office.isPresent() ){
-			query.where(AV_CWMS_TS_ID2.DB_OFFICE_ID.upper().eq(office.get().toUpperCase()))
-					.and(AV_CWMS_TS_ID2.CWMS_TS_ID.upper().greaterThan(tsCursor));
-		} else {
-			query.where(AV_CWMS_TS_ID2.CWMS_TS_ID.upper().gt(tsCursor));
-		}
-		query.orderBy(AV_CWMS_TS_ID2.CWMS_TS_ID).limit(pageSize);
-		logger.finest( () -> query.getSQL(ParamType.INLINED));
-		Result<Record3<String, String, String>> result = query.fetch();
-		List<? extends CatalogEntry> entries = result.stream()
-				//.map( e -> e.into(usace.cwms.db.jooq.codegen.tables.records.AV_CWMS_TIMESERIES_ID2) )
+				.from(AV_CWMS_TS_ID2)
+				.where(catalogFilter(office, like, unit))
+				.orderBy(AV_CWMS_TS_ID2.DB_OFFICE_ID, AV_CWMS_TS_ID2.CWMS_TS_ID)
+				.fetchSize(STREAM_FETCH_SIZE)
+				.stream()
 				.map( e -> new TimeseriesCatalogEntry(e.get(AV_CWMS_TS_ID2.DB_OFFICE_ID),
 						e.get(AV_CWMS_TS_ID2.CWMS_TS_ID),
 						e.get(AV_CWMS_TS_ID2.UNIT_ID) )
-				)
-				.collect(Collectors.toList());
-		return new Catalog(tsCursor,total,pageSize,entries);
+				);
+	}
+
+	// Office ids are stored upper case, so the columns are compared as they are.
+	private static Condition catalogFilter(Optional<String> office, String like, String unit)
+	{
+		Condition filter = likeFilter(AV_CWMS_TS_ID2.CWMS_TS_ID, like);
+		if(office.isPresent())
+		{
+			filter = filter.and(AV_CWMS_TS_ID2.DB_OFFICE_ID.eq(office.get().toUpperCase()));
+		}
+		if(unit != null && !unit.isEmpty())
+		{
+			filter = filter.and(AV_CWMS_TS_ID2.UNIT_ID.eq(unit));
+		}
+		return filter;
 	}
 
 
@@ -381,52 +503,61 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
 		final List<RecentValue> retval = new ArrayList<>();
 
 		if (tsIds != null && !tsIds.isEmpty()) {
-			AV_TSV_DQU tsvView = AV_TSV_DQU.AV_TSV_DQU;
-			AV_CWMS_TS_ID2 tsView = AV_CWMS_TS_ID2;
-			SelectConditionStep<Record> innerSelect
-					= dsl.select(tsvView.asterisk(),
-					max(tsvView.DATE_TIME).over(partitionBy(tsvView.TS_CODE)).as("max_date_time"), tsView.CWMS_TS_ID)
-					.from(tsvView.join(tsView).on(tsvView.TS_CODE.eq(tsView.TS_CODE.cast(Long.class))))
-					.where(
-							tsView.CWMS_TS_ID.in(tsIds)
-									.and(tsvView.VALUE.isNotNull())
-									.and(tsvView.DATE_TIME.lt(futuredate))
-									.and(tsvView.DATE_TIME.gt(pastdate))
-									.and(tsvView.START_DATE.le(futuredate))
-									.and(tsvView.END_DATE.gt(pastdate)));
-
-
-			Field[] queryFields = new Field[]{
-					tsView.CWMS_TS_ID,
-					tsvView.OFFICE_ID,
-					tsvView.TS_CODE,
-					tsvView.UNIT_ID,
-					tsvView.DATE_TIME,
-					tsvView.VERSION_DATE,
-					tsvView.DATA_ENTRY_DATE,
-					tsvView.VALUE,
-					tsvView.QUALITY_CODE,
-					tsvView.START_DATE,
-					tsvView.END_DATE,
-					};
-
-			// look them back up by name b/c we are using them on results of innerselect.
-			List<Field<Object>> fields = Arrays.stream(queryFields)
-					.map(Field::getName)
-					.map(DSL::field).collect(
-							Collectors.toList());
+			LatestValueStore.Lookup cached = LatestValueStore.getInstance().lookup(tsIds, pastdate, futuredate);
+			retval.addAll(cached.getValues());
+			tsIds = cached.getUncoveredIds();
+		}
 
-			// I want to select tsvView.asterisk but we are selecting from an inner select and
-			// even though the inner select selects tsvView.asterisk it isn't the same.
-			// So we will just select the fields we want.  Unfortunately that means our results
-			// won't map into AV_TSV.AV_TSV
-			dsl.select(fields)
-					.from(innerSelect)
-					.where(field("DATE_TIME").eq(innerSelect.field("max_date_time")))
-					.forEach( jrecord -> {
-						RecentValue recentValue = buildRecentValue(tsvView, tsView, jrecord);
-						retval.add(recentValue);
-					});
+		if (tsIds != null && !tsIds.isEmpty()) {
+			// a group or a long ts-ids list can have more members than an IN list may hold
+			for (List<String> chunk : inListChunks(tsIds)) {
+				AV_TSV_DQU tsvView = AV_TSV_DQU.AV_TSV_DQU;
+				AV_CWMS_TS_ID2 tsView = AV_CWMS_TS_ID2;
+				SelectConditionStep<Record> innerSelect
+						= dsl.select(tsvView.asterisk(),
+						max(tsvView.DATE_TIME).over(partitionBy(tsvView.TS_CODE)).as("max_date_time"), tsView.CWMS_TS_ID)
+						.from(tsvView.join(tsView).on(tsvView.TS_CODE.eq(tsView.TS_CODE.cast(Long.class))))
+						.where(
+								tsView.CWMS_TS_ID.in(chunk)
+										.and(tsvView.VALUE.isNotNull())
+										.and(tsvView.DATE_TIME.lt(futuredate))
+										.and(tsvView.DATE_TIME.gt(pastdate))
+										.and(tsvView.START_DATE.le(futuredate))
+										.and(tsvView.END_DATE.gt(pastdate)));
+
+
+				Field[] queryFields = new Field[]{
+						tsView.CWMS_TS_ID,
+						tsvView.OFFICE_ID,
+						tsvView.TS_CODE,
+						tsvView.UNIT_ID,
+						tsvView.DATE_TIME,
+						tsvView.VERSION_DATE,
+						tsvView.DATA_ENTRY_DATE,
+						tsvView.VALUE,
+						tsvView.QUALITY_CODE,
+						tsvView.START_DATE,
+						tsvView.END_DATE,
+						};
+
+				// look them back up by name b/c we are using them on results of innerselect.
+				List<Field<Object>> fields = Arrays.stream(queryFields)
+						.map(Field::getName)
+						.map(DSL::field).collect(
+								Collectors.toList());
+
+				// I want to select tsvView.asterisk but we are selecting from an inner select and
+				// even though the inner select selects tsvView.asterisk it isn't the same.
+				// So we will just select the fields we want.  Unfortunately that means our results
+				// won't map into AV_TSV.AV_TSV
+				dsl.select(fields)
+						.from(innerSelect)
+						.where(field("DATE_TIME").eq(innerSelect.field("max_date_time")))
+						.forEach( jrecord -> {
+							RecentValue recentValue = buildRecentValue(tsvView, tsView, jrecord);
+							retval.add(recentValue);
+						});
+			}
 		}
 		return retval;
 	}
@@ -478,6 +609,16 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
 	{
 		List<RecentValue> retval  = new ArrayList<>();
 
+		if (categoryId != null && groupId != null && LatestValueStore.getInstance().isCovering(pastLimit)) {
+			// Resolving the members is cheap, if the table holds all of them the values query can be skipped.
+			List<String> memberIds = findTsGroupMemberIds(office, categoryId, groupId);
+			LatestValueStore.Lookup cached = LatestValueStore.getInstance().lookup(memberIds, pastLimit, futureLimit);
+			if(cached.getUncoveredIds().isEmpty())
+			{
+				return cached.getValues();
+			}
+		}
+
 		if (categoryId != null && groupId != null) {
 			AV_TSV_DQU tsvView = AV_TSV_DQU.AV_TSV_DQU;  // should we look at the daterange and possible use 30D view?
 
@@ -532,6 +673,122 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
 		return retval;
 	}
 
+	// Finds the ids of the timeseries assigned to the group, in group attribute order.
+	public List<String> findTsGroupMemberIds(String office, String categoryId, String groupId)
+	{
+		AV_TS_GRP_ASSGN tsView = AV_TS_GRP_ASSGN.AV_TS_GRP_ASSGN;
+
+		Condition condition = tsView.CATEGORY_ID.eq(categoryId).and(tsView.GROUP_ID.eq(groupId));
+		if(office != null)
+		{
+			condition = condition.and(tsView.DB_OFFICE_ID.eq(office));
+		}
+
+		return dsl.select(tsView.TS_ID)
+				.from(tsView)
+				.where(condition)
+				.orderBy(tsView.ATTRIBUTE)
+				.fetch(tsView.TS_ID);
+	}
+
+	// Finds the most recent value of every timeseries with data after the horizon.
+	public List<RecentValue> findAllMostRecents(Timestamp horizon)
+	{
+		AV_TSV_DQU tsvView = AV_TSV_DQU.AV_TSV_DQU;
+
+		SelectConditionStep<Record> innerSelect
+				= dsl.select(latestValueFields(tsvView))
+				.select(max(tsvView.DATE_TIME).over(partitionBy(tsvView.TS_CODE)).as("max_date_time"))
+				.from(tsvView)
+				.where(tsvView.VALUE.isNotNull()
+						.and(tsvView.DATE_TIME.gt(horizon))
+						.and(tsvView.END_DATE.gt(horizon)));
+
+		List<Field<Object>> fields = latestValueFields(tsvView).stream()
+				.map(Field::getName)
+				.map(DSL::field)
+				.collect(Collectors.toList());
+
+		return dsl.select(fields)
+				.from(innerSelect)
+				.where(field(tsvView.DATE_TIME.getName()).eq(innerSelect.field("max_date_time")))
+				.fetch(jrecord -> buildLatestValue(tsvView, jrecord));
+	}
+
+	// Finds the values after the horizon that were entered or updated after the given time.
+	public List<RecentValue> findEnteredSince(Timestamp enteredAfter, Timestamp horizon)
+	{
+		AV_TSV_DQU tsvView = AV_TSV_DQU.AV_TSV_DQU;
+
+		return dsl.select(latestValueFields(tsvView))
+				.from(tsvView)
+				.where(tsvView.VALUE.isNotNull()
+						.and(tsvView.DATE_TIME.gt(horizon))
+						.and(tsvView.END_DATE.gt(horizon))
+						.and(enteredAfter(tsvView, enteredAfter)))
+				.fetch(jrecord -> buildLatestValue(tsvView, jrecord));
+	}
+
+	// The latest data entry date of any value after the horizon, in UTC.
+	public Timestamp findMaxDataEntryDate(Timestamp horizon)
+	{
+		AV_TSV_DQU tsvView = AV_TSV_DQU.AV_TSV_DQU;
+
+		return dsl.select(maxDataEntryDateUtc(tsvView))
+				.from(tsvView)
+				.where(tsvView.DATE_TIME.gt(horizon).and(tsvView.END_DATE.gt(horizon)))
+				.fetchOne(0, Timestamp.class);
+	}
+
+	// DATA_ENTRY_DATE is a TIMESTAMP WITH TIME ZONE and jooq maps it to oracle.sql.TIMESTAMPTZ.
+	// Have the database convert it to a plain UTC timestamp instead.
+	// Only for the select list, a predicate on it can't use an index on the column.
+	static Field<Timestamp> dataEntryDateUtc(AV_TSV_DQU tsvView)
+	{
+		return DSL.field("sys_extract_utc({0})", Timestamp.class, tsvView.DATA_ENTRY_DATE);
+	}
+
+	// The latest data entry date in UTC, converted once after the max rather than for every row.
+	static Field<Timestamp> maxDataEntryDateUtc(AV_TSV_DQU tsvView)
+	{
+		return DSL.field("sys_extract_utc(max({0}))", Timestamp.class, tsvView.DATA_ENTRY_DATE);
+	}
+
+	// Rows entered after the UTC time.  The bare column is compared with a time zone aware bind
+	// made here, so the comparison is by instant and an index on DATA_ENTRY_DATE can be used.
+	static Condition enteredAfter(AV_TSV_DQU tsvView, Timestamp enteredAfter)
+	{
+		return DSL.condition("{0} > {1}", tsvView.DATA_ENTRY_DATE, utcBind(enteredAfter));
+	}
+
+	static Field<OffsetDateTime> utcBind(Timestamp utc)
+	{
+		return DSL.val(OffsetDateTime.ofInstant(utc.toInstant(), ZoneOffset.UTC), SQLDataType.TIMESTAMPWITHTIMEZONE);
+	}
+
+	private static List<Field<?>> latestValueFields(AV_TSV_DQU tsvView)
+	{
+		return Arrays.asList(
+				tsvView.CWMS_TS_ID,
+				tsvView.OFFICE_ID,
+				tsvView.TS_CODE,
+				tsvView.UNIT_ID,
+				tsvView.DATE_TIME,
+				tsvView.VERSION_DATE,
+				dataEntryDateUtc(tsvView).as("DATA_ENTRY_DATE_UTC"),
+				tsvView.VALUE,
+				tsvView.QUALITY_CODE,
+				tsvView.START_DATE,
+				tsvView.END_DATE);
+	}
+
+	@NotNull
+	private RecentValue buildLatestValue(AV_TSV_DQU tsvView, Record jrecord)
+	{
+		TsvDqu tsv = buildTsvDqu(tsvView, jrecord, jrecord.getValue("DATA_ENTRY_DATE_UTC", Timestamp.class));
+		return new RecentValue(tsv.getCwmsTsId(), tsv);
+	}
+
 	@NotNull
 	private TsvDquId buildDquId(AV_TSV_DQU tsvView, Record jrecord)
 	{
@@ -602,6 +859,13 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
 
 		long completedAt = tsDao.store(connection, officeId, tsId, units, timeArray, valueArray, qualityArray, count,
 				storeRule.getRule(), OVERRIDE_PROTECTION, versionDate, createAsLrts);
+
+		if(values != null && !values.isEmpty())
+		{
+			TimeSeries.Record latest = Collections.max(values, Comparator.comparing(TimeSeries.Record::getDateTime));
+			LatestValueStore.getInstance().recordWrite(officeId, tsId, units, latest.getDateTime(), latest.getValue(),
+					latest.getQualityCode());
+		}
 	}
 
 	public void delete(String officeId, String tsId)
@@ -611,6 +875,7 @@ public class TimeSeriesDaoImpl extends JooqDao<TimeSeries> implements TimeSeries
 
 			tsDao.deleteAll(connection, officeId, tsId);
 		});
+		LatestValueStore.getInstance().recordDelete(officeId, tsId);
 	}
 
 	protected BigDecimal retrieveTsCode(String tsId)
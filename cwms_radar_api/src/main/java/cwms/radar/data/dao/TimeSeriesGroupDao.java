@@ -1,11 +1,13 @@
 package cwms.radar.data.dao;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 import cwms.radar.data.dto.TimeSeriesGroup;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Record;
+import org.jooq.ResultQuery;
 import org.jooq.Select;
 import org.jooq.SelectJoinStep;
 import org.jooq.SelectWhereStep;
@@ -51,6 +53,29 @@ public class TimeSeriesGroupDao extends JooqDao<TimeSeriesGroup>
 				.fetch().into(TimeSeriesGroup.class);
 	}
 
+	/**
+	 * The same groups as getTimeSeriesGroups, read lazily.  The stream has to be closed.
+	 */
+	public Stream<TimeSeriesGroup> streamTimeSeriesGroups(String officeId)
+	{
+		AV_TS_CAT_GRP table = AV_TS_CAT_GRP.AV_TS_CAT_GRP;
+
+		SelectJoinStep<Record> step = dsl.selectDistinct(table.CAT_DB_OFFICE_ID, table.TS_CATEGORY_ID,
+				table.TS_CATEGORY_DESC, table.GRP_DB_OFFICE_ID, table.TS_GROUP_ID,
+				table.TS_GROUP_DESC, table.SHARED_TS_ALIAS_ID, table.SHARED_REF_TS_ID).from(table);
+
+		ResultQuery<Record> select = step;
+
+		if ( officeId != null && !officeId.isEmpty())
+		{
+			select = step.where(table.GRP_DB_OFFICE_ID.eq(officeId));
+		}
+
+		return select.fetchSize(STREAM_FETCH_SIZE)
+				.stream()
+				.map(r -> r.into(TimeSeriesGroup.class));
+	}
+
 	public List<TimeSeriesGroup> getTimeSeriesGroups(String officeId, String categoryId, String groupId)
 	{
 		AV_TS_CAT_GRP table = AV_TS_CAT_GRP.AV_TS_CAT_GRP;
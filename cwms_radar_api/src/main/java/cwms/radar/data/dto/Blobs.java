@@ -46,8 +46,10 @@ public class Blobs extends CwmsDTOPaginated {
 
         public Blobs build(){
             if( this.workingBlobs.blobs.size() == this.workingBlobs.pageSize){
+                // keyed by office and id only, a description may hold the cursor's delimiter
+                Blob last = this.workingBlobs.blobs.get(this.workingBlobs.blobs.size()-1);
                 this.workingBlobs.nextPage = encodeCursor(
-                            this.workingBlobs.blobs.get(this.workingBlobs.blobs.size()-1).toString().toUpperCase(),
+                            (last.getOffice() + "/" + last.getId()).toUpperCase(),
                             this.workingBlobs.pageSize,
                             this.workingBlobs.total);
             } else {
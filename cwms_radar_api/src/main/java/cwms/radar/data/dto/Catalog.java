@@ -1,9 +1,7 @@
 package cwms.radar.data.dto;
 
-import java.util.Base64;
 import java.util.List;
 import java.util.Objects;
-import java.util.Base64.Encoder;
 
 import javax.xml.bind.annotation.*;
 
@@ -35,7 +33,7 @@ public class Catalog extends CwmsDTOPaginated {
         Objects.requireNonNull(entries, "List of catalog entries must be a valid list, even if empty");
         this.entries = entries;
         if( entries.size() == pageSize){
-            nextPage = encodeCursor(entries.get(entries.size()-1).toString().toUpperCase(), total, "|||");
+            nextPage = encodeCursor("|||", cursorKey(entries.get(entries.size()-1)), total);
         } else {
             nextPage = null;
         }
@@ -48,4 +46,38 @@ public class Catalog extends CwmsDTOPaginated {
         return entries;
     }
 
+    /**
+     * The exact (office, id) of the last entry on the page the cursor came from, the next page
+     * starts after it.
+     * @param cursor a nextPage returned with a catalog
+     * @return the office and id, or null for the first page
+     */
+    public static String[] decodeKey(String cursor) {
+        String[] parts = decodeCursor(cursor, "|||");
+        if( parts.length < 2 ){
+            return null;
+        }
+        String[] key = parts[0].split("/", 2);
+        return key.length == 2 ? key : null;
+    }
+
+    /**
+     * @param cursor a nextPage returned with a catalog
+     * @return the total counted for the first page, carried so later pages don't count again
+     */
+    public static int decodeTotal(String cursor) {
+        String[] parts = decodeCursor(cursor, "|||");
+        return parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+    }
+
+    private static String cursorKey(CatalogEntry entry) {
+        String id;
+        if( entry instanceof LocationCatalogEntry ){
+            id = ((LocationCatalogEntry) entry).getName();
+        } else {
+            id = ((TimeseriesCatalogEntry) entry).getFullName();
+        }
+        return entry.getOffice() + "/" + id;
+    }
+
 }
@@ -0,0 +1,64 @@
+package cwms.radar.data.dto;
+
+/**
+ * Where a location is, as answered by a spatial query.  The distance is only set for
+ * queries around a point and is in kilometers.
+ */
+public class LocationPoint implements CwmsDTO
+{
+	private final String officeId;
+	private final String name;
+	private final double latitude;
+	private final double longitude;
+	private final Double distance;
+
+	public LocationPoint(String officeId, String name, double latitude, double longitude)
+	{
+		this(officeId, name, latitude, longitude, null);
+	}
+
+	public LocationPoint(String officeId, String name, double latitude, double longitude, Double distance)
+	{
+		this.officeId = officeId;
+		this.name = name;
+		this.latitude = latitude;
+		this.longitude = longitude;
+		this.distance = distance;
+	}
+
+	public String getOfficeId()
+	{
+		return officeId;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public double getLatitude()
+	{
+		return latitude;
+	}
+
+	public double getLongitude()
+	{
+		return longitude;
+	}
+
+	public Double getDistance()
+	{
+		return distance;
+	}
+
+	public LocationPoint withDistance(double distance)
+	{
+		return new LocationPoint(officeId, name, latitude, longitude, distance);
+	}
+
+	@Override
+	public String toString()
+	{
+		return officeId + "/" + name + "@" + latitude + "," + longitude;
+	}
+}
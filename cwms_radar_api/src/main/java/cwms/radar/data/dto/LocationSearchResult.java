@@ -0,0 +1,68 @@
+package cwms.radar.data.dto;
+
+/**
+ * One ranked answer to a location search, with the text that matched it.
+ */
+public class LocationSearchResult implements CwmsDTO
+{
+	private final String officeId;
+	private final String name;
+	private final String publicName;
+	private final String longName;
+	private final String nearestCity;
+	private final String matched;
+	private final double score;
+
+	public LocationSearchResult(String officeId, String name, String publicName, String longName, String nearestCity,
+								String matched, double score)
+	{
+		this.officeId = officeId;
+		this.name = name;
+		this.publicName = publicName;
+		this.longName = longName;
+		this.nearestCity = nearestCity;
+		this.matched = matched;
+		this.score = score;
+	}
+
+	public String getOfficeId()
+	{
+		return officeId;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public String getPublicName()
+	{
+		return publicName;
+	}
+
+	public String getLongName()
+	{
+		return longName;
+	}
+
+	public String getNearestCity()
+	{
+		return nearestCity;
+	}
+
+	public String getMatched()
+	{
+		return matched;
+	}
+
+	public double getScore()
+	{
+		return score;
+	}
+
+	@Override
+	public String toString()
+	{
+		return officeId + "/" + name + " (" + matched + ", " + score + ")";
+	}
+}
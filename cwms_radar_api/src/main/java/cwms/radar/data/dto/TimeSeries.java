@@ -4,6 +4,8 @@ import java.lang.reflect.Field;
 import java.sql.Timestamp;
 import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
 import javax.xml.bind.annotation.XmlAccessOrder;
@@ -70,6 +72,9 @@ public class TimeSeries extends CwmsDTOPaginated {
     @Schema(implementation = Record.class, description = "List of retrieved time-series values")
     List<Record> values;
 
+    @Schema(description = "Only returned when values were requested with 'since'. Pass this as 'since' to get the values entered or updated after this response.")
+    String nextSince;
+
     @SuppressWarnings("unused") // required so JAXB can initialize and marshal
     private TimeSeries() {}
 
@@ -119,6 +124,40 @@ public class TimeSeries extends CwmsDTOPaginated {
         return values;
     }
 
+    public String getNextSince() {
+        return nextSince;
+    }
+
+    public void setNextSince(String nextSince) {
+        this.nextSince = nextSince;
+    }
+
+    /**
+     * @param enteredAfter the data entry date high-water mark
+     * @return an opaque token for the 'since' parameter
+     */
+    public static String encodeSince(Timestamp enteredAfter) {
+        return encodeCursor(delimiter, "since", enteredAfter.getTime());
+    }
+
+    /**
+     * @param since a token from 'next-since', or an ISO-8601 date-time with offset to start synchronizing from
+     * @return the data entry date high-water mark
+     */
+    public static Timestamp decodeSince(String since) {
+        try {
+            return Timestamp.from(ZonedDateTime.parse(since, DateTimeFormatter.ISO_DATE_TIME).toInstant());
+        } catch (DateTimeParseException ex) {
+            // not a date-time, it should be a token
+        }
+
+        String[] parts = decodeCursor(since);
+        if(parts.length != 2 || !"since".equals(parts[0])) {
+            throw new IllegalArgumentException("Invalid since token: " + since);
+        }
+        return new Timestamp(Long.parseLong(parts[1]));
+    }
+
     @XmlElementWrapper(name="valueColumns")
     @XmlElement(name="column")
     @JsonIgnore
@@ -0,0 +1,65 @@
+package cwms.radar.data.dto.basinconnectivity;
+
+import cwms.radar.data.dto.CwmsDTO;
+import cwms.radar.data.dto.RecentValue;
+
+/**
+ * A node of a basin reached by walking its connectivity graph, how far it is from where the walk
+ * started and, when asked for, the latest value of one of its time series.
+ */
+public class BasinNodeVisit implements CwmsDTO
+{
+    private final String id;
+    private final String streamId;
+    private final Double station;
+    private final String bank;
+    private final String label;
+    private final int hops;
+    private final RecentValue latestValue;
+
+    public BasinNodeVisit(String id, String streamId, Double station, String bank, String label, int hops, RecentValue latestValue)
+    {
+        this.id = id;
+        this.streamId = streamId;
+        this.station = station;
+        this.bank = bank;
+        this.label = label;
+        this.hops = hops;
+        this.latestValue = latestValue;
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public String getStreamId()
+    {
+        return streamId;
+    }
+
+    public Double getStation()
+    {
+        return station;
+    }
+
+    public String getBank()
+    {
+        return bank;
+    }
+
+    public String getLabel()
+    {
+        return label;
+    }
+
+    public int getHops()
+    {
+        return hops;
+    }
+
+    public RecentValue getLatestValue()
+    {
+        return latestValue;
+    }
+}
@@ -1,5 +1,7 @@
 package cwms.radar.data.dto.catalog;
 
+import java.util.Objects;
+
 import javax.xml.bind.annotation.*;
 
 @XmlRootElement(name="alias")
@@ -26,6 +28,23 @@ public class LocationAlias {
         return this.value;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        LocationAlias other = (LocationAlias) o;
+        return Objects.equals(name, other.name) && Objects.equals(value, other.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, value);
+    }
+
     @Override
     public String toString() {
         return "{" +
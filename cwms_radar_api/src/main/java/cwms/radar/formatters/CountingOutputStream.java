@@ -0,0 +1,41 @@
+package cwms.radar.formatters;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Counts the bytes written through it, so a response that is streamed can still be measured.
+ * Closing it does not close the underlying stream.
+ */
+public class CountingOutputStream extends FilterOutputStream {
+    private long count = 0;
+
+    public CountingOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        count += len;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    /**
+     * @return the bytes written so far
+     */
+    public long getCount() {
+        return count;
+    }
+}
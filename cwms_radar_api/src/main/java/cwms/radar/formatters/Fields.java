@@ -0,0 +1,129 @@
+package cwms.radar.formatters;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.AnnotatedClass;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import cwms.radar.data.dto.Location;
+import cwms.radar.data.dto.LocationGroup;
+import cwms.radar.data.dto.catalog.LocationCatalogEntry;
+import cwms.radar.data.dto.catalog.TimeseriesCatalogEntry;
+import cwms.radar.formatters.json.JsonV2;
+
+/**
+ * Sparse fieldsets: the fields= query parameter, a comma separated list of the properties a
+ * client wants, named as they are in the JSON output (kebab case).
+ *
+ * The DAOs leave the columns behind the other properties out of their queries, the JSON and CSV
+ * formatters leave the properties out of the body.  Only the DTOs listed in PROJECTABLE are
+ * trimmed, the wrappers around them, a Catalog's paging for instance, are always written whole.
+ */
+public final class Fields {
+    public static final String FILTER_ID = "radar-fields";
+
+    private static final Set<Class<?>> PROJECTABLE = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(
+            LocationCatalogEntry.class,
+            TimeseriesCatalogEntry.class,
+            Location.class,
+            LocationGroup.class
+    )));
+
+    private static final ObjectMapper NAMING = JsonV2.buildObjectMapper();
+    private static final Map<Class<?>, Set<String>> propertyNames = new ConcurrentHashMap<>();
+
+    private Fields() {
+    }
+
+    /**
+     * @param fields the fields= parameter, may be null
+     * @param type the DTO the fields belong to
+     * @return the fields asked for, empty for all of them
+     * @throws IllegalArgumentException if a field isn't a property of type
+     */
+    public static Set<String> parse(String fields, Class<?> type) {
+        if (fields == null || fields.trim().isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> known = getPropertyNames(type);
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim().toLowerCase();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!known.contains(name)) {
+                throw new IllegalArgumentException("Unknown field '" + name + "' for " + type.getSimpleName()
+                        + ", expected some of " + known);
+            }
+            selected.add(name);
+        }
+        return Collections.unmodifiableSet(selected);
+    }
+
+    /**
+     * @return true if the property is wanted, every property is when no fields were given
+     */
+    public static boolean wants(Set<String> fields, String name) {
+        return fields.isEmpty() || fields.contains(name);
+    }
+
+    /**
+     * The JSON property names of a DTO.
+     */
+    public static Set<String> getPropertyNames(Class<?> type) {
+        return propertyNames.computeIfAbsent(type, t -> {
+            BeanDescription description = NAMING.getSerializationConfig().introspect(NAMING.constructType(t));
+            Set<String> names = new TreeSet<>();
+            List<BeanPropertyDefinition> properties = description.findProperties();
+            for (BeanPropertyDefinition property : properties) {
+                if (property.couldSerialize()) {
+                    names.add(property.getName());
+                }
+            }
+            return Collections.unmodifiableSet(names);
+        });
+    }
+
+    /**
+     * A copy of a mapper whose projectable DTOs go through the FILTER_ID filter.  Write with
+     * writer(), the mapper itself has no filter to give them.
+     */
+    public static ObjectMapper projecting(ObjectMapper om) {
+        ObjectMapper retval = om.copy();
+        retval.setAnnotationIntrospector(new JacksonAnnotationIntrospector() {
+            @Override
+            public Object findFilterId(Annotated a) {
+                if (a instanceof AnnotatedClass && PROJECTABLE.contains(((AnnotatedClass) a).getRawType())) {
+                    return FILTER_ID;
+                }
+                return super.findFilterId(a);
+            }
+        });
+        return retval;
+    }
+
+    /**
+     * @param projecting a mapper from projecting()
+     * @param fields the fields to keep, empty for all of them
+     */
+    public static ObjectWriter writer(ObjectMapper projecting, Set<String> fields) {
+        SimpleBeanPropertyFilter filter = fields.isEmpty()
+                ? SimpleBeanPropertyFilter.serializeAll()
+                : SimpleBeanPropertyFilter.filterOutAllExcept(fields);
+        return projecting.writer(new SimpleFilterProvider().addFilter(FILTER_ID, filter));
+    }
+}
@@ -1,10 +1,13 @@
 package cwms.radar.formatters;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -13,6 +16,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -29,17 +33,22 @@ public class Formats {
     public static final String XMLV2 = "application/xml;version=2";
     public static final String WML2 = "application/vnd.opengis.waterml+xml";
     public static final String JSONV2 = "application/json;version=2";
+    public static final String JSONV2_REGULAR = "application/json;version=2;encoding=regular";
     public static final String TAB = "text/tab-separated-values";
     public static final String CSV = "text/csv";
     public static final String GEOJSON = "application/geo+json";
     public static final String PGJSON = "application/vnd.pg+json";
     public static final String NAMED_PGJSON = "application/vnd.named+pg+json";
+    public static final String ARROW_STREAM = "application/vnd.apache.arrow.stream";
+    public static final String SMILE = "application/x-jackson-smile";
+    public static final String CBOR = "application/cbor";
+    public static final String NDJSON = "application/x-ndjson";
 
 
     private static List<ContentType> contentTypeList = new ArrayList<>();
     static {
         contentTypeList.addAll(
-            Arrays.asList(JSON,XML, XMLV2, WML2,JSONV2,TAB,CSV, GEOJSON, PGJSON, NAMED_PGJSON)
+            Arrays.asList(JSON,XML, XMLV2, WML2,JSONV2,JSONV2_REGULAR,TAB,CSV, GEOJSON, PGJSON, NAMED_PGJSON, ARROW_STREAM, SMILE, CBOR, NDJSON)
             .stream().map( ct -> new ContentType(ct)).collect(Collectors.toList()));
     }
     private static Map<String,String> typeMap = new LinkedHashMap<>();
@@ -52,6 +61,10 @@ public class Formats {
         typeMap.put("geojson",Formats.GEOJSON);
         typeMap.put("pgjson", Formats.PGJSON);
         typeMap.put("named-pgjson", Formats.NAMED_PGJSON);
+        typeMap.put("arrow", Formats.ARROW_STREAM);
+        typeMap.put("smile", Formats.SMILE);
+        typeMap.put("cbor", Formats.CBOR);
+        typeMap.put("ndjson", Formats.NDJSON);
     }
 
 
@@ -164,6 +177,86 @@ public class Formats {
         return formats.getFormatted(type,toFormat,rootType);
     }
 
+    /**
+     * Formats only the given fields, if the formatter for this content-type can leave the others
+     * out.  Those that can't write everything the DTO holds.
+     * @param fields property names from Fields.parse, empty for all of them
+     */
+    public static String format(ContentType type, CwmsDTO toFormat, Set<String> fields) throws FormattingException{
+        init();
+        Objects.requireNonNull(toFormat,"Object to be formatted should not be null");
+        OutputFormatter outputFormatter = formats.getOutputFormatter(type, toFormat.getClass());
+        if(!fields.isEmpty() && outputFormatter instanceof ProjectingOutputFormatter){
+            return ((ProjectingOutputFormatter) outputFormatter).format(toFormat, fields);
+        }
+        return formats.getFormatted(type, toFormat);
+    }
+
+    public static String format(ContentType type, List<? extends CwmsDTO> toFormat, Class<? extends CwmsDTO> rootType, Set<String> fields) throws FormattingException{
+        init();
+        OutputFormatter outputFormatter = formats.getOutputFormatter(type, rootType);
+        if(!fields.isEmpty() && outputFormatter instanceof ProjectingOutputFormatter){
+            return ((ProjectingOutputFormatter) outputFormatter).format(toFormat, fields);
+        }
+        return formats.getFormatted(type, toFormat, rootType);
+    }
+
+
+    /**
+     * @return true if the formatter for this content-type and data-type must be written to a stream
+     */
+    public static boolean isStreaming(ContentType type, Class<? extends CwmsDTO> dataType) {
+        init();
+        return formats.getOutputFormatter(type, dataType) instanceof StreamingOutputFormatter;
+    }
+
+    public static void format(ContentType type, CwmsDTO toFormat, OutputStream out) throws IOException {
+        logger.finest("format to stream");
+        init();
+        Objects.requireNonNull(toFormat,"Object to be formatted should not be null");
+        OutputFormatter outputFormatter = formats.getOutputFormatter(type, toFormat.getClass());
+        if(outputFormatter instanceof StreamingOutputFormatter){
+            ((StreamingOutputFormatter) outputFormatter).format(toFormat, out);
+        } else {
+            out.write(formats.getFormatted(type, toFormat).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    public static void format(ContentType type, List<? extends CwmsDTO> toFormat, Class<? extends CwmsDTO> rootType, OutputStream out) throws IOException {
+        logger.finest("format list to stream");
+        init();
+        OutputFormatter outputFormatter = formats.getOutputFormatter(type, rootType);
+        if(outputFormatter instanceof StreamingOutputFormatter){
+            ((StreamingOutputFormatter) outputFormatter).format(toFormat, out);
+        } else {
+            out.write(formats.getFormatted(type, toFormat, rootType).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+
+    /**
+     * Formats into memory, for results small enough to hold that may be in a binary format.
+     */
+    public static byte[] formatBytes(ContentType type, CwmsDTO toFormat) throws FormattingException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            format(type, toFormat, out);
+        } catch(IOException err) {
+            throw new FormattingException("Could not format :" + toFormat, err);
+        }
+        return out.toByteArray();
+    }
+
+    public static byte[] formatBytes(ContentType type, List<? extends CwmsDTO> toFormat, Class<? extends CwmsDTO> rootType) throws FormattingException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            format(type, toFormat, rootType, out);
+        } catch(IOException err) {
+            throw new FormattingException("Could not format :" + toFormat, err);
+        }
+        return out.toByteArray();
+    }
+
 
     /**
      * Given the history of RADAR, this function allows the old way to mix with the new way.
@@ -0,0 +1,15 @@
+package cwms.radar.formatters;
+
+import java.util.List;
+import java.util.Set;
+
+import cwms.radar.data.dto.CwmsDTO;
+
+/**
+ * A formatter that can leave out the properties a client didn't ask for with fields=.
+ * An empty set of fields means all of them.
+ */
+public interface ProjectingOutputFormatter extends OutputFormatter {
+    public String format(CwmsDTO dto, Set<String> fields);
+    public String format(List<? extends CwmsDTO> dtoList, Set<String> fields);
+}
@@ -0,0 +1,16 @@
+package cwms.radar.formatters;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import cwms.radar.data.dto.CwmsDTO;
+
+/**
+ * A formatter that writes its output to a stream, for binary formats or output that shouldn't
+ * be built up as a String first.
+ */
+public interface StreamingOutputFormatter extends OutputFormatter {
+    public void format(CwmsDTO dto, OutputStream out) throws IOException;
+    public void format(List<? extends CwmsDTO> dtoList, OutputStream out) throws IOException;
+}
@@ -0,0 +1,327 @@
+package cwms.radar.formatters.arrow;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import cwms.radar.data.dto.Catalog;
+import cwms.radar.data.dto.CwmsDTO;
+import cwms.radar.data.dto.TimeSeries;
+import cwms.radar.data.dto.catalog.CatalogEntry;
+import cwms.radar.data.dto.catalog.LocationCatalogEntry;
+import cwms.radar.data.dto.catalog.TimeseriesCatalogEntry;
+import cwms.radar.formatters.Formats;
+import cwms.radar.formatters.FormattingException;
+import cwms.radar.formatters.StreamingOutputFormatter;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import service.annotations.FormatService;
+
+/**
+ * Writes time series and catalogs as an Apache Arrow IPC stream.
+ *
+ * A time series is one stream of (date-time, value, quality-code) columns with the name, office,
+ * units and interval in the schema metadata.  A list of time series adds a name column.  Rows
+ * are written in record batches of BATCH_SIZE so the client can start on the first batch while
+ * the rest are sent.
+ */
+@FormatService(contentType = Formats.ARROW_STREAM, dataTypes = {
+	TimeSeries.class,
+	Catalog.class
+})
+public class ArrowStreamFormatter implements StreamingOutputFormatter {
+
+	public static final int BATCH_SIZE = 8192;
+
+	private static final ArrowType UTF8 = new ArrowType.Utf8();
+	private static final ArrowType FLOAT64 = new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+	private static final ArrowType INT32 = new ArrowType.Int(32, true);
+	private static final ArrowType UTC_MILLIS = new ArrowType.Timestamp(TimeUnit.MILLISECOND, "UTC");
+
+	@Override
+	public String getContentType() {
+		return Formats.ARROW_STREAM;
+	}
+
+	@Override
+	public String format(CwmsDTO dto) {
+		throw new FormattingException("Arrow is a binary format and has to be written to a stream");
+	}
+
+	@Override
+	public String format(List<? extends CwmsDTO> dtoList) {
+		throw new FormattingException("Arrow is a binary format and has to be written to a stream");
+	}
+
+	@Override
+	public void format(CwmsDTO dto, OutputStream out) throws IOException {
+		if(dto instanceof TimeSeries)
+		{
+			TimeSeries ts = (TimeSeries) dto;
+			Map<String, String> metadata = new LinkedHashMap<>();
+			putIfNotNull(metadata, "name", ts.getName());
+			putIfNotNull(metadata, "office-id", ts.getOfficeId());
+			putIfNotNull(metadata, "units", ts.getUnits());
+			putIfNotNull(metadata, "interval", ts.getInterval() != null ? ts.getInterval().toString() : null);
+			putIfNotNull(metadata, "next-page", ts.getNextPage());
+			writeTimeSeries(Arrays.asList(ts), false, metadata, out);
+		}
+		else if(dto instanceof Catalog)
+		{
+			writeCatalog((Catalog) dto, out);
+		}
+		else
+		{
+			throw new FormattingException("Arrow format is not available for " + dto.getClass().getName());
+		}
+	}
+
+	@Override
+	public void format(List<? extends CwmsDTO> dtoList, OutputStream out) throws IOException {
+		List<TimeSeries> series = new ArrayList<>();
+		for(CwmsDTO dto : dtoList)
+		{
+			if(!(dto instanceof TimeSeries))
+			{
+				throw new FormattingException("Arrow format is only available for lists of time series");
+			}
+			series.add((TimeSeries) dto);
+		}
+		writeTimeSeries(series, true, new LinkedHashMap<>(), out);
+	}
+
+	private void writeTimeSeries(List<TimeSeries> series, boolean withName, Map<String, String> metadata, OutputStream out) throws IOException
+	{
+		List<Field> fields = new ArrayList<>();
+		if(withName)
+		{
+			fields.add(field("name", UTF8, false));
+		}
+		fields.add(field("date-time", UTC_MILLIS, false));
+		fields.add(field("value", FLOAT64, true));
+		fields.add(field("quality-code", INT32, false));
+
+		try(BufferAllocator allocator = new RootAllocator();
+			VectorSchemaRoot root = VectorSchemaRoot.create(new Schema(fields, metadata), allocator))
+		{
+			ArrowStreamWriter writer = new ArrowStreamWriter(root, null, out);
+			writer.start();
+
+			VarCharVector names = withName ? (VarCharVector) root.getVector("name") : null;
+			TimeStampMilliTZVector times = (TimeStampMilliTZVector) root.getVector("date-time");
+			Float8Vector values = (Float8Vector) root.getVector("value");
+			IntVector qualities = (IntVector) root.getVector("quality-code");
+
+			int row = 0;
+			root.allocateNew();
+			for(TimeSeries ts : series)
+			{
+				byte[] name = ts.getName() != null ? ts.getName().getBytes(StandardCharsets.UTF_8) : new byte[0];
+				for(TimeSeries.Record record : ts.getValues())
+				{
+					if(names != null)
+					{
+						names.setSafe(row, name);
+					}
+					times.setSafe(row, record.getDateTime().getTime());
+					if(record.getValue() != null)
+					{
+						values.setSafe(row, record.getValue());
+					}
+					else
+					{
+						values.setNull(row);
+					}
+					qualities.setSafe(row, record.getQualityCode());
+
+					if(++row == BATCH_SIZE)
+					{
+						row = writeBatch(root, writer, row);
+					}
+				}
+			}
+			if(row > 0)
+			{
+				writeBatch(root, writer, row);
+			}
+			// Not closed, that would close the caller's stream.
+			writer.end();
+		}
+		out.flush();
+	}
+
+	private void writeCatalog(Catalog catalog, OutputStream out) throws IOException
+	{
+		List<? extends CatalogEntry> entries = catalog.getEntries();
+		List<Column<CatalogEntry>> columns = new ArrayList<>();
+		columns.add(Column.utf8("office", CatalogEntry::getOffice));
+		if(!entries.isEmpty() && entries.get(0) instanceof LocationCatalogEntry)
+		{
+			columns.add(Column.utf8("name", e -> ((LocationCatalogEntry) e).getName()));
+			columns.add(Column.utf8("nearest-city", e -> ((LocationCatalogEntry) e).getNearestCity()));
+			columns.add(Column.utf8("public-name", e -> ((LocationCatalogEntry) e).getPublicName()));
+			columns.add(Column.utf8("long-name", e -> ((LocationCatalogEntry) e).getLongName()));
+			columns.add(Column.utf8("description", e -> ((LocationCatalogEntry) e).getDescription()));
+			columns.add(Column.utf8("kind", e -> ((LocationCatalogEntry) e).getKind()));
+			columns.add(Column.utf8("type", e -> ((LocationCatalogEntry) e).getType()));
+			columns.add(Column.utf8("time-zone", e -> ((LocationCatalogEntry) e).getTimeZone()));
+			columns.add(Column.float64("latitude", e -> ((LocationCatalogEntry) e).getLatitude()));
+			columns.add(Column.float64("longitude", e -> ((LocationCatalogEntry) e).getLongitude()));
+			columns.add(Column.utf8("horizontal-datum", e -> ((LocationCatalogEntry) e).getHorizontalDatum()));
+			columns.add(Column.float64("elevation", e -> ((LocationCatalogEntry) e).getElevation()));
+			columns.add(Column.utf8("unit", e -> ((LocationCatalogEntry) e).getUnit()));
+			columns.add(Column.utf8("vertical-datum", e -> ((LocationCatalogEntry) e).getVerticalDatum()));
+			columns.add(Column.utf8("nation", e -> ((LocationCatalogEntry) e).getNation()));
+			columns.add(Column.utf8("state", e -> ((LocationCatalogEntry) e).getState()));
+			columns.add(Column.utf8("county", e -> ((LocationCatalogEntry) e).getCounty()));
+			columns.add(Column.utf8("bounding-office", e -> ((LocationCatalogEntry) e).getBoundingOffice()));
+			columns.add(Column.bool("active", e -> ((LocationCatalogEntry) e).isActive()));
+		}
+		else
+		{
+			columns.add(Column.utf8("name", e -> ((TimeseriesCatalogEntry) e).getFullName()));
+			columns.add(Column.utf8("units", e -> ((TimeseriesCatalogEntry) e).getUnits()));
+		}
+
+		List<Field> fields = new ArrayList<>();
+		for(Column<CatalogEntry> column : columns)
+		{
+			fields.add(field(column.name, column.type, true));
+		}
+		Map<String, String> metadata = new LinkedHashMap<>();
+		putIfNotNull(metadata, "next-page", catalog.getNextPage());
+		putIfNotNull(metadata, "total", catalog.getTotal() != null ? catalog.getTotal().toString() : null);
+
+		try(BufferAllocator allocator = new RootAllocator();
+			VectorSchemaRoot root = VectorSchemaRoot.create(new Schema(fields, metadata), allocator))
+		{
+			ArrowStreamWriter writer = new ArrowStreamWriter(root, null, out);
+			writer.start();
+
+			int row = 0;
+			root.allocateNew();
+			for(CatalogEntry entry : entries)
+			{
+				for(int i = 0; i < columns.size(); i++)
+				{
+					columns.get(i).set(root.getVector(i), row, entry);
+				}
+				if(++row == BATCH_SIZE)
+				{
+					row = writeBatch(root, writer, row);
+				}
+			}
+			if(row > 0)
+			{
+				writeBatch(root, writer, row);
+			}
+			writer.end();
+		}
+		out.flush();
+	}
+
+	private static int writeBatch(VectorSchemaRoot root, ArrowStreamWriter writer, int rows) throws IOException
+	{
+		root.setRowCount(rows);
+		writer.writeBatch();
+		root.allocateNew();
+		return 0;
+	}
+
+	private static Field field(String name, ArrowType type, boolean nullable)
+	{
+		return new Field(name, new FieldType(nullable, type, null), null);
+	}
+
+	private static void putIfNotNull(Map<String, String> metadata, String key, String value)
+	{
+		if(value != null)
+		{
+			metadata.put(key, value);
+		}
+	}
+
+	/**
+	 * One column of a catalog and how to fill it from an entry.
+	 */
+	private static final class Column<T>
+	{
+		private final String name;
+		private final ArrowType type;
+		private final Function<T, Object> getter;
+
+		private Column(String name, ArrowType type, Function<T, Object> getter)
+		{
+			this.name = name;
+			this.type = type;
+			this.getter = getter;
+		}
+
+		static <T> Column<T> utf8(String name, Function<T, Object> getter)
+		{
+			return new Column<>(name, UTF8, getter);
+		}
+
+		static <T> Column<T> float64(String name, Function<T, Object> getter)
+		{
+			return new Column<>(name, FLOAT64, getter);
+		}
+
+		static <T> Column<T> bool(String name, Function<T, Object> getter)
+		{
+			return new Column<>(name, new ArrowType.Bool(), getter);
+		}
+
+		void set(FieldVector vector, int row, T entry)
+		{
+			Object value = getter.apply(entry);
+			if(value == null)
+			{
+				if(vector instanceof VarCharVector)
+				{
+					((VarCharVector) vector).setNull(row);
+				}
+				else if(vector instanceof Float8Vector)
+				{
+					((Float8Vector) vector).setNull(row);
+				}
+				else
+				{
+					((BitVector) vector).setNull(row);
+				}
+			}
+			else if(vector instanceof VarCharVector)
+			{
+				((VarCharVector) vector).setSafe(row, value.toString().getBytes(StandardCharsets.UTF_8));
+			}
+			else if(vector instanceof Float8Vector)
+			{
+				((Float8Vector) vector).setSafe(row, ((Number) value).doubleValue());
+			}
+			else
+			{
+				((BitVector) vector).setSafe(row, Boolean.TRUE.equals(value) ? 1 : 0);
+			}
+		}
+	}
+}
@@ -1,16 +1,17 @@
 package cwms.radar.formatters.csv;
 
 import java.util.List;
+import java.util.Set;
 
 import cwms.radar.data.dto.CwmsDTO;
 import cwms.radar.data.dto.LocationGroup;
 import cwms.radar.data.dto.Office;
 import cwms.radar.formatters.Formats;
-import cwms.radar.formatters.OutputFormatter;
+import cwms.radar.formatters.ProjectingOutputFormatter;
 import service.annotations.FormatService;
 
 @FormatService(contentType = Formats.CSV, dataTypes = {Office.class, LocationGroup.class})
-public class CsvV1 implements OutputFormatter {
+public class CsvV1 implements ProjectingOutputFormatter {
 
     @Override
     public String getContentType() {
@@ -48,6 +49,21 @@ public class CsvV1 implements OutputFormatter {
         return retval;
     }
 
+    @Override
+    public String format(CwmsDTO dto, Set<String> fields) {
+        if( dto instanceof LocationGroup ){
+            return new CsvV1LocationGroup().format(dto, fields);
+        }
+        return format(dto);
+    }
 
+    @Override
+    public String format(List<? extends CwmsDTO> dtoList, Set<String> fields) {
+        if(dtoList != null && !dtoList.isEmpty() && dtoList.get(0) instanceof LocationGroup)
+        {
+            return new CsvV1LocationGroup().format(dtoList, fields);
+        }
+        return format(dtoList);
+    }
 
 }
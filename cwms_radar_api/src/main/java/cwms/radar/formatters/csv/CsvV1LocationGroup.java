@@ -1,11 +1,17 @@
 package cwms.radar.formatters.csv;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.dataformat.csv.CsvMapper;
@@ -38,11 +44,32 @@ public class CsvV1LocationGroup implements OutputFormatter{
         return Formats.CSV;
     }
 
+    // the columns written for each of the JSON property names fields= accepts
+    private static final Map<String, List<String>> COLUMNS;
+    static {
+        Map<String, List<String>> columns = new HashMap<>();
+        columns.put("id", Collections.singletonList("Id"));
+        columns.put("office-id", Collections.singletonList("OfficeId"));
+        columns.put("description", Collections.singletonList("Description"));
+        columns.put("location-category", Arrays.asList("CategoryOfficeId", "CategoryId"));
+        columns.put("shared-loc-alias-id", Collections.singletonList("SharedLocAliasId"));
+        columns.put("shared-ref-location-id", Collections.singletonList("SharedRefLocationId"));
+        columns.put("loc-group-attribute", Collections.singletonList("LocGroupAttribute"));
+        COLUMNS = Collections.unmodifiableMap(columns);
+    }
+
     @Override
     public String format(CwmsDTO dto) {
+        return format(dto, Collections.emptySet());
+    }
+
+    /**
+     * @param fields the LocationGroup properties to write, empty for all of them
+     */
+    public String format(CwmsDTO dto, Set<String> fields) {
         LocationGroup locationGroup = (LocationGroup)dto;
 
-        ObjectWriter writer = buildWriter();
+        ObjectWriter writer = buildWriter(fields);
         try
         {
             String s = writer.writeValueAsString(locationGroup);
@@ -56,7 +83,7 @@ public class CsvV1LocationGroup implements OutputFormatter{
         return null;
     }
 
-    private ObjectWriter buildWriter()
+    private ObjectWriter buildWriter(Set<String> fields)
     {
         CsvMapper mapper = new CsvMapper();
         mapper.addMixInAnnotations(LocationGroup.class, LocationGroupFormat.class);
@@ -64,6 +91,17 @@ public class CsvV1LocationGroup implements OutputFormatter{
         CsvSchema schema = mapper.schemaFor(LocationGroup.class)
                 .withLineSeparator("\n")
                 .withHeader();
+        if( !fields.isEmpty() ){
+            CsvSchema.Builder columns = CsvSchema.builder();
+            for( CsvSchema.Column column : schema ){
+                if( fields.stream().anyMatch(f -> COLUMNS.getOrDefault(f, Collections.emptyList()).contains(column.getName())) ){
+                    columns.addColumn(column.getName());
+                }
+            }
+            schema = columns.build().withLineSeparator("\n").withHeader();
+            // the properties left out of the schema are skipped rather than an error
+            mapper.configure(JsonGenerator.Feature.IGNORE_UNKNOWN, true);
+        }
 
         ObjectWriter writer = mapper.writer(schema);
 
@@ -71,10 +109,17 @@ public class CsvV1LocationGroup implements OutputFormatter{
     }
 
     @Override
+    public String format(List<? extends CwmsDTO> dtoList) {
+        return format(dtoList, Collections.emptySet());
+    }
+
+    /**
+     * @param fields the LocationGroup properties to write, empty for all of them
+     */
     @SuppressWarnings("unchecked") // for the daoList conversion
-    public String format(List<? extends CwmsDTO> dtoList) {        
+    public String format(List<? extends CwmsDTO> dtoList, Set<String> fields) {
         List<LocationGroup> locationGroups = (List<LocationGroup>)dtoList;
-        ObjectWriter writer = buildWriter();
+        ObjectWriter writer = buildWriter(fields);
         try
         {
             String s = writer.writeValueAsString(locationGroups);
@@ -0,0 +1,100 @@
+package cwms.radar.formatters.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cwms.radar.formatters.CountingOutputStream;
+
+/**
+ * Writes a GeoJSON FeatureCollection of points one Feature at a time.
+ *
+ * The output matches what Jackson produces for an org.geojson FeatureCollection, but nothing is
+ * built up in memory first.  Closing the writer finishes the collection and flushes; it does not
+ * close the underlying stream.  If the features can't all be written call abort() first, the
+ * collection is then left unterminated so the client can't mistake what was sent for all of it.
+ */
+public class GeoJsonWriter implements Closeable {
+
+	private final CountingOutputStream out;
+	private final JsonGenerator gen;
+	private boolean aborted = false;
+
+	public GeoJsonWriter(OutputStream out) throws IOException
+	{
+		this.out = new CountingOutputStream(out);
+		gen = new ObjectMapper().getFactory().createGenerator(this.out);
+		gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		gen.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+		gen.writeStartObject();
+		gen.writeStringField("type", "FeatureCollection");
+		gen.writeArrayFieldStart("features");
+	}
+
+	/**
+	 * Writes one point feature.  Its properties are nested in a single object named propertyGroup,
+	 * with null values left out.
+	 *
+	 * @param names property names, parallel to values
+	 * @param values property values, parallel to names
+	 */
+	public void writePoint(String id, double longitude, double latitude,
+						   String propertyGroup, String[] names, Object[] values) throws IOException
+	{
+		gen.writeStartObject();
+		gen.writeStringField("type", "Feature");
+		gen.writeObjectFieldStart("properties");
+		gen.writeObjectFieldStart(propertyGroup);
+		for(int i = 0; i < names.length; i++)
+		{
+			if(names[i] != null && values[i] != null)
+			{
+				gen.writeFieldName(names[i]);
+				gen.writeObject(values[i]);
+			}
+		}
+		gen.writeEndObject();
+		gen.writeEndObject();
+		gen.writeObjectFieldStart("geometry");
+		gen.writeStringField("type", "Point");
+		gen.writeArrayFieldStart("coordinates");
+		gen.writeNumber(longitude);
+		gen.writeNumber(latitude);
+		gen.writeEndArray();
+		gen.writeEndObject();
+		if(id != null)
+		{
+			gen.writeStringField("id", id);
+		}
+		gen.writeEndObject();
+	}
+
+	/**
+	 * Marks the collection as failed, close() then flushes what was written without finishing it.
+	 */
+	public void abort()
+	{
+		aborted = true;
+	}
+
+	/**
+	 * @return the bytes written to the stream so far
+	 */
+	public long getBytesWritten()
+	{
+		return out.getCount();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		if(!aborted)
+		{
+			gen.writeEndArray();
+			gen.writeEndObject();
+		}
+		gen.close();
+	}
+}
@@ -3,6 +3,7 @@ package cwms.radar.formatters.json;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
@@ -19,10 +20,11 @@ import cwms.radar.data.dto.LocationGroup;
 import cwms.radar.data.dto.Office;
 import cwms.radar.data.dto.RecentValue;
 import cwms.radar.data.dto.TimeSeriesGroup;
+import cwms.radar.formatters.Fields;
 import cwms.radar.formatters.Formats;
 import cwms.radar.formatters.FormattingException;
 import cwms.radar.formatters.OfficeFormatV1;
-import cwms.radar.formatters.OutputFormatter;
+import cwms.radar.formatters.ProjectingOutputFormatter;
 import io.javalin.http.BadRequestResponse;
 
 import org.jetbrains.annotations.NotNull;
@@ -39,9 +41,10 @@ import service.annotations.FormatService;
 				   TimeSeriesGroup.class,
 				   RecentValue.class
 				})
-public class JsonV1 implements OutputFormatter{
+public class JsonV1 implements ProjectingOutputFormatter{
 
 	private final ObjectMapper om;
+	private final ObjectMapper projecting;
 
 	public JsonV1()
 	{
@@ -53,6 +56,7 @@ public class JsonV1 implements OutputFormatter{
 		this.om = om.copy();
 		this.om.setPropertyNamingStrategy(PropertyNamingStrategies.KEBAB_CASE);
 		this.om.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+		this.projecting = Fields.projecting(this.om);
 	}
 
 	@NotNull
@@ -105,6 +109,34 @@ public class JsonV1 implements OutputFormatter{
 		}
 	}
 
+	@Override
+	public String format(CwmsDTO dto, Set<String> fields)
+	{
+		Object fmtv1 = buildFormatting(dto);
+		try
+		{
+			return Fields.writer(projecting, fields).writeValueAsString(fmtv1);
+		}
+		catch(JsonProcessingException e)
+		{
+			throw new FormattingException("Could not format:" + dto, e);
+		}
+	}
+
+	@Override
+	public String format(List<? extends CwmsDTO> daoList, Set<String> fields)
+	{
+		Object wrapped = buildFormatting(daoList);
+		try
+		{
+			return Fields.writer(projecting, fields).writeValueAsString(wrapped);
+		}
+		catch(JsonProcessingException e)
+		{
+			throw new FormattingException("Could not format list:" + daoList, e);
+		}
+	}
+
 	private Object buildFormatting(CwmsDTO dao)
 	{
 		Object retval = null;
@@ -1,6 +1,7 @@
 package cwms.radar.formatters.json;
 
 import java.util.List;
+import java.util.Set;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -13,30 +14,38 @@ import cwms.radar.data.dto.Clob;
 import cwms.radar.data.dto.Clobs;
 import cwms.radar.data.dto.CwmsDTO;
 import cwms.radar.data.dto.Location;
+import cwms.radar.data.dto.LocationPoint;
+import cwms.radar.data.dto.LocationSearchResult;
 import cwms.radar.data.dto.Office;
 import cwms.radar.data.dto.Pool;
 import cwms.radar.data.dto.Pools;
 import cwms.radar.data.dto.TimeSeries;
+import cwms.radar.data.dto.basinconnectivity.BasinNodeVisit;
+import cwms.radar.formatters.Fields;
 import cwms.radar.formatters.Formats;
 import cwms.radar.formatters.FormattingException;
-import cwms.radar.formatters.OutputFormatter;
+import cwms.radar.formatters.ProjectingOutputFormatter;
 import org.jetbrains.annotations.NotNull;
 import service.annotations.FormatService;
 
 @FormatService(contentType = Formats.JSONV2, dataTypes = {
 	Office.class,
 	Location.class,
+	LocationPoint.class,
+	LocationSearchResult.class,
 	Catalog.class,
 	TimeSeries.class,
 	Clob.class,
 	Clobs.class,
 	Pool.class,
 	Pools.class,
-	Blobs.class
+	Blobs.class,
+	BasinNodeVisit.class
 })
-public class JsonV2 implements OutputFormatter {
+public class JsonV2 implements ProjectingOutputFormatter {
 
 	private final ObjectMapper om;
+	private final ObjectMapper projecting;
 
 	public JsonV2()
 	{
@@ -46,6 +55,7 @@ public class JsonV2 implements OutputFormatter {
 	public JsonV2(ObjectMapper om)
 	{
 		this.om = buildObjectMapper(om);
+		this.projecting = Fields.projecting(this.om);
 	}
 
 	@NotNull
@@ -94,4 +104,28 @@ public class JsonV2 implements OutputFormatter {
 		}
 	}
 
+	@Override
+	public String format(CwmsDTO dto, Set<String> fields) {
+		try
+		{
+			return Fields.writer(projecting, fields).writeValueAsString(dto);
+		}
+		catch(JsonProcessingException e)
+		{
+			throw new FormattingException("Could not format :" + dto, e);
+		}
+	}
+
+	@Override
+	public String format(List<? extends CwmsDTO> dtoList, Set<String> fields) {
+		try
+		{
+			return Fields.writer(projecting, fields).writeValueAsString(dtoList);
+		}
+		catch(JsonProcessingException e)
+		{
+			throw new FormattingException("Could not format :" + dtoList, e);
+		}
+	}
+
 }
@@ -0,0 +1,77 @@
+package cwms.radar.formatters.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cwms.radar.data.dto.CwmsDTO;
+import cwms.radar.formatters.Formats;
+import cwms.radar.formatters.FormattingException;
+import cwms.radar.formatters.StreamingOutputFormatter;
+
+/**
+ * Base for the binary Jackson encodings of the v2 DTOs.  The mapper is set up by
+ * JsonV2.buildObjectMapper so the property names and inclusion rules are the same as
+ * application/json;version=2, only the encoding differs.
+ */
+public abstract class JsonV2Binary implements StreamingOutputFormatter {
+
+	// Built once, a mapper is costly to make and safe to share once it is set up.
+	private static final ObjectMapper SMILE = SmileV2.buildObjectMapper();
+	private static final ObjectMapper CBOR = CborV2.buildObjectMapper();
+
+	private final ObjectMapper om;
+	private final String contentType;
+
+	protected JsonV2Binary(ObjectMapper om, String contentType)
+	{
+		this.om = om;
+		this.contentType = contentType;
+	}
+
+	/**
+	 * The mapper used to read request bodies sent in one of the binary formats.  It is shared, so
+	 * it must not be reconfigured.
+	 *
+	 * @param contentType the Content-Type of the body
+	 * @return the mapper, or null if contentType isn't a binary Jackson format
+	 */
+	public static ObjectMapper getObjectMapperForFormat(String contentType)
+	{
+		if(Formats.SMILE.equals(contentType))
+		{
+			return SMILE;
+		}
+		else if(Formats.CBOR.equals(contentType))
+		{
+			return CBOR;
+		}
+		return null;
+	}
+
+	@Override
+	public String getContentType() {
+		return contentType;
+	}
+
+	@Override
+	public String format(CwmsDTO dto) {
+		throw new FormattingException(contentType + " is a binary format and has to be written to a stream");
+	}
+
+	@Override
+	public String format(List<? extends CwmsDTO> dtoList) {
+		throw new FormattingException(contentType + " is a binary format and has to be written to a stream");
+	}
+
+	@Override
+	public void format(CwmsDTO dto, OutputStream out) throws IOException {
+		om.writeValue(out, dto);
+	}
+
+	@Override
+	public void format(List<? extends CwmsDTO> dtoList, OutputStream out) throws IOException {
+		om.writeValue(out, dtoList);
+	}
+}
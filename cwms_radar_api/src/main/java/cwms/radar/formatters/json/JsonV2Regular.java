@@ -0,0 +1,154 @@
+package cwms.radar.formatters.json;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import cwms.radar.data.dto.CwmsDTO;
+import cwms.radar.data.dto.TimeSeries;
+import cwms.radar.formatters.Formats;
+import cwms.radar.formatters.FormattingException;
+import cwms.radar.formatters.OutputFormatter;
+import service.annotations.FormatService;
+
+/**
+ * JSON v2 with the values of a regular time series written relative to a start time and the
+ * interval instead of one [date-time, value, quality-code] record per value.
+ *
+ * <pre>
+ * "encoding": "regular",
+ * "start": 1624287600000,           first date-time, milliseconds since the epoch
+ * "interval-millis": 3600000,
+ * "values": [30.0, 30.1, null, ...], one per record, in order
+ * "quality-runs": [[0, 20], [3, 4]], [quality-code, number of consecutive records]
+ * "gaps": [[5, 2]]                  [slot, number of slots] with no record at all
+ * </pre>
+ *
+ * Record i is in slot i plus the size of every gap before it, and its date-time is
+ * start + slot * interval-millis.  Series without a fixed interval, or with a record off the
+ * interval, are written in the normal JSON v2 form, so clients must check for "encoding".
+ */
+@FormatService(contentType = Formats.JSONV2_REGULAR, dataTypes = {
+	TimeSeries.class
+})
+public class JsonV2Regular implements OutputFormatter {
+
+	public static final String ENCODING = "regular";
+
+	private final ObjectMapper om;
+	private final JsonV2 fallback;
+
+	public JsonV2Regular()
+	{
+		this(new ObjectMapper());
+	}
+
+	public JsonV2Regular(ObjectMapper om)
+	{
+		this.om = JsonV2.buildObjectMapper(om);
+		this.om.addMixIn(TimeSeries.class, WithoutRecords.class);
+		this.fallback = new JsonV2(om);
+	}
+
+	@Override
+	public String getContentType() {
+		return Formats.JSONV2_REGULAR;
+	}
+
+	@Override
+	public String format(CwmsDTO dto) {
+		if(!(dto instanceof TimeSeries))
+		{
+			throw new FormattingException("Regular encoding is only available for time series, not " + dto.getClass().getName());
+		}
+
+		TimeSeries ts = (TimeSeries) dto;
+		ObjectNode compact = encode(ts);
+		if(compact == null)
+		{
+			return fallback.format(ts);
+		}
+
+		try
+		{
+			return om.writeValueAsString(compact);
+		}
+		catch(JsonProcessingException e)
+		{
+			throw new FormattingException("Could not format :" + dto, e);
+		}
+	}
+
+	@Override
+	public String format(List<? extends CwmsDTO> dtoList) {
+		throw new FormattingException("Regular encoding is only available for a single time series");
+	}
+
+	/**
+	 * @return the compact form, or null if the series isn't on a fixed interval
+	 */
+	ObjectNode encode(TimeSeries ts)
+	{
+		long interval = ts.getInterval() != null ? ts.getInterval().toMillis() : 0;
+		List<TimeSeries.Record> records = ts.getValues();
+		if(interval <= 0 || records == null || records.isEmpty())
+		{
+			return null;
+		}
+
+		ObjectNode retval = om.valueToTree(ts);
+		ArrayNode values = om.createArrayNode();
+		ArrayNode qualityRuns = om.createArrayNode();
+		ArrayNode gaps = om.createArrayNode();
+
+		long start = records.get(0).getDateTime().getTime();
+		long expectedSlot = 0;
+		int runQuality = records.get(0).getQualityCode();
+		int runLength = 0;
+		for(TimeSeries.Record record : records)
+		{
+			long offset = record.getDateTime().getTime() - start;
+			if(offset % interval != 0 || offset / interval < expectedSlot)
+			{
+				// calendar intervals and irregular records don't fit the grid
+				return null;
+			}
+
+			long slot = offset / interval;
+			if(slot > expectedSlot)
+			{
+				gaps.add(om.createArrayNode().add(expectedSlot).add(slot - expectedSlot));
+			}
+			expectedSlot = slot + 1;
+
+			values.add(record.getValue());
+			if(record.getQualityCode() != runQuality)
+			{
+				qualityRuns.add(om.createArrayNode().add(runQuality).add(runLength));
+				runQuality = record.getQualityCode();
+				runLength = 0;
+			}
+			runLength++;
+		}
+		qualityRuns.add(om.createArrayNode().add(runQuality).add(runLength));
+
+		retval.put("encoding", ENCODING);
+		retval.put("start", start);
+		retval.put("interval-millis", interval);
+		retval.set("values", values);
+		retval.set("quality-runs", qualityRuns);
+		if(gaps.size() > 0)
+		{
+			retval.set("gaps", gaps);
+		}
+		return retval;
+	}
+
+	@JsonIgnoreProperties({"values", "value-columns"})
+	private abstract static class WithoutRecords
+	{
+	}
+}
@@ -68,7 +68,10 @@ public class NamedPgJsonFormatter implements OutputFormatter
         return retval.toString();
     }
 
-    private String formatNamedGraph(String name, Graph graph) throws JsonProcessingException
+    /**
+     * @return the graph as Named-PG-JSON, for a caller that has already built it
+     */
+    public String formatNamedGraph(String name, Graph graph) throws JsonProcessingException
     {
         String retVal = getDefaultNamedPgJson(name);
         if(!graph.isEmpty())
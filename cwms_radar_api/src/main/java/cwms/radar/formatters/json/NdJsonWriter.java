@@ -0,0 +1,44 @@
+package cwms.radar.formatters.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Writes newline delimited JSON (application/x-ndjson), one element per line, using the
+ * JsonV2 property naming.
+ *
+ * Elements are pulled from the stream and written one at a time so a whole result set can be
+ * sent without ever holding more than one element.  The caller owns and closes the stream.
+ */
+public class NdJsonWriter {
+
+	private static final int NEWLINE = '\n';
+
+	private final ObjectWriter writer;
+
+	public NdJsonWriter()
+	{
+		this.writer = JsonV2.buildObjectMapper().writer();
+	}
+
+	/**
+	 * @return the number of lines written
+	 */
+	public long write(Stream<?> elements, OutputStream out) throws IOException
+	{
+		long count = 0;
+		Iterator<?> it = elements.iterator();
+		while(it.hasNext())
+		{
+			out.write(writer.writeValueAsBytes(it.next()));
+			out.write(NEWLINE);
+			count++;
+		}
+		out.flush();
+		return count;
+	}
+}
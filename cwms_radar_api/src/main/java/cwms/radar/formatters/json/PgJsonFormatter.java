@@ -34,7 +34,10 @@ public final class PgJsonFormatter implements OutputFormatter
         om = new ObjectMapper();
     }
 
-    private String formatGraph(Graph graph) throws JsonProcessingException
+    /**
+     * @return the graph as PG-JSON, for a caller that has already built it
+     */
+    public String formatGraph(Graph graph) throws JsonProcessingException
     {
         String retVal = getDefaultPGJSON();
         if(!graph.isEmpty())
@@ -0,0 +1,44 @@
+package cwms.radar.formatters.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import cwms.radar.data.dto.Blobs;
+import cwms.radar.data.dto.Catalog;
+import cwms.radar.data.dto.Clob;
+import cwms.radar.data.dto.Clobs;
+import cwms.radar.data.dto.Location;
+import cwms.radar.data.dto.Office;
+import cwms.radar.data.dto.Pool;
+import cwms.radar.data.dto.Pools;
+import cwms.radar.data.dto.TimeSeries;
+import cwms.radar.formatters.Formats;
+import org.jetbrains.annotations.NotNull;
+import service.annotations.FormatService;
+
+/**
+ * The v2 JSON structure encoded as Smile (application/x-jackson-smile).
+ */
+@FormatService(contentType = Formats.SMILE, dataTypes = {
+	Office.class,
+	Location.class,
+	Catalog.class,
+	TimeSeries.class,
+	Clob.class,
+	Clobs.class,
+	Pool.class,
+	Pools.class,
+	Blobs.class
+})
+public class SmileV2 extends JsonV2Binary {
+
+	public SmileV2()
+	{
+		super(buildObjectMapper(), Formats.SMILE);
+	}
+
+	@NotNull
+	public static ObjectMapper buildObjectMapper()
+	{
+		return JsonV2.buildObjectMapper(new ObjectMapper(new SmileFactory()));
+	}
+}
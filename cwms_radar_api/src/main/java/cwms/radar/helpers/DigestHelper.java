@@ -0,0 +1,38 @@
+package cwms.radar.helpers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public final class DigestHelper {
+    // half of a SHA-256 is plenty to tell versions of one response apart
+    private static final int HASH_BYTES = 16;
+
+    private DigestHelper() {
+    }
+
+    /**
+     * @param value hashed as UTF-8
+     * @return the first 16 bytes of the SHA-256 of value, as 32 hex digits
+     */
+    public static String shortHash(String value) {
+        return shortHash(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the first 16 bytes of the SHA-256 of value, as 32 hex digits
+     */
+    public static String shortHash(byte[] value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value);
+            StringBuilder hex = new StringBuilder(2 * HASH_BYTES);
+            for (int i = 0; i < HASH_BYTES; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            // every JVM is required to have SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package cwms.radar.api;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ByteRangeTest
+{
+	@Test
+	public void testRanges()
+	{
+		ByteRange closed = ByteRange.parse("bytes=0-99", 1000);
+		assertEquals(0, closed.getStart());
+		assertEquals(100, closed.getCount());
+		assertEquals("bytes 0-99/1000", closed.getContentRange());
+
+		ByteRange open = ByteRange.parse("bytes=900-", 1000);
+		assertEquals(100, open.getCount());
+		assertEquals("bytes 900-999/1000", open.getContentRange());
+
+		ByteRange suffix = ByteRange.parse("bytes=-10", 1000);
+		assertEquals(990, suffix.getStart());
+		assertEquals(10, suffix.getCount());
+
+		// past the end is cut to the end
+		assertEquals("bytes 500-999/1000", ByteRange.parse("bytes=500-5000", 1000).getContentRange());
+		assertEquals("bytes 0-999/1000", ByteRange.parse("bytes=-5000", 1000).getContentRange());
+	}
+
+	@Test
+	public void testUnsatisfiable()
+	{
+		ByteRange range = ByteRange.parse("bytes=1000-", 1000);
+		assertFalse(range.isSatisfiable());
+		assertEquals("bytes */1000", range.getContentRange());
+		assertFalse(ByteRange.parse("bytes=-0", 1000).isSatisfiable());
+		assertFalse(ByteRange.parse("bytes=0-", 0).isSatisfiable());
+		assertTrue(ByteRange.parse("bytes=999-999", 1000).isSatisfiable());
+	}
+
+	@Test
+	public void testIgnored()
+	{
+		assertNull(ByteRange.parse(null, 1000));
+		assertNull(ByteRange.parse("items=0-9", 1000));
+		assertNull(ByteRange.parse("bytes=0-9,20-29", 1000));
+		assertNull(ByteRange.parse("bytes=9-0", 1000));
+		assertNull(ByteRange.parse("bytes=a-b", 1000));
+		assertNull(ByteRange.parse("bytes=5", 1000));
+	}
+}
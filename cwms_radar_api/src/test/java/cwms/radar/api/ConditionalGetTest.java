@@ -0,0 +1,97 @@
+package cwms.radar.api;
+
+import java.sql.Timestamp;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import cwms.radar.data.dao.ChangeFingerprint;
+import io.javalin.core.util.Header;
+import io.javalin.http.Context;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConditionalGetTest
+{
+	@Test
+	public void testWeakComparison()
+	{
+		assertTrue(ConditionalGet.matches("W/\"abc\"", "W/\"abc\""));
+		assertTrue(ConditionalGet.matches("\"xyz\", \"abc\"", "W/\"abc\""));
+		assertTrue(ConditionalGet.matches("*", "\"abc\""));
+		assertFalse(ConditionalGet.matches("\"abd\"", "\"abc\""));
+	}
+
+	@Test
+	public void testModifiedSince()
+	{
+		Timestamp lastModified = Timestamp.valueOf("2021-06-10 13:00:00.500");
+		// Timestamp.valueOf uses the local zone, compare against the same instant
+		String sameSecond = DateTimeFormatter.RFC_1123_DATE_TIME.format(lastModified.toInstant().atOffset(ZoneOffset.UTC));
+
+		assertTrue(ConditionalGet.isNotModifiedSince(sameSecond, lastModified));
+		assertFalse(ConditionalGet.isNotModifiedSince("Thu, 01 Jan 1970 00:00:00 GMT", lastModified));
+		assertFalse(ConditionalGet.isNotModifiedSince("not a date", lastModified));
+		assertFalse(ConditionalGet.isNotModifiedSince(sameSecond, null));
+	}
+
+	@Test
+	public void testUnchangedFingerprintIsNotModified()
+	{
+		ChangeFingerprint fingerprint = new ChangeFingerprint("42:7", null);
+
+		HttpServletResponse response = mock(HttpServletResponse.class);
+		Context first = buildContext(null, response);
+		assertFalse(ConditionalGet.isNotModified(first, () -> fingerprint));
+		String etag = ConditionalGet.etag(first, fingerprint.getTag());
+		verify(response).setHeader(Header.ETAG, etag);
+
+		HttpServletResponse revalidate = mock(HttpServletResponse.class);
+		assertTrue(ConditionalGet.isNotModified(buildContext(etag, revalidate), () -> fingerprint));
+		verify(revalidate).setStatus(304);
+
+		HttpServletResponse changed = mock(HttpServletResponse.class);
+		assertFalse(ConditionalGet.isNotModified(buildContext(etag, changed),
+				() -> new ChangeFingerprint("43:7", null)));
+		verify(changed, never()).setStatus(anyInt());
+	}
+
+	@Test
+	public void testContentHash()
+	{
+		String body = "[\"ft\",\"m\"]";
+		HttpServletResponse response = mock(HttpServletResponse.class);
+		assertFalse(ConditionalGet.isNotModified(buildContext(null, response), body));
+		ArgumentCaptor<String> etag = ArgumentCaptor.forClass(String.class);
+		verify(response).setHeader(eq(Header.ETAG), etag.capture());
+
+		HttpServletResponse revalidate = mock(HttpServletResponse.class);
+		assertTrue(ConditionalGet.isNotModified(buildContext(etag.getValue(), revalidate), body));
+		verify(revalidate).setStatus(304);
+
+		assertFalse(ConditionalGet.isNotModified(buildContext(etag.getValue(), mock(HttpServletResponse.class)), body + " "));
+	}
+
+	private static Context buildContext(String ifNoneMatch, HttpServletResponse response)
+	{
+		HttpServletRequest request = mock(HttpServletRequest.class);
+		when(request.getRequestURI()).thenReturn("/units");
+		when(request.getQueryString()).thenReturn("format=json");
+		when(request.getHeader(Header.ACCEPT)).thenReturn("application/json");
+		when(request.getHeader(Header.IF_NONE_MATCH)).thenReturn(ifNoneMatch);
+		Map<String, ?> map = new LinkedHashMap<>();
+		return new Context(request, response, map);
+	}
+}
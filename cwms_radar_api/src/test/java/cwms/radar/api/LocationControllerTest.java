@@ -1,14 +1,45 @@
 package cwms.radar.api;
 
+import com.codahale.metrics.MetricRegistry;
 import cwms.radar.api.enums.Nation;
+import cwms.radar.data.dao.LocationsDao;
 import cwms.radar.data.dto.Location;
+import cwms.radar.formatters.ContentType;
 import cwms.radar.formatters.Formats;
+import io.javalin.core.util.Header;
+import io.javalin.http.Context;
+import io.javalin.plugin.json.JavalinJackson;
+import io.javalin.plugin.json.JsonMapperKt;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record3;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockResult;
 import org.junit.jupiter.api.Test;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class LocationControllerTest extends ControllerTest
 {
@@ -41,4 +72,105 @@ class LocationControllerTest extends ControllerTest
         assertEquals("UTC", location.getTimezoneName());
         assertEquals(Nation.US, location.getNation());
     }
+
+    @Test
+    void testDeserializeLocationSmile() throws IOException
+    {
+        String json = loadResourceAsString("cwms/radar/api/location_create.json");
+        Location fromJson = LocationController.deserializeLocation(json, Formats.JSON, OFFICE_ID);
+        byte[] smile = Formats.formatBytes(new ContentType(Formats.SMILE), fromJson);
+        Location location = LocationController.deserializeLocation(smile, Formats.SMILE, OFFICE_ID);
+        assertNotNull(location);
+        assertEquals("LOC_TEST", location.getName());
+        assertEquals("LRL", location.getOfficeId());
+        assertEquals("NGVD-29", location.getHorizontalDatum());
+        assertEquals("UTC", location.getTimezoneName());
+        assertEquals(Nation.US, location.getNation());
+    }
+
+    @Test
+    void testJsonV2NamesAreFetchedInOneCall()
+    {
+        LocationsDao dao = mock(LocationsDao.class);
+        Location keys = new Location.Builder("KEYS", "SITE", ZoneId.of("UTC"), 36.15, -96.25, "NAD83", "SWT").build();
+        when(dao.getLocations(eq(Arrays.asList("TULA", "KEYS")), eq("EN"), eq("SWT")))
+                .thenReturn(Collections.singletonList(keys));
+
+        Context ctx = context("names=TULA%7CKEYS&office=SWT");
+        controller(dao).getAll(ctx);
+
+        verify(ctx.res).setStatus(200);
+        String result = ctx.resultString();
+        assertNotNull(result);
+        assertTrue(result.startsWith("[") && result.contains("\"KEYS\""), result);
+    }
+
+    @Test
+    void testJsonV2WithoutNamesKeepsTheFormattedPath()
+    {
+        LocationsDao dao = mock(LocationsDao.class);
+        when(dao.getLocations(isNull(), any(), isNull(), isNull(), eq("SWT"))).thenReturn("{}");
+
+        Context ctx = context("office=SWT");
+        controller(dao).getAll(ctx);
+
+        verify(ctx.res).setStatus(200);
+        assertEquals("{}", ctx.resultString());
+        verify(dao, never()).getLocations(anyList(), any(), any());
+    }
+
+    @Test
+    void testNearWithABadRadiusIsABadRequest()
+    {
+        LocationsDao dao = mock(LocationsDao.class);
+        when(dao.getLocationPoints("SWT")).thenReturn(Collections.emptyList());
+
+        for(String query : Arrays.asList("radius=far", "k=3.5", "radius=NaN"))
+        {
+            Context ctx = context("office=SWT&near=-96.25,36.15&" + query);
+            controller(dao).getAll(ctx);
+
+            verify(ctx.res).setStatus(400);
+        }
+    }
+
+    private static Context context(String query)
+    {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(request.getHeader(Header.ACCEPT)).thenReturn(Formats.JSONV2);
+        when(request.getQueryString()).thenReturn(query);
+        when(request.getRequestURI()).thenReturn("/locations");
+        when(request.getRequestURL()).thenReturn(new StringBuffer("http://127.0.0.1:7001/locations"));
+        // the json mapper Javalin sets up, for the error bodies
+        Map<String, Object> appAttributes = new LinkedHashMap<>();
+        appAttributes.put(JsonMapperKt.JSON_MAPPER_KEY, new JavalinJackson());
+        return new Context(request, response, appAttributes);
+    }
+
+    // Answers the change fingerprint from a mock connection and everything else from the dao.
+    private static LocationController controller(LocationsDao dao)
+    {
+        DSLContext dsl = DSL.using(new MockConnection(ctx -> {
+            DSLContext create = DSL.using(SQLDialect.DEFAULT);
+            Field<String> table = DSL.field("tag", String.class);
+            Result<Record3<String, String, String>> tags = create.newResult(table, table, table);
+            tags.add(create.newRecord(table, table, table).values("1:1", "1:1", "1:1"));
+            return new MockResult[]{ new MockResult(1, tags) };
+        }), SQLDialect.DEFAULT);
+        return new LocationController(new MetricRegistry())
+        {
+            @Override
+            protected DSLContext getDslContext(Context ctx)
+            {
+                return dsl;
+            }
+
+            @Override
+            protected LocationsDao getLocationsDao(DSLContext dsl)
+            {
+                return dao;
+            }
+        };
+    }
 }
@@ -0,0 +1,77 @@
+package cwms.radar.api.graph.basinconnectivity;
+
+import cwms.radar.data.dto.basinconnectivity.Basin;
+import cwms.radar.data.dto.basinconnectivity.Stream;
+import cwms.radar.data.dto.basinconnectivity.StreamLocation;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class BasinConnectivityIndexTest
+{
+    // Main flows from station 0 to 100, Trib joins it at Main-Mid
+    private static BasinConnectivityIndex index()
+    {
+        Stream trib = new Stream.Builder("Trib", false, 20.0, "SWT")
+                .withReceivingStreamId("Main")
+                .withConfluenceStation(50.0)
+                .withConfluenceBank("L")
+                .withStreamLocations(Collections.singletonList(
+                        new StreamLocation.Builder("Trib-Gage", "Trib", 5.0, "L", "SWT").build()))
+                .build();
+        Stream main = new Stream.Builder("Main", false, 100.0, "SWT")
+                .withStreamLocations(Arrays.asList(
+                        new StreamLocation.Builder("Main-Up", "Main", 10.0, "L", "SWT").build(),
+                        new StreamLocation.Builder("Main-Mid", "Main", 50.0, "L", "SWT").build(),
+                        new StreamLocation.Builder("Main-Out", "Main", 100.0, "L", "SWT").build()))
+                .withTributaries(Collections.singletonList(trib))
+                .build();
+        Basin basin = new Basin.Builder("Test", "SWT").withPrimaryStream(main).build();
+        return new BasinConnectivityIndex(new BasinConnectivityGraph.Builder(basin).build());
+    }
+
+    private static List<String> visited(List<BasinConnectivityIndex.Visit> visits)
+    {
+        return visits.stream()
+                .map(v -> v.getNode().getId() + ":" + v.getHops())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testUpstreamIsNearestFirst()
+    {
+        BasinConnectivityIndex index = index();
+        int mid = index.indexOf("main-mid").getAsInt();
+
+        assertEquals(Arrays.asList("Main-Mid:0", "Main-Up:1", "Trib-Gage:1", "Main-Node-0.0:2", "Trib-Node-0.0:2"),
+                visited(index.upstream(mid)));
+        assertFalse(index.indexOf("Elsewhere").isPresent());
+    }
+
+    @Test
+    public void testDownstreamFollowsTheFlowToTheOutlet()
+    {
+        BasinConnectivityIndex index = index();
+        int gage = index.indexOf("Trib-Gage").getAsInt();
+
+        assertEquals(Arrays.asList("Trib-Gage:0", "Main-Mid:1", "Main-Out:2"), visited(index.downstream(gage)));
+    }
+
+    @Test
+    public void testNeighborhoodGoesBothWays()
+    {
+        BasinConnectivityIndex index = index();
+        int mid = index.indexOf("Main-Mid").getAsInt();
+
+        assertEquals(Arrays.asList("Main-Mid:0", "Main-Up:1", "Trib-Gage:1", "Main-Out:1"),
+                visited(index.neighborhood(mid, 1)));
+        assertEquals(Collections.singletonList("Main-Mid:0"), visited(index.neighborhood(mid, 0)));
+        assertEquals(6, index.neighborhood(mid, 5).size());
+    }
+}
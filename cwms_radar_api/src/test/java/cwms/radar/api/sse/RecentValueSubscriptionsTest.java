@@ -0,0 +1,177 @@
+package cwms.radar.api.sse;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.MetricRegistry;
+import cwms.radar.data.dao.LatestValueStore;
+import cwms.radar.data.dto.RecentValue;
+import cwms.radar.data.dto.TsvDqu;
+import cwms.radar.data.dto.TsvDquId;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RecentValueSubscriptionsTest
+{
+    private static final String STAGE = "Alpha.Stage.Inst.1Hour.0.raw";
+    private static final Timestamp TIME = Timestamp.valueOf("2021-06-20 12:00:00");
+
+    @Test
+    public void testSubscribersOnlyGetTheirSeries() throws Exception
+    {
+        try(RecentValueSubscriptions subscriptions = new RecentValueSubscriptions(LatestValueStore.getInstance(),
+                new MetricRegistry(), 8, 0, 1, 10, 0))
+        {
+            List<String> events = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch sent = new CountDownLatch(1);
+            RecentValueSubscriptions.EventSink sink = new RecentValueSubscriptions.EventSink()
+            {
+                @Override
+                public void send(String event, String data)
+                {
+                    events.add(event);
+                    sent.countDown();
+                }
+
+                @Override
+                public void close()
+                {
+                }
+            };
+
+            subscriptions.subscribe(sink, Arrays.asList(STAGE), "SWT");
+            subscriptions.latestChanged(new HashSet<>(Arrays.asList("Other.Stage.Inst.1Hour.0.raw")),
+                    Arrays.asList(buildValue("Other.Stage.Inst.1Hour.0.raw", "SWT", "ft", TIME)));
+            subscriptions.latestChanged(new HashSet<>(Arrays.asList(STAGE)), Arrays.asList(buildValue(STAGE, "SWT", "ft", TIME)));
+
+            assertTrue(sent.await(5, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList(RecentValueSubscriptions.VALUES_EVENT), events);
+        }
+    }
+
+    @Test
+    public void testSubscriberLimit()
+    {
+        try(RecentValueSubscriptions subscriptions = new RecentValueSubscriptions(LatestValueStore.getInstance(),
+                new MetricRegistry(), 8, 0, 1, 1, 0))
+        {
+            RecentValueSubscriptions.EventSink sink = new RecentValueSubscriptions.EventSink()
+            {
+                @Override
+                public void send(String event, String data)
+                {
+                }
+
+                @Override
+                public void close()
+                {
+                }
+            };
+            subscriptions.subscribe(sink, Arrays.asList(STAGE), null);
+            assertNull(subscriptions.subscribe(sink, Arrays.asList(STAGE), null));
+        }
+    }
+
+    @Test
+    public void testSubscriberThatStopsReadingIsDisconnected() throws Exception
+    {
+        try(RecentValueSubscriptions subscriptions = new RecentValueSubscriptions(LatestValueStore.getInstance(),
+                new MetricRegistry(), 1, 0, 1, 10, 0))
+        {
+            CountDownLatch blocked = new CountDownLatch(1);
+            CountDownLatch closed = new CountDownLatch(1);
+            RecentValueSubscriptions.Subscription subscription = subscriptions.subscribe(blockingSink(blocked, closed),
+                    Arrays.asList(STAGE), null);
+
+            // the first is being sent, the second fills the buffer, the third overflows it
+            subscription.offer(Arrays.asList(buildValue(STAGE, "SWT", "ft", TIME)));
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+            subscription.offer(Arrays.asList(buildValue(STAGE, "SWT", "ft", TIME)));
+            subscription.offer(Arrays.asList(buildValue(STAGE, "SWT", "ft", TIME)));
+            assertFalse(subscription.isClosed());
+
+            // and it still hasn't been told about the first overflow
+            subscription.offer(Arrays.asList(buildValue(STAGE, "SWT", "ft", TIME)));
+            subscription.offer(Arrays.asList(buildValue(STAGE, "SWT", "ft", TIME)));
+
+            assertTrue(subscription.isClosed());
+            assertTrue(closed.await(5, TimeUnit.SECONDS));
+            assertEquals(0, subscriptions.size());
+        }
+    }
+
+    @Test
+    public void testStalledSendIsDisconnected() throws Exception
+    {
+        try(RecentValueSubscriptions subscriptions = new RecentValueSubscriptions(LatestValueStore.getInstance(),
+                new MetricRegistry(), 8, 0, 1, 10, 50))
+        {
+            CountDownLatch blocked = new CountDownLatch(1);
+            CountDownLatch closed = new CountDownLatch(1);
+            RecentValueSubscriptions.Subscription subscription = subscriptions.subscribe(blockingSink(blocked, closed),
+                    Arrays.asList(STAGE), null);
+
+            subscription.offer(Arrays.asList(buildValue(STAGE, "SWT", "ft", TIME)));
+
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+            assertTrue(closed.await(5, TimeUnit.SECONDS));
+            assertTrue(subscription.isClosed());
+        }
+    }
+
+    // a client whose socket is full, the send blocks until the connection is closed
+    private static RecentValueSubscriptions.EventSink blockingSink(CountDownLatch blocked, CountDownLatch closed)
+    {
+        return new RecentValueSubscriptions.EventSink()
+        {
+            @Override
+            public void send(String event, String data)
+            {
+                blocked.countDown();
+                try
+                {
+                    closed.await(10, TimeUnit.SECONDS);
+                }
+                catch(InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void close()
+            {
+                closed.countDown();
+            }
+        };
+    }
+
+    @Test
+    public void testOnlyNewestValueIsSent()
+    {
+        Timestamp later = new Timestamp(TIME.getTime() + 3_600_000);
+        List<RecentValue> values = RecentValueSubscriptions.latestOnly(Arrays.asList(
+                buildValue(STAGE, "SWT", "ft", later),
+                buildValue(STAGE, "SWT", "ft", TIME),
+                buildValue(STAGE, "SWT", "m", TIME)));
+
+        assertEquals(2, values.size());
+        assertEquals(later, values.get(0).getDqu().getId().getDateTime());
+    }
+
+    private static RecentValue buildValue(String tsId, String office, String unit, Timestamp time)
+    {
+        TsvDquId id = new TsvDquId(office, 1L, unit, time);
+        return new RecentValue(tsId, new TsvDqu(id, tsId, null, null, 1.0, 0L, time, time));
+    }
+}
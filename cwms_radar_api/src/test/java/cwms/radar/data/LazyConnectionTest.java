@@ -0,0 +1,46 @@
+package cwms.radar.data;
+
+import java.sql.Connection;
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LazyConnectionTest
+{
+	@Test
+	public void testUnusedConnectionIsNeverBorrowed() throws Exception
+	{
+		DataSource ds = mock(DataSource.class);
+		try(Connection conn = LazyConnection.of(ds))
+		{
+			assertFalse(LazyConnection.isOpened(conn));
+		}
+		verify(ds, never()).getConnection();
+	}
+
+	@Test
+	public void testFirstUseBorrowsOnceAndCloseReturnsIt() throws Exception
+	{
+		DataSource ds = mock(DataSource.class);
+		Connection real = mock(Connection.class);
+		when(ds.getConnection()).thenReturn(real);
+
+		Connection conn = LazyConnection.of(ds);
+		conn.getAutoCommit();
+		conn.getSchema();
+		assertTrue(LazyConnection.isOpened(conn));
+		conn.close();
+
+		verify(ds, times(1)).getConnection();
+		verify(real).getSchema();
+		verify(real).close();
+	}
+}
@@ -0,0 +1,99 @@
+package cwms.radar.data.dao;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.codahale.metrics.MetricRegistry;
+import cwms.radar.data.dto.RecentValue;
+import cwms.radar.data.dto.TsvDqu;
+import cwms.radar.data.dto.TsvDquId;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveRecentValueFinderTest
+{
+	private static final Instant NOW = Instant.parse("2021-06-21T14:00:00Z");
+
+	@Test
+	public void testWindowsGrowExponentially()
+	{
+		List<Duration> windows = AdaptiveRecentValueFinder.buildWindows(Duration.ofHours(6), Duration.ofDays(14));
+		assertEquals(Arrays.asList(Duration.ofHours(6), Duration.ofDays(1), Duration.ofDays(4), Duration.ofDays(14)), windows);
+	}
+
+	@Test
+	public void testOnlyMissingSeriesAreWidened()
+	{
+		Map<String, Instant> latest = new LinkedHashMap<>();
+		latest.put("A", NOW.minus(Duration.ofHours(1)));
+		latest.put("B", NOW.minus(Duration.ofDays(2)));
+
+		List<List<String>> stepIds = new ArrayList<>();
+		AdaptiveRecentValueFinder.RangeQuery query = (tsIds, past, future) -> {
+			stepIds.add(tsIds);
+			List<RecentValue> retval = new ArrayList<>();
+			for(String tsId : tsIds)
+			{
+				Instant time = latest.get(tsId);
+				if(time != null && time.isAfter(past.toInstant()) && time.isBefore(future.toInstant()))
+				{
+					retval.add(buildValue(tsId, time));
+				}
+			}
+			return retval;
+		};
+
+		MetricRegistry metrics = new MetricRegistry();
+		AdaptiveRecentValueFinder finder = new AdaptiveRecentValueFinder(metrics, Duration.ofHours(6), Duration.ofDays(14));
+		Timestamp futureLimit = Timestamp.from(NOW.plus(Duration.ofDays(14)));
+		List<RecentValue> values = finder.findMostRecents(Arrays.asList("C", "B", "A"), NOW, futureLimit, query);
+
+		assertEquals(2, values.size());
+		assertEquals("B", values.get(0).getId());
+		assertEquals("A", values.get(1).getId());
+
+		assertEquals(4, stepIds.size());
+		assertEquals(Arrays.asList("C", "B", "A"), stepIds.get(0));
+		assertEquals(Arrays.asList("C", "B"), stepIds.get(1));
+		assertEquals(Arrays.asList("C", "B"), stepIds.get(2));
+		assertEquals(Arrays.asList("C"), stepIds.get(3));
+
+		String className = AdaptiveRecentValueFinder.class.getName();
+		assertEquals(1, metrics.meter(MetricRegistry.name(className, "window", "PT6H", "hits")).getCount());
+		assertEquals(3, metrics.meter(MetricRegistry.name(className, "window", "PT6H", "lookups")).getCount());
+		assertEquals(1, metrics.meter(MetricRegistry.name(className, "window", "PT96H", "hits")).getCount());
+	}
+
+	@Test
+	public void testStepsDoNotOverlap()
+	{
+		List<Timestamp[]> ranges = new ArrayList<>();
+		AdaptiveRecentValueFinder.RangeQuery query = (tsIds, past, future) -> {
+			ranges.add(new Timestamp[]{past, future});
+			return new ArrayList<>();
+		};
+
+		AdaptiveRecentValueFinder finder = new AdaptiveRecentValueFinder(new MetricRegistry(), Duration.ofHours(6), Duration.ofDays(14));
+		finder.findMostRecents(Arrays.asList("A"), NOW, Timestamp.from(NOW.plus(Duration.ofDays(14))), query);
+
+		assertEquals(4, ranges.size());
+		for(int i = 1; i < ranges.size(); i++)
+		{
+			assertTrue(ranges.get(i)[1].getTime() == ranges.get(i - 1)[0].getTime() + 1);
+		}
+	}
+
+	private static RecentValue buildValue(String tsId, Instant time)
+	{
+		Timestamp ts = Timestamp.from(time);
+		return new RecentValue(tsId, new TsvDqu(new TsvDquId("SWT", 1L, "ft", ts), tsId, null, null, 1.0, 0L, ts, ts));
+	}
+}
@@ -0,0 +1,51 @@
+package cwms.radar.data.dao;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdjacentGroupIteratorTest
+{
+	@Test
+	void testGroupsRunsInOrder()
+	{
+		Stream<String> rows = Stream.of("b:1", "b:2", "a:1", "c:1", "c:2", "c:3");
+
+		List<String> groups = AdjacentGroupIterator.group(rows,
+				row -> row.split(":")[0],
+				group -> group.get(0).split(":")[0] + group.size())
+				.collect(Collectors.toList());
+
+		assertEquals(Arrays.asList("b2", "a1", "c3"), groups);
+	}
+
+	@Test
+	void testEmpty()
+	{
+		List<Integer> groups = AdjacentGroupIterator.group(Stream.<String>empty(), row -> row, List::size)
+				.collect(Collectors.toList());
+
+		assertEquals(Collections.emptyList(), groups);
+	}
+
+	@Test
+	void testCloseClosesSource()
+	{
+		AtomicBoolean closed = new AtomicBoolean(false);
+		Stream<String> rows = Stream.of("a").onClose(() -> closed.set(true));
+
+		try(Stream<Integer> groups = AdjacentGroupIterator.group(rows, row -> row, List::size))
+		{
+			assertEquals(1, groups.count());
+		}
+		assertTrue(closed.get());
+	}
+}
@@ -0,0 +1,146 @@
+package cwms.radar.data.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import cwms.radar.api.graph.basinconnectivity.BasinConnectivityIndex;
+import cwms.radar.data.dto.Office;
+import cwms.radar.data.dto.basinconnectivity.Basin;
+import cwms.radar.data.dto.basinconnectivity.Stream;
+import cwms.radar.data.dto.basinconnectivity.StreamLocation;
+import cwms.radar.formatters.Formats;
+import cwms.radar.formatters.json.NamedPgJsonFormatter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BasinGraphCacheTest
+{
+	private static Basin basin(String name)
+	{
+		Stream stream = new Stream.Builder(name + " River", false, 100.0, "SWT")
+				.withStreamLocations(Arrays.asList(
+						new StreamLocation.Builder(name + "-Up", name + " River", 90.0, "L", "SWT").build(),
+						new StreamLocation.Builder(name + "-Down", name + " River", 10.0, "R", "SWT").build()))
+				.build();
+		return new Basin.Builder(name, "SWT").withPrimaryStream(stream).build();
+	}
+
+	@Test
+	public void testBasinsAreRenderedAsTheFormatterWouldRenderThem()
+	{
+		Basin keystone = basin("Keystone");
+		Basin eufaula = basin("Eufaula");
+		BasinGraphCache.BasinGraphs graphs = new BasinGraphCache.BasinGraphs(Arrays.asList(keystone, eufaula));
+
+		NamedPgJsonFormatter formatter = new NamedPgJsonFormatter();
+		String expected = formatter.format(keystone);
+		ReferenceDataCache.Rendered rendered = graphs.getRendered("KEYSTONE", Formats.NAMED_PGJSON).get();
+		assertEquals(expected, new String(rendered.getBody(), StandardCharsets.UTF_8));
+		assertTrue(graphs.getRendered("keystone", Formats.PGJSON).isPresent());
+		assertTrue(graphs.getGraph("Eufaula").isPresent());
+		assertFalse(graphs.getRendered("Oologah", Formats.NAMED_PGJSON).isPresent());
+
+		String all = new String(graphs.getRenderedAll(Formats.NAMED_PGJSON).get().getBody(), StandardCharsets.UTF_8);
+		assertEquals(formatter.format(Arrays.asList(keystone, eufaula)), all);
+	}
+
+	@Test
+	public void testBasinsAreIndexedForTraversal()
+	{
+		BasinGraphCache.BasinGraphs graphs = new BasinGraphCache.BasinGraphs(Arrays.asList(basin("Keystone"), basin("Eufaula")));
+
+		BasinConnectivityIndex index = graphs.getIndex("keystone").get();
+		// the stream runs from station 0 to 100
+		int start = index.indexOf("Keystone-Down").getAsInt();
+		List<String> downstream = index.downstream(start).stream()
+				.map(v -> v.getNode().getId())
+				.collect(Collectors.toList());
+		assertEquals(Arrays.asList("Keystone-Down", "Keystone-Up", "Keystone River-Node-100.0"), downstream);
+		assertFalse(index.indexOf("Eufaula-Up").isPresent());
+		assertTrue(graphs.getIndex("EUFAULA").isPresent());
+		assertFalse(graphs.getIndex("Oologah").isPresent());
+	}
+
+	@Test
+	public void testNoBasins()
+	{
+		BasinGraphCache.BasinGraphs graphs = new BasinGraphCache.BasinGraphs(Collections.emptyList());
+
+		assertTrue(graphs.isEmpty());
+		assertEquals(0, graphs.getRenderedAll(Formats.PGJSON).get().getBody().length);
+	}
+
+	@Test
+	public void testOnlyOfficesThatExistAreKept() throws Exception
+	{
+		List<String> reads = new ArrayList<>();
+		BasinGraphCache cache = new BasinGraphCache((dsl, office, units) -> {
+			reads.add(office + "/" + units);
+			return "SWT".equals(office) ? Collections.singletonList(basin("Keystone")) : Collections.emptyList();
+		}, (dsl, basinId, office, units) -> basin(basinId));
+
+		assertFalse(cache.getOrLoad(null, "swt", "en").isEmpty());
+		assertTrue(cache.getOrLoad(null, "SWT", "EN").getIndex("Keystone").isPresent());
+		// no office, and an office with no basins that may not exist, are read every time
+		cache.getOrLoad(null, null, "EN");
+		cache.getOrLoad(null, "NOPE", "bogus");
+		cache.getOrLoad(null, "NOPE", "SI");
+
+		assertEquals(Arrays.asList("SWT/EN", "null/EN", "NOPE/SI", "NOPE/SI"), reads);
+		assertEquals(Collections.singleton("SWT/EN"),
+				cache.keys(null).stream().map(BasinGraphCache.Key::toString).collect(Collectors.toSet()));
+	}
+
+	@Test
+	public void testUnknownOfficesAreNotKept() throws Exception
+	{
+		ReferenceDataCache.getInstance().update(Collections.emptyMap(),
+				Arrays.asList(new Office("SWT", "Tulsa District", "DIS", "SWD"), new Office("LRL", "Louisville District", "DIS", "LRD")));
+		try
+		{
+			BasinGraphCache cache = new BasinGraphCache((dsl, office, units) -> Collections.emptyList(),
+					(dsl, basinId, office, units) -> basin(basinId));
+			cache.getOrLoad(null, "XYZ", "EN");
+			cache.getOrLoad(null, "LRL", "EN");
+
+			// LRL has no basins but is an office, so its empty answer is kept
+			assertEquals(1, cache.size());
+			assertEquals("LRL", cache.keys(null).iterator().next().getOfficeId());
+		}
+		finally
+		{
+			ReferenceDataCache.getInstance().clear();
+		}
+	}
+
+	@Test
+	public void testOneBasinWithoutAnOfficeIsReadAlone() throws Exception
+	{
+		List<String> reads = new ArrayList<>();
+		BasinGraphCache cache = new BasinGraphCache((dsl, office, units) -> {
+			reads.add("all " + office);
+			return Arrays.asList(basin("Keystone"), basin("Eufaula"));
+		}, (dsl, basinId, office, units) -> {
+			reads.add(basinId + " " + office + "/" + units);
+			return basin(basinId);
+		});
+
+		BasinGraphCache.BasinGraphs graphs = cache.getOrLoad(null, null, "Keystone", "si");
+		assertEquals(Collections.singletonList("KEYSTONE"),
+				graphs.getBasins().stream().map(b -> b.getBasinName().toUpperCase()).collect(Collectors.toList()));
+		assertTrue(graphs.getIndex("Keystone").isPresent());
+		// with an office the office's graphs are used, and kept
+		cache.getOrLoad(null, "SWT", "Keystone", "EN");
+		cache.getOrLoad(null, "SWT", "Eufaula", "EN");
+
+		assertEquals(Arrays.asList("Keystone null/SI", "all SWT"), reads);
+		assertEquals(1, cache.size());
+	}
+}
@@ -0,0 +1,58 @@
+package cwms.radar.data.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import cwms.radar.data.dto.Blobs;
+import cwms.radar.data.dto.CwmsDTOPaginated;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record1;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BlobDaoTest
+{
+	@Test
+	public void testCursorPageSizeIsClamped()
+	{
+		List<Object> binds = new ArrayList<>();
+		DSLContext dsl = DSL.using(new MockConnection(context -> {
+			binds.addAll(Arrays.asList(context.bindings()));
+			DSLContext create = DSL.using(SQLDialect.DEFAULT);
+			Field<String> id = DSL.field("ID", String.class);
+			Result<Record1<String>> none = create.newResult(id);
+			return new MockResult[]{new MockResult(0, none)};
+		}), SQLDialect.DEFAULT);
+
+		String cursor = CwmsDTOPaginated.encodeCursor("SWT/KEYS_MAP", 100000, 7);
+		Blobs blobs = new BlobDao(dsl).getBlobs(cursor, 20, Optional.empty(), ".*");
+
+		assertEquals(BlobDao.MAX_PAGE_SIZE, blobs.getPageSize());
+		assertEquals(BlobDao.MAX_PAGE_SIZE, ((Number) binds.get(binds.size() - 1)).intValue());
+	}
+
+	@Test
+	public void testMalformedCursorIsRejected()
+	{
+		BlobDao dao = new BlobDao(DSL.using(SQLDialect.DEFAULT));
+
+		for(String page : new String[]{"no slash||7||20", "SWT/KEYS_MAP", "SWT/KEYS_MAP||seven||20", "SWT/KEYS_MAP||7||0"})
+		{
+			String cursor = Base64.getEncoder().encodeToString(page.getBytes());
+			assertThrows(IllegalArgumentException.class, () -> dao.getBlobs(cursor, 20, Optional.empty(), ".*"), page);
+		}
+		// not base64
+		assertThrows(IllegalArgumentException.class, () -> dao.getBlobs("%%%", 20, Optional.empty(), ".*"));
+	}
+}
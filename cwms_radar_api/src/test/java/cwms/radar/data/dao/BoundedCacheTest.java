@@ -0,0 +1,65 @@
+package cwms.radar.data.dao;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BoundedCacheTest
+{
+	@Test
+	public void testHitsMissesAndEviction()
+	{
+		AtomicInteger loads = new AtomicInteger();
+		BoundedCache<String, String> cache = new BoundedCache<>(2, 60_000);
+		BoundedCache.Loader<String, String, RuntimeException> loader = key -> {
+			loads.incrementAndGet();
+			return key.toLowerCase();
+		};
+
+		assertEquals("a", cache.get("A", loader));
+		assertEquals("a", cache.get("A", loader));
+		cache.get("B", loader);
+		// A was used last, so C pushes out B
+		cache.get("A", loader);
+		cache.get("C", loader);
+		cache.get("A", loader);
+		cache.get("B", loader);
+
+		assertEquals(4, loads.get());
+		assertEquals(3, cache.getHitCount());
+		assertEquals(4, cache.getMissCount());
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testEntriesAgeOut()
+	{
+		AtomicLong now = new AtomicLong(0);
+		AtomicInteger loads = new AtomicInteger();
+		BoundedCache<String, Integer> cache = new BoundedCache<>(10, 1_000, now::get);
+		BoundedCache.Loader<String, Integer, RuntimeException> loader = key -> loads.incrementAndGet();
+
+		assertEquals(1, cache.get("A", loader));
+		now.set(999);
+		assertEquals(1, cache.get("A", loader));
+		now.set(1_000);
+		assertEquals(2, cache.get("A", loader));
+	}
+
+	@Test
+	public void testInvalidationDuringALoadIsNotUndone()
+	{
+		BoundedCache<String, String> cache = new BoundedCache<>(10, 60_000);
+		String stale = cache.get("A", key -> {
+			// a write lands while the old value is being read
+			cache.invalidate(key);
+			return "old";
+		});
+
+		assertEquals("old", stale);
+		assertEquals("new", cache.get("A", key -> "new"));
+	}
+}
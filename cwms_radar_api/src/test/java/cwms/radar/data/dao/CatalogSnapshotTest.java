@@ -0,0 +1,89 @@
+package cwms.radar.data.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import cwms.radar.data.dto.Catalog;
+import cwms.radar.data.dto.catalog.CatalogEntry;
+import cwms.radar.data.dto.catalog.TimeseriesCatalogEntry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class CatalogSnapshotTest
+{
+	private static CatalogSnapshot<TimeseriesCatalogEntry> snapshot()
+	{
+		List<TimeseriesCatalogEntry> entries = Arrays.asList(
+				new TimeseriesCatalogEntry("SWT", "Keys.Stage.Inst.1Hour.0.raw", "ft"),
+				new TimeseriesCatalogEntry("LRL", "Buck.Flow.Inst.1Hour.0.raw", "cfs"),
+				new TimeseriesCatalogEntry("SWT", "Arbu.Stage.Inst.1Hour.0.raw", "ft"),
+				new TimeseriesCatalogEntry("SWT", "Keys.Flow.Inst.1Hour.0.raw", "cfs"),
+				new TimeseriesCatalogEntry("LRL", "Buck.Stage.Inst.1Hour.0.raw", "ft"));
+		return new CatalogSnapshot<>(entries.iterator(), TimeseriesCatalogEntry::getFullName, null);
+	}
+
+	private static List<String> names(Catalog cat)
+	{
+		return cat.getEntries().stream()
+				.map(e -> e.getOffice() + "/" + ((TimeseriesCatalogEntry) e).getFullName())
+				.collect(Collectors.toList());
+	}
+
+	@Test
+	public void testPagesWalkEveryOfficeInKeyOrder()
+	{
+		CatalogSnapshot<TimeseriesCatalogEntry> snapshot = snapshot();
+		List<String> all = new ArrayList<>();
+		String cursor = null;
+		do
+		{
+			Catalog page = snapshot.getPage(cursor, 2, Optional.empty(), null, null);
+			assertEquals(5, page.getTotal().intValue());
+			all.addAll(names(page));
+			cursor = page.getNextPage();
+		}
+		while(cursor != null);
+
+		assertEquals(Arrays.asList(
+				"LRL/Buck.Flow.Inst.1Hour.0.raw",
+				"LRL/Buck.Stage.Inst.1Hour.0.raw",
+				"SWT/Arbu.Stage.Inst.1Hour.0.raw",
+				"SWT/Keys.Flow.Inst.1Hour.0.raw",
+				"SWT/Keys.Stage.Inst.1Hour.0.raw"), all);
+	}
+
+	@Test
+	public void testFilters()
+	{
+		CatalogSnapshot<TimeseriesCatalogEntry> snapshot = snapshot();
+
+		Catalog prefix = snapshot.getPage(null, 10, Optional.of("swt"), "Keys", null);
+		assertEquals(Arrays.asList("SWT/Keys.Flow.Inst.1Hour.0.raw", "SWT/Keys.Stage.Inst.1Hour.0.raw"), names(prefix));
+		assertEquals(2, prefix.getTotal().intValue());
+		assertNull(prefix.getNextPage());
+
+		Catalog pattern = snapshot.getPage(null, 10, Optional.empty(), "*.Stage", e -> "ft".equals(e.getUnits()));
+		assertEquals(3, pattern.getTotal().intValue());
+
+		Catalog unknownOffice = snapshot.getPage(null, 10, Optional.of("NWD"), null, null);
+		assertEquals(0, unknownOffice.getEntries().size());
+	}
+
+	@Test
+	public void testCursorFromLivePageContinues()
+	{
+		CatalogSnapshot<TimeseriesCatalogEntry> snapshot = snapshot();
+		List<? extends CatalogEntry> firstTwo = Arrays.asList(
+				new TimeseriesCatalogEntry("LRL", "Buck.Flow.Inst.1Hour.0.raw", "cfs"),
+				new TimeseriesCatalogEntry("LRL", "Buck.Stage.Inst.1Hour.0.raw", "ft"));
+		String cursor = new Catalog(null, 5, 2, firstTwo).getNextPage();
+
+		Catalog next = snapshot.getPage(cursor, 2, Optional.empty(), null, null);
+		assertEquals(Arrays.asList("SWT/Arbu.Stage.Inst.1Hour.0.raw", "SWT/Keys.Flow.Inst.1Hour.0.raw"), names(next));
+	}
+}
@@ -0,0 +1,45 @@
+package cwms.radar.data.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record1;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockResult;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChangeFingerprintDaoTest
+{
+	@Test
+	public void testTableFingerprintIsReadOnceWhileFresh()
+	{
+		List<String> sql = new ArrayList<>();
+		DSLContext dsl = DSL.using(new MockConnection(context -> {
+			sql.add(context.sql());
+			DSLContext create = DSL.using(SQLDialect.DEFAULT);
+			Field<String> tag = DSL.field("tag", String.class);
+			Result<Record1<String>> tags = create.newResult(tag);
+			tags.add(create.newRecord(tag).values("12:3456"));
+			return new MockResult[]{new MockResult(1, tags)};
+		}), SQLDialect.DEFAULT);
+
+		ChangeFingerprintDao dao = new ChangeFingerprintDao(dsl);
+		List<String> tables = Arrays.asList("AT_FINGERPRINT_TEST");
+		String first = dao.getTableFingerprint(tables).getTag();
+		String second = dao.getTableFingerprint(tables).getTag();
+
+		assertEquals(first, second);
+		assertEquals(1, sql.size());
+		// the schema comes from the generated classes rather than being spelled out
+		assertTrue(sql.get(0).contains("\"CWMS_20\".\"AT_FINGERPRINT_TEST\""), sql.get(0));
+	}
+}
@@ -0,0 +1,39 @@
+package cwms.radar.data.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JooqDaoTest
+{
+	@Test
+	public void testInListChunksStayUnderTheLimit()
+	{
+		List<String> names = new ArrayList<>();
+		for(int i = 0; i < 2 * JooqDao.IN_LIST_LIMIT + 1; i++)
+		{
+			names.add("LOC-" + i);
+		}
+
+		List<List<String>> chunks = JooqDao.inListChunks(names);
+
+		assertEquals(3, chunks.size());
+		assertEquals(JooqDao.IN_LIST_LIMIT, chunks.get(0).size());
+		assertEquals(JooqDao.IN_LIST_LIMIT, chunks.get(1).size());
+		assertEquals(Collections.singletonList("LOC-" + 2 * JooqDao.IN_LIST_LIMIT), chunks.get(2));
+		List<String> joined = new ArrayList<>();
+		chunks.forEach(joined::addAll);
+		assertEquals(names, joined);
+	}
+
+	@Test
+	public void testNoValuesNoChunks()
+	{
+		assertTrue(JooqDao.inListChunks(Collections.emptyList()).isEmpty());
+	}
+}
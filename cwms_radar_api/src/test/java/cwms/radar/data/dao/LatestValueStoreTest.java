@@ -0,0 +1,107 @@
+package cwms.radar.data.dao;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import cwms.radar.data.dto.RecentValue;
+import cwms.radar.data.dto.TsvDqu;
+import cwms.radar.data.dto.TsvDquId;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatestValueStoreTest
+{
+	private static final String STAGE = "Alpha.Stage.Inst.1Hour.0.raw";
+	private static final String FLOW = "Alpha.Flow.Inst.1Hour.0.raw";
+	private static final Timestamp HORIZON = Timestamp.valueOf("2021-06-01 00:00:00");
+	private static final Timestamp LATEST = Timestamp.valueOf("2021-06-20 12:00:00");
+	private static final long STALENESS = 60_000;
+
+	@Test
+	public void testNothingIsCoveredUntilPrimed()
+	{
+		LatestValueStore store = new LatestValueStore();
+		LatestValueStore.Lookup lookup = store.lookup(Arrays.asList(STAGE), HORIZON, future());
+		assertEquals(Arrays.asList(STAGE), lookup.getUncoveredIds());
+	}
+
+	@Test
+	public void testAnswersCoveredWindows()
+	{
+		LatestValueStore store = new LatestValueStore();
+		store.prime(Arrays.asList(buildValue(STAGE, 1L, "ft", LATEST, 10.0), buildValue(STAGE, 1L, "m", LATEST, 3.048)),
+				HORIZON, STALENESS);
+
+		LatestValueStore.Lookup lookup = store.lookup(Arrays.asList(STAGE, FLOW), HORIZON, future());
+		assertTrue(lookup.getUncoveredIds().isEmpty());
+		assertEquals(2, lookup.getValues().size(), "one row per unit");
+
+		// Latest value is before the window, so there is nothing in it.
+		lookup = store.lookup(Arrays.asList(STAGE), LATEST, future());
+		assertTrue(lookup.getUncoveredIds().isEmpty());
+		assertTrue(lookup.getValues().isEmpty());
+
+		// Latest value is past the window, the database has to be asked.
+		lookup = store.lookup(Arrays.asList(STAGE), HORIZON, LATEST);
+		assertEquals(Arrays.asList(STAGE), lookup.getUncoveredIds());
+
+		// Window starts before what the table knows about.
+		lookup = store.lookup(Arrays.asList(STAGE), new Timestamp(HORIZON.getTime() - 1), future());
+		assertEquals(Arrays.asList(STAGE), lookup.getUncoveredIds());
+	}
+
+	@Test
+	public void testAppliesOnlyNewerValues()
+	{
+		LatestValueStore store = new LatestValueStore();
+		store.prime(Collections.singletonList(buildValue(STAGE, 1L, "ft", LATEST, 10.0)), HORIZON, STALENESS);
+
+		Timestamp older = new Timestamp(LATEST.getTime() - 3_600_000);
+		Timestamp newer = new Timestamp(LATEST.getTime() + 3_600_000);
+		store.apply(Arrays.asList(buildValue(STAGE, 1L, "ft", older, 1.0), buildValue(STAGE, 1L, "ft", newer, 11.0)));
+
+		List<RecentValue> values = store.lookup(Arrays.asList(STAGE), HORIZON, future()).getValues();
+		assertEquals(1, values.size());
+		assertEquals(11.0, values.get(0).getDqu().getValue());
+	}
+
+	@Test
+	public void testWritesUpdateOrInvalidate()
+	{
+		LatestValueStore store = new LatestValueStore();
+		store.prime(Arrays.asList(buildValue(STAGE, 1L, "ft", LATEST, 10.0), buildValue(FLOW, 2L, "cfs", LATEST, 100.0),
+				buildValue(FLOW, 2L, "cms", LATEST, 2.83)), HORIZON, STALENESS);
+
+		Timestamp newer = new Timestamp(LATEST.getTime() + 3_600_000);
+		store.recordWrite("SWT", STAGE, "ft", newer, 12.0, 0);
+		store.recordWrite("SWT", FLOW, "cfs", newer, 200.0, 0);
+
+		LatestValueStore.Lookup lookup = store.lookup(Arrays.asList(STAGE, FLOW), HORIZON, future());
+		assertEquals(1, lookup.getValues().size());
+		assertEquals(12.0, lookup.getValues().get(0).getDqu().getValue());
+		assertEquals(Arrays.asList(FLOW), lookup.getUncoveredIds(), "flow can't be converted to cms here");
+
+		store.apply(Arrays.asList(buildValue(FLOW, 2L, "cfs", newer, 200.0), buildValue(FLOW, 2L, "cms", newer, 5.66)));
+		lookup = store.lookup(Arrays.asList(FLOW), HORIZON, future());
+		assertTrue(lookup.getUncoveredIds().isEmpty());
+		assertEquals(2, lookup.getValues().size());
+
+		store.recordDelete("SWT", STAGE);
+		assertTrue(store.lookup(Arrays.asList(STAGE), HORIZON, future()).getValues().isEmpty());
+	}
+
+	private static Timestamp future()
+	{
+		return new Timestamp(LATEST.getTime() + 14L * 24 * 3_600_000);
+	}
+
+	private static RecentValue buildValue(String tsId, Long tsCode, String unit, Timestamp time, double value)
+	{
+		TsvDquId id = new TsvDquId("SWT", tsCode, unit, time);
+		return new RecentValue(tsId, new TsvDqu(id, tsId, null, null, value, 0L, HORIZON, future()));
+	}
+}
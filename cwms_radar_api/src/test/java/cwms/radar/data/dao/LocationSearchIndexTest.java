@@ -0,0 +1,147 @@
+package cwms.radar.data.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import cwms.radar.data.dto.LocationSearchResult;
+import cwms.radar.data.dto.Office;
+import cwms.radar.data.dto.catalog.LocationAlias;
+import cwms.radar.data.dto.catalog.LocationCatalogEntry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LocationSearchIndexTest
+{
+	private static final String OFFICE = "SPK";
+
+	private static LocationCatalogEntry entry(String name, String publicName, String longName, String city, String... aliases)
+	{
+		List<LocationAlias> aliasList = Arrays.stream(aliases)
+				.map(a -> new LocationAlias("Agency Aliases-NWS", a))
+				.collect(Collectors.toList());
+		return new LocationCatalogEntry(OFFICE, name, city, publicName, longName, null, "SITE", null, "UTC",
+				null, null, null, null, "WGS84", null, "m", null, "US", null, null, null, null, true, aliasList);
+	}
+
+	private static LocationSearchIndex buildIndex()
+	{
+		LocationSearchIndex index = new LocationSearchIndex();
+		index.load(OFFICE, Stream.of(
+				entry("FOL", "Folsom Dam", "Folsom Dam and Lake", "Folsom", "FOLC1"),
+				entry("FOL-Tailwater", "Folsom Tailwater", null, "Folsom"),
+				entry("NAT", "Nimbus Dam", "Lake Natoma at Nimbus", "Folsom"),
+				entry("BLB", "Black Butte", "Black Butte Lake", "Orland", "BLBC1")));
+		return index;
+	}
+
+	private static List<String> names(List<LocationSearchResult> results)
+	{
+		return results.stream().map(LocationSearchResult::getName).collect(Collectors.toList());
+	}
+
+	@Test
+	public void testExactNameRanksFirst()
+	{
+		List<LocationSearchResult> results = buildIndex().search(OFFICE, "fol", 10);
+		assertEquals("FOL", results.get(0).getName());
+		assertEquals(Arrays.asList("FOL", "FOL-Tailwater", "NAT"), names(results));
+	}
+
+	@Test
+	public void testShortPrefixAndLimit()
+	{
+		LocationSearchIndex index = buildIndex();
+		assertEquals(Arrays.asList("BLB"), names(index.search("spk", "bl", 10)));
+		assertEquals(1, index.search(OFFICE, "f", 1).size());
+	}
+
+	@Test
+	public void testEveryWordHasToMatch()
+	{
+		LocationSearchIndex index = buildIndex();
+		assertEquals(Arrays.asList("NAT"), names(index.search(OFFICE, "lake nat", 10)));
+		assertEquals("Lake Natoma at Nimbus", index.search(OFFICE, "natoma", 10).get(0).getMatched());
+	}
+
+	@Test
+	public void testAliasesAndMisspellings()
+	{
+		LocationSearchIndex index = buildIndex();
+		assertEquals(Arrays.asList("BLB"), names(index.search(OFFICE, "blbc1", 10)));
+
+		List<LocationSearchResult> results = index.search(OFFICE, "folsum", 10);
+		assertTrue(names(results).contains("FOL"));
+		assertTrue(results.get(0).getScore() < 0.5);
+	}
+
+	@Test
+	public void testWritesPatchALoadedOffice()
+	{
+		LocationSearchIndex index = buildIndex();
+		index.put(OFFICE, "BLB", "BLB2", "Black Butte Dam", null, "Orland");
+		index.remove(OFFICE, "NAT");
+		index.put(OFFICE, "ISB", "Isabella Dam", null, "Lake Isabella");
+
+		assertEquals(Arrays.asList("BLB2"), names(index.search(OFFICE, "blbc1", 10)));
+		assertEquals(Collections.emptyList(), names(index.search(OFFICE, "nimbus", 10)));
+		assertEquals(Arrays.asList("ISB"), names(index.search(OFFICE, "isabella", 10)));
+		assertTrue(index.search("SWT", "isabella", 10).isEmpty());
+	}
+
+	@Test
+	public void testShortPrefixStopsInScoreOrder()
+	{
+		LocationSearchIndex index = new LocationSearchIndex();
+		index.load(OFFICE, Stream.of(
+				// ab starts a word of the long name, 0.8 of 0.6
+				entry("QQ", null, "Abc Creek", null),
+				// ab starts only the city, 0.8 of 0.5, but is inside the name, 0.5 of 1.0
+				entry("XAB", null, null, "Abbey")));
+
+		assertEquals(Arrays.asList("XAB", "QQ"), names(index.search(OFFICE, "ab", 10)));
+		assertEquals(Arrays.asList("XAB"), names(index.search(OFFICE, "ab", 1)));
+	}
+
+	@Test
+	public void testOnlyOfficesWithLocationsAreKept()
+	{
+		LocationSearchIndex index = new LocationSearchIndex();
+		List<String> asked = new ArrayList<>();
+		index.loadIfAbsent("spk", office -> {
+			asked.add(office);
+			return Stream.of(entry("FOL", "Folsom Dam", null, "Folsom"));
+		});
+		index.loadIfAbsent("NOPE", office -> {
+			asked.add(office);
+			return Stream.empty();
+		});
+
+		assertEquals(Arrays.asList("SPK", "NOPE"), asked);
+		assertEquals(Collections.singleton("SPK"), index.getLoadedOffices());
+	}
+
+	@Test
+	public void testUnknownOfficesAreNotLoaded()
+	{
+		ReferenceDataCache.getInstance().update(Collections.emptyMap(),
+				Collections.singletonList(new Office("SPK", "Sacramento District", "DIS", "SPD")));
+		try
+		{
+			LocationSearchIndex index = new LocationSearchIndex();
+			index.loadIfAbsent("XYZ", office -> {
+				throw new AssertionError("an unknown office shouldn't be queried");
+			});
+			assertTrue(index.getLoadedOffices().isEmpty());
+		}
+		finally
+		{
+			ReferenceDataCache.getInstance().clear();
+		}
+	}
+}
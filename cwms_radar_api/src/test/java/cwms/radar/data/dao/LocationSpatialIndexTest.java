@@ -0,0 +1,126 @@
+package cwms.radar.data.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import cwms.radar.data.dto.LocationPoint;
+import cwms.radar.data.dto.Office;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LocationSpatialIndexTest
+{
+	private static final String OFFICE = "SPK";
+
+	private static LocationSpatialIndex buildIndex()
+	{
+		LocationSpatialIndex index = new LocationSpatialIndex();
+		index.load(OFFICE, Arrays.asList(
+				new LocationPoint(OFFICE, "Sacramento", 38.58, -121.49),
+				new LocationPoint(OFFICE, "Folsom", 38.68, -121.18),
+				new LocationPoint(OFFICE, "Stockton", 37.96, -121.29),
+				new LocationPoint(OFFICE, "Reno", 39.53, -119.81),
+				new LocationPoint(OFFICE, "Fiji", -17.8, 179.9),
+				new LocationPoint(OFFICE, "Samoa", -13.8, -172.1)));
+		return index;
+	}
+
+	private static List<String> names(List<LocationPoint> points)
+	{
+		return points.stream().map(LocationPoint::getName).collect(Collectors.toList());
+	}
+
+	@Test
+	public void testWithinBox()
+	{
+		LocationSpatialIndex index = buildIndex();
+		List<String> found = names(index.withinBox("spk", 38.0, -122.0, 39.0, -121.0));
+		assertEquals(2, found.size());
+		assertTrue(found.containsAll(Arrays.asList("Sacramento", "Folsom")));
+	}
+
+	@Test
+	public void testBoxAcrossTheAntimeridian()
+	{
+		LocationSpatialIndex index = buildIndex();
+		List<String> found = names(index.withinBox(OFFICE, -20.0, 170.0, -10.0, -170.0));
+		assertEquals(2, found.size());
+		assertTrue(found.containsAll(Arrays.asList("Fiji", "Samoa")));
+	}
+
+	@Test
+	public void testWithinRadiusIsNearestFirst()
+	{
+		LocationSpatialIndex index = buildIndex();
+		List<LocationPoint> found = index.withinRadius(OFFICE, 38.58, -121.49, 80.0);
+		assertEquals(Arrays.asList("Sacramento", "Folsom", "Stockton"), names(found));
+		assertEquals(0.0, found.get(0).getDistance(), 0.001);
+		assertEquals(29.1, found.get(1).getDistance(), 0.1);
+	}
+
+	@Test
+	public void testNearestWidensUntilFound()
+	{
+		LocationSpatialIndex index = buildIndex();
+		assertEquals(Arrays.asList("Folsom", "Sacramento", "Stockton", "Reno"),
+				names(index.nearest(OFFICE, 38.68, -121.18, 4, Double.MAX_VALUE)));
+		assertEquals(Arrays.asList("Folsom", "Sacramento"),
+				names(index.nearest(OFFICE, 38.68, -121.18, 4, 50.0)));
+		assertEquals(6, index.nearest(OFFICE, 0.0, 0.0, 10, Double.MAX_VALUE).size());
+	}
+
+	@Test
+	public void testWritesPatchALoadedOffice()
+	{
+		LocationSpatialIndex index = buildIndex();
+		index.put(OFFICE, "Folsom", 39.5, -119.8);
+		index.remove(OFFICE, "Stockton");
+		index.put("SWT", "Tulsa", 36.15, -95.99);
+
+		assertEquals(Arrays.asList("Reno", "Folsom"), names(index.nearest(OFFICE, 39.53, -119.81, 2, Double.MAX_VALUE)));
+		assertTrue(index.withinBox(OFFICE, 37.0, -122.0, 38.0, -121.0).isEmpty());
+		assertTrue(!index.isLoaded("SWT"));
+	}
+
+	@Test
+	public void testOnlyOfficesWithLocationsAreKept()
+	{
+		LocationSpatialIndex index = new LocationSpatialIndex();
+		List<String> asked = new ArrayList<>();
+		index.loadIfAbsent("spk", office -> {
+			asked.add(office);
+			return Collections.singletonList(new LocationPoint(office, "Folsom", 38.68, -121.18));
+		});
+		index.loadIfAbsent("NOPE", office -> {
+			asked.add(office);
+			return Collections.emptyList();
+		});
+
+		assertEquals(Arrays.asList("SPK", "NOPE"), asked);
+		assertEquals(Collections.singleton("SPK"), index.getLoadedOffices());
+	}
+
+	@Test
+	public void testUnknownOfficesAreNotLoaded()
+	{
+		ReferenceDataCache.getInstance().update(Collections.emptyMap(),
+				Collections.singletonList(new Office("SPK", "Sacramento District", "DIS", "SPD")));
+		try
+		{
+			LocationSpatialIndex index = new LocationSpatialIndex();
+			index.loadIfAbsent("XYZ", office -> {
+				throw new AssertionError("an unknown office shouldn't be queried");
+			});
+			assertTrue(index.getLoadedOffices().isEmpty());
+		}
+		finally
+		{
+			ReferenceDataCache.getInstance().clear();
+		}
+	}
+}
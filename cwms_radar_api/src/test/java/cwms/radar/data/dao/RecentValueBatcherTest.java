@@ -0,0 +1,132 @@
+package cwms.radar.data.dao;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.codahale.metrics.MetricRegistry;
+import cwms.radar.data.dto.RecentValue;
+import cwms.radar.data.dto.TsvDqu;
+import cwms.radar.data.dto.TsvDquId;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RecentValueBatcherTest
+{
+	private static final Timestamp PAST = Timestamp.valueOf("2021-06-01 00:00:00");
+	private static final Timestamp FUTURE = Timestamp.valueOf("2021-07-01 00:00:00");
+
+	@Test
+	public void testLookupsShareOneQuery() throws Exception
+	{
+		List<List<String>> loads = Collections.synchronizedList(new ArrayList<>());
+		RecentValueBatcher.Loader loader = (office, tsIds, past, future) -> {
+			loads.add(tsIds);
+			return tsIds.stream().map(RecentValueBatcherTest::buildValue).collect(Collectors.toList());
+		};
+
+		try(RecentValueBatcher batcher = new RecentValueBatcher(loader, new MetricRegistry(), 200, 100))
+		{
+			CompletableFuture<List<RecentValue>> first = batcher.submit("SWT", Arrays.asList("A.Stage.Inst.1Hour.0.raw"), PAST, FUTURE);
+			CompletableFuture<List<RecentValue>> second = batcher.submit("SWT", Arrays.asList("B.Flow.Inst.1Hour.0.raw", "A.Stage.Inst.1Hour.0.raw"), PAST, FUTURE);
+
+			List<RecentValue> firstValues = first.get(5, TimeUnit.SECONDS);
+			List<RecentValue> secondValues = second.get(5, TimeUnit.SECONDS);
+
+			assertEquals(1, loads.size(), "both lookups should have been answered by one query");
+			assertEquals(2, loads.get(0).size());
+			assertEquals(1, firstValues.size());
+			assertEquals("A.Stage.Inst.1Hour.0.raw", firstValues.get(0).getId());
+			assertEquals(2, secondValues.size());
+		}
+	}
+
+	@Test
+	public void testFullBatchDispatchesWithoutWaiting() throws Exception
+	{
+		List<List<String>> loads = Collections.synchronizedList(new ArrayList<>());
+		RecentValueBatcher.Loader loader = (office, tsIds, past, future) -> {
+			loads.add(tsIds);
+			return new ArrayList<>();
+		};
+
+		try(RecentValueBatcher batcher = new RecentValueBatcher(loader, new MetricRegistry(), 60_000, 2))
+		{
+			List<RecentValue> values = batcher.submit("SWT", Arrays.asList("A", "B"), PAST, FUTURE).get(5, TimeUnit.SECONDS);
+			assertTrue(values.isEmpty());
+			assertEquals(1, loads.size());
+		}
+	}
+
+	@Test
+	public void testDifferentWindowsAreNotMixed() throws Exception
+	{
+		List<List<String>> loads = Collections.synchronizedList(new ArrayList<>());
+		RecentValueBatcher.Loader loader = (office, tsIds, past, future) -> {
+			loads.add(tsIds);
+			return new ArrayList<>();
+		};
+
+		try(RecentValueBatcher batcher = new RecentValueBatcher(loader, new MetricRegistry(), 50, 100))
+		{
+			CompletableFuture<List<RecentValue>> first = batcher.submit("SWT", Arrays.asList("A"), PAST, FUTURE);
+			CompletableFuture<List<RecentValue>> second = batcher.submit("SWT", Arrays.asList("A"), PAST, new Timestamp(FUTURE.getTime() + 1));
+			first.get(5, TimeUnit.SECONDS);
+			second.get(5, TimeUnit.SECONDS);
+			assertEquals(2, loads.size());
+		}
+	}
+
+	@Test
+	public void testLookupThatWouldOverflowStartsANewBatch() throws Exception
+	{
+		List<List<String>> loads = Collections.synchronizedList(new ArrayList<>());
+		RecentValueBatcher.Loader loader = (office, tsIds, past, future) -> {
+			loads.add(tsIds);
+			return new ArrayList<>();
+		};
+
+		try(RecentValueBatcher batcher = new RecentValueBatcher(loader, new MetricRegistry(), 200, 3))
+		{
+			CompletableFuture<List<RecentValue>> first = batcher.submit("SWT", Arrays.asList("A", "B"), PAST, FUTURE);
+			CompletableFuture<List<RecentValue>> second = batcher.submit("SWT", Arrays.asList("B", "C", "D"), PAST, FUTURE);
+			first.get(5, TimeUnit.SECONDS);
+			second.get(5, TimeUnit.SECONDS);
+
+			assertEquals(Arrays.asList(Arrays.asList("A", "B"), Arrays.asList("B", "C", "D")), loads);
+		}
+	}
+
+	@Test
+	public void testOversizedLookupIsSplit() throws Exception
+	{
+		List<List<String>> loads = Collections.synchronizedList(new ArrayList<>());
+		RecentValueBatcher.Loader loader = (office, tsIds, past, future) -> {
+			loads.add(tsIds);
+			return tsIds.stream().map(RecentValueBatcherTest::buildValue).collect(Collectors.toList());
+		};
+
+		try(RecentValueBatcher batcher = new RecentValueBatcher(loader, new MetricRegistry(), 200, 2))
+		{
+			List<RecentValue> values = batcher.submit("SWT", Arrays.asList("A", "B", "C", "D", "E"), PAST, FUTURE)
+					.get(5, TimeUnit.SECONDS);
+
+			assertEquals(5, values.size());
+			assertEquals(3, loads.size());
+			assertTrue(loads.stream().allMatch(ids -> ids.size() <= 2));
+		}
+	}
+
+	private static RecentValue buildValue(String tsId)
+	{
+		TsvDquId id = new TsvDquId("SWT", 1L, "ft", PAST);
+		return new RecentValue(tsId, new TsvDqu(id, tsId, null, null, 1.0, 0L, PAST, FUTURE));
+	}
+}
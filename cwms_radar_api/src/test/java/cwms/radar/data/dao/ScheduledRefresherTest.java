@@ -0,0 +1,76 @@
+package cwms.radar.data.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ScheduledRefresherTest
+{
+	private static final class Counting extends ScheduledRefresher
+	{
+		private final AtomicInteger runs = new AtomicInteger();
+		private final boolean fail;
+		private final boolean scheduled;
+
+		Counting(DataSource dataSource, MetricRegistry metrics, boolean fail)
+		{
+			super(dataSource, metrics, "radar-test-refresher", "count");
+			this.fail = fail;
+			scheduled = schedule(Duration.ZERO, Duration.ZERO);
+		}
+
+		@Override
+		protected void refresh(Connection connection) throws SQLException
+		{
+			runs.incrementAndGet();
+			if(fail)
+			{
+				throw new SQLException("failed on purpose");
+			}
+		}
+	}
+
+	@Test
+	public void testFailedRunIsCountedAndTheConnectionClosed() throws SQLException
+	{
+		DataSource dataSource = mock(DataSource.class);
+		Connection connection = mock(Connection.class);
+		when(dataSource.getConnection()).thenReturn(connection);
+		MetricRegistry metrics = new MetricRegistry();
+
+		try(Counting refresher = new Counting(dataSource, metrics, true))
+		{
+			refresher.refresh();
+			refresher.refresh();
+
+			assertEquals(2, refresher.runs.get());
+			assertEquals(2, refresher.failures.getCount());
+			verify(connection, times(2)).close();
+		}
+	}
+
+	@Test
+	public void testNoIntervalNoRuns() throws SQLException
+	{
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(mock(Connection.class));
+
+		try(Counting refresher = new Counting(dataSource, new MetricRegistry(), false))
+		{
+			assertFalse(refresher.scheduled);
+			assertEquals(0, refresher.runs.get());
+		}
+	}
+}
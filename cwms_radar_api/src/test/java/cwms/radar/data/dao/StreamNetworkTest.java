@@ -0,0 +1,58 @@
+package cwms.radar.data.dao;
+
+import cwms.radar.data.dto.basinconnectivity.Stream;
+import cwms.radar.data.dto.basinconnectivity.StreamLocation;
+import cwms.radar.data.dto.basinconnectivity.StreamReach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StreamNetworkTest
+{
+    private static Stream stream(String name, String flowsInto)
+    {
+        return new Stream.Builder(name, false, 10.0, "SWT")
+                .withReceivingStreamId(flowsInto)
+                .withConfluenceStation(1.0)
+                .withConfluenceBank("L")
+                .build();
+    }
+
+    @Test
+    public void testTreeIsAssembledFromTheFlatRows()
+    {
+        StreamNetwork network = new StreamNetwork();
+        network.addStream(stream("Main", null));
+        network.addStream(stream("Creek", "Main"));
+        network.addStream(stream("Brook", "Creek"));
+        network.addStreamLocation(new StreamLocation.Builder("Gage", "Creek", 2.0, "R", "SWT").build());
+        network.addStreamReach(new StreamReach.Builder("Reach", "Main", "Up", "Down", "SWT").build());
+
+        Stream main = network.getStream("Main", "SWT").get();
+        assertEquals(1, main.getStreamReaches().size());
+        Stream creek = main.getTributaries().get(0);
+        assertEquals("Creek", creek.getStreamName());
+        assertEquals("Gage", creek.getStreamLocations().get(0).getLocationName());
+        assertEquals("Brook", creek.getTributaries().get(0).getStreamName());
+
+        // assembled once and shared
+        assertSame(creek, network.getStream("Creek", "swt").get());
+        assertSame(main, network.getStream("Main", null).get());
+        assertFalse(network.getStream("Missing", "SWT").isPresent());
+    }
+
+    @Test
+    public void testCycleIsBroken()
+    {
+        StreamNetwork network = new StreamNetwork();
+        network.addStream(stream("A", "B"));
+        network.addStream(stream("B", "A"));
+
+        Stream a = network.getStream("A", "SWT").get();
+        assertEquals("B", a.getTributaries().get(0).getStreamName());
+        assertTrue(a.getTributaries().get(0).getTributaries().isEmpty());
+    }
+}
@@ -0,0 +1,32 @@
+package cwms.radar.data.dto;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class BlobsTest
+{
+	@Test
+	public void testCursorIsTheLastOfficeAndId()
+	{
+		Blobs blobs = new Blobs.Builder(null, 2, 7).addAll(Arrays.asList(
+				new Blob("SWT", "KEYS_MAP", "a map", "image/png", null),
+				new Blob("SWT", "KEYS_PLAN", "plan || notes; rev 2", "application/pdf", null))).build();
+
+		// the description is left out, it may hold the delimiter
+		assertArrayEquals(new String[]{"SWT/KEYS_PLAN", "7", "2"}, CwmsDTOPaginated.decodeCursor(blobs.getNextPage()));
+	}
+
+	@Test
+	public void testLastPageHasNoCursor()
+	{
+		Blobs blobs = new Blobs.Builder(null, 2, 1).addAll(Collections.singletonList(
+				new Blob("SWT", "KEYS_MAP", "a map", "image/png", null))).build();
+
+		assertNull(blobs.getNextPage());
+	}
+}
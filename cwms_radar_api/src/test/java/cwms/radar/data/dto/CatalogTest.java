@@ -0,0 +1,37 @@
+package cwms.radar.data.dto;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import cwms.radar.data.dto.catalog.TimeseriesCatalogEntry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class CatalogTest
+{
+	@Test
+	public void testCursorCarriesExactLastKey()
+	{
+		Catalog cat = new Catalog(null, 42, 2, Arrays.asList(
+				new TimeseriesCatalogEntry("SWT", "Keys.Stage.Inst.1Hour.0.raw", "ft"),
+				new TimeseriesCatalogEntry("SWT", "Keys.Stage.Inst.1Hour.0.rev/a", "ft")));
+
+		// not upper cased and nothing but the key, so the next page starts exactly after it
+		assertArrayEquals(new String[]{"SWT", "Keys.Stage.Inst.1Hour.0.rev/a"}, Catalog.decodeKey(cat.getNextPage()));
+		assertEquals(42, Catalog.decodeTotal(cat.getNextPage()));
+	}
+
+	@Test
+	public void testLastPageHasNoCursor()
+	{
+		Catalog cat = new Catalog(null, 1, 2, Collections.singletonList(
+				new TimeseriesCatalogEntry("SWT", "Keys.Stage.Inst.1Hour.0.raw", "ft")));
+
+		assertNull(cat.getNextPage());
+		assertNull(Catalog.decodeKey(null));
+		assertNull(Catalog.decodeKey(""));
+	}
+}
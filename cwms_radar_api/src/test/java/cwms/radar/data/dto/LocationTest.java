@@ -0,0 +1,29 @@
+package cwms.radar.data.dto;
+
+import java.time.ZoneId;
+import java.util.Collections;
+
+import cwms.radar.data.dto.catalog.LocationAlias;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class LocationTest
+{
+	private static Location location(String alias)
+	{
+		return new Location.Builder("KEYS", "SITE", ZoneId.of("UTC"), 36.15, -96.25, "NAD83", "SWT")
+				.withPublicName("Keystone")
+				.withAliases(Collections.singletonList(new LocationAlias("Agency Aliases-NWS Handbook 5 ID", alias)))
+				.build();
+	}
+
+	@Test
+	public void testAliasesAreCompared()
+	{
+		assertEquals(location("KEYO2"), location("KEYO2"));
+		assertEquals(location("KEYO2").hashCode(), location("KEYO2").hashCode());
+		assertNotEquals(location("KEYO2"), location("OTHER"));
+	}
+}
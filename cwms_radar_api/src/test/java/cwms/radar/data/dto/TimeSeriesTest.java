@@ -1,6 +1,8 @@
 package cwms.radar.data.dto;
 
+import java.sql.Timestamp;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -15,6 +17,7 @@ import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TimeSeriesTest
@@ -57,7 +60,24 @@ public class TimeSeriesTest
 		assertTrue(start.isEqual(rt1));
 	}
 
+	@Test
+	public void testSinceRoundtrip()
+	{
+		Timestamp mark = Timestamp.from(Instant.parse("2021-06-21T21:00:00.123Z"));
+
+		String since = TimeSeries.encodeSince(mark);
+
+		assertEquals(mark, TimeSeries.decodeSince(since));
+		// a client can start from a date-time of its own
+		assertEquals(Timestamp.from(Instant.parse("2021-06-21T21:00:00Z")), TimeSeries.decodeSince("2021-06-21T14:00:00-07:00"));
+	}
 
+	@Test
+	public void testInvalidSince()
+	{
+		assertThrows(IllegalArgumentException.class,
+				() -> TimeSeries.decodeSince(CwmsDTOPaginated.encodeCursor("page", 5)));
+	}
 
 	@NotNull
 	public static ObjectMapper buildObjectMapper()
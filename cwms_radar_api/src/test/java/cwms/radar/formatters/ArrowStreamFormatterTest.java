@@ -0,0 +1,107 @@
+package cwms.radar.formatters;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import cwms.radar.data.dto.Catalog;
+import cwms.radar.data.dto.TimeSeries;
+import cwms.radar.data.dto.catalog.TimeseriesCatalogEntry;
+import cwms.radar.formatters.arrow.ArrowStreamFormatter;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ArrowStreamFormatterTest {
+
+    private static final ContentType ARROW = new ContentType(Formats.ARROW_STREAM);
+
+    @Test
+    public void testTimeSeriesRoundTrip() throws Exception {
+        ZonedDateTime begin = ZonedDateTime.parse("2021-06-21T08:00:00-07:00[PST8PDT]");
+        TimeSeries ts = new TimeSeries(null, -1, 0, "Test.Stage.Inst.1Hour.0.RAW", "SPK", begin, begin.plusHours(2), "ft", Duration.ofHours(1));
+        long start = begin.toInstant().toEpochMilli();
+        ts.addValue(new Timestamp(start), 1.0, 0);
+        ts.addValue(new Timestamp(start + 3_600_000), null, 5);
+        ts.addValue(new Timestamp(start + 7_200_000), 2.5, 3);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Formats.format(ARROW, ts, out);
+
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            Schema schema = root.getSchema();
+            assertEquals("date-time", schema.getFields().get(0).getName());
+            assertEquals("value", schema.getFields().get(1).getName());
+            assertEquals("quality-code", schema.getFields().get(2).getName());
+            assertEquals("Test.Stage.Inst.1Hour.0.RAW", schema.getCustomMetadata().get("name"));
+            assertEquals("SPK", schema.getCustomMetadata().get("office-id"));
+            assertEquals("ft", schema.getCustomMetadata().get("units"));
+
+            assertTrue(reader.loadNextBatch());
+            assertEquals(3, root.getRowCount());
+            TimeStampMilliTZVector times = (TimeStampMilliTZVector) root.getVector("date-time");
+            Float8Vector values = (Float8Vector) root.getVector("value");
+            IntVector qualities = (IntVector) root.getVector("quality-code");
+            assertEquals(start + 3_600_000, times.get(1));
+            assertEquals(1.0, values.get(0));
+            assertTrue(values.isNull(1));
+            assertEquals(2.5, values.get(2));
+            assertEquals(3, qualities.get(2));
+            assertFalse(reader.loadNextBatch());
+        }
+    }
+
+    @Test
+    public void testCatalogRoundTripAcrossBatches() throws Exception {
+        int count = ArrowStreamFormatter.BATCH_SIZE + 5;
+        List<TimeseriesCatalogEntry> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            entries.add(new TimeseriesCatalogEntry("SWT", "Keys.Stage.Inst.1Hour.0.raw-" + i, i % 2 == 0 ? "ft" : null));
+        }
+        Catalog catalog = new Catalog(null, count, count, entries);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Formats.format(ARROW, catalog, out);
+
+        try (BufferAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertEquals("office", root.getSchema().getFields().get(0).getName());
+            assertEquals("name", root.getSchema().getFields().get(1).getName());
+            assertEquals("units", root.getSchema().getFields().get(2).getName());
+            assertEquals(String.valueOf(count), root.getSchema().getCustomMetadata().get("total"));
+
+            int rows = 0;
+            List<Integer> batches = new ArrayList<>();
+            while (reader.loadNextBatch()) {
+                VarCharVector names = (VarCharVector) root.getVector("name");
+                VarCharVector units = (VarCharVector) root.getVector("units");
+                for (int i = 0; i < root.getRowCount(); i++, rows++) {
+                    assertEquals("Keys.Stage.Inst.1Hour.0.raw-" + rows, names.getObject(i).toString());
+                    assertEquals(rows % 2 != 0, units.isNull(i));
+                }
+                batches.add(root.getRowCount());
+            }
+            assertEquals(count, rows);
+            assertEquals(ArrowStreamFormatter.BATCH_SIZE, (int) batches.get(0));
+            assertEquals(5, (int) batches.get(1));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package cwms.radar.formatters;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cwms.radar.data.dto.Catalog;
+import cwms.radar.data.dto.catalog.TimeseriesCatalogEntry;
+import cwms.radar.formatters.json.JsonV2;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FieldsTest {
+
+    @Test
+    public void testParse() {
+        assertTrue(Fields.parse(null, TimeseriesCatalogEntry.class).isEmpty());
+        assertEquals(Collections.singleton("units"), Fields.parse(" Units, ", TimeseriesCatalogEntry.class));
+        assertThrows(IllegalArgumentException.class, () -> Fields.parse("units,colour", TimeseriesCatalogEntry.class));
+    }
+
+    @Test
+    public void testOnlyTheEntriesAreTrimmed() throws Exception {
+        Catalog cat = new Catalog(null, 3, 2, Arrays.asList(
+                new TimeseriesCatalogEntry("SPK", "Alpha.Stage.Inst.1Hour.0.RAW", "ft"),
+                new TimeseriesCatalogEntry("SPK", "Beta.Flow.Inst.1Hour.0.RAW", "cfs")));
+        Set<String> fields = Fields.parse("office,ts-name", TimeseriesCatalogEntry.class);
+
+        String json = new JsonV2().format(cat, fields);
+
+        JsonNode root = new ObjectMapper().readTree(json);
+        assertEquals(3, root.get("total").asInt());
+        assertTrue(root.has("next-page"));
+        JsonNode first = root.get("entries").get(0);
+        assertEquals("Alpha.Stage.Inst.1Hour.0.RAW", first.get("ts-name").asText());
+        assertEquals("SPK", first.get("office").asText());
+        assertFalse(first.has("units"));
+    }
+}
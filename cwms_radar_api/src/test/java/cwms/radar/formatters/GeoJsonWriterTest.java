@@ -0,0 +1,79 @@
+package cwms.radar.formatters;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cwms.radar.formatters.json.GeoJsonWriter;
+import org.geojson.Feature;
+import org.geojson.FeatureCollection;
+import org.geojson.Point;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GeoJsonWriterTest {
+
+    @Test
+    public void testMatchesFeatureCollection() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GeoJsonWriter writer = new GeoJsonWriter(out);
+        try {
+            writer.writePoint("Alpha", -121.5, 38.5, "avLoc", new String[]{"LOCATION_ID", null, "ELEVATION", "NEAREST_CITY"},
+                    new Object[]{"Alpha", 38.5, new BigDecimal("12.5"), null});
+            writer.writePoint("Beta", 0.0, 0.0, "avLoc", new String[]{"LOCATION_ID", null, "ELEVATION", "NEAREST_CITY"},
+                    new Object[]{"Beta", null, null, "Town"});
+        } finally {
+            writer.close();
+        }
+
+        FeatureCollection expected = new FeatureCollection();
+        expected.setFeatures(Arrays.asList(
+                feature("Alpha", -121.5, 38.5, props("LOCATION_ID", "Alpha", "ELEVATION", new BigDecimal("12.5"))),
+                feature("Beta", 0.0, 0.0, props("LOCATION_ID", "Beta", "NEAREST_CITY", "Town"))));
+
+        ObjectMapper om = new ObjectMapper();
+        assertEquals(out.size(), writer.getBytesWritten());
+        JsonNode actual = om.readTree(out.toByteArray());
+        assertEquals(om.readTree(om.writeValueAsString(expected)), actual);
+    }
+
+    @Test
+    public void testAbortedCollectionIsNotFinished() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GeoJsonWriter writer = new GeoJsonWriter(out);
+        writer.writePoint("Alpha", -121.5, 38.5, "avLoc", new String[]{"LOCATION_ID"}, new Object[]{"Alpha"});
+        writer.abort();
+        writer.close();
+
+        String written = out.toString("UTF-8");
+        assertEquals(written.length(), writer.getBytesWritten());
+        assertTrue(written.endsWith("\"id\":\"Alpha\"}"), written);
+        assertThrows(JsonProcessingException.class, () -> new ObjectMapper().readTree(written));
+    }
+
+    private static Feature feature(String id, double lon, double lat, Map<String, Object> avLoc) {
+        Feature feature = new Feature();
+        feature.setId(id);
+        feature.setGeometry(new Point(lon, lat));
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("avLoc", avLoc);
+        feature.setProperties(properties);
+        return feature;
+    }
+
+    private static Map<String, Object> props(Object... keyValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            map.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,60 @@
+package cwms.radar.formatters;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cwms.radar.data.dto.TimeSeries;
+import cwms.radar.formatters.json.JsonV2;
+import cwms.radar.formatters.json.JsonV2Binary;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JsonV2BinaryTest {
+
+    @Test
+    public void testSmileAndCborMatchJsonV2() throws Exception {
+        TimeSeries ts = buildTimeSeries();
+        JsonNode expected = new ObjectMapper().readTree(new JsonV2().format(ts));
+
+        for(String type : new String[]{Formats.SMILE, Formats.CBOR}) {
+            ContentType contentType = new ContentType(type);
+            assertTrue(Formats.isStreaming(contentType, TimeSeries.class));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Formats.format(contentType, ts, out);
+            JsonNode actual = JsonV2Binary.getObjectMapperForFormat(type).readTree(out.toByteArray());
+
+            assertEquals(expected, actual, type);
+        }
+    }
+
+    @Test
+    public void testTimeSeriesRoundTrip() throws Exception {
+        TimeSeries ts = buildTimeSeries();
+        for(String type : new String[]{Formats.SMILE, Formats.CBOR}) {
+            byte[] body = Formats.formatBytes(new ContentType(type), ts);
+            TimeSeries read = JsonV2Binary.getObjectMapperForFormat(type).readValue(body, TimeSeries.class);
+
+            assertEquals(ts.getName(), read.getName());
+            assertEquals(ts.getUnits(), read.getUnits());
+            assertEquals(ts.getValues().size(), read.getValues().size());
+            assertEquals(ts.getValues().get(1).getValue(), read.getValues().get(1).getValue());
+            assertEquals(ts.getValues().get(1).getDateTime(), read.getValues().get(1).getDateTime());
+        }
+    }
+
+    private static TimeSeries buildTimeSeries() {
+        ZonedDateTime begin = ZonedDateTime.parse("2021-06-21T08:00:00-07:00[PST8PDT]");
+        TimeSeries ts = new TimeSeries(null, -1, 0, "Test.Stage.Inst.1Hour.0.RAW", "SPK", begin, begin.plusHours(2), "ft", Duration.ofHours(1));
+        long start = begin.toInstant().toEpochMilli();
+        ts.addValue(new Timestamp(start), 1.0, 0);
+        ts.addValue(new Timestamp(start + 3_600_000), 2.5, 0);
+        return ts;
+    }
+}
@@ -0,0 +1,69 @@
+package cwms.radar.formatters;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cwms.radar.data.dto.TimeSeries;
+import cwms.radar.formatters.json.JsonV2Regular;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JsonV2RegularTest extends TimeSeriesTestBase {
+
+    @Override
+    public OutputFormatter getOutputFormatter() {
+        return new JsonV2Regular();
+    }
+
+    @Test
+    @Override
+    public void SingleTimeseriesFormat() {
+        // irregular, so written as plain JSON v2
+        super.SingleTimeseriesFormat();
+    }
+
+    @Test
+    public void testRegularSeriesIsCompact() throws Exception {
+        ZonedDateTime begin = ZonedDateTime.parse("2021-06-21T08:00:00-07:00[PST8PDT]");
+        TimeSeries ts = new TimeSeries(null, -1, 0, "Test.Stage.Inst.1Hour.0.RAW", "SPK", begin, begin.plusHours(6), "ft", Duration.ofHours(1));
+        long start = begin.toInstant().toEpochMilli();
+        long hour = Duration.ofHours(1).toMillis();
+        ts.addValue(new Timestamp(start), 1.0, 0);
+        ts.addValue(new Timestamp(start + hour), 2.0, 0);
+        ts.addValue(new Timestamp(start + 2 * hour), null, 5);
+        // no record for the 4th and 5th hours
+        ts.addValue(new Timestamp(start + 5 * hour), 6.0, 0);
+
+        JsonNode json = new ObjectMapper().readTree(getOutputFormatter().format(ts));
+
+        assertEquals(JsonV2Regular.ENCODING, json.get("encoding").asText());
+        assertEquals(start, json.get("start").asLong());
+        assertEquals(hour, json.get("interval-millis").asLong());
+        assertEquals("[1.0,2.0,null,6.0]", json.get("values").toString());
+        assertEquals("[[0,2],[5,1],[0,1]]", json.get("quality-runs").toString());
+        assertEquals("[[3,2]]", json.get("gaps").toString());
+        assertEquals("Test.Stage.Inst.1Hour.0.RAW", json.get("name").asText());
+        assertFalse(json.has("value-columns"));
+    }
+
+    @Test
+    public void testOffIntervalFallsBack() throws Exception {
+        ZonedDateTime begin = ZonedDateTime.parse("2021-06-21T08:00:00-07:00[PST8PDT]");
+        TimeSeries ts = new TimeSeries(null, -1, 0, "Test.Stage.Inst.1Hour.0.RAW", "SPK", begin, begin.plusHours(6), "ft", Duration.ofHours(1));
+        long start = begin.toInstant().toEpochMilli();
+        ts.addValue(new Timestamp(start), 1.0, 0);
+        ts.addValue(new Timestamp(start + 90 * 60_000), 2.0, 0);
+
+        JsonNode json = new ObjectMapper().readTree(getOutputFormatter().format(ts));
+
+        assertFalse(json.has("encoding"));
+        assertTrue(json.get("values").isArray());
+        assertEquals(2, json.get("values").size());
+    }
+}
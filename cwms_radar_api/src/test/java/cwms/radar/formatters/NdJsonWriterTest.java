@@ -0,0 +1,36 @@
+package cwms.radar.formatters;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cwms.radar.data.dto.catalog.TimeseriesCatalogEntry;
+import cwms.radar.formatters.json.NdJsonWriter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class NdJsonWriterTest {
+
+    @Test
+    public void testOneEntryPerLine() throws Exception {
+        Stream<TimeseriesCatalogEntry> entries = Stream.of(
+                new TimeseriesCatalogEntry("SPK", "Alpha.Stage.Inst.1Hour.0.RAW", "ft"),
+                new TimeseriesCatalogEntry("SPK", "Beta.Flow.Inst.1Hour.0.RAW", "cfs"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = new NdJsonWriter().write(entries, out);
+
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(2, count);
+        assertEquals(3, lines.length);
+        assertEquals("", lines[2]);
+
+        ObjectMapper om = new ObjectMapper();
+        JsonNode first = om.readTree(lines[0]);
+        assertEquals("Alpha.Stage.Inst.1Hour.0.RAW", first.get("ts-name").asText());
+        assertEquals("cfs", om.readTree(lines[1]).get("units").asText());
+    }
+}
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.servlet.http.HttpServletResponse;
@@ -33,6 +34,11 @@ import cwms.radar.api.UnitsController;
 import cwms.radar.api.BasinController;
 import cwms.radar.api.enums.UnitSystem;
 import cwms.radar.api.errors.RadarError;
+import cwms.radar.api.sse.RecentValueSubscriptions;
+import cwms.radar.data.LazyConnection;
+import cwms.radar.data.dao.LatestValuePoller;
+import cwms.radar.data.dao.ScheduledRefresher;
+import cwms.radar.data.dao.RecentValueBatcher;
 import cwms.radar.formatters.FormattingException;
 import cwms.radar.security.CwmsAuthException;
 import cwms.radar.security.CwmsAuthorizer;
@@ -54,6 +60,8 @@ import org.owasp.html.PolicyFactory;
 
 import static io.javalin.apibuilder.ApiBuilder.crud;
 import static io.javalin.apibuilder.ApiBuilder.get;
+import static io.javalin.apibuilder.ApiBuilder.post;
+import static io.javalin.apibuilder.ApiBuilder.sse;
 
 
 public class RadarAPI {
@@ -62,6 +70,10 @@ public class RadarAPI {
     private static final Meter total_requests = metrics.meter("radar.total_requests");
     private Javalin app = null;
     private int port = -1;
+    private RecentValueBatcher recentValueBatcher = null;
+    private LatestValuePoller latestValuePoller = null;
+    private List<ScheduledRefresher> cacheRefreshers = null;
+    private RecentValueSubscriptions recentValueSubscriptions = null;
 
     public static void main(String[] args){
         DataSource ds = new DataSource();
@@ -96,6 +108,13 @@ public class RadarAPI {
         om.registerModule(new JavaTimeModule());
 
         CwmsAuthorizer authorizer = getAuthorizer();
+        recentValueBatcher = new RecentValueBatcher(ds, metrics);
+        latestValuePoller = new LatestValuePoller(ds, metrics);
+        cacheRefreshers = ScheduledRefresher.startCaches(ds, metrics);
+        // pushed changes come from the poller, without it the stream answers 501
+        if( latestValuePoller.isPolling() ){
+            recentValueSubscriptions = new RecentValueSubscriptions(metrics);
+        }
 
         //JavalinJackson.configure(om);
         app = Javalin.create( config -> {
@@ -111,12 +130,15 @@ public class RadarAPI {
         }).attribute("PolicyFactory",sanitizer)
           .attribute("ObjectMapper",om)
           .attribute("Authorizer",authorizer)
+          .attribute("RecentValueBatcher",recentValueBatcher)
+          .attribute("RecentValueSubscriptions",recentValueSubscriptions)
           .attribute("RADAR_ALLOW_WRITE", System.getProperty("RADAR_ALLOW_WRITE", "false").equalsIgnoreCase("true") ? Boolean.TRUE: Boolean.FALSE )
           .before( ctx -> {
             ctx.header("X-Content-Type-Options","nosniff");
             ctx.header("X-Frame-Options","SAMEORIGIN");
             ctx.header("X-XSS-Protection", "1; mode=block");
-            ctx.attribute("database",ds.getConnection());
+            // only taken from the pool if the request reads the database
+            ctx.attribute("database",LazyConnection.of(ds));
             /* authorization on connection setup will go here
             Connection conn = ctx.attribute("db");
             */
@@ -170,7 +192,9 @@ public class RadarAPI {
         })
         .routes( () -> {
             //get("/", ctx -> { ctx.result("welcome to the CWMS REST API").contentType(Formats.PLAIN);});
-            crud("/locations/{location_id}", new LocationController(metrics));
+            LocationController locationController = new LocationController(metrics);
+            crud("/locations/{location_id}", locationController);
+            get("/search/locations", locationController::search);
             crud("/location/category/{category-id}", new LocationCategoryController(metrics));
             crud("/location/group/{group-id}", new LocationGroupController(metrics));
             crud("/offices/{office}", new OfficeController(metrics));
@@ -183,10 +207,16 @@ public class RadarAPI {
             TimeSeriesController tsController = new TimeSeriesController(metrics);
             crud("/timeseries/{timeseries}", tsController);
             get("/timeseries/recent/{group-id}", tsController::getRecent);
+            sse("/timeseries/recent/{group-id}/stream", tsController::streamRecent);
             crud("/ratings/{rating}", new RatingController(metrics));
             crud("/catalog/{dataSet}", new CatalogController(metrics));
             crud("/blobs/{blob-id}", new BlobController(metrics));
-            crud("/basins/{basin-id}", new BasinController(metrics));
+            BasinController basinController = new BasinController(metrics);
+            crud("/basins/{basin-id}", basinController);
+            post("/basins/refresh", basinController::refresh);
+            get("/basins/{basin-id}/upstream/{node-id}", basinController::getUpstream);
+            get("/basins/{basin-id}/downstream/{node-id}", basinController::getDownstream);
+            get("/basins/{basin-id}/neighborhood/{node-id}", basinController::getNeighborhood);
             crud("/clobs/{clob-id}", new ClobController(metrics));
             crud("/pools/{pool-id}", new PoolController(metrics));
         });
@@ -215,6 +245,12 @@ public class RadarAPI {
 
     public void stop(){
         this.app.stop();
+        recentValueBatcher.close();
+        latestValuePoller.close();
+        ScheduledRefresher.closeAll(cacheRefreshers);
+        if( recentValueSubscriptions != null ){
+            recentValueSubscriptions.close();
+        }
     }
 
     private static String getconfig(String envName){
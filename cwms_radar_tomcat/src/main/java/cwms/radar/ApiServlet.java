@@ -3,6 +3,7 @@ package cwms.radar;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Resource;
@@ -37,6 +38,11 @@ import cwms.radar.api.TimeZoneController;
 import cwms.radar.api.UnitsController;
 import cwms.radar.api.enums.UnitSystem;
 import cwms.radar.api.errors.RadarError;
+import cwms.radar.api.sse.RecentValueSubscriptions;
+import cwms.radar.data.LazyConnection;
+import cwms.radar.data.dao.LatestValuePoller;
+import cwms.radar.data.dao.ScheduledRefresher;
+import cwms.radar.data.dao.RecentValueBatcher;
 import cwms.radar.formatters.Formats;
 import cwms.radar.formatters.FormattingException;
 import io.javalin.Javalin;
@@ -58,13 +64,15 @@ import cwms.radar.api.errors.RadarError;
 
 import static io.javalin.apibuilder.ApiBuilder.crud;
 import static io.javalin.apibuilder.ApiBuilder.get;
+import static io.javalin.apibuilder.ApiBuilder.post;
+import static io.javalin.apibuilder.ApiBuilder.sse;
 
 
 /**
  * Setup all the information required so we can serve the request.
  *
  */
-@WebServlet(urlPatterns = { "/catalog/*",
+@WebServlet(asyncSupported = true, urlPatterns = { "/catalog/*",
                             "/swagger-docs",
                             "/timeseries/*",
                             "/offices/*",
@@ -77,7 +85,8 @@ import static io.javalin.apibuilder.ApiBuilder.get;
                             "/basins/*",
                             "/blobs/*",
                             "/clobs/*",
-                            "/pools/*"
+                            "/pools/*",
+                            "/search/*"
 })
 public class ApiServlet extends HttpServlet {
     public static final Logger logger = Logger.getLogger(ApiServlet.class.getName());
@@ -89,6 +98,10 @@ public class ApiServlet extends HttpServlet {
     private static final long serialVersionUID = 1L;
 
     static JavalinServlet javalin = null;
+    private RecentValueBatcher recentValueBatcher = null;
+    private LatestValuePoller latestValuePoller = null;
+    private List<ScheduledRefresher> cacheRefreshers = null;
+    private RecentValueSubscriptions recentValueSubscriptions = null;
 
     @Resource(name = "jdbc/CWMS3")
     DataSource cwms;
@@ -104,6 +117,13 @@ public class ApiServlet extends HttpServlet {
         JavalinValidation.register(UnitSystem.class, UnitSystem::systemFor);
         om.setPropertyNamingStrategy(PropertyNamingStrategies.KEBAB_CASE);
         om.registerModule(new JavaTimeModule());            // Needed in Java 8 to properly format java.time classes
+        recentValueBatcher = new RecentValueBatcher(cwms, metrics);
+        latestValuePoller = new LatestValuePoller(cwms, metrics);
+        cacheRefreshers = ScheduledRefresher.startCaches(cwms, metrics);
+        // pushed changes come from the poller, without it the stream answers 501
+        if( latestValuePoller.isPolling() ){
+            recentValueSubscriptions = new RecentValueSubscriptions(metrics);
+        }
 
         javalin = Javalin.createStandalone(config -> {
             config.defaultContentType = "application/json";
@@ -115,6 +135,8 @@ public class ApiServlet extends HttpServlet {
         })
                 .attribute("PolicyFactory",sanitizer)
                 .attribute("ObjectMapper",om)
+                .attribute("RecentValueBatcher",recentValueBatcher)
+                .attribute("RecentValueSubscriptions",recentValueSubscriptions)
                 .attribute("RADAR_ALLOW_WRITE", System.getProperty("RADAR_ALLOW_WRITE", "false").equalsIgnoreCase("true") ? Boolean.TRUE: Boolean.FALSE )
                 .before( ctx -> {
                     /* authorization on connection setup will go here
@@ -159,7 +181,9 @@ public class ApiServlet extends HttpServlet {
                 })
                 .routes( () -> {
                     get("/", ctx -> ctx.result("Welcome to the CWMS REST API").contentType(Formats.PLAIN));
-                    crud("/locations/{location_code}", new LocationController(metrics));
+                    LocationController locationController = new LocationController(metrics);
+                    crud("/locations/{location_code}", locationController);
+                    get("/search/locations", locationController::search);
                     crud("/location/category/{category-id}", new LocationCategoryController(metrics));
                     crud("/location/group/{group-id}", new LocationGroupController(metrics));
                     crud("/offices/{office}", new OfficeController(metrics));
@@ -172,10 +196,16 @@ public class ApiServlet extends HttpServlet {
                     TimeSeriesController tsController = new TimeSeriesController(metrics);
                     crud("/timeseries/{timeseries}", tsController);
                     get("/timeseries/recent/{group-id}", tsController::getRecent);
+                    sse("/timeseries/recent/{group-id}/stream", tsController::streamRecent);
 
                     crud("/ratings/{rating}", new RatingController(metrics));
                     crud("/catalog/{dataSet}", new CatalogController(metrics));
-                    crud("/basins/{basin-id}", new BasinController(metrics));
+                    BasinController basinController = new BasinController(metrics);
+                    crud("/basins/{basin-id}", basinController);
+                    post("/basins/refresh", basinController::refresh);
+                    get("/basins/{basin-id}/upstream/{node-id}", basinController::getUpstream);
+                    get("/basins/{basin-id}/downstream/{node-id}", basinController::getDownstream);
+                    get("/basins/{basin-id}/neighborhood/{node-id}", basinController::getNeighborhood);
                     crud("/blobs/{blob-id}", new BlobController(metrics));
                     crud("/clobs/{clob-id}", new ClobController(metrics));
                     crud("/pools/{pool-id}", new PoolController(metrics));
@@ -194,7 +224,8 @@ public class ApiServlet extends HttpServlet {
     @Override
     protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         total_requests.mark();
-        try (Connection db = cwms.getConnection()) {
+        // only taken from the pool if the request reads the database
+        try (Connection db = LazyConnection.of(cwms)) {
             String office = req.getContextPath().substring(1).split("-")[0];//
             if( office.equalsIgnoreCase("cwms")){
                 office = "HQ";
@@ -208,6 +239,21 @@ public class ApiServlet extends HttpServlet {
 
     }
 
+    @Override
+    public void destroy() {
+        if( recentValueBatcher != null ){
+            recentValueBatcher.close();
+        }
+        if( latestValuePoller != null ){
+            latestValuePoller.close();
+        }
+        ScheduledRefresher.closeAll(cacheRefreshers);
+        if( recentValueSubscriptions != null ){
+            recentValueSubscriptions.close();
+        }
+        super.destroy();
+    }
+
     @Override
     public void init(ServletConfig config) throws ServletException {
         metrics = (MetricRegistry)config.getServletContext().getAttribute(MetricsServlet.METRICS_REGISTRY);